@@ -0,0 +1,112 @@
+package com.mt5trading.jmh;
+
+import com.mt5trading.models.CandleData;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 基准测试的输入数据
+ * K线按 US30 的一分钟波动生成随机游走，消息格式与 EA（以及 {@code SimulatedEAServer}）推送的一致。
+ * 同样的种子总是生成同样的数据，不同次运行的结果可以直接对比。
+ */
+public final class BenchmarkData {
+    // US30 一分钟K线收盘价变化的典型标准差（点）
+    private static final double BAR_SIGMA = 15;
+    private static final double SPREAD = 2.0;
+    private static final long START_SECONDS = 1_704_700_800L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 一分钟K线的随机游走
+     */
+    public static List<CandleData> candles(String symbol, int size, long seed) {
+        Random random = new Random(seed);
+        List<CandleData> candles = new ArrayList<>(size);
+        LocalDateTime time = LocalDateTime.of(2024, 1, 8, 0, 0);
+        double close = 35000;
+        for (int i = 0; i < size; i++) {
+            double open = close;
+            close = open + random.nextGaussian() * BAR_SIGMA;
+            double high = Math.max(open, close) + Math.abs(random.nextGaussian()) * BAR_SIGMA / 2;
+            double low = Math.min(open, close) - Math.abs(random.nextGaussian()) * BAR_SIGMA / 2;
+            CandleData candle = new CandleData(time.plusMinutes(i), open, high, low, close,
+                    100 + random.nextInt(900));
+            candle.setSymbol(symbol);
+            candles.add(candle);
+        }
+        return candles;
+    }
+
+    /**
+     * 行情推送消息，每条 ticksPerMessage 笔报价
+     */
+    public static String[] marketMessages(String symbol, int count, int ticksPerMessage, long seed) {
+        Random random = new Random(seed);
+        String[] messages = new String[count];
+        double mid = 35000;
+        long seconds = START_SECONDS;
+        StringBuilder sb = new StringBuilder(64 + ticksPerMessage * 80);
+        for (int m = 0; m < count; m++) {
+            sb.setLength(0);
+            sb.append("{\"type\":\"market\",\"data\":[");
+            for (int t = 0; t < ticksPerMessage; t++) {
+                mid += random.nextGaussian() * 1.5;
+                double bid = Math.round((mid - SPREAD / 2) * 100) / 100.0;
+                double ask = Math.round((mid + SPREAD / 2) * 100) / 100.0;
+                if (t > 0) {
+                    sb.append(',');
+                }
+                sb.append("{\"symbol\":\"").append(symbol)
+                        .append("\",\"bid\":").append(bid)
+                        .append(",\"ask\":").append(ask)
+                        .append(",\"time\":").append(seconds).append('}');
+                if (random.nextInt(4) == 0) {
+                    seconds++;
+                }
+            }
+            sb.append("]}");
+            messages[m] = sb.toString();
+        }
+        return messages;
+    }
+
+    /**
+     * 成交回报消息
+     */
+    public static String[] tradeResultMessages(String symbol, int count, long seed) {
+        Random random = new Random(seed);
+        String[] messages = new String[count];
+        for (int m = 0; m < count; m++) {
+            boolean buy = random.nextBoolean();
+            messages[m] = String.format(Locale.ROOT,
+                    "{\"type\":\"trade_result\",\"status\":\"success\",\"client_id\":\"SDS-%08d\",\"ticket\":%d," +
+                    "\"symbol\":\"%s\",\"action\":\"%s\",\"volume\":%.2f,\"price\":%.5f,\"time\":%d}",
+                    m, 50_000_000 + m, symbol, buy ? "BUY" : "SELL", 0.01 * (1 + random.nextInt(100)),
+                    35000 + random.nextGaussian() * 100, START_SECONDS + m);
+        }
+        return messages;
+    }
+
+    /**
+     * 账户信息消息
+     */
+    public static String[] accountInfoMessages(int count, long seed) {
+        Random random = new Random(seed);
+        String[] messages = new String[count];
+        for (int m = 0; m < count; m++) {
+            double balance = 10000 + random.nextGaussian() * 500;
+            double profit = random.nextGaussian() * 50;
+            messages[m] = String.format(Locale.ROOT,
+                    "{\"type\":\"account_info\",\"balance\":%.2f,\"equity\":%.2f,\"margin\":0.00,\"free_margin\":%.2f," +
+                    "\"currency\":\"USD\",\"leverage\":100,\"profit\":%.2f,\"time\":%d}",
+                    balance, balance + profit, balance + profit, profit, START_SECONDS + m);
+        }
+        return messages;
+    }
+}
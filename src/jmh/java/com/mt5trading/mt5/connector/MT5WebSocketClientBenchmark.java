@@ -0,0 +1,132 @@
+package com.mt5trading.mt5.connector;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.jmh.BenchmarkData;
+import com.mt5trading.models.CandleData;
+import com.mt5trading.services.DecisionEngine;
+import com.mt5trading.services.EngineEventLoop;
+import com.mt5trading.services.PositionBook;
+import com.mt5trading.services.RiskEngine;
+import com.mt5trading.timer.VirtualClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 入站消息处理：JSON 解析、按类型分发，行情经过风控、持仓簿和决策引擎
+ * 客户端不连接服务器，消息直接交给 processMessage，测到的是消息处理线程上的开销。
+ * 每类消息预先生成一组不同内容的消息轮流使用。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MT5WebSocketClientBenchmark {
+    private static final int MESSAGES = 256;
+
+    private MT5WebSocketClient client;
+    private CountingEngine engine;
+    private String[] tradeMessages;
+    private String[] accountMessages;
+    private int next;
+
+    /**
+     * 行情消息，只有 market 基准按批量大小展开
+     */
+    @State(Scope.Thread)
+    public static class Market {
+        /**
+         * 每条行情消息的报价笔数：1 为逐笔推送，100 为 EA 批量推送
+         */
+        @Param({"1", "10", "100"})
+        int ticksPerMessage;
+
+        String[] messages;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            messages = BenchmarkData.marketMessages(TradingConfig.fromProperties(new Properties()).getSymbol(),
+                    MESSAGES, ticksPerMessage, 42);
+        }
+    }
+
+    /**
+     * 只计数的决策引擎，运行在虚拟时钟上，事件同步处理
+     */
+    static final class CountingEngine extends DecisionEngine {
+        long candles;
+        long ticks;
+
+        CountingEngine(TradingConfig config) {
+            super(config, null, new VirtualClock(Instant.EPOCH), EngineEventLoop.direct("CountingEngine"));
+        }
+
+        @Override
+        public void analyzeNewCandle(CandleData candle) {
+            candles++;
+        }
+
+        @Override
+        public void executeTrade(String symbol, String action, double volume) {
+        }
+
+        @Override
+        public void onTick(String symbol, double bid, double ask, long timeMillis) {
+            ticks++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TradingConfig config = TradingConfig.fromProperties(new Properties());
+        engine = new CountingEngine(config);
+        PositionBook positions = new PositionBook(1.0);
+        client = new MT5WebSocketClient(URI.create("ws://localhost:0"), config, candle -> { }, engine,
+                new RiskEngine(config, positions, 10000));
+        client.setPositionBook(positions);
+        tradeMessages = BenchmarkData.tradeResultMessages(config.getSymbol(), MESSAGES, 42);
+        accountMessages = BenchmarkData.accountInfoMessages(MESSAGES, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (MESSAGES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public void market(Market market) {
+        client.processMessage(market.messages[nextIndex()]);
+    }
+
+    @Benchmark
+    public void tradeResult() {
+        client.processMessage(tradeMessages[nextIndex()]);
+    }
+
+    @Benchmark
+    public void accountInfo() {
+        client.processMessage(accountMessages[nextIndex()]);
+    }
+}
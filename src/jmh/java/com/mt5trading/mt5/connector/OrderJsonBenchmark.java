@@ -0,0 +1,81 @@
+package com.mt5trading.mt5.connector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MT5Connector} 生成出站指令 JSON 的开销，与预先编码的 {@link StagedOrder} 对照
+ * 价格轮流取一组接近 US30 报价的值，避免常量折叠。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderJsonBenchmark {
+    private static final int PRICES = 1024;
+    private static final long TIMESTAMP = 1_704_700_800_000L;
+
+    private double[] prices;
+    private StagedOrder staged;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        prices = new double[PRICES];
+        for (int i = 0; i < PRICES; i++) {
+            prices[i] = Math.round((35000 + random.nextGaussian() * 200) * 100) / 100.0;
+        }
+        staged = new StagedOrder("SDS-00000001", "US30", "BUY", 0.5, 80, 160, "MT5-SDS Auto Trade");
+    }
+
+    private double nextPrice() {
+        next = (next + 1) & (PRICES - 1);
+        return prices[next];
+    }
+
+    @Benchmark
+    public String trade() {
+        double price = nextPrice();
+        return MT5Connector.tradeJson("SDS-00000001", "BUY", "US30", 0.5, price, price - 80, price + 160,
+                "MT5-SDS Auto Trade", TIMESTAMP + next);
+    }
+
+    @Benchmark
+    public String stagedTrade() {
+        return staged.render(nextPrice(), TIMESTAMP + next);
+    }
+
+    @Benchmark
+    public String executeOrder() {
+        double price = nextPrice();
+        return MT5Connector.executeOrderJson(50_000_001, "US30", "BUY_LIMIT", 0.5, price, price - 80, price + 160,
+                "MT5-SDS approved", TIMESTAMP + next);
+    }
+
+    @Benchmark
+    public String modifyOrder() {
+        double price = nextPrice();
+        return MT5Connector.modifyOrderJson(50_000_001, "US30", "BUY_LIMIT", 0.5, price, price - 80, price + 160,
+                "MT5-SDS paused", TIMESTAMP + next);
+    }
+
+    @Benchmark
+    public String cancelOrder() {
+        nextPrice();
+        return MT5Connector.cancelOrderJson(50_000_001 + next, "user_cancelled", TIMESTAMP + next);
+    }
+}
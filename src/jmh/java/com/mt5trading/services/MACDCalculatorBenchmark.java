@@ -0,0 +1,48 @@
+package com.mt5trading.services;
+
+import com.mt5trading.jmh.BenchmarkData;
+import com.mt5trading.models.CandleData;
+import com.mt5trading.models.MACDData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每根新K线上计算一次当前 MACD 的开销，历史长度取引擎常用的几档
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MACDCalculatorBenchmark {
+
+    @Param({"100", "500", "2000"})
+    int history;
+
+    private List<CandleData> candles;
+    private MACDCalculator calculator;
+
+    @Setup
+    public void setUp() {
+        candles = BenchmarkData.candles("US30", history, 42);
+        calculator = new MACDCalculator(12, 26, 9);
+    }
+
+    @Benchmark
+    public MACDData currentMACD() {
+        return calculator.calculateCurrentMACD(candles);
+    }
+}
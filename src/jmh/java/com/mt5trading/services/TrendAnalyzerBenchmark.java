@@ -0,0 +1,61 @@
+package com.mt5trading.services;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.jmh.BenchmarkData;
+import com.mt5trading.models.CandleData;
+import com.mt5trading.models.TrendDirection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 趋势确认：K线形态判断，可选 MACD 确认
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrendAnalyzerBenchmark {
+
+    @Param({"500", "2000"})
+    int history;
+
+    @Param({"true", "false"})
+    boolean macdConfirmation;
+
+    private List<CandleData> candles;
+    private TrendAnalyzer analyzer;
+
+    @Setup
+    public void setUp() {
+        Properties props = new Properties();
+        // 开启 MACD 确认时每次判断都会在整段历史上计算一遍 MACD
+        props.setProperty("trading.use.macd.confirmation", String.valueOf(macdConfirmation));
+        analyzer = new TrendAnalyzer(TradingConfig.fromProperties(props));
+        candles = BenchmarkData.candles("US30", history, 42);
+    }
+
+    @Benchmark
+    public TrendDirection analyzeTrend() {
+        return analyzer.analyzeTrend(candles);
+    }
+
+    @Benchmark
+    public double trendStrength() {
+        return analyzer.calculateTrendStrength(candles);
+    }
+}
@@ -1,15 +1,19 @@
 package com.mt5trading;
 
+import com.mt5trading.backtest.SimulatedMT5Connector;
 import com.mt5trading.config.TradingConfig;
 import com.mt5trading.mt5.connector.MT5Connector;
 import com.mt5trading.models.CandleData;
-import com.mt5trading.services.DecisionEngine;
-import com.mt5trading.services.SimpleDecisionEngine;
-import com.mt5trading.services.UserOrderDecisionEngine;
+import com.mt5trading.services.MarketDataHandler;
+import com.mt5trading.services.StrategyHost;
+import com.mt5trading.timer.HashedWheelTimer;
+import com.mt5trading.timer.TimerService;
+import com.mt5trading.util.LatencyTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public class Main {
@@ -31,11 +35,22 @@ public class Main {
                 return;
             }
             
-            // 创建MT5连接器
-            MT5Connector mt5Connector = new MT5Connector(config);
+            // 所有周期性任务共用一个时间轮
+            TimerService timer = HashedWheelTimer.getDefault();
+            
+            // 配置文件修改后自动热加载
+            if (config.getConfigReloadInterval() > 0) {
+                config.startHotReload(timer, config.getConfigReloadInterval(), TimeUnit.SECONDS);
+            }
+            
+            // 创建MT5连接器，测试模式下行情来自 EA，订单由模拟成交器执行
+            // 连接器只在启动时选定，运行中热更新开启测试模式时由引擎拦截实盘订单
+            MT5Connector mt5Connector = config.isTestMode()
+                    ? new SimulatedMT5Connector(config, timer, config.getSimInitialBalance())
+                    : new MT5Connector(config, timer);
             
             // 创建决策引擎
-            DecisionEngine decisionEngine = createDecisionEngine(config, mt5Connector);
+            MarketDataHandler decisionEngine = createDecisionEngine(config, mt5Connector, timer);
             
             // 定义K线数据处理器
             Consumer<CandleData> onNewCandle = candle -> {
@@ -65,11 +80,10 @@ public class Main {
             
             logger.info("✅ 连接成功，系统运行中...");
             
-            // 如果是用户订单检测模式，启动订单监控
-            if (decisionEngine instanceof UserOrderDecisionEngine) {
-                logger.info("启动用户订单监控...");
-                ((UserOrderDecisionEngine) decisionEngine).displayStatus();
-            }
+            // 定期输出行情到下单的延迟统计
+            LatencyTracker.getDefault().startReporting(timer, config.getLatencyReportInterval(), TimeUnit.SECONDS);
+            
+            decisionEngine.displayStatus();
             
             // 简单的主循环
             runMainLoop(mt5Connector, config, decisionEngine);
@@ -85,15 +99,20 @@ public class Main {
     /**
      * 创建决策引擎
      */
-    private static DecisionEngine createDecisionEngine(TradingConfig config, MT5Connector connector) {
+    private static MarketDataHandler createDecisionEngine(TradingConfig config, MT5Connector connector, TimerService timer) {
+        // 配置了多个策略时由策略宿主统一分发
+        if (!config.getStrategyNames().isEmpty()) {
+            logger.info("使用多策略宿主: {}", config.getStrategyNames());
+            return new StrategyHost(config, connector, timer);
+        }
+        
         // 根据配置选择决策引擎
         if (config.isEnableOrderMonitoring()) {
             logger.info("使用用户订单检测引擎");
-            return new UserOrderDecisionEngine(config, connector);
         } else {
             logger.info("使用简单决策引擎");
-            return new SimpleDecisionEngine(config, connector);
         }
+        return StrategyHost.createEngine(config, connector, timer);
     }
     
     /**
@@ -116,7 +135,7 @@ public class Main {
     /**
      * 主循环
      */
-    private static void runMainLoop(MT5Connector mt5Connector, TradingConfig config, DecisionEngine decisionEngine) {
+    private static void runMainLoop(MT5Connector mt5Connector, TradingConfig config, MarketDataHandler decisionEngine) {
         try {
             while (true) {
                 // 保持连接
@@ -144,7 +163,7 @@ public class Main {
     /**
      * 显示系统状态
      */
-    private static void displaySystemStatus(MT5Connector mt5Connector, TradingConfig config, DecisionEngine decisionEngine) {
+    private static void displaySystemStatus(MT5Connector mt5Connector, TradingConfig config, MarketDataHandler decisionEngine) {
         try {
             // 获取当前价格
             double currentPrice = mt5Connector.getCurrentPrice(config.getSymbol());
@@ -152,10 +171,8 @@ public class Main {
                 config.getSymbol(), currentPrice, 
                 config.isTestMode() ? "测试" : "实盘");
             
-            // 如果是用户订单决策引擎，显示额外信息
-            if (decisionEngine instanceof UserOrderDecisionEngine) {
-                ((UserOrderDecisionEngine) decisionEngine).displayStatus();
-            }
+            // 显示引擎状态
+            decisionEngine.displayStatus();
             
         } catch (Exception e) {
             logger.debug("获取系统状态失败: {}", e.getMessage());
@@ -165,20 +182,24 @@ public class Main {
     /**
      * 优雅关闭
      */
-    private static void shutdown(MT5Connector mt5Connector, DecisionEngine decisionEngine) {
+    private static void shutdown(MT5Connector mt5Connector, MarketDataHandler decisionEngine) {
         logger.info("正在关闭系统...");
         
         try {
             // 关闭决策引擎
-            try {
-                decisionEngine.getClass().getMethod("shutdown").invoke(decisionEngine);
-            } catch (Exception e) {
-                // 如果决策引擎没有shutdown方法，忽略
-            }
+            decisionEngine.shutdown();
+            
+            // 输出最终延迟统计
+            LatencyTracker latencyTracker = mt5Connector.getLatencyTracker();
+            latencyTracker.stopReporting();
+            logger.info("延迟统计:\n{}", latencyTracker.getSummary());
             
             // 关闭连接器
             mt5Connector.close();
             
+            // 停止时间轮
+            mt5Connector.getTimer().stop();
+            
             logger.info("系统已关闭");
         } catch (Exception e) {
             logger.error("关闭系统时出错", e);
@@ -0,0 +1,406 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.services.SimpleDecisionEngine;
+import com.mt5trading.util.CsvWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 批量回测：品种篮子 × 候选配置
+ * 每个 (配置, 品种) 组合是一次独立的 {@link Backtester} 运行，在 fork-join 线程池上以工作窃取方式并行，
+ * 耗时不均的组合不会拖住其他线程。所有运行共享同一个内存映射的 {@link CandleStore}，
+ * 各自拥有虚拟时钟、模拟连接器和引擎，彼此之间没有共享的可变状态。
+ * 结果按添加顺序合并为一份报告，按配置汇总后可以直接比较。
+ *
+ * 运行期间 System.out 被统一屏蔽一次，引擎的控制台输出不会交错，也不会在线程间反复替换。
+ */
+public class BacktestGrid {
+    private static final Logger logger = LoggerFactory.getLogger(BacktestGrid.class);
+
+    private final Backtester.EngineFactory engineFactory;
+    private final ForkJoinPool pool;
+    private final Map<String, Properties> variants = new LinkedHashMap<>();
+    private double initialBalance = 10000;
+    private double spread = 0;
+
+    public BacktestGrid(Backtester.EngineFactory engineFactory, ForkJoinPool pool) {
+        this.engineFactory = engineFactory;
+        this.pool = pool;
+    }
+
+    public BacktestGrid(Backtester.EngineFactory engineFactory) {
+        this(engineFactory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 添加候选配置。回测时会覆盖 mt5.symbol 并关闭订单日志
+     */
+    public BacktestGrid addVariant(String name, Properties properties) {
+        if (variants.containsKey(name)) {
+            throw new IllegalArgumentException("配置名称重复: " + name);
+        }
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        variants.put(name, copy);
+        return this;
+    }
+
+    /**
+     * 从 application.properties 格式的文件添加候选配置，名称取文件名（不含扩展名）
+     */
+    public BacktestGrid addVariant(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            properties.load(input);
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return addVariant(dot > 0 ? name.substring(0, dot) : name, properties);
+    }
+
+    public void setInitialBalance(double initialBalance) {
+        this.initialBalance = initialBalance;
+    }
+
+    public void setSpread(double spread) {
+        this.spread = spread;
+    }
+
+    /**
+     * 对库中全部品种运行全部配置
+     */
+    public Report run(CandleStore store) {
+        return run(store, store.getSymbols());
+    }
+
+    public Report run(CandleStore store, List<String> symbols) {
+        if (variants.isEmpty()) {
+            throw new IllegalStateException("没有候选配置");
+        }
+        for (String symbol : symbols) {
+            if (store.get(symbol) == null) {
+                throw new IllegalArgumentException("K线库中没有品种: " + symbol);
+            }
+        }
+
+        List<String> names = new ArrayList<>(variants.keySet());
+        Entry[] entries = new Entry[names.size() * symbols.size()];
+        long start = System.nanoTime();
+        Backtester.silenceOutput();
+        try {
+            pool.invoke(new GridTask(store, names, symbols, entries, 0, entries.length));
+        } finally {
+            Backtester.restoreOutput();
+        }
+        Report report = new Report(Arrays.asList(entries), System.nanoTime() - start, pool.getParallelism());
+        logger.info("批量回测完成: {} 个配置 × {} 个品种, {} 根K线, 耗时 {}ms, {} 根/秒",
+                names.size(), symbols.size(), report.getTotalBars(), report.getElapsedNanos() / 1_000_000,
+                String.format("%.0f", report.getBarsPerSecond()));
+        return report;
+    }
+
+    /**
+     * 每个叶子任务执行一次回测，按下标二分，空闲线程窃取尚未开始的一半
+     */
+    @SuppressWarnings("serial")
+    private class GridTask extends RecursiveAction {
+        private final CandleStore store;
+        private final List<String> names;
+        private final List<String> symbols;
+        private final Entry[] entries;
+        private final int from;
+        private final int to;
+
+        GridTask(CandleStore store, List<String> names, List<String> symbols, Entry[] entries, int from, int to) {
+            this.store = store;
+            this.names = names;
+            this.symbols = symbols;
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                String variant = names.get(from / symbols.size());
+                String symbol = symbols.get(from % symbols.size());
+                entries[from] = runOne(variant, symbol, store.get(symbol));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new GridTask(store, names, symbols, entries, from, mid),
+                      new GridTask(store, names, symbols, entries, mid, to));
+        }
+    }
+
+    private Entry runOne(String variant, String symbol, BarSource bars) {
+        try {
+            Properties properties = new Properties();
+            properties.putAll(variants.get(variant));
+            properties.setProperty("mt5.symbol", symbol);
+            properties.setProperty("app.journal.enabled", "false");
+            properties.setProperty("app.strategy.name", variant);
+
+            Backtester backtester = new Backtester(TradingConfig.fromProperties(properties), engineFactory);
+            backtester.setQuiet(false);
+            backtester.setInitialBalance(initialBalance);
+            backtester.setSpread(spread);
+            return new Entry(variant, symbol, backtester.run(bars), null);
+        } catch (Exception e) {
+            logger.error("回测失败: {} {}", variant, symbol, e);
+            return new Entry(variant, symbol, null, e.toString());
+        }
+    }
+
+    /**
+     * 用法: BacktestGrid <K线库> <配置文件>...
+     * 使用 SimpleDecisionEngine 对K线库中全部品种运行每个配置文件，打印报告并写出 backtest-grid.csv
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("用法: BacktestGrid <K线库> <配置文件>...");
+            return;
+        }
+        BacktestGrid grid = new BacktestGrid(SimpleDecisionEngine::new);
+        for (int i = 1; i < args.length; i++) {
+            grid.addVariant(Paths.get(args[i]));
+        }
+        try (CandleStore store = CandleStore.open(Paths.get(args[0]))) {
+            Report report = grid.run(store);
+            System.out.print(report.format());
+            report.writeCsv(Paths.get("backtest-grid.csv"));
+        }
+    }
+
+    /**
+     * 单个 (配置, 品种) 组合的结果，失败时 result 为 null
+     */
+    public static class Entry {
+        private final String variant;
+        private final String symbol;
+        private final BacktestResult result;
+        private final String error;
+
+        Entry(String variant, String symbol, BacktestResult result, String error) {
+            this.variant = variant;
+            this.symbol = symbol;
+            this.result = result;
+            this.error = error;
+        }
+
+        public String getVariant() { return variant; }
+        public String getSymbol() { return symbol; }
+        public BacktestResult getResult() { return result; }
+        public String getError() { return error; }
+
+        public boolean isSuccess() {
+            return result != null;
+        }
+    }
+
+    /**
+     * 一个配置在全部品种上的汇总
+     */
+    public static class VariantSummary {
+        private final String variant;
+        private int runs;
+        private int failures;
+        private long bars;
+        private int trades;
+        private int wins;
+        private double netProfit;
+        private double grossProfit;
+        private double grossLoss;
+        private double worstDrawdownPercent;
+
+        VariantSummary(String variant) {
+            this.variant = variant;
+        }
+
+        void add(Entry entry) {
+            runs++;
+            BacktestResult result = entry.getResult();
+            if (result == null) {
+                failures++;
+                return;
+            }
+            bars += result.getBarCount();
+            trades += result.getTradeCount();
+            wins += result.getWins();
+            netProfit += result.getNetProfit();
+            grossProfit += result.getGrossProfit();
+            grossLoss += result.getGrossLoss();
+            worstDrawdownPercent = Math.max(worstDrawdownPercent, result.getMaxDrawdownPercent());
+        }
+
+        public String getVariant() { return variant; }
+        public int getRuns() { return runs; }
+        public int getFailures() { return failures; }
+        public long getBars() { return bars; }
+        public int getTrades() { return trades; }
+        public double getNetProfit() { return netProfit; }
+        public double getWorstDrawdownPercent() { return worstDrawdownPercent; }
+
+        public double getWinRate() {
+            return trades > 0 ? (double) wins / trades * 100 : 0;
+        }
+
+        public double getProfitFactor() {
+            if (grossLoss == 0) {
+                return grossProfit > 0 ? Double.POSITIVE_INFINITY : 0;
+            }
+            return grossProfit / grossLoss;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s 品种: %d%s, 交易: %d, 胜率: %.1f%%, 净盈亏: %.2f, 盈亏比: %.2f, 最大回撤: %.2f%%",
+                    variant, runs, failures > 0 ? " (失败 " + failures + ")" : "", trades, getWinRate(),
+                    netProfit, getProfitFactor(), worstDrawdownPercent);
+        }
+    }
+
+    /**
+     * 合并后的报告
+     */
+    public static class Report {
+        private static final String[] HEADER = {
+                "variant", "symbol", "bars", "trades", "winRate", "netProfit", "profitFactor",
+                "maxDrawdown", "maxDrawdownPercent", "rejected", "error"
+        };
+
+        private final List<Entry> entries;
+        private final long elapsedNanos;
+        private final int parallelism;
+
+        Report(List<Entry> entries, long elapsedNanos, int parallelism) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.elapsedNanos = elapsedNanos;
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * 全部组合，按配置添加顺序、品种顺序排列
+         */
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        public Entry get(String variant, String symbol) {
+            for (Entry entry : entries) {
+                if (entry.variant.equals(variant) && entry.symbol.equals(symbol)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public long getTotalBars() {
+            long bars = 0;
+            for (Entry entry : entries) {
+                if (entry.result != null) {
+                    bars += entry.result.getBarCount();
+                }
+            }
+            return bars;
+        }
+
+        public double getBarsPerSecond() {
+            return elapsedNanos > 0 ? getTotalBars() * 1_000_000_000.0 / elapsedNanos : 0;
+        }
+
+        /**
+         * 按配置汇总全部品种，净盈亏从高到低
+         */
+        public List<VariantSummary> getVariantSummaries() {
+            Map<String, VariantSummary> summaries = new LinkedHashMap<>();
+            for (Entry entry : entries) {
+                summaries.computeIfAbsent(entry.variant, VariantSummary::new).add(entry);
+            }
+            List<VariantSummary> result = new ArrayList<>(summaries.values());
+            result.sort(Comparator.comparingDouble(VariantSummary::getNetProfit).reversed());
+            return result;
+        }
+
+        /**
+         * 每个组合一行写出CSV，便于在表格工具中比较
+         */
+        public void writeCsv(Path file) throws IOException {
+            try (CsvWriter csv = new CsvWriter(file)) {
+                for (String column : HEADER) {
+                    csv.field(column);
+                }
+                csv.endRecord();
+                for (Entry entry : entries) {
+                    csv.field(entry.variant).field(entry.symbol);
+                    BacktestResult result = entry.result;
+                    if (result != null) {
+                        csv.field(result.getBarCount())
+                                .field(result.getTradeCount())
+                                .field(result.getWinRate())
+                                .field(result.getNetProfit())
+                                .field(result.getProfitFactor())
+                                .field(result.getMaxDrawdown())
+                                .field(result.getMaxDrawdownPercent())
+                                .field(result.getRejectedOrders())
+                                .field("");
+                    } else {
+                        for (int i = 2; i < HEADER.length - 1; i++) {
+                            csv.field("");
+                        }
+                        csv.field(entry.error);
+                    }
+                    csv.endRecord();
+                }
+            }
+        }
+
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("批量回测: %d 个组合, %d 根K线, 耗时 %dms, %.0f 根/秒, 并行度 %d%n",
+                    entries.size(), getTotalBars(), elapsedNanos / 1_000_000, getBarsPerSecond(), parallelism));
+            sb.append("按配置汇总:").append(System.lineSeparator());
+            for (VariantSummary summary : getVariantSummaries()) {
+                sb.append("   ").append(summary).append(System.lineSeparator());
+            }
+            sb.append("明细:").append(System.lineSeparator());
+            for (Entry entry : entries) {
+                sb.append("   ").append(entry.variant).append(' ')
+                        .append(entry.result != null ? entry.result.getSummary() : entry.symbol + " 失败: " + entry.error)
+                        .append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return format();
+        }
+    }
+}
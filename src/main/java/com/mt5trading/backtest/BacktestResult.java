@@ -0,0 +1,187 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.util.CsvWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 回测结果：成交列表、权益曲线和统计指标
+ */
+public class BacktestResult {
+    /**
+     * 成交明细CSV的列，时间为毫秒
+     */
+    public static final String[] TRADE_HEADER = {
+            "ticket", "symbol", "side", "volume", "open_time", "open_price",
+            "close_time", "close_price", "profit", "exit_reason", "slippage_cost"
+    };
+
+    private final String symbol;
+    private final String strategyName;
+    private final long barCount;
+    private final List<BacktestTrade> trades;
+    private final long[] equityTimes;   // 采样时刻（毫秒）
+    private final double[] equity;
+    private final int equitySize;
+    private final double initialBalance;
+    private final double finalBalance;
+    private final long elapsedNanos;
+    private final long rejectedOrders;
+
+    private final int wins;
+    private final int losses;
+    private final double grossProfit;
+    private final double grossLoss;
+    private final double maxDrawdown;
+    private final double maxDrawdownPercent;
+    private final double slippageCost;
+
+    public BacktestResult(String symbol, String strategyName, long barCount, List<BacktestTrade> trades,
+                          long[] equityTimes, double[] equity, int equitySize,
+                          double initialBalance, double finalBalance, long elapsedNanos, long rejectedOrders) {
+        this.symbol = symbol;
+        this.strategyName = strategyName;
+        this.barCount = barCount;
+        this.trades = Collections.unmodifiableList(trades);
+        this.equityTimes = equityTimes;
+        this.equity = equity;
+        this.equitySize = equitySize;
+        this.initialBalance = initialBalance;
+        this.finalBalance = finalBalance;
+        this.elapsedNanos = elapsedNanos;
+        this.rejectedOrders = rejectedOrders;
+
+        int winCount = 0;
+        int lossCount = 0;
+        double profit = 0;
+        double loss = 0;
+        double cost = 0;
+        for (BacktestTrade trade : trades) {
+            cost += trade.getSlippageCost();
+            if (trade.getProfit() > 0) {
+                winCount++;
+                profit += trade.getProfit();
+            } else if (trade.getProfit() < 0) {
+                lossCount++;
+                loss -= trade.getProfit();
+            }
+        }
+        this.wins = winCount;
+        this.losses = lossCount;
+        this.grossProfit = profit;
+        this.grossLoss = loss;
+        this.slippageCost = cost;
+
+        // 从初始余额起算的最大回撤
+        double peak = initialBalance;
+        double drawdown = 0;
+        double drawdownPercent = 0;
+        for (int i = 0; i < equitySize; i++) {
+            double value = equity[i];
+            if (value > peak) {
+                peak = value;
+            } else if (peak - value > drawdown) {
+                drawdown = peak - value;
+                drawdownPercent = peak > 0 ? drawdown / peak * 100 : 0;
+            }
+        }
+        this.maxDrawdown = drawdown;
+        this.maxDrawdownPercent = drawdownPercent;
+    }
+
+    public String getSymbol() { return symbol; }
+    public String getStrategyName() { return strategyName; }
+    public long getBarCount() { return barCount; }
+    public List<BacktestTrade> getTrades() { return trades; }
+    public int getTradeCount() { return trades.size(); }
+    public double getInitialBalance() { return initialBalance; }
+    public double getFinalBalance() { return finalBalance; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public long getRejectedOrders() { return rejectedOrders; }
+    public int getWins() { return wins; }
+    public int getLosses() { return losses; }
+    public double getGrossProfit() { return grossProfit; }
+    public double getGrossLoss() { return grossLoss; }
+    public double getMaxDrawdown() { return maxDrawdown; }
+    public double getMaxDrawdownPercent() { return maxDrawdownPercent; }
+
+    /**
+     * 全部交易的执行成本合计，衡量决策延迟和滑点对结果的影响
+     */
+    public double getSlippageCost() { return slippageCost; }
+
+    public double getNetProfit() {
+        return finalBalance - initialBalance;
+    }
+
+    public double getWinRate() {
+        return trades.isEmpty() ? 0 : (double) wins / trades.size() * 100;
+    }
+
+    /**
+     * 总盈利 / 总亏损，没有亏损时为无穷大（没有盈利时为 0）
+     */
+    public double getProfitFactor() {
+        if (grossLoss == 0) {
+            return grossProfit > 0 ? Double.POSITIVE_INFINITY : 0;
+        }
+        return grossProfit / grossLoss;
+    }
+
+    public double getAverageTrade() {
+        return trades.isEmpty() ? 0 : getNetProfit() / trades.size();
+    }
+
+    public double getBarsPerSecond() {
+        return elapsedNanos > 0 ? barCount * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+
+    // ========== 权益曲线 ==========
+
+    public int getEquitySize() {
+        return equitySize;
+    }
+
+    public long getEquityTime(int index) {
+        return equityTimes[index];
+    }
+
+    public double getEquity(int index) {
+        return equity[index];
+    }
+
+    /**
+     * 写出成交明细，可以由 {@link MonteCarloRisk#readTrades} 读回
+     */
+    public void writeTradesCsv(Path file) throws IOException {
+        try (CsvWriter csv = new CsvWriter(file)) {
+            for (String column : TRADE_HEADER) {
+                csv.field(column);
+            }
+            csv.endRecord();
+            for (BacktestTrade trade : trades) {
+                csv.field(trade.getTicket()).field(trade.getSymbol()).field(trade.getSide().name())
+                        .field(trade.getVolume()).field(trade.getOpenTimeMillis()).field(trade.getOpenPrice())
+                        .field(trade.getCloseTimeMillis()).field(trade.getClosePrice()).field(trade.getProfit())
+                        .field(trade.getExitReason().name()).field(trade.getSlippageCost());
+                csv.endRecord();
+            }
+        }
+    }
+
+    public String getSummary() {
+        return String.format("%s%s K线: %d, 交易: %d, 胜率: %.1f%%, 净盈亏: %.2f, 盈亏比: %.2f, " +
+                        "最大回撤: %.2f (%.2f%%), 滑点成本: %.2f, 拒单: %d, 速度: %.0f 根/秒",
+                symbol, strategyName == null || strategyName.isEmpty() ? "" : "[" + strategyName + "]",
+                barCount, trades.size(), getWinRate(), getNetProfit(), getProfitFactor(),
+                maxDrawdown, maxDrawdownPercent, slippageCost, rejectedOrders, getBarsPerSecond());
+    }
+
+    @Override
+    public String toString() {
+        return "BacktestResult{" + getSummary() + "}";
+    }
+}
@@ -0,0 +1,83 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.models.OrderSide;
+
+import java.time.Instant;
+
+/**
+ * 回测中一笔已平仓的交易
+ */
+public class BacktestTrade {
+
+    public enum ExitReason {
+        STOP_LOSS("止损"),
+        TAKE_PROFIT("止盈"),
+        CLOSED("策略平仓"),
+        END_OF_DATA("回测结束平仓");
+
+        private final String description;
+
+        ExitReason(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final int ticket;
+    private final String symbol;
+    private final OrderSide side;
+    private final double volume;
+    private final long openTimeMillis;
+    private final double openPrice;
+    private final long closeTimeMillis;
+    private final double closePrice;
+    private final double profit;
+    private final ExitReason exitReason;
+    private final double slippageCost;
+
+    public BacktestTrade(int ticket, String symbol, OrderSide side, double volume,
+                         long openTimeMillis, double openPrice, long closeTimeMillis, double closePrice,
+                         double profit, ExitReason exitReason, double slippageCost) {
+        this.ticket = ticket;
+        this.symbol = symbol;
+        this.side = side;
+        this.volume = volume;
+        this.openTimeMillis = openTimeMillis;
+        this.openPrice = openPrice;
+        this.closeTimeMillis = closeTimeMillis;
+        this.closePrice = closePrice;
+        this.profit = profit;
+        this.exitReason = exitReason;
+        this.slippageCost = slippageCost;
+    }
+
+    public int getTicket() { return ticket; }
+    public String getSymbol() { return symbol; }
+    public OrderSide getSide() { return side; }
+    public double getVolume() { return volume; }
+    public long getOpenTimeMillis() { return openTimeMillis; }
+    public double getOpenPrice() { return openPrice; }
+    public long getCloseTimeMillis() { return closeTimeMillis; }
+    public double getClosePrice() { return closePrice; }
+    public double getProfit() { return profit; }
+    public ExitReason getExitReason() { return exitReason; }
+
+    /**
+     * 开仓和平仓相对决策时行情的成本（账户货币，正数表示更差），包括延迟期间的行情变化和滑点，已计入盈亏
+     */
+    public double getSlippageCost() { return slippageCost; }
+
+    public boolean isWin() {
+        return profit > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s %s %.2f @ %.5f -> %.5f (%s) %s 盈亏: %.2f",
+                ticket, symbol, side, volume, openPrice, closePrice,
+                exitReason.getDescription(), Instant.ofEpochMilli(closeTimeMillis), profit);
+    }
+}
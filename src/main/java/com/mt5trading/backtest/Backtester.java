@@ -0,0 +1,302 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.CandleData;
+import com.mt5trading.models.CandleSeries;
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.mt5.connector.MT5Connector;
+import com.mt5trading.services.DecisionEngine;
+import com.mt5trading.services.EngineEventLoop;
+import com.mt5trading.timer.TimerService;
+import com.mt5trading.timer.VirtualClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件驱动的确定性回测
+ * 用历史K线或行情驱动未经修改的 {@link DecisionEngine}：引擎运行在虚拟时钟上，
+ * 事件循环在回测线程上同步处理，订单由 {@link SimulatedMT5Connector} 按模拟行情和 {@link FillModel} 成交。
+ * 整个过程没有 sleep、没有墙上时钟调度，同样的输入总是得到同样的成交，速度只受 CPU 限制。
+ *
+ * K线回测时每根K线生成 4 笔行情：开盘，1/3 处和 2/3 处分别到达最低/最高价
+ * （阳线先低后高，阴线先高后低），收盘前 1 毫秒到达收盘价。引擎在开盘时收到的K线
+ * 只包含开盘价，不会看到未来价格。K线时间按本地时区解释，与分析触发器一致。
+ * 开盘价相对上一根K线视为跳空，K线内的行情视为连续变化，止损止盈按触发价成交。
+ *
+ * 回测品种取 mt5.symbol，滑点、延迟和部分成交取 trading.slippage 和 sim.* 配置。
+ */
+public class Backtester {
+    private static final Logger logger = LoggerFactory.getLogger(Backtester.class);
+    // 丢弃全部输出，通过 silenceOutput/restoreOutput 替换 System.out
+    static final PrintStream NULL_OUT = new NullPrintStream();
+    // System.out 的屏蔽层数和屏蔽前的原值，由 OUTPUT_LOCK 保护
+    private static final Object OUTPUT_LOCK = new Object();
+    private static int silencedCount = 0;
+    private static PrintStream savedOut;
+
+    /**
+     * 创建被测引擎，两个内置引擎的 (config, connector, timer, events) 构造函数可以直接引用
+     * 引擎必须使用传入的同步事件循环，事件在回测驱动线程上处理，结果才可重复。
+     */
+    public interface EngineFactory {
+        DecisionEngine create(TradingConfig config, MT5Connector connector, TimerService timer,
+                              EngineEventLoop events);
+    }
+
+    private final TradingConfig config;
+    private final EngineFactory engineFactory;
+    private final ZoneId zone;
+    private final List<OrderInfo> userOrders = new ArrayList<>();
+    private double initialBalance = 10000;
+    private double spread = 0;
+    private boolean quiet = true;
+
+    public Backtester(TradingConfig config, EngineFactory engineFactory) {
+        this.config = config;
+        this.engineFactory = engineFactory;
+        // 与引擎内分析触发器使用的时区一致
+        this.zone = ZoneId.systemDefault();
+    }
+
+    public void setInitialBalance(double initialBalance) {
+        this.initialBalance = initialBalance;
+    }
+
+    /**
+     * K线回测的固定点差（价格单位），买价和卖价分别在K线价格两侧各一半
+     */
+    public void setSpread(double spread) {
+        this.spread = spread;
+    }
+
+    /**
+     * 回测期间屏蔽引擎的控制台输出（默认开启）。会替换进程级的 System.out，
+     * 同一进程中的实盘引擎在回测期间也没有控制台输出
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /**
+     * 模拟用户在 timeSetup 时刻手动挂单，供 UserOrderDecisionEngine 回测
+     */
+    public void addUserOrder(OrderInfo order) {
+        userOrders.add(order);
+    }
+
+    /**
+     * 一次回测运行的状态
+     */
+    private final class Run {
+        final String symbol = config.getSymbol();
+        final VirtualClock clock;
+        final SimulatedMT5Connector connector;
+        final DecisionEngine engine;
+        long[] equityTimes = new long[1024];
+        double[] equity = new double[1024];
+        int equitySize = 0;
+        long bars = 0;
+
+        Run(Instant start) {
+            clock = new VirtualClock(start);
+            connector = new SimulatedMT5Connector(config, clock, initialBalance);
+            for (OrderInfo order : userOrders) {
+                Instant at = order.getTimeSetup() != null ? order.getTimeSetup().atZone(zone).toInstant() : start;
+                long delayMillis = Math.max(0, at.toEpochMilli() - start.toEpochMilli());
+                clock.schedule(() -> connector.placeUserOrder(order), delayMillis, TimeUnit.MILLISECONDS);
+            }
+            engine = engineFactory.create(config, connector, clock, EngineEventLoop.direct("Backtester"));
+        }
+
+        void newBar(LocalDateTime barOpen, double open) {
+            CandleData candle = new CandleData(barOpen, open, open, open, open, 0);
+            candle.setSymbol(symbol);
+            engine.analyzeNewCandle(candle);
+            bars++;
+        }
+
+        void tick(long timeMillis, double bid, double ask, boolean continuous) {
+            clock.advanceTo(Instant.ofEpochMilli(timeMillis));
+            connector.onTick(symbol, bid, ask, continuous);
+            engine.onTick(symbol, bid, ask, timeMillis);
+        }
+
+        void sampleEquity() {
+            if (equitySize == equity.length) {
+                equity = Arrays.copyOf(equity, equitySize * 2);
+                equityTimes = Arrays.copyOf(equityTimes, equitySize * 2);
+            }
+            equityTimes[equitySize] = clock.currentTimeMillis();
+            equity[equitySize++] = connector.getEquity();
+        }
+
+        BacktestResult finish(long startNanos) {
+            connector.closeAll(BacktestTrade.ExitReason.END_OF_DATA);
+            sampleEquity();
+            long elapsed = System.nanoTime() - startNanos;
+            return new BacktestResult(symbol, config.getStrategyName(), bars, connector.getTrades(),
+                    equityTimes, equity, equitySize, initialBalance, connector.getBalance(), elapsed,
+                    connector.getRejectedCount());
+        }
+
+        void close() {
+            engine.shutdown();
+            clock.stop();
+        }
+    }
+
+    /**
+     * 按K线回测
+     */
+    public BacktestResult run(CandleSeries series) {
+        return run(BarSource.of(series));
+    }
+
+    /**
+     * 按K线回测，K线可以来自内存映射的 {@link CandleStore}
+     */
+    public BacktestResult run(BarSource series) {
+        if (series.size() == 0) {
+            throw new IllegalArgumentException("K线序列为空");
+        }
+        long barMillis = config.getTimeframe() * 1000L;
+        double half = spread / 2;
+        return execute(toInstant(series.getTime(0)), run -> {
+            for (int i = 0; i < series.size(); i++) {
+                long open = toInstant(series.getTime(i)).toEpochMilli();
+                double o = series.getOpen(i);
+                double h = series.getHigh(i);
+                double l = series.getLow(i);
+                double c = series.getClose(i);
+                boolean bullish = c >= o;
+
+                run.clock.advanceTo(Instant.ofEpochMilli(open));
+                run.newBar(LocalDateTime.ofEpochSecond(series.getTime(i), 0, ZoneOffset.UTC), o);
+                run.tick(open, o - half, o + half, false);
+                double first = bullish ? l : h;
+                double second = bullish ? h : l;
+                run.tick(open + barMillis / 3, first - half, first + half, true);
+                run.tick(open + barMillis * 2 / 3, second - half, second + half, true);
+                run.tick(open + barMillis - 1, c - half, c + half, true);
+                run.sampleEquity();
+            }
+        });
+    }
+
+    /**
+     * 按逐笔行情回测，行情跨入新K线时以该笔中间价作为开盘价通知引擎
+     *
+     * @param timesMillis 行情时间（毫秒），必须非递减
+     */
+    public BacktestResult runTicks(long[] timesMillis, double[] bids, double[] asks, int size) {
+        if (size == 0) {
+            throw new IllegalArgumentException("行情为空");
+        }
+        long timeframe = config.getTimeframe();
+        return execute(Instant.ofEpochMilli(timesMillis[0]), run -> {
+            long currentBar = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                Instant at = Instant.ofEpochMilli(timesMillis[i]);
+                long localSeconds = at.getEpochSecond() + zone.getRules().getOffset(at).getTotalSeconds();
+                long bar = Math.floorDiv(localSeconds, timeframe) * timeframe;
+                if (bar != currentBar) {
+                    if (currentBar != Long.MIN_VALUE) {
+                        run.sampleEquity();
+                    }
+                    currentBar = bar;
+                    run.clock.advanceTo(at);
+                    run.newBar(LocalDateTime.ofEpochSecond(bar, 0, ZoneOffset.UTC), (bids[i] + asks[i]) / 2);
+                }
+                run.tick(timesMillis[i], bids[i], asks[i], false);
+            }
+        });
+    }
+
+    private interface Feed {
+        void play(Run run);
+    }
+
+    private BacktestResult execute(Instant start, Feed feed) {
+        if (quiet) {
+            silenceOutput();
+        }
+        Run run = null;
+        try {
+            long startNanos = System.nanoTime();
+            run = new Run(start);
+            feed.play(run);
+            BacktestResult result = run.finish(startNanos);
+            logger.info("回测完成: {}", result.getSummary());
+            return result;
+        } finally {
+            if (run != null) {
+                run.close();
+            }
+            if (quiet) {
+                restoreOutput();
+            }
+        }
+    }
+
+    /**
+     * 屏蔽进程级的 System.out。按引用计数嵌套，第一次调用时保存原值，
+     * 最后一次 {@link #restoreOutput()} 时恢复，多个线程上重叠的运行不会把 System.out 永久留在屏蔽状态
+     */
+    static void silenceOutput() {
+        synchronized (OUTPUT_LOCK) {
+            if (silencedCount++ == 0) {
+                savedOut = System.out;
+                System.setOut(NULL_OUT);
+            }
+        }
+    }
+
+    static void restoreOutput() {
+        synchronized (OUTPUT_LOCK) {
+            if (silencedCount == 0) {
+                return;
+            }
+            if (--silencedCount == 0) {
+                System.setOut(savedOut);
+                savedOut = null;
+            }
+        }
+    }
+
+    /**
+     * 丢弃全部输出的 PrintStream：直接跳过字符编码和格式化，引擎日志量很大时能省下可观的时间
+     */
+    private static final class NullPrintStream extends PrintStream {
+        NullPrintStream() {
+            super(OutputStream.nullOutputStream());
+        }
+
+        @Override public void write(int b) { }
+        @Override public void write(byte[] buf, int off, int len) { }
+        @Override public void print(String s) { }
+        @Override public void print(Object obj) { }
+        @Override public void println() { }
+        @Override public void println(String x) { }
+        @Override public void println(Object x) { }
+        @Override public PrintStream printf(String format, Object... args) { return this; }
+        @Override public PrintStream format(String format, Object... args) { return this; }
+    }
+
+    /**
+     * K线时间（本地时间的秒数）换算为时刻
+     */
+    private Instant toInstant(long localSeconds) {
+        return LocalDateTime.ofEpochSecond(localSeconds, 0, ZoneOffset.UTC).atZone(zone).toInstant();
+    }
+}
@@ -0,0 +1,42 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.models.CandleSeries;
+
+/**
+ * 回测读取的K线数据，按下标随机访问
+ * 实现必须支持多个线程同时读取。
+ */
+public interface BarSource {
+
+    String getSymbol();
+
+    int size();
+
+    /**
+     * K线开盘时间（本地时间的秒数，与 {@link CandleSeries} 一致）
+     */
+    long getTime(int index);
+
+    double getOpen(int index);
+
+    double getHigh(int index);
+
+    double getLow(int index);
+
+    double getClose(int index);
+
+    /**
+     * 包装内存中的K线序列
+     */
+    static BarSource of(CandleSeries series) {
+        return new BarSource() {
+            @Override public String getSymbol() { return series.getSymbol(); }
+            @Override public int size() { return series.size(); }
+            @Override public long getTime(int index) { return series.getTime(index); }
+            @Override public double getOpen(int index) { return series.getOpen(index); }
+            @Override public double getHigh(int index) { return series.getHigh(index); }
+            @Override public double getLow(int index) { return series.getLow(index); }
+            @Override public double getClose(int index) { return series.getClose(index); }
+        };
+    }
+}
@@ -0,0 +1,246 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.models.CandleSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内存映射的列式K线库
+ * 一个文件保存一篮子品种的K线，打开时整体只读映射一次，各品种以 {@link BarSource} 视图的形式
+ * 直接读取映射区，不复制到堆上。视图只使用绝对位置读取，可以被任意多个回测线程同时共享；
+ * 页面由操作系统按需调入，同一台机器上的多个进程也共享同一份物理内存。
+ *
+ * 文件格式（小端）：
+ * <pre>
+ * [魔数 int][版本 int][品种数 int]
+ * 每个品种: [名称长度 short][名称 UTF-8][K线数 int][数据偏移 long]
+ * 每个品种的数据（8 字节对齐）: 时间 long[n]，开 高 低 收 double[n]，成交量 long[n]
+ * </pre>
+ * 单个文件不超过 2GB（约 4400 万根K线）。
+ */
+public class CandleStore implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CandleStore.class);
+
+    private static final int MAGIC = 0x4D54_4353; // "MTCS"
+    private static final int VERSION = 1;
+    private static final int COLUMNS = 6;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Map<String, MappedSeries> series = new LinkedHashMap<>();
+
+    private CandleStore(Path file, FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.remaining() < 12 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是K线库文件: " + file);
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("不支持的K线库版本 " + version + ": " + file);
+        }
+        int count = buffer.getInt(8);
+        int position = 12;
+        for (int i = 0; i < count; i++) {
+            int nameLength = buffer.getShort(position) & 0xFFFF;
+            byte[] name = new byte[nameLength];
+            for (int j = 0; j < nameLength; j++) {
+                name[j] = buffer.get(position + 2 + j);
+            }
+            position += 2 + nameLength;
+            int size = buffer.getInt(position);
+            long offset = buffer.getLong(position + 4);
+            position += 12;
+            if (size < 0 || offset < 0 || offset + (long) size * 8 * COLUMNS > buffer.capacity()) {
+                throw new IOException("K线库目录损坏: " + file);
+            }
+            String symbol = new String(name, StandardCharsets.UTF_8);
+            series.put(symbol, new MappedSeries(symbol, size, (int) offset));
+        }
+    }
+
+    /**
+     * 只读映射K线库
+     */
+    public static CandleStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CandleStore store = new CandleStore(file, channel, buffer);
+            logger.info("已映射K线库 {}: {} 个品种, {} 字节", file, store.series.size(), channel.size());
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 把若干品种的K线写成K线库，先写临时文件再原子替换
+     */
+    public static void write(Path file, List<CandleSeries> basket) throws IOException {
+        int headerSize = 12;
+        List<byte[]> names = new ArrayList<>(basket.size());
+        for (CandleSeries candles : basket) {
+            byte[] name = candles.getSymbol().getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF) {
+                throw new IllegalArgumentException("品种名称过长: " + candles.getSymbol());
+            }
+            names.add(name);
+            headerSize += 2 + name.length + 12;
+        }
+        long dataStart = (headerSize + 7) & ~7L;
+        long total = dataStart;
+        for (CandleSeries candles : basket) {
+            total += (long) candles.size() * 8 * COLUMNS;
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("K线库超过 2GB: " + total + " 字节");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(basket.size());
+        long offset = dataStart;
+        for (int i = 0; i < basket.size(); i++) {
+            byte[] name = names.get(i);
+            out.putShort((short) name.length).put(name).putInt(basket.get(i).size()).putLong(offset);
+            offset += (long) basket.get(i).size() * 8 * COLUMNS;
+        }
+        out.position((int) dataStart);
+        for (CandleSeries candles : basket) {
+            int n = candles.size();
+            for (int i = 0; i < n; i++) out.putLong(candles.getTime(i));
+            for (int i = 0; i < n; i++) out.putDouble(candles.getOpen(i));
+            for (int i = 0; i < n; i++) out.putDouble(candles.getHigh(i));
+            for (int i = 0; i < n; i++) out.putDouble(candles.getLow(i));
+            for (int i = 0; i < n; i++) out.putDouble(candles.getClose(i));
+            for (int i = 0; i < n; i++) out.putLong(candles.getVolume(i));
+        }
+        out.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 库中的品种，按写入顺序
+     */
+    public List<String> getSymbols() {
+        return Collections.unmodifiableList(new ArrayList<>(series.keySet()));
+    }
+
+    /**
+     * 品种的K线视图，品种不存在时返回 null
+     */
+    public BarSource get(String symbol) {
+        return series.get(symbol);
+    }
+
+    /**
+     * 复制为堆上的K线序列，供需要数组的分析工具使用
+     */
+    public CandleSeries toSeries(String symbol) {
+        MappedSeries view = series.get(symbol);
+        if (view == null) {
+            return null;
+        }
+        int n = view.size;
+        long[] times = new long[n];
+        double[] opens = new double[n];
+        double[] highs = new double[n];
+        double[] lows = new double[n];
+        double[] closes = new double[n];
+        long[] volumes = new long[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = view.getTime(i);
+            opens[i] = view.getOpen(i);
+            highs[i] = view.getHigh(i);
+            lows[i] = view.getLow(i);
+            closes[i] = view.getClose(i);
+            volumes[i] = view.getVolume(i);
+        }
+        return new CandleSeries(symbol, times, opens, highs, lows, closes, volumes, n);
+    }
+
+    /**
+     * 关闭文件通道。映射区在不再被引用后由 GC 释放，关闭后不应再读取视图
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 单个品种的只读视图，列起点在构造时算好，读取只是一次绝对位置访问
+     */
+    private final class MappedSeries implements BarSource {
+        private final String symbol;
+        private final int size;
+        private final int times;
+        private final int opens;
+        private final int highs;
+        private final int lows;
+        private final int closes;
+        private final int volumes;
+
+        MappedSeries(String symbol, int size, int offset) {
+            this.symbol = symbol;
+            this.size = size;
+            int column = size * 8;
+            this.times = offset;
+            this.opens = times + column;
+            this.highs = opens + column;
+            this.lows = highs + column;
+            this.closes = lows + column;
+            this.volumes = closes + column;
+        }
+
+        @Override public String getSymbol() { return symbol; }
+        @Override public int size() { return size; }
+        @Override public long getTime(int index) { return buffer.getLong(times + (index << 3)); }
+        @Override public double getOpen(int index) { return buffer.getDouble(opens + (index << 3)); }
+        @Override public double getHigh(int index) { return buffer.getDouble(highs + (index << 3)); }
+        @Override public double getLow(int index) { return buffer.getDouble(lows + (index << 3)); }
+        @Override public double getClose(int index) { return buffer.getDouble(closes + (index << 3)); }
+
+        long getVolume(int index) {
+            return buffer.getLong(volumes + (index << 3));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MappedSeries{symbol=%s, bars=%d}", symbol, size);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.OrderSide;
+
+import java.util.SplittableRandom;
+
+/**
+ * 模拟成交的执行成本模型：点差、滑点、部分成交和订单延迟
+ *
+ * 市价单买入按卖价、卖出按买价成交，行情点差窄于最小点差时按中间价两侧展开；
+ * 在此基础上叠加 0 到 trading.slippage 之间均匀分布的不利滑点。止盈按挂单价成交，不计滑点。
+ * 订单延迟 = 固定延迟 + 指数分布的随机延迟，延迟期间行情变化造成的成本同样计入成交价。
+ *
+ * 随机数由种子决定，同一个模型实例在同样的调用顺序下总是给出同样的结果。
+ * 不是线程安全的，由 {@link SimulatedMT5Connector} 在持锁状态下调用。
+ */
+public class FillModel {
+    // 部分成交按手数步长向下取整
+    private static final double VOLUME_STEP = 0.01;
+
+    private final double minSpread;
+    private final double slippage;
+    private final long latencyMillis;
+    private final double latencyJitterMillis;
+    private final double partialFillProbability;
+    private final double partialFillMinRatio;
+    private final SplittableRandom random;
+
+    public FillModel(double minSpread, double slippage, long latencyMillis, double latencyJitterMillis,
+                     double partialFillProbability, double partialFillMinRatio, long seed) {
+        if (minSpread < 0 || slippage < 0 || latencyMillis < 0 || latencyJitterMillis < 0) {
+            throw new IllegalArgumentException("点差、滑点和延迟不能为负");
+        }
+        if (partialFillProbability < 0 || partialFillProbability > 1
+                || partialFillMinRatio <= 0 || partialFillMinRatio > 1) {
+            throw new IllegalArgumentException("部分成交概率必须在 [0, 1]，最小成交比例必须在 (0, 1]");
+        }
+        this.minSpread = minSpread;
+        this.slippage = slippage;
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.partialFillProbability = partialFillProbability;
+        this.partialFillMinRatio = partialFillMinRatio;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * 按 trading.slippage 和 sim.* 配置创建
+     */
+    public static FillModel fromConfig(TradingConfig config) {
+        return new FillModel(config.getSimMinSpread(), config.getSlippage(),
+                config.getSimLatencyMillis(), config.getSimLatencyJitterMillis(),
+                config.getSimPartialFillProbability(), config.getSimPartialFillMinRatio(), config.getSimSeed());
+    }
+
+    /**
+     * 没有任何执行成本：按行情买卖价立即全部成交
+     */
+    public static FillModel ideal() {
+        return new FillModel(0, 0, 0, 0, 0, 1, 1);
+    }
+
+    /**
+     * 按方向取成交价：买入取卖价，卖出取买价，不含滑点
+     */
+    public double quotePrice(OrderSide side, double bid, double ask) {
+        if (ask - bid < minSpread) {
+            double mid = (bid + ask) / 2;
+            return side == OrderSide.BUY ? mid + minSpread / 2 : mid - minSpread / 2;
+        }
+        return side == OrderSide.BUY ? ask : bid;
+    }
+
+    /**
+     * 市价成交价：买卖价加上随机的不利滑点
+     */
+    public double marketPrice(OrderSide side, double bid, double ask) {
+        return slip(side, quotePrice(side, bid, ask));
+    }
+
+    /**
+     * 在给定价格上叠加不利滑点：买入更高，卖出更低
+     */
+    public double slip(OrderSide side, double price) {
+        if (slippage <= 0) {
+            return price;
+        }
+        double amount = random.nextDouble() * slippage;
+        return side == OrderSide.BUY ? price + amount : price - amount;
+    }
+
+    /**
+     * 实际成交手数：按概率部分成交，至少成交一个手数步长，不超过请求手数
+     */
+    public double fillVolume(double volume) {
+        if (partialFillProbability <= 0 || random.nextDouble() >= partialFillProbability) {
+            return volume;
+        }
+        double ratio = partialFillMinRatio + random.nextDouble() * (1 - partialFillMinRatio);
+        double filled = Math.floor(volume * ratio / VOLUME_STEP + 1e-9) * VOLUME_STEP;
+        return Math.min(volume, Math.max(VOLUME_STEP, filled));
+    }
+
+    /**
+     * 抽样一次订单延迟（毫秒）
+     */
+    public long sampleLatencyMillis() {
+        if (latencyJitterMillis <= 0) {
+            return latencyMillis;
+        }
+        return latencyMillis + Math.round(-latencyJitterMillis * Math.log(1 - random.nextDouble()));
+    }
+
+    public double getMinSpread() {
+        return minSpread;
+    }
+
+    public double getSlippage() {
+        return slippage;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public double getLatencyJitterMillis() {
+        return latencyJitterMillis;
+    }
+
+    public double getPartialFillProbability() {
+        return partialFillProbability;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("最小点差 %.5f, 滑点 0~%.5f, 延迟 %dms + 指数(%.0fms), 部分成交概率 %.2f",
+                minSpread, slippage, latencyMillis, latencyJitterMillis, partialFillProbability);
+    }
+}
@@ -0,0 +1,423 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.RiskConfig;
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.util.CsvReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 交易序列蒙特卡洛重抽样，检验风控限额
+ * 从回测成交中有放回地重抽样生成大量等长的交易路径，每条路径保持原始的每日交易笔数，
+ * 统计最大回撤、最差单日亏损和最终权益的分布，以及触发 {@link RiskConfig} 单日亏损上限
+ * （maxDailyLoss）和单笔风险上限（maxRiskPerTrade）的概率。
+ *
+ * 盈亏和结果都存放在基本类型数组中，路径按固定大小分块后用并行流计算，
+ * 每块使用从根随机数发生器预先拆分出的独立 {@link SplittableRandom}，
+ * 线程之间没有共享的随机数状态，结果只取决于种子，与线程数和调度无关。
+ */
+public class MonteCarloRisk {
+    private static final Logger logger = LoggerFactory.getLogger(MonteCarloRisk.class);
+
+    // 每块路径数，也是随机数发生器的粒度
+    private static final int PATHS_PER_CHUNK = 256;
+
+    private final double[] profits;
+    private final int[] dayEnds;         // 每个交易日最后一笔交易之后的下标
+    private final double initialBalance;
+    private final double maxDailyLoss;   // 占当日初始权益的比例
+    private final double maxRiskPerTrade; // 占下单前权益的比例
+    private final ForkJoinPool pool;
+
+    /**
+     * @param profits          每笔交易的盈亏（账户货币），按平仓时间排序
+     * @param closeTimesMillis 每笔交易的平仓时间，用于按本地日期划分交易日
+     */
+    public MonteCarloRisk(double[] profits, long[] closeTimesMillis, double initialBalance, RiskConfig risk,
+                          ForkJoinPool pool) {
+        if (profits.length == 0) {
+            throw new IllegalArgumentException("没有交易可以重抽样");
+        }
+        if (profits.length != closeTimesMillis.length) {
+            throw new IllegalArgumentException("盈亏和平仓时间数量不一致");
+        }
+        if (initialBalance <= 0) {
+            throw new IllegalArgumentException("初始余额必须大于0: " + initialBalance);
+        }
+        this.profits = profits.clone();
+        this.dayEnds = dayEnds(closeTimesMillis, ZoneId.systemDefault());
+        this.initialBalance = initialBalance;
+        this.maxDailyLoss = risk.getMaxDailyLoss();
+        this.maxRiskPerTrade = risk.getMaxRiskPerTrade();
+        this.pool = pool;
+    }
+
+    public MonteCarloRisk(double[] profits, long[] closeTimesMillis, double initialBalance, RiskConfig risk) {
+        this(profits, closeTimesMillis, initialBalance, risk, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 使用回测的成交和初始余额
+     */
+    public static MonteCarloRisk of(BacktestResult result, RiskConfig risk) {
+        List<BacktestTrade> trades = result.getTrades();
+        double[] profits = new double[trades.size()];
+        long[] times = new long[trades.size()];
+        for (int i = 0; i < trades.size(); i++) {
+            profits[i] = trades.get(i).getProfit();
+            times[i] = trades.get(i).getCloseTimeMillis();
+        }
+        return new MonteCarloRisk(profits, times, result.getInitialBalance(), risk);
+    }
+
+    /**
+     * 从成交明细读出的平仓时间和盈亏，两列等长，按文件顺序
+     */
+    public static class Trades {
+        private final long[] closeTimesMillis;
+        private final double[] profits;
+
+        Trades(long[] closeTimesMillis, double[] profits) {
+            this.closeTimesMillis = closeTimesMillis;
+            this.profits = profits;
+        }
+
+        public long[] getCloseTimesMillis() { return closeTimesMillis; }
+        public double[] getProfits() { return profits; }
+        public int size() { return profits.length; }
+    }
+
+    /**
+     * 读取 {@link BacktestResult#writeTradesCsv} 写出的成交明细
+     */
+    public static Trades readTrades(Path file) throws IOException {
+        int timeColumn = Arrays.asList(BacktestResult.TRADE_HEADER).indexOf("close_time");
+        int profitColumn = Arrays.asList(BacktestResult.TRADE_HEADER).indexOf("profit");
+        long[] times = new long[1024];
+        double[] profits = new double[1024];
+        int size = 0;
+        try (CsvReader csv = new CsvReader(file)) {
+            boolean first = true;
+            while (csv.next() >= 0) {
+                boolean header = first && BacktestResult.TRADE_HEADER[0].equals(csv.getString(0));
+                first = false;
+                if (header || csv.getFieldCount() <= Math.max(timeColumn, profitColumn)) {
+                    continue;
+                }
+                if (size == times.length) {
+                    times = Arrays.copyOf(times, size * 2);
+                    profits = Arrays.copyOf(profits, size * 2);
+                }
+                times[size] = csv.getLong(timeColumn);
+                profits[size++] = csv.getDouble(profitColumn);
+            }
+        }
+        return new Trades(Arrays.copyOf(times, size), Arrays.copyOf(profits, size));
+    }
+
+    /**
+     * 按平仓时间的本地日期划分交易日，返回每个交易日的结束下标
+     */
+    private static int[] dayEnds(long[] closeTimesMillis, ZoneId zone) {
+        ZoneRules rules = zone.getRules();
+        int[] ends = new int[closeTimesMillis.length];
+        int days = 0;
+        long currentDay = Long.MIN_VALUE;
+        for (int i = 0; i < closeTimesMillis.length; i++) {
+            Instant at = Instant.ofEpochMilli(closeTimesMillis[i]);
+            long day = Math.floorDiv(closeTimesMillis[i] + rules.getOffset(at).getTotalSeconds() * 1000L, 86_400_000L);
+            if (day != currentDay) {
+                if (currentDay != Long.MIN_VALUE) {
+                    ends[days++] = i;
+                }
+                currentDay = day;
+            }
+        }
+        ends[days++] = closeTimesMillis.length;
+        return Arrays.copyOf(ends, days);
+    }
+
+    /**
+     * 生成 paths 条重抽样路径
+     */
+    public Report run(int paths, long seed) {
+        if (paths <= 0) {
+            throw new IllegalArgumentException("路径数必须大于0: " + paths);
+        }
+        long start = System.nanoTime();
+        double[] drawdowns = new double[paths];
+        double[] worstDays = new double[paths];
+        double[] finalEquities = new double[paths];
+        int[] dailyBreaches = new int[paths];
+        int[] tradeBreaches = new int[paths];
+
+        int chunks = (paths + PATHS_PER_CHUNK - 1) / PATHS_PER_CHUNK;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) {
+            randoms[c] = root.split();
+        }
+        try {
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+                SplittableRandom random = randoms[c];
+                int to = Math.min(paths, (c + 1) * PATHS_PER_CHUNK);
+                for (int p = c * PATHS_PER_CHUNK; p < to; p++) {
+                    simulate(random, p, drawdowns, worstDays, finalEquities, dailyBreaches, tradeBreaches);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("蒙特卡洛模拟被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("蒙特卡洛模拟失败", e.getCause());
+        }
+
+        Report report = new Report(profits.length, dayEnds.length, initialBalance, maxDailyLoss, maxRiskPerTrade,
+                drawdowns, worstDays, finalEquities, dailyBreaches, tradeBreaches, System.nanoTime() - start);
+        logger.info("蒙特卡洛重抽样完成: {}", report.getSummary());
+        return report;
+    }
+
+    private void simulate(SplittableRandom random, int path, double[] drawdowns, double[] worstDays,
+                          double[] finalEquities, int[] dailyBreaches, int[] tradeBreaches) {
+        double[] profits = this.profits;
+        int n = profits.length;
+        double equity = initialBalance;
+        double peak = equity;
+        double maxDrawdown = 0;
+        double worstDay = 0;
+        int dayBreaches = 0;
+        int riskBreaches = 0;
+        int from = 0;
+        days:
+        for (int end : dayEnds) {
+            double dayStart = equity;
+            for (int k = from; k < end; k++) {
+                double profit = profits[random.nextInt(n)];
+                if (-profit > maxRiskPerTrade * equity) {
+                    riskBreaches++;
+                }
+                equity += profit;
+                if (equity > peak) {
+                    peak = equity;
+                } else if (peak - equity > maxDrawdown * peak) {
+                    maxDrawdown = (peak - equity) / peak;
+                }
+                if (equity <= 0) {
+                    // 爆仓后路径终止，回撤记为 100%
+                    maxDrawdown = 1;
+                    worstDay = Math.max(worstDay, Math.min(1, (dayStart - equity) / dayStart));
+                    if (worstDay > maxDailyLoss) {
+                        dayBreaches++;
+                    }
+                    break days;
+                }
+            }
+            from = end;
+            if (dayStart > 0) {
+                double dayLoss = (dayStart - equity) / dayStart;
+                if (dayLoss > worstDay) {
+                    worstDay = dayLoss;
+                }
+                if (dayLoss > maxDailyLoss) {
+                    dayBreaches++;
+                }
+            }
+        }
+        drawdowns[path] = maxDrawdown;
+        worstDays[path] = worstDay;
+        finalEquities[path] = equity;
+        dailyBreaches[path] = dayBreaches;
+        tradeBreaches[path] = riskBreaches;
+    }
+
+    /**
+     * 重抽样结果：各指标的分布（已排序）和触发限额的概率
+     */
+    public static class Report {
+        private final int trades;
+        private final int days;
+        private final double initialBalance;
+        private final double maxDailyLoss;
+        private final double maxRiskPerTrade;
+        private final double[] drawdowns;
+        private final double[] worstDays;
+        private final double[] finalEquities;
+        private final int paths;
+        private final int dailyBreachPaths;
+        private final int tradeBreachPaths;
+        private final long totalTradeBreaches;
+        private final int ruinedPaths;
+        private final long elapsedNanos;
+
+        Report(int trades, int days, double initialBalance, double maxDailyLoss, double maxRiskPerTrade,
+               double[] drawdowns, double[] worstDays, double[] finalEquities,
+               int[] dailyBreaches, int[] tradeBreaches, long elapsedNanos) {
+            this.trades = trades;
+            this.days = days;
+            this.initialBalance = initialBalance;
+            this.maxDailyLoss = maxDailyLoss;
+            this.maxRiskPerTrade = maxRiskPerTrade;
+            this.paths = drawdowns.length;
+            this.elapsedNanos = elapsedNanos;
+
+            int daily = 0;
+            int trade = 0;
+            long breaches = 0;
+            int ruined = 0;
+            for (int i = 0; i < paths; i++) {
+                if (dailyBreaches[i] > 0) {
+                    daily++;
+                }
+                if (tradeBreaches[i] > 0) {
+                    trade++;
+                }
+                breaches += tradeBreaches[i];
+                if (drawdowns[i] >= 1) {
+                    ruined++;
+                }
+            }
+            this.dailyBreachPaths = daily;
+            this.tradeBreachPaths = trade;
+            this.totalTradeBreaches = breaches;
+            this.ruinedPaths = ruined;
+
+            Arrays.sort(drawdowns);
+            Arrays.sort(worstDays);
+            Arrays.sort(finalEquities);
+            this.drawdowns = drawdowns;
+            this.worstDays = worstDays;
+            this.finalEquities = finalEquities;
+        }
+
+        private static double percentile(double[] sorted, double q) {
+            if (q < 0 || q > 1) {
+                throw new IllegalArgumentException("分位数必须在 [0, 1]: " + q);
+            }
+            int rank = (int) Math.ceil(q * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+        }
+
+        public int getPaths() { return paths; }
+        public int getTradesPerPath() { return trades; }
+        public int getDaysPerPath() { return days; }
+        public double getInitialBalance() { return initialBalance; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * 最大回撤（占峰值权益的比例）的分位数
+         */
+        public double getDrawdownPercentile(double q) {
+            return percentile(drawdowns, q);
+        }
+
+        /**
+         * 最差单日亏损（占当日初始权益的比例）的分位数
+         */
+        public double getWorstDailyLossPercentile(double q) {
+            return percentile(worstDays, q);
+        }
+
+        public double getFinalEquityPercentile(double q) {
+            return percentile(finalEquities, q);
+        }
+
+        /**
+         * 至少有一天亏损超过 maxDailyLoss 的路径比例
+         */
+        public double getDailyLimitBreachProbability() {
+            return (double) dailyBreachPaths / paths;
+        }
+
+        /**
+         * 至少有一笔交易亏损超过 maxRiskPerTrade 的路径比例
+         */
+        public double getTradeLimitBreachProbability() {
+            return (double) tradeBreachPaths / paths;
+        }
+
+        /**
+         * 亏损超过单笔风险上限的交易占全部模拟交易的比例
+         */
+        public double getTradeLimitBreachRate() {
+            return (double) totalTradeBreaches / ((long) paths * trades);
+        }
+
+        /**
+         * 权益曾经归零的路径比例
+         */
+        public double getRuinProbability() {
+            return (double) ruinedPaths / paths;
+        }
+
+        public double getTradesPerSecond() {
+            return elapsedNanos > 0 ? (double) paths * trades * 1_000_000_000.0 / elapsedNanos : 0;
+        }
+
+        public String getSummary() {
+            return String.format("%d 条路径 × %d 笔交易 (%d 个交易日), 最大回撤 P50/P95/P99: %.2f%%/%.2f%%/%.2f%%, " +
+                            "单日亏损超限概率: %.2f%%, 单笔风险超限概率: %.2f%%, 破产概率: %.2f%%, 耗时 %dms",
+                    paths, trades, days, getDrawdownPercentile(0.5) * 100, getDrawdownPercentile(0.95) * 100,
+                    getDrawdownPercentile(0.99) * 100, getDailyLimitBreachProbability() * 100,
+                    getTradeLimitBreachProbability() * 100, getRuinProbability() * 100, elapsedNanos / 1_000_000);
+        }
+
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("蒙特卡洛重抽样: %d 条路径 × %d 笔交易 (%d 个交易日), 初始余额 %.2f%n",
+                    paths, trades, days, initialBalance));
+            sb.append(String.format("%-16s %10s %10s %10s %10s %10s%n", "指标", "P5", "P50", "P95", "P99", "最差"));
+            sb.append(String.format("%-16s %9.2f%% %9.2f%% %9.2f%% %9.2f%% %9.2f%%%n", "最大回撤",
+                    getDrawdownPercentile(0.05) * 100, getDrawdownPercentile(0.5) * 100,
+                    getDrawdownPercentile(0.95) * 100, getDrawdownPercentile(0.99) * 100,
+                    getDrawdownPercentile(1) * 100));
+            sb.append(String.format("%-16s %9.2f%% %9.2f%% %9.2f%% %9.2f%% %9.2f%%%n", "最差单日亏损",
+                    getWorstDailyLossPercentile(0.05) * 100, getWorstDailyLossPercentile(0.5) * 100,
+                    getWorstDailyLossPercentile(0.95) * 100, getWorstDailyLossPercentile(0.99) * 100,
+                    getWorstDailyLossPercentile(1) * 100));
+            sb.append(String.format("%-16s %10.2f %10.2f %10.2f %10.2f %10.2f%n", "最终权益",
+                    getFinalEquityPercentile(0.95), getFinalEquityPercentile(0.5), getFinalEquityPercentile(0.05),
+                    getFinalEquityPercentile(0.01), getFinalEquityPercentile(0)));
+            sb.append(String.format("单日亏损上限 %.2f%%: %.2f%% 的路径至少超限一次%n",
+                    maxDailyLoss * 100, getDailyLimitBreachProbability() * 100));
+            sb.append(String.format("单笔风险上限 %.2f%%: %.2f%% 的路径至少超限一次, 超限交易占 %.3f%%%n",
+                    maxRiskPerTrade * 100, getTradeLimitBreachProbability() * 100, getTradeLimitBreachRate() * 100));
+            sb.append(String.format("破产概率: %.2f%%, 耗时 %dms (%.0f 笔/秒)%n",
+                    getRuinProbability() * 100, elapsedNanos / 1_000_000, getTradesPerSecond()));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 用法: MonteCarloRisk <成交明细CSV> [路径数=100000] [初始余额=10000] [种子=1]
+     * 风控限额取 application.properties 的 trading.max.daily.loss 和 trading.max.risk.per.trade
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("用法: MonteCarloRisk <成交明细CSV> [路径数=100000] [初始余额=10000] [种子=1]");
+            return;
+        }
+        int paths = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        double balance = args.length > 2 ? Double.parseDouble(args[2]) : 10000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+        Trades trades = readTrades(Paths.get(args[0]));
+        RiskConfig risk = RiskConfig.from(TradingConfig.load());
+        Report report = new MonteCarloRisk(trades.getProfits(), trades.getCloseTimesMillis(), balance, risk)
+                .run(paths, seed);
+        System.out.print(report.format());
+    }
+}
@@ -0,0 +1,465 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.CandleData;
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.models.OrderSide;
+import com.mt5trading.models.OrderState;
+import com.mt5trading.mt5.connector.MT5Connector;
+import com.mt5trading.mt5.connector.StagedOrder;
+import com.mt5trading.mt5.models.OrderAck;
+import com.mt5trading.timer.TimerService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 模拟成交的连接器，回测和测试模式共用
+ * 订单不发往 EA，而是按最新行情和 {@link FillModel} 成交：买单按卖价、卖单按买价，平仓反之，
+ * 叠加滑点、部分成交和订单延迟。有延迟时订单在延迟到期后按当时的行情成交，回报随之完成。
+ * 每笔行情检查持仓的止损止盈；行情连续变化（K线内插值的行情）时按止损止盈价成交，
+ * 跳空时按跳空后的行情成交。订单存储、持仓簿和风控照常更新，引擎看到的接口与实盘一致。
+ *
+ * 回测时在虚拟时钟上由单线程驱动；测试模式下连接真实 EA 接收行情，只有成交是模拟的。
+ * 公开方法都持有对象锁，行情线程、引擎线程和定时器线程可以同时调用。
+ */
+public class SimulatedMT5Connector extends MT5Connector {
+
+    /**
+     * 模拟持仓
+     */
+    private static final class Position {
+        final int ticket;
+        final String symbol;
+        final OrderSide side;
+        final double volume;
+        final double openPrice;
+        final long openTimeMillis;
+        final double entryCost;
+        double stopLoss;
+        double takeProfit;
+
+        Position(int ticket, String symbol, OrderSide side, double volume, double openPrice,
+                 double stopLoss, double takeProfit, long openTimeMillis, double entryCost) {
+            this.ticket = ticket;
+            this.symbol = symbol;
+            this.side = side;
+            this.volume = volume;
+            this.openPrice = openPrice;
+            this.stopLoss = stopLoss;
+            this.takeProfit = takeProfit;
+            this.openTimeMillis = openTimeMillis;
+            this.entryCost = entryCost;
+        }
+
+        OrderSide closeSide() {
+            return side == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY;
+        }
+    }
+
+    private final TimerService clock;
+    private final FillModel fillModel;
+    private final double valuePerPoint;
+    private final Map<String, double[]> quotes = new HashMap<>(); // 品种 -> {买价, 卖价}
+    private final List<Position> positions = new ArrayList<>();
+    private final List<BacktestTrade> trades = new ArrayList<>();
+    private final double initialBalance;
+    private double balance;
+    private int nextTicket = 1;
+    private long rejectedCount = 0;
+    private long partialFillCount = 0;
+    private int inFlightCount = 0;
+
+    public SimulatedMT5Connector(TradingConfig config, TimerService clock, double initialBalance) {
+        this(config, clock, initialBalance, FillModel.fromConfig(config));
+    }
+
+    public SimulatedMT5Connector(TradingConfig config, TimerService clock, double initialBalance,
+                                 FillModel fillModel) {
+        super(config, clock, false);
+        this.clock = clock;
+        this.fillModel = fillModel;
+        this.valuePerPoint = config.getValuePerPoint();
+        this.initialBalance = initialBalance;
+        this.balance = initialBalance;
+        getRiskEngine().onAccountBalance(initialBalance);
+    }
+
+    @Override
+    public boolean isSimulated() {
+        return true;
+    }
+
+    /**
+     * 行情更新：重估持仓，检查止损止盈，跳空处理
+     */
+    public void onTick(String symbol, double bid, double ask) {
+        onTick(symbol, bid, ask, false);
+    }
+
+    /**
+     * 行情更新：重估持仓，检查止损止盈
+     *
+     * @param continuous 行情是否从上一笔连续变化而来。连续时价格一定经过了止损止盈价，按该价成交；
+     *                   否则视为跳空，按本笔行情成交
+     */
+    public synchronized void onTick(String symbol, double bid, double ask, boolean continuous) {
+        getRiskEngine().onTick(symbol, bid, ask, clock.currentTimeMillis());
+        getPositionBook().onTick(symbol, bid, ask);
+        match(symbol, bid, ask, continuous);
+    }
+
+    /**
+     * 测试模式下 EA 推送的行情
+     * WebSocket 客户端已经按行情自带的时间更新了风控和持仓簿，这里只记录报价并撮合止损止盈。
+     */
+    @Override
+    protected synchronized void onQuote(String symbol, double bid, double ask) {
+        match(symbol, bid, ask, false);
+    }
+
+    /**
+     * 记录最新报价，检查止损止盈
+     */
+    private void match(String symbol, double bid, double ask, boolean continuous) {
+        double[] quote = quotes.get(symbol);
+        if (quote == null) {
+            quote = new double[2];
+            quotes.put(symbol, quote);
+        }
+        quote[0] = bid;
+        quote[1] = ask;
+
+        for (int i = positions.size() - 1; i >= 0; i--) {
+            Position position = positions.get(i);
+            if (!position.symbol.equals(symbol)) {
+                continue;
+            }
+            boolean isLong = position.side == OrderSide.BUY;
+            OrderSide closeSide = position.closeSide();
+            double exitQuote = fillModel.quotePrice(closeSide, bid, ask);
+            if (position.stopLoss > 0 && (isLong ? exitQuote <= position.stopLoss : exitQuote >= position.stopLoss)) {
+                // 止损触发后按市价成交，有滑点
+                double price = fillModel.slip(closeSide, continuous ? position.stopLoss : exitQuote);
+                close(i, price, position.stopLoss, BacktestTrade.ExitReason.STOP_LOSS);
+            } else if (position.takeProfit > 0
+                    && (isLong ? exitQuote >= position.takeProfit : exitQuote <= position.takeProfit)) {
+                // 止盈按挂单价成交，跳空时按更优的行情成交
+                close(i, continuous ? position.takeProfit : exitQuote, position.takeProfit,
+                        BacktestTrade.ExitReason.TAKE_PROFIT);
+            }
+        }
+    }
+
+    /**
+     * 发出市价单：决策价取当前行情，延迟到期后按当时的行情成交
+     *
+     * @param staged 预备订单，按实际成交价计算止损止盈；为 null 时使用给定的止损止盈
+     */
+    private CompletableFuture<OrderAck> submitMarket(String clientOrderId, String symbol, String orderType,
+                                                     double volume, StagedOrder staged,
+                                                     double stopLoss, double takeProfit, String comment) {
+        OrderSide side = OrderSide.fromType(orderType);
+        double[] quote = quotes.get(symbol);
+        if (side == null || quote == null || volume <= 0) {
+            rejectedCount++;
+            return CompletableFuture.completedFuture(
+                    OrderAck.failed(clientOrderId, quote == null ? "没有行情" : "无效订单"));
+        }
+        double decisionPrice = fillModel.quotePrice(side, quote[0], quote[1]);
+        long latency = fillModel.sampleLatencyMillis();
+        if (latency <= 0) {
+            return CompletableFuture.completedFuture(fill(clientOrderId, symbol, orderType, side, volume,
+                    decisionPrice, staged, stopLoss, takeProfit, comment));
+        }
+
+        CompletableFuture<OrderAck> result = new CompletableFuture<>();
+        inFlightCount++;
+        clock.schedule(() -> {
+            OrderAck ack;
+            synchronized (this) {
+                inFlightCount--;
+                ack = fill(clientOrderId, symbol, orderType, side, volume, decisionPrice,
+                        staged, stopLoss, takeProfit, comment);
+            }
+            result.complete(ack);
+        }, latency, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    private OrderAck fill(String clientOrderId, String symbol, String orderType, OrderSide side, double volume,
+                          double decisionPrice, StagedOrder staged, double stopLoss, double takeProfit,
+                          String comment) {
+        double[] quote = quotes.get(symbol);
+        double price = fillModel.marketPrice(side, quote[0], quote[1]);
+        double filled = fillModel.fillVolume(volume);
+        if (filled < volume) {
+            partialFillCount++;
+        }
+        if (staged != null) {
+            stopLoss = staged.stopLossFor(price);
+            takeProfit = staged.takeProfitFor(price);
+        }
+        int ticket = nextTicket++;
+        open(ticket, symbol, orderType, side, filled, price, stopLoss, takeProfit, comment,
+                cost(side, decisionPrice, price, filled));
+        return new OrderAck(clientOrderId, true, ticket, price, filled, null);
+    }
+
+    private void open(int ticket, String symbol, String orderType, OrderSide side, double volume, double price,
+                      double stopLoss, double takeProfit, String comment, double entryCost) {
+        OrderInfo order = getOrderStore().get(ticket);
+        if (order == null) {
+            order = new OrderInfo(ticket, symbol, orderType, volume, price);
+            order.setState(OrderState.OPEN);
+            order.setTimeSetup(clock.localNow());
+            getOrderStore().add(order);
+        } else {
+            getOrderStore().transition(ticket, OrderState.OPEN);
+            order.setPrice(price);
+            order.setVolume(volume);
+        }
+        order.setStopLoss(stopLoss);
+        order.setTakeProfit(takeProfit);
+        order.setComment(comment);
+
+        getPositionBook().open(ticket, symbol, side, volume, price, stopLoss, takeProfit);
+        positions.add(new Position(ticket, symbol, side, volume, price, stopLoss, takeProfit,
+                clock.currentTimeMillis(), entryCost));
+    }
+
+    /**
+     * 平仓
+     *
+     * @param referencePrice 计算执行成本的参考价：止损止盈价或平仓决策时的行情
+     */
+    private void close(int index, double price, double referencePrice, BacktestTrade.ExitReason reason) {
+        Position position = positions.remove(index);
+        double direction = position.side == OrderSide.BUY ? 1 : -1;
+        double profit = direction * (price - position.openPrice) * position.volume * valuePerPoint;
+        balance += profit;
+
+        getOrderStore().transition(position.ticket, OrderState.CLOSED);
+        getPositionBook().close(position.ticket, price);
+        double exitCost = cost(position.closeSide(), referencePrice, price, position.volume);
+        trades.add(new BacktestTrade(position.ticket, position.symbol, position.side, position.volume,
+                position.openTimeMillis, position.openPrice, clock.currentTimeMillis(), price, profit, reason,
+                position.entryCost + exitCost));
+    }
+
+    /**
+     * 按市价平仓
+     */
+    private void closeAtMarket(int index, BacktestTrade.ExitReason reason) {
+        Position position = positions.get(index);
+        double[] quote = quotes.get(position.symbol);
+        OrderSide closeSide = position.closeSide();
+        double reference = fillModel.quotePrice(closeSide, quote[0], quote[1]);
+        close(index, fillModel.slip(closeSide, reference), reference, reason);
+    }
+
+    /**
+     * 成交价相对参考价的不利差额（账户货币）
+     */
+    private double cost(OrderSide side, double referencePrice, double price, double volume) {
+        double adverse = side == OrderSide.BUY ? price - referencePrice : referencePrice - price;
+        return adverse * volume * valuePerPoint;
+    }
+
+    /**
+     * 按当前行情平掉全部持仓
+     */
+    public synchronized void closeAll(BacktestTrade.ExitReason reason) {
+        for (int i = positions.size() - 1; i >= 0; i--) {
+            closeAtMarket(i, reason);
+        }
+    }
+
+    /**
+     * 模拟用户手动挂单，引擎扫描挂单时可见
+     */
+    public synchronized void placeUserOrder(OrderInfo order) {
+        order.setState(OrderState.PENDING);
+        if (order.getTicket() <= 0) {
+            order.setTicket(nextTicket++);
+        } else {
+            nextTicket = Math.max(nextTicket, order.getTicket() + 1);
+        }
+        getOrderStore().add(order);
+    }
+
+    private int indexOf(int ticket) {
+        for (int i = 0; i < positions.size(); i++) {
+            if (positions.get(i).ticket == ticket) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ========== 连接器接口 ==========
+
+    @Override
+    public synchronized CompletableFuture<OrderAck> submitOrder(String symbol, String orderType, double volume,
+                                                                double price, double stopLoss, double takeProfit,
+                                                                String comment) {
+        String clientOrderId = getOrderDispatcher().nextClientOrderId();
+        return submitMarket(clientOrderId, symbol, orderType, volume, null, stopLoss, takeProfit, comment);
+    }
+
+    /**
+     * 预备订单的止损止盈按实际成交价重新计算
+     */
+    @Override
+    public synchronized CompletableFuture<OrderAck> submitStaged(StagedOrder staged, double price) {
+        return submitMarket(staged.getClientOrderId(), staged.getSymbol(), staged.getOrderType(),
+                staged.getVolume(), staged, 0, 0, staged.getComment());
+    }
+
+    /**
+     * 批准的用户挂单按市价成交。接口是同步的，不计订单延迟
+     */
+    @Override
+    public synchronized boolean executeOrder(int ticket, String symbol, String type, double volume,
+                                             double price, double stopLoss, double takeProfit, String comment) {
+        OrderInfo order = getOrderStore().get(ticket);
+        OrderSide side = OrderSide.fromType(type);
+        double[] quote = quotes.get(symbol);
+        if (order == null || !order.getState().isPending() || side == null || quote == null) {
+            rejectedCount++;
+            return false;
+        }
+        double decisionPrice = fillModel.quotePrice(side, quote[0], quote[1]);
+        double fillPrice = fillModel.slip(side, decisionPrice);
+        double filled = fillModel.fillVolume(volume);
+        if (filled < volume) {
+            partialFillCount++;
+        }
+        open(ticket, symbol, type, side, filled, fillPrice, stopLoss, takeProfit, comment,
+                cost(side, decisionPrice, fillPrice, filled));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean modifyOrder(int ticket, String symbol, String type, double volume,
+                               double price, double stopLoss, double takeProfit, String comment) {
+        OrderInfo order = getOrderStore().get(ticket);
+        if (order == null) {
+            return false;
+        }
+        order.setStopLoss(stopLoss);
+        order.setTakeProfit(takeProfit);
+        order.setComment(comment);
+        int index = indexOf(ticket);
+        if (index >= 0) {
+            positions.get(index).stopLoss = stopLoss;
+            positions.get(index).takeProfit = takeProfit;
+            getPositionBook().modify(ticket, stopLoss, takeProfit);
+        } else if (order.getState().isPending()) {
+            getOrderStore().transition(ticket, OrderState.MODIFIED);
+        }
+        return true;
+    }
+
+    /**
+     * 挂单删除，持仓按市价平仓
+     */
+    @Override
+    public synchronized boolean cancelOrder(int ticket, String reason) {
+        int index = indexOf(ticket);
+        if (index >= 0) {
+            closeAtMarket(index, BacktestTrade.ExitReason.CLOSED);
+            return true;
+        }
+        OrderInfo order = getOrderStore().get(ticket);
+        if (order != null && order.getState().isPending()) {
+            getOrderStore().transition(ticket, OrderState.DELETED);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized double getCurrentPrice(String symbol) {
+        double[] quote = quotes.get(symbol);
+        return quote != null ? (quote[0] + quote[1]) / 2 : 0;
+    }
+
+    @Override
+    public List<OrderInfo> getPendingOrders() {
+        return getOrderStore().getPending();
+    }
+
+    @Override
+    public List<OrderInfo> getOpenPositions() {
+        return getOrderStore().getActive();
+    }
+
+    @Override
+    public List<CandleData> getHistoricalData(String symbol, String timeframe, int bars) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public synchronized CompletableFuture<Double> getAccountBalance() {
+        return CompletableFuture.completedFuture(balance);
+    }
+
+    @Override
+    public void startOrderMonitoring(Consumer<OrderInfo> onNewUserOrderCallback) {
+        // 引擎自己扫描挂单，模拟连接器不需要额外监控
+    }
+
+    // ========== 回测结果 ==========
+
+    public double getInitialBalance() {
+        return initialBalance;
+    }
+
+    public FillModel getFillModel() {
+        return fillModel;
+    }
+
+    public synchronized double getBalance() {
+        return balance;
+    }
+
+    /**
+     * 余额加上持仓浮动盈亏
+     */
+    public synchronized double getEquity() {
+        return balance + getPositionBook().getUnrealizedTotal();
+    }
+
+    /**
+     * 已平仓的交易。回测结束后读取；测试模式下返回副本
+     */
+    public synchronized List<BacktestTrade> getTrades() {
+        return new ArrayList<>(trades);
+    }
+
+    public synchronized int getOpenPositionCount() {
+        return positions.size();
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public synchronized long getPartialFillCount() {
+        return partialFillCount;
+    }
+
+    /**
+     * 已发出、尚未到达成交时刻的订单数
+     */
+    public synchronized int getInFlightCount() {
+        return inFlightCount;
+    }
+}
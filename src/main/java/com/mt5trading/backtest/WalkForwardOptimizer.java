@@ -0,0 +1,560 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.services.SimpleDecisionEngine;
+import com.mt5trading.util.CsvWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * 滚动前推优化（walk-forward）
+ * 把历史切成滚动的样本内/样本外窗口：在样本内选出最优参数组合，再用它在紧随其后的样本外区间打分，
+ * 窗口每次前移一个样本外长度，全部样本外区间拼起来就是参数按时重选时的表现。
+ *
+ * 每个候选组合只在整段历史上连续回测一次，各窗口的得分从这次运行的逐根权益曲线上按区间截取，
+ * 而不是为每个窗口从头重放：引擎的价格历史、指标和持仓在重叠的窗口之间自然延续，
+ * 总工作量是 候选数 × K线数，与窗口数量无关。这相当于每个候选策略一直在运行，
+ * 样本外区间使用的是被选中候选从前一段延续下来的状态，与实盘切换参数时的情形一致。
+ *
+ * 候选回测在 fork-join 线程池上并行，窗口评估同样在该线程池上并行。
+ */
+public class WalkForwardOptimizer {
+    private static final Logger logger = LoggerFactory.getLogger(WalkForwardOptimizer.class);
+
+    private final Properties base;
+    private final Backtester.EngineFactory engineFactory;
+    private final ForkJoinPool pool;
+    private final Map<String, double[]> parameters = new LinkedHashMap<>();
+    private int inSampleBars = 0;
+    private int outOfSampleBars = 0;
+    private int minTrades = 1;
+    private double initialBalance = 10000;
+    private double spread = 0;
+
+    /**
+     * @param base 基础配置，候选组合在其上覆盖参数
+     */
+    public WalkForwardOptimizer(Properties base, Backtester.EngineFactory engineFactory, ForkJoinPool pool) {
+        this.base = new Properties();
+        this.base.putAll(base);
+        this.engineFactory = engineFactory;
+        this.pool = pool;
+    }
+
+    public WalkForwardOptimizer(Properties base, Backtester.EngineFactory engineFactory) {
+        this(base, engineFactory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 添加待优化的配置项及其候选值，多个配置项取笛卡尔积
+     */
+    public WalkForwardOptimizer addParameter(String key, double... values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("参数没有候选值: " + key);
+        }
+        if (parameters.containsKey(key)) {
+            throw new IllegalArgumentException("参数重复: " + key);
+        }
+        parameters.put(key, values.clone());
+        return this;
+    }
+
+    /**
+     * 设置窗口长度（K线数），窗口每次前移一个样本外长度
+     */
+    public WalkForwardOptimizer setWindows(int inSampleBars, int outOfSampleBars) {
+        if (inSampleBars <= 0 || outOfSampleBars <= 0) {
+            throw new IllegalArgumentException("窗口长度必须大于0: " + inSampleBars + "/" + outOfSampleBars);
+        }
+        this.inSampleBars = inSampleBars;
+        this.outOfSampleBars = outOfSampleBars;
+        return this;
+    }
+
+    /**
+     * 样本内至少平仓这么多笔交易的候选才参与选择，避免选中不交易的组合
+     */
+    public void setMinTrades(int minTrades) {
+        this.minTrades = minTrades;
+    }
+
+    public void setInitialBalance(double initialBalance) {
+        this.initialBalance = initialBalance;
+    }
+
+    public void setSpread(double spread) {
+        this.spread = spread;
+    }
+
+    /**
+     * 全部候选组合，按参数添加顺序展开
+     */
+    public List<Map<String, String>> getCandidates() {
+        List<Map<String, String>> candidates = new ArrayList<>();
+        candidates.add(new LinkedHashMap<>());
+        for (Map.Entry<String, double[]> parameter : parameters.entrySet()) {
+            List<Map<String, String>> expanded = new ArrayList<>();
+            for (Map<String, String> candidate : candidates) {
+                for (double value : parameter.getValue()) {
+                    Map<String, String> next = new LinkedHashMap<>(candidate);
+                    next.put(parameter.getKey(), formatValue(value));
+                    expanded.add(next);
+                }
+            }
+            candidates = expanded;
+        }
+        return candidates;
+    }
+
+    /**
+     * 整数值按整数写入配置，整型配置项也可以参与优化
+     */
+    static String formatValue(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    public Report run(BarSource bars) {
+        if (inSampleBars == 0) {
+            throw new IllegalStateException("没有设置窗口长度");
+        }
+        if (parameters.isEmpty()) {
+            throw new IllegalStateException("没有待优化的参数");
+        }
+        int size = bars.size();
+        if (size < inSampleBars + outOfSampleBars) {
+            throw new IllegalArgumentException("K线数量 " + size + " 不足一个窗口 (" + inSampleBars + " + "
+                    + outOfSampleBars + ")");
+        }
+
+        List<Map<String, String>> candidates = getCandidates();
+        CandidateRun[] runs = new CandidateRun[candidates.size()];
+        long start = System.nanoTime();
+        Backtester.silenceOutput();
+        try {
+            pool.invoke(new CandidateTask(bars, candidates, runs, 0, runs.length));
+        } finally {
+            Backtester.restoreOutput();
+        }
+        long backtestNanos = System.nanoTime() - start;
+
+        int windowCount = (size - inSampleBars) / outOfSampleBars;
+        Window[] windows = new Window[windowCount];
+        try {
+            pool.submit(() -> IntStream.range(0, windowCount).parallel()
+                    .forEach(i -> windows[i] = evaluate(i, runs, candidates, bars))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("前推优化被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("窗口评估失败", e.getCause());
+        }
+
+        Report report = new Report(bars.getSymbol(), candidates, runs, Arrays.asList(windows), size,
+                backtestNanos, System.nanoTime() - start);
+        logger.info("前推优化完成: {}", report.getSummary());
+        return report;
+    }
+
+    /**
+     * 每个叶子任务回测一个候选组合
+     */
+    @SuppressWarnings("serial")
+    private class CandidateTask extends RecursiveAction {
+        private final BarSource bars;
+        private final List<Map<String, String>> candidates;
+        private final CandidateRun[] runs;
+        private final int from;
+        private final int to;
+
+        CandidateTask(BarSource bars, List<Map<String, String>> candidates, CandidateRun[] runs, int from, int to) {
+            this.bars = bars;
+            this.candidates = candidates;
+            this.runs = runs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                runs[from] = runCandidate(candidates.get(from), bars);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CandidateTask(bars, candidates, runs, from, mid),
+                      new CandidateTask(bars, candidates, runs, mid, to));
+        }
+    }
+
+    private CandidateRun runCandidate(Map<String, String> candidate, BarSource bars) {
+        Properties properties = new Properties();
+        properties.putAll(base);
+        properties.putAll(candidate);
+        properties.setProperty("mt5.symbol", bars.getSymbol());
+        properties.setProperty("app.journal.enabled", "false");
+
+        Backtester backtester = new Backtester(TradingConfig.fromProperties(properties), engineFactory);
+        backtester.setQuiet(false);
+        backtester.setInitialBalance(initialBalance);
+        backtester.setSpread(spread);
+        return new CandidateRun(backtester.run(bars));
+    }
+
+    /**
+     * 一个候选组合的连续回测，保留按K线截取区间所需的数据
+     */
+    static final class CandidateRun {
+        final double initialBalance;
+        final double[] equity;        // 第 i 根K线结束时的权益
+        final int[] closedTrades;     // 截至第 i 根K线（含）平仓的交易数
+        final long elapsedNanos;
+
+        CandidateRun(BacktestResult result) {
+            int bars = (int) result.getBarCount();
+            this.initialBalance = result.getInitialBalance();
+            this.elapsedNanos = result.getElapsedNanos();
+            this.equity = new double[bars];
+            long[] barEnds = new long[bars];
+            for (int i = 0; i < bars; i++) {
+                equity[i] = result.getEquity(i);
+                barEnds[i] = result.getEquityTime(i);
+            }
+            // 回测结束时的强制平仓不计入任何窗口
+            int[] perBar = new int[bars];
+            for (BacktestTrade trade : result.getTrades()) {
+                if (trade.getExitReason() == BacktestTrade.ExitReason.END_OF_DATA) {
+                    continue;
+                }
+                int index = Arrays.binarySearch(barEnds, trade.getCloseTimeMillis());
+                index = index >= 0 ? index : Math.min(bars - 1, -index - 1);
+                perBar[index]++;
+            }
+            this.closedTrades = new int[bars];
+            int total = 0;
+            for (int i = 0; i < bars; i++) {
+                total += perBar[i];
+                closedTrades[i] = total;
+            }
+        }
+
+        /**
+         * [from, to) 区间的权益变化
+         */
+        double profit(int from, int to) {
+            return equity[to - 1] - (from == 0 ? initialBalance : equity[from - 1]);
+        }
+
+        int trades(int from, int to) {
+            return closedTrades[to - 1] - (from == 0 ? 0 : closedTrades[from - 1]);
+        }
+    }
+
+    private Window evaluate(int index, CandidateRun[] runs, List<Map<String, String>> candidates, BarSource bars) {
+        int inFrom = index * outOfSampleBars;
+        int inTo = inFrom + inSampleBars;
+        int outTo = inTo + outOfSampleBars;
+
+        double[] scores = new double[runs.length];
+        int best = -1;
+        for (int c = 0; c < runs.length; c++) {
+            scores[c] = runs[c].profit(inFrom, inTo);
+            if (runs[c].trades(inFrom, inTo) >= minTrades && (best < 0 || scores[c] > scores[best])) {
+                best = c;
+            }
+        }
+        if (best < 0) {
+            return new Window(index, inFrom, inTo, outTo, bars.getTime(inFrom), bars.getTime(inTo),
+                    -1, null, scores, 0, 0, 0, Double.NaN);
+        }
+        CandidateRun chosen = runs[best];
+        return new Window(index, inFrom, inTo, outTo, bars.getTime(inFrom), bars.getTime(inTo),
+                best, candidates.get(best), scores, chosen.trades(inFrom, inTo),
+                chosen.profit(inTo, outTo), chosen.trades(inTo, outTo),
+                efficiency(scores[best], inSampleBars, chosen.profit(inTo, outTo), outOfSampleBars));
+    }
+
+    /**
+     * 样本外与样本内每根K线平均盈亏之比
+     * 样本内不盈利时比值没有意义（亏损除以亏损会得到正数），返回 NaN。
+     */
+    static double efficiency(double inSampleProfit, int inSampleBars, double outOfSampleProfit, int outOfSampleBars) {
+        if (!(inSampleProfit > 0)) {
+            return Double.NaN;
+        }
+        return (outOfSampleProfit / outOfSampleBars) / (inSampleProfit / inSampleBars);
+    }
+
+    /**
+     * 一个前推窗口：样本内 [inFrom, inTo)，样本外 [inTo, outTo)，下标为K线序号
+     */
+    public static class Window {
+        private final int index;
+        private final int inFrom;
+        private final int inTo;
+        private final int outTo;
+        private final long inStartTime;
+        private final long outStartTime;
+        private final int chosen;
+        private final Map<String, String> parameters;
+        private final double[] inSampleProfits;
+        private final int inSampleTrades;
+        private final double outOfSampleProfit;
+        private final int outOfSampleTrades;
+        private final double efficiency;
+
+        Window(int index, int inFrom, int inTo, int outTo, long inStartTime, long outStartTime, int chosen,
+               Map<String, String> parameters, double[] inSampleProfits, int inSampleTrades,
+               double outOfSampleProfit, int outOfSampleTrades, double efficiency) {
+            this.index = index;
+            this.inFrom = inFrom;
+            this.inTo = inTo;
+            this.outTo = outTo;
+            this.inStartTime = inStartTime;
+            this.outStartTime = outStartTime;
+            this.chosen = chosen;
+            this.parameters = parameters == null ? Collections.emptyMap() : Collections.unmodifiableMap(parameters);
+            this.inSampleProfits = inSampleProfits;
+            this.inSampleTrades = inSampleTrades;
+            this.outOfSampleProfit = outOfSampleProfit;
+            this.outOfSampleTrades = outOfSampleTrades;
+            this.efficiency = efficiency;
+        }
+
+        public int getIndex() { return index; }
+        public int getInSampleFrom() { return inFrom; }
+        public int getInSampleTo() { return inTo; }
+        public int getOutOfSampleTo() { return outTo; }
+        /** 样本内第一根K线时间（本地时间的秒数） */
+        public long getInSampleStartTime() { return inStartTime; }
+        /** 样本外第一根K线时间（本地时间的秒数） */
+        public long getOutOfSampleStartTime() { return outStartTime; }
+        /** 选中的候选序号，没有候选满足最少交易数时为 -1 */
+        public int getChosenCandidate() { return chosen; }
+        public Map<String, String> getParameters() { return parameters; }
+        public int getInSampleTrades() { return inSampleTrades; }
+        public double getOutOfSampleProfit() { return outOfSampleProfit; }
+        public int getOutOfSampleTrades() { return outOfSampleTrades; }
+        /** 样本外与样本内每根K线平均盈亏之比，没有选中参数或样本内不盈利时为 NaN */
+        public double getEfficiency() { return efficiency; }
+
+        public double getInSampleProfit() {
+            return chosen >= 0 ? inSampleProfits[chosen] : 0;
+        }
+
+        /**
+         * 指定候选在本窗口样本内的盈亏
+         */
+        public double getInSampleProfit(int candidate) {
+            return inSampleProfits[candidate];
+        }
+
+        public boolean hasChoice() {
+            return chosen >= 0;
+        }
+    }
+
+    /**
+     * 前推优化报告
+     */
+    public static class Report {
+        private final String symbol;
+        private final List<Map<String, String>> candidates;
+        private final List<Window> windows;
+        private final int bars;
+        private final long candidateBars;
+        private final long backtestNanos;
+        private final long elapsedNanos;
+        private final double[] candidateProfits;
+
+        Report(String symbol, List<Map<String, String>> candidates, CandidateRun[] runs, List<Window> windows,
+               int bars, long backtestNanos, long elapsedNanos) {
+            this.symbol = symbol;
+            this.candidates = Collections.unmodifiableList(candidates);
+            this.windows = Collections.unmodifiableList(windows);
+            this.bars = bars;
+            this.candidateBars = (long) bars * runs.length;
+            this.backtestNanos = backtestNanos;
+            this.elapsedNanos = elapsedNanos;
+            this.candidateProfits = new double[runs.length];
+            for (int i = 0; i < runs.length; i++) {
+                candidateProfits[i] = runs[i].profit(0, bars);
+            }
+        }
+
+        public String getSymbol() { return symbol; }
+        public List<Map<String, String>> getCandidates() { return candidates; }
+        public List<Window> getWindows() { return windows; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * 候选组合在整段历史上的盈亏，用于对比固定参数的表现
+         */
+        public double getCandidateProfit(int candidate) {
+            return candidateProfits[candidate];
+        }
+
+        /**
+         * 拼接全部样本外区间的盈亏
+         */
+        public double getOutOfSampleProfit() {
+            double total = 0;
+            for (Window window : windows) {
+                total += window.getOutOfSampleProfit();
+            }
+            return total;
+        }
+
+        public int getOutOfSampleTrades() {
+            int total = 0;
+            for (Window window : windows) {
+                total += window.getOutOfSampleTrades();
+            }
+            return total;
+        }
+
+        /**
+         * 样本外盈利的窗口占比（百分比）
+         */
+        public double getProfitableWindowPercent() {
+            int profitable = 0;
+            for (Window window : windows) {
+                if (window.getOutOfSampleProfit() > 0) {
+                    profitable++;
+                }
+            }
+            return windows.isEmpty() ? 0 : profitable * 100.0 / windows.size();
+        }
+
+        public double getBarsPerSecond() {
+            return backtestNanos > 0 ? candidateBars * 1_000_000_000.0 / backtestNanos : 0;
+        }
+
+        public String getSummary() {
+            return String.format("%s %d 根K线, %d 个候选, %d 个窗口, 样本外盈亏: %.2f (%d 笔交易, %.0f%% 窗口盈利), " +
+                            "耗时 %dms, 回测 %.0f 根/秒",
+                    symbol, bars, candidates.size(), windows.size(), getOutOfSampleProfit(), getOutOfSampleTrades(),
+                    getProfitableWindowPercent(), elapsedNanos / 1_000_000, getBarsPerSecond());
+        }
+
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%-4s %-10s %-10s %-40s %12s %12s %8s%n",
+                    "窗口", "样本内", "样本外", "参数", "样本内盈亏", "样本外盈亏", "效率"));
+            for (Window window : windows) {
+                double efficiency = window.getEfficiency();
+                sb.append(String.format("%-4d %-10d %-10d %-40s %12.2f %12.2f %8s%n",
+                        window.getIndex(), window.getInSampleFrom(), window.getInSampleTo(),
+                        window.hasChoice() ? window.getParameters().toString() : "(无)",
+                        window.getInSampleProfit(), window.getOutOfSampleProfit(),
+                        Double.isNaN(efficiency) ? "-" : String.format("%.2f", efficiency)));
+            }
+            sb.append(getSummary()).append(System.lineSeparator());
+            return sb.toString();
+        }
+
+        /**
+         * 每个窗口一行，参数列按候选的配置项展开
+         */
+        public void writeCsv(Path file) throws IOException {
+            List<String> keys = candidates.isEmpty() ? Collections.emptyList()
+                    : new ArrayList<>(candidates.get(0).keySet());
+            try (CsvWriter csv = new CsvWriter(file)) {
+                csv.field("window").field("in_from").field("in_to").field("out_to")
+                        .field("in_start_time").field("out_start_time");
+                for (String key : keys) {
+                    csv.field(key);
+                }
+                csv.field("in_sample_profit").field("in_sample_trades")
+                        .field("out_of_sample_profit").field("out_of_sample_trades").field("efficiency");
+                csv.endRecord();
+                for (Window window : windows) {
+                    csv.field(window.getIndex()).field(window.getInSampleFrom()).field(window.getInSampleTo())
+                            .field(window.getOutOfSampleTo()).field(window.getInSampleStartTime())
+                            .field(window.getOutOfSampleStartTime());
+                    for (String key : keys) {
+                        csv.field(window.getParameters().getOrDefault(key, ""));
+                    }
+                    csv.field(window.getInSampleProfit()).field(window.getInSampleTrades())
+                            .field(window.getOutOfSampleProfit()).field(window.getOutOfSampleTrades());
+                    // 效率无意义时留空
+                    if (Double.isNaN(window.getEfficiency())) {
+                        csv.field("");
+                    } else {
+                        csv.field(window.getEfficiency());
+                    }
+                    csv.endRecord();
+                }
+            }
+        }
+    }
+
+    /**
+     * 用法: WalkForwardOptimizer <K线库> <品种> <样本内K线数> <样本外K线数> [配置文件] [配置项=值1,值2,...]...
+     * 不指定参数时优化 trading.bullish.threshold 和 trading.price.tolerance，结果写出 walk-forward.csv
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("用法: WalkForwardOptimizer <K线库> <品种> <样本内K线数> <样本外K线数> "
+                    + "[配置文件] [配置项=值1,值2,...]...");
+            return;
+        }
+        Properties base = new Properties();
+        List<String> parameterArgs = new ArrayList<>();
+        for (int i = 4; i < args.length; i++) {
+            if (args[i].contains("=")) {
+                parameterArgs.add(args[i]);
+            } else {
+                try (InputStream in = Files.newInputStream(Paths.get(args[i]))) {
+                    base.load(in);
+                }
+            }
+        }
+
+        WalkForwardOptimizer optimizer = new WalkForwardOptimizer(base, SimpleDecisionEngine::new)
+                .setWindows(Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        if (parameterArgs.isEmpty()) {
+            optimizer.addParameter("trading.bullish.threshold", 0.02, 0.04, 0.06, 0.08);
+            optimizer.addParameter("trading.price.tolerance", 10, 20, 30, 40);
+        }
+        for (String arg : parameterArgs) {
+            String[] kv = arg.split("=", 2);
+            String[] parts = kv[1].split(",");
+            double[] values = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = Double.parseDouble(parts[i].trim());
+            }
+            optimizer.addParameter(kv[0].trim(), values);
+        }
+
+        try (CandleStore store = CandleStore.open(Paths.get(args[0]))) {
+            BarSource bars = store.get(args[1]);
+            if (bars == null) {
+                System.out.println("K线库中没有品种: " + args[1]);
+                return;
+            }
+            Report report = optimizer.run(bars);
+            System.out.print(report.format());
+            report.writeCsv(Paths.get("walk-forward.csv"));
+        }
+    }
+}
@@ -8,6 +8,8 @@ public class RiskConfig {
     private boolean useFixedPositionSize;
     private double fixedPositionSize;
     private double volatilityMultiplier;
+    private double maxPositionSize;
+    private int stopLossPips;
     
     public RiskConfig() {
         // Default values
@@ -17,6 +19,21 @@ public class RiskConfig {
         this.useFixedPositionSize = false;
         this.fixedPositionSize = 0.1; // Standard lot size
         this.volatilityMultiplier = 1.0;
+        this.maxPositionSize = 5.0;
+        this.stopLossPips = 80;
+    }
+    
+    /**
+     * Build from the trading config once, so the calculations below never touch the classpath
+     */
+    public static RiskConfig from(TradingConfig config) {
+        RiskConfig riskConfig = new RiskConfig();
+        riskConfig.setMaxRiskPerTrade(config.getMaxRiskPerTrade());
+        riskConfig.setMaxDailyLoss(config.getMaxDailyLoss());
+        riskConfig.setMaxConcurrentTrades(config.getMaxConcurrentTrades());
+        riskConfig.setMaxPositionSize(config.getMaxPositionSize());
+        riskConfig.setStopLossPips(config.getStopLossPips());
+        return riskConfig;
     }
     
     // Getters and Setters
@@ -41,6 +58,12 @@ public class RiskConfig {
     public double getVolatilityMultiplier() { return volatilityMultiplier; }
     public void setVolatilityMultiplier(double volatilityMultiplier) { this.volatilityMultiplier = volatilityMultiplier; }
     
+    public double getMaxPositionSize() { return maxPositionSize; }
+    public void setMaxPositionSize(double maxPositionSize) { this.maxPositionSize = maxPositionSize; }
+    
+    public int getStopLossPips() { return stopLossPips; }
+    public void setStopLossPips(int stopLossPips) { this.stopLossPips = stopLossPips; }
+    
     // Risk calculation methods
     public double calculatePositionSize(double entryPrice, double stopLoss, double currentBalance) {
         if (useFixedPositionSize) {
@@ -61,12 +84,7 @@ public class RiskConfig {
         double positionSize = (riskAmount / priceDistance) * volatilityMultiplier;
         
         // Apply maximum position size limit
-        try {
-            TradingConfig tradingConfig = TradingConfig.load();
-            return Math.min(positionSize, tradingConfig.getMaxPositionSize());
-        } catch (Exception e) {
-            return Math.min(positionSize, 1000); // Fallback max size
-        }
+        return Math.min(positionSize, maxPositionSize);
     }
     
     public boolean isDailyLossLimitExceeded(double dailyProfitLoss) {
@@ -80,12 +98,7 @@ public class RiskConfig {
     
     public double calculateStopLossDistance(double entryPrice, double volatility) {
         // Adjust stop loss based on volatility
-        try {
-            TradingConfig config = TradingConfig.load();
-            return config.getStopLossPips() * volatility * volatilityMultiplier;
-        } catch (Exception e) {
-            return 50; // Default 50 pips
-        }
+        return stopLossPips * volatility * volatilityMultiplier;
     }
     
     @Override
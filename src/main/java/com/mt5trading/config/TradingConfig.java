@@ -1,233 +1,529 @@
 package com.mt5trading.config;
 
+import com.mt5trading.timer.Timeout;
+import com.mt5trading.timer.TimerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 交易配置
+ * 配置在加载时一次性解析并校验为不可变的类型化快照，getter 只读取字段，不再解析字符串。
+ * 配置文件在磁盘上被修改后可以热加载：新快照通过校验后以一次 volatile 写整体替换。
+ * 每个 getter 单独读取当前快照，单个值总是完整的旧值或新值；一次决策需要读取多个参数时
+ * 先用 {@link #getSnapshot()} 固定快照，这些参数才保证来自同一份配置。
+ * 阈值、容忍度、手数等每次决策时读取的参数立即生效；
+ * 时间框架、分析秒数、价格历史长度、连接地址等启动时使用的参数仍需重启。
+ */
 public class TradingConfig {
-    private final Properties properties;
+    private static final Logger logger = LoggerFactory.getLogger(TradingConfig.class);
+    private static final String RESOURCE = "application.properties";
+    
+    private volatile Snapshot snapshot;
+    // 可热加载的配置文件，配置不在磁盘上（如打包在 jar 内）时为 null
+    private final Path source;
+    // 由 forStrategy 派生的策略名，全局配置为 null
+    private final String strategyName;
+    private final List<TradingConfig> derived = new CopyOnWriteArrayList<>();
+    private Timeout reloadTimeout;
+    private long lastModified;
     
-    private TradingConfig(Properties properties) {
-        this.properties = properties;
+    private TradingConfig(Snapshot snapshot, Path source, String strategyName) {
+        this.snapshot = snapshot;
+        this.source = source;
+        this.strategyName = strategyName;
     }
     
     public static TradingConfig load() throws IOException {
+        URL url = TradingConfig.class.getClassLoader().getResource(RESOURCE);
+        if (url == null) {
+            throw new IOException("无法找到 application.properties 文件");
+        }
         Properties props = new Properties();
-        try (InputStream input = TradingConfig.class.getClassLoader()
-                .getResourceAsStream("application.properties")) {
-            if (input == null) {
-                throw new IOException("无法找到 application.properties 文件");
+        try (InputStream input = url.openStream()) {
+            props.load(input);
+        }
+        
+        Path path = null;
+        if ("file".equals(url.getProtocol())) {
+            try {
+                path = Paths.get(url.toURI());
+            } catch (URISyntaxException e) {
+                logger.debug("配置文件路径无法解析，热加载不可用: {}", url);
             }
+        }
+        return new TradingConfig(new Snapshot(props), path, null);
+    }
+    
+    /**
+     * 从磁盘文件加载配置，支持热加载
+     */
+    public static TradingConfig load(Path path) throws IOException {
+        return new TradingConfig(new Snapshot(readProperties(path)), path, null);
+    }
+    
+    public static TradingConfig fromProperties(Properties properties) {
+        return new TradingConfig(new Snapshot(properties), null, null);
+    }
+    
+    private static Properties readProperties(Path path) throws IOException {
+        Properties props = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
             props.load(input);
         }
-        return new TradingConfig(props);
+        return props;
+    }
+    
+    // ========== 多策略配置 ==========
+    /**
+     * 需要同时运行的策略名称列表（app.strategies=a,b,c），为空时只运行单个引擎
+     */
+    public List<String> getStrategyNames() {
+        return snapshot.strategyNames;
+    }
+    
+    public String getStrategyName() {
+        return snapshot.strategyName;
+    }
+    
+    /**
+     * 生成某个策略的配置：strategy.<名称>.<键> 覆盖同名的全局键，其余沿用全局配置。
+     * 全局配置热加载时，派生的策略配置会一起更新。
+     */
+    public TradingConfig forStrategy(String name) {
+        TradingConfig config = new TradingConfig(new Snapshot(overlay(snapshot.properties, name)), null, name);
+        derived.add(config);
+        return config;
+    }
+    
+    /**
+     * 固定当前快照：返回的配置不随之后的热加载变化，也不会再热加载
+     */
+    public TradingConfig getSnapshot() {
+        return new TradingConfig(snapshot, null, strategyName);
+    }
+    
+    private static Properties overlay(Properties properties, String name) {
+        String prefix = "strategy." + name + ".";
+        Properties merged = new Properties();
+        for (String key : properties.stringPropertyNames()) {
+            merged.setProperty(key, properties.getProperty(key));
+        }
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                merged.setProperty(key.substring(prefix.length()), properties.getProperty(key));
+            }
+        }
+        merged.remove("app.strategies");
+        merged.setProperty("app.strategy.name", name);
+        return merged;
+    }
+    
+    // ========== 热加载 ==========
+    /**
+     * 重新读取配置文件，校验通过后整体替换当前快照
+     *
+     * @return 是否已替换
+     */
+    public synchronized boolean reload() throws IOException {
+        if (source == null) {
+            return false;
+        }
+        Properties props = readProperties(source);
+        Snapshot next = new Snapshot(props);
+        if (!validate(next)) {
+            logger.warn("新配置校验失败，继续使用当前配置: {}", source);
+            return false;
+        }
+        
+        // 先编译所有派生配置，全部成功后再一起替换
+        Map<TradingConfig, Snapshot> children = new LinkedHashMap<>();
+        for (TradingConfig child : derived) {
+            Snapshot childSnapshot = new Snapshot(overlay(props, child.strategyName));
+            if (!validate(childSnapshot)) {
+                logger.warn("策略 {} 的新配置校验失败，继续使用当前配置", child.strategyName);
+                return false;
+            }
+            children.put(child, childSnapshot);
+        }
+        
+        warnRestartRequired(snapshot, next);
+        snapshot = next;
+        for (Map.Entry<TradingConfig, Snapshot> entry : children.entrySet()) {
+            entry.getKey().snapshot = entry.getValue();
+        }
+        logger.info("配置已热加载: {}", source);
+        return true;
+    }
+    
+    private static void warnRestartRequired(Snapshot current, Snapshot next) {
+        if (current.timeframe != next.timeframe
+                || current.candleAnalysisSecond != next.candleAnalysisSecond
+                || current.priceHistorySize != next.priceHistorySize
+                || !Objects.equals(current.symbol, next.symbol)
+                || !Objects.equals(current.mt5WebSocketUrl, next.mt5WebSocketUrl)
+                || !current.strategyNames.equals(next.strategyNames)) {
+            logger.warn("品种、时间框架、分析秒数、价格历史长度、连接地址或策略列表已修改，需要重启后生效");
+        }
+    }
+    
+    /**
+     * 定期检查配置文件修改时间，有变化时热加载
+     */
+    public synchronized void startHotReload(TimerService timer, long interval, TimeUnit unit) {
+        if (reloadTimeout != null) {
+            return;
+        }
+        if (source == null) {
+            logger.info("配置文件不在磁盘上，热加载未启用");
+            return;
+        }
+        lastModified = modifiedTime();
+        reloadTimeout = timer.scheduleAtFixedRate(this::checkForChanges, interval, interval, unit);
+        logger.info("配置热加载已启用: {}", source);
+    }
+    
+    public synchronized void stopHotReload() {
+        if (reloadTimeout != null) {
+            reloadTimeout.cancel();
+            reloadTimeout = null;
+        }
+    }
+    
+    private void checkForChanges() {
+        long modified = modifiedTime();
+        if (modified == lastModified) {
+            return;
+        }
+        lastModified = modified;
+        try {
+            reload();
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("配置热加载失败，继续使用当前配置: {}", e.getMessage());
+        }
+    }
+    
+    private long modifiedTime() {
+        try {
+            return Files.getLastModifiedTime(source).toMillis();
+        } catch (IOException e) {
+            return lastModified;
+        }
+    }
+    
+    public Path getSource() {
+        return source;
     }
     
     // ========== WebSocket 配置 ==========
     public String getMt5WebSocketUrl() {
-        return properties.getProperty("mt5.websocket.url", "ws://localhost:8080");
+        return snapshot.mt5WebSocketUrl;
     }
     
     public int getWebSocketReconnectInterval() {
-        return Integer.parseInt(properties.getProperty("mt5.websocket.reconnect.interval", "5000"));
+        return snapshot.webSocketReconnectInterval;
     }
     
     public int getWebSocketHeartbeatInterval() {
-        return Integer.parseInt(properties.getProperty("mt5.websocket.heartbeat.interval", "30000"));
+        return snapshot.webSocketHeartbeatInterval;
+    }
+    
+    // 发往 EA 的帧速率（帧/秒）和突发容量，多条指令合并成批量帧发送
+    public double getOutboundRateLimit() {
+        return snapshot.outboundRateLimit;
+    }
+    
+    public int getOutboundBurst() {
+        return snapshot.outboundBurst;
+    }
+    
+    public int getOutboundBatchSize() {
+        return snapshot.outboundBatchSize;
+    }
+    
+    public int getOutboundFlushInterval() {
+        return snapshot.outboundFlushInterval;
     }
     
     // ========== MT5 连接配置 ==========
     public String getMt5ApiUrl() {
-        return properties.getProperty("mt5.api.url", "http://localhost:8080/api");
+        return snapshot.mt5ApiUrl;
     }
     
     public String getMt5Login() {
-        return properties.getProperty("mt5.login", "1234567");
+        return snapshot.mt5Login;
     }
     
     public String getMt5Password() {
-        return properties.getProperty("mt5.password", "");
+        return snapshot.mt5Password;
     }
     
     public String getMt5Server() {
-        return properties.getProperty("mt5.server", "Demo");
+        return snapshot.mt5Server;
     }
     
     public int getMagicNumber() {
-        return Integer.parseInt(properties.getProperty("mt5.magic.number", "123456"));
+        return snapshot.magicNumber;
     }
     
     // ========== 交易品种配置 ==========
     public String getSymbol() {
-        return properties.getProperty("mt5.symbol", "US30");
+        return snapshot.symbol;
     }
     
     // 添加时间框架配置（秒）
     public int getTimeframe() {
-        return Integer.parseInt(properties.getProperty("mt5.timeframe.seconds", "60"));
+        return snapshot.timeframe;
     }
     
     // ========== 用户订单检测系统配置 ==========
     // 订单管理配置
     public boolean isAutoPauseOrders() {
-        return Boolean.parseBoolean(properties.getProperty("trading.auto.pause.orders", "true"));
+        return snapshot.autoPauseOrders;
     }
     
     public boolean isAutoCancelOrders() {
-        return Boolean.parseBoolean(properties.getProperty("trading.auto.cancel.orders", "false"));
+        return snapshot.autoCancelOrders;
     }
     
     public int getOrderScanInterval() {
-        return Integer.parseInt(properties.getProperty("trading.order.scan.interval", "3"));
+        return snapshot.orderScanInterval;
     }
     
     public int getMaxOrderHoldTime() {
-        return Integer.parseInt(properties.getProperty("trading.max.order.hold.time", "120"));
+        return snapshot.maxOrderHoldTime;
+    }
+    
+    // 订单发出后等待 EA 回报的超时时间（毫秒），超时后按原客户端订单号重发
+    public int getOrderAckTimeoutMillis() {
+        return snapshot.orderAckTimeoutMillis;
+    }
+    
+    public int getOrderMaxRetries() {
+        return snapshot.orderMaxRetries;
     }
     
     // 趋势分析配置
     public double getStrongBullishThreshold() {
-        return Double.parseDouble(properties.getProperty("trading.strong.bullish.threshold", "0.10"));
+        return snapshot.strongBullishThreshold;
     }
     
     public double getBullishThreshold() {
-        return Double.parseDouble(properties.getProperty("trading.bullish.threshold", "0.04"));
+        return snapshot.bullishThreshold;
     }
     
     public double getBearishThreshold() {
-        return Double.parseDouble(properties.getProperty("trading.bearish.threshold", "-0.04"));
+        return snapshot.bearishThreshold;
     }
     
     public double getStrongBearishThreshold() {
-        return Double.parseDouble(properties.getProperty("trading.strong.bearish.threshold", "-0.10"));
+        return snapshot.strongBearishThreshold;
     }
     
     // 价格分析配置
     public double getPriceTolerance() {
-        return Double.parseDouble(properties.getProperty("trading.price.tolerance", "20.0"));
+        return snapshot.priceTolerance;
     }
     
     public int getPriceHistorySize() {
-        return Integer.parseInt(properties.getProperty("trading.price.history.size", "10"));
+        return snapshot.priceHistorySize;
     }
     
     // 决策参数
     public double getNeutralBuyAdvantage() {
-        return Double.parseDouble(properties.getProperty("trading.neutral.buy.advantage", "15.0"));
+        return snapshot.neutralBuyAdvantage;
     }
     
     public double getNeutralSellAdvantage() {
-        return Double.parseDouble(properties.getProperty("trading.neutral.sell.advantage", "15.0"));
+        return snapshot.neutralSellAdvantage;
     }
     
     // ========== 通用交易参数 ==========
     public double getTradeVolume() {
-        return Double.parseDouble(properties.getProperty("trading.volume", "0.1"));
+        return snapshot.tradeVolume;
     }
     
     public double getRiskPercentage() {
-        return Double.parseDouble(properties.getProperty("trading.risk.percentage", "1.0"));
+        return snapshot.riskPercentage;
     }
     
     public boolean isUseStrictConfirmation() {
-        return Boolean.parseBoolean(properties.getProperty("trading.use.strict.confirmation", "true"));
+        return snapshot.useStrictConfirmation;
     }
     
     public boolean isUseMACDConfirmation() {
-        return Boolean.parseBoolean(properties.getProperty("trading.use.macd.confirmation", "true"));
+        return snapshot.useMACDConfirmation;
     }
     
     public double getSlippage() {
-        return Double.parseDouble(properties.getProperty("trading.slippage", "2.0"));
+        return snapshot.slippage;
     }
     
     public double getMaxPositionSize() {
-        return Double.parseDouble(properties.getProperty("trading.max.position.size", "5.0"));
+        return snapshot.maxPositionSize;
     }
     
     public int getStopLossPips() {
-        return Integer.parseInt(properties.getProperty("trading.stop.loss.pips", "80"));
+        return snapshot.stopLossPips;
     }
     
     public int getTakeProfitPips() {
-        return Integer.parseInt(properties.getProperty("trading.take.profit.pips", "120"));
+        return snapshot.takeProfitPips;
     }
     
     // ========== MACD 参数 ==========
     public int getMacdFast() {
-        return Integer.parseInt(properties.getProperty("trading.macd.fast", "12"));
+        return snapshot.macdFast;
     }
     
     public int getMacdSlow() {
-        return Integer.parseInt(properties.getProperty("trading.macd.slow", "26"));
+        return snapshot.macdSlow;
     }
     
     public int getMacdSignal() {
-        return Integer.parseInt(properties.getProperty("trading.macd.signal", "9"));
+        return snapshot.macdSignal;
     }
     
     // ========== 应用设置 ==========
     public int getPollingInterval() {
-        return Integer.parseInt(properties.getProperty("app.polling.interval", "5000"));
+        return snapshot.pollingInterval;
     }
     
     public boolean isEnableConsoleLogging() {
-        return Boolean.parseBoolean(properties.getProperty("app.enable.console.logging", "true"));
+        return snapshot.enableConsoleLogging;
     }
     
     public int getDataHistoryBars() {
-        return Integer.parseInt(properties.getProperty("app.data.history.bars", "100"));
+        return snapshot.dataHistoryBars;
     }
     
     public boolean isTestMode() {
-        return Boolean.parseBoolean(properties.getProperty("app.test.mode", "true"));
+        return snapshot.testMode;
     }
     
     // ========== 新增：系统监控配置 ==========
     public boolean isEnableOrderMonitoring() {
-        return Boolean.parseBoolean(properties.getProperty("app.enable.order.monitoring", "true"));
+        return snapshot.enableOrderMonitoring;
+    }
+    
+    public int getLatencyReportInterval() {
+        return snapshot.latencyReportInterval;
+    }
+    
+    public int getConfigReloadInterval() {
+        return snapshot.configReloadInterval;
+    }
+    
+    // 订单预写日志，重启后恢复未完成的订单和未回报的指令
+    public boolean isJournalEnabled() {
+        return snapshot.journalEnabled;
+    }
+    
+    public String getJournalDir() {
+        return snapshot.journalDir;
+    }
+    
+    public int getJournalCheckpointBytes() {
+        return snapshot.journalCheckpointBytes;
     }
     
     public int getCandleAnalysisSecond() {
-        return Integer.parseInt(properties.getProperty("app.candle.analysis.second", "45"));
+        return snapshot.candleAnalysisSecond;
     }
     
     public boolean isLogDetailedAnalysis() {
-        return Boolean.parseBoolean(properties.getProperty("app.log.detailed.analysis", "true"));
+        return snapshot.logDetailedAnalysis;
     }
     
     public String getSystemOrderComment() {
-        return properties.getProperty("app.system.order.comment", "AUTO_TRADE");
+        return snapshot.systemOrderComment;
     }
     
     public String getUserOrderComment() {
-        return properties.getProperty("app.user.order.comment", "USER_ORDER");
+        return snapshot.userOrderComment;
     }
     
     // ========== 新增：风险管理配置 ==========
     public double getMaxRiskPerTrade() {
-        return Double.parseDouble(properties.getProperty("trading.max.risk.per.trade", "0.02"));
+        return snapshot.maxRiskPerTrade;
     }
     
     public double getMaxDailyLoss() {
-        return Double.parseDouble(properties.getProperty("trading.max.daily.loss", "0.10"));
+        return snapshot.maxDailyLoss;
     }
     
     public boolean isEnableRiskManagement() {
-        return Boolean.parseBoolean(properties.getProperty("trading.enable.risk.management", "true"));
+        return snapshot.enableRiskManagement;
+    }
+    
+    public int getMaxConcurrentTrades() {
+        return snapshot.maxConcurrentTrades;
+    }
+    
+    // 每手每点的价值（账户货币），用于计算盈亏
+    public double getValuePerPoint() {
+        return snapshot.valuePerPoint;
     }
     
     // ========== 新增：时间配置 ==========
     public String getTradingStartTime() {
-        return properties.getProperty("trading.start.time", "09:30");
+        return snapshot.tradingStartTime;
     }
     
     public String getTradingEndTime() {
-        return properties.getProperty("trading.end.time", "16:00");
+        return snapshot.tradingEndTime;
     }
     
     public boolean isTradeOnWeekends() {
-        return Boolean.parseBoolean(properties.getProperty("trading.on.weekends", "false"));
+        return snapshot.tradeOnWeekends;
+    }
+    
+    // ========== 模拟成交配置（测试模式和回测） ==========
+    // 成交时的最小点差（价格单位），行情点差更窄时按中间价两侧展开
+    public double getSimMinSpread() {
+        return snapshot.simMinSpread;
+    }
+    
+    // 订单从发出到成交的固定延迟（毫秒）
+    public int getSimLatencyMillis() {
+        return snapshot.simLatencyMillis;
+    }
+    
+    // 叠加在固定延迟上的随机延迟均值（毫秒，指数分布）
+    public int getSimLatencyJitterMillis() {
+        return snapshot.simLatencyJitterMillis;
+    }
+    
+    public double getSimPartialFillProbability() {
+        return snapshot.simPartialFillProbability;
+    }
+    
+    public double getSimPartialFillMinRatio() {
+        return snapshot.simPartialFillMinRatio;
+    }
+    
+    public long getSimSeed() {
+        return snapshot.simSeed;
+    }
+    
+    public double getSimInitialBalance() {
+        return snapshot.simInitialBalance;
     }
     
     // ========== 工具方法 ==========
@@ -263,37 +559,261 @@ public class TradingConfig {
     
     // 验证配置有效性
     public boolean validateConfig() {
-        try {
-            // 检查必需配置
-            if (getSymbol() == null || getSymbol().trim().isEmpty()) {
-                System.err.println("错误: 交易品种未配置");
-                return false;
+        return validate(snapshot);
+    }
+    
+    private static boolean validate(Snapshot config) {
+        // 检查必需配置
+        if (config.symbol == null || config.symbol.trim().isEmpty()) {
+            System.err.println("错误: 交易品种未配置");
+            return false;
+        }
+        
+        if (config.timeframe <= 0) {
+            System.err.println("错误: 时间框架必须大于0");
+            return false;
+        }
+        
+        if (config.candleAnalysisSecond <= 0 || config.candleAnalysisSecond >= config.timeframe) {
+            System.err.println("错误: 分析时间必须在0到" + config.timeframe + "秒之间");
+            return false;
+        }
+        
+        if (config.priceHistorySize <= 0) {
+            System.err.println("错误: 价格历史长度必须大于0");
+            return false;
+        }
+        
+        if (config.tradeVolume <= 0) {
+            System.err.println("错误: 交易手数必须大于0");
+            return false;
+        }
+        
+        if (config.outboundRateLimit <= 0 || config.outboundBatchSize <= 0 || config.outboundFlushInterval <= 0) {
+            System.err.println("错误: 发送速率、批量大小和发送间隔必须大于0");
+            return false;
+        }
+        
+        if (config.orderAckTimeoutMillis <= 0 || config.orderMaxRetries < 0) {
+            System.err.println("错误: 订单回报超时必须大于0，重试次数不能为负");
+            return false;
+        }
+        
+        if (config.slippage < 0 || config.simMinSpread < 0
+                || config.simLatencyMillis < 0 || config.simLatencyJitterMillis < 0) {
+            System.err.println("错误: 滑点、最小点差和模拟延迟不能为负");
+            return false;
+        }
+        
+        if (config.simPartialFillProbability < 0 || config.simPartialFillProbability > 1
+                || config.simPartialFillMinRatio <= 0 || config.simPartialFillMinRatio > 1) {
+            System.err.println("错误: 部分成交概率必须在0到1之间，最小成交比例必须在0到1之间且大于0");
+            return false;
+        }
+        
+        // 检查阈值逻辑
+        if (config.strongBullishThreshold <= config.bullishThreshold) {
+            System.err.println("警告: 强烈看涨阈值应大于看涨阈值");
+        }
+        
+        if (config.bearishThreshold <= config.strongBearishThreshold) {
+            System.err.println("警告: 看跌阈值应大于强烈看跌阈值");
+        }
+        
+        return true;
+    }
+    
+    /**
+     * 解析后的不可变配置快照，格式错误的值在构造时抛出 IllegalArgumentException
+     */
+    private static final class Snapshot {
+        final Properties properties;
+        final List<String> strategyNames;
+        final String strategyName;
+        final String mt5WebSocketUrl;
+        final int webSocketReconnectInterval;
+        final int webSocketHeartbeatInterval;
+        final double outboundRateLimit;
+        final int outboundBurst;
+        final int outboundBatchSize;
+        final int outboundFlushInterval;
+        final String mt5ApiUrl;
+        final String mt5Login;
+        final String mt5Password;
+        final String mt5Server;
+        final int magicNumber;
+        final String symbol;
+        final int timeframe;
+        final boolean autoPauseOrders;
+        final boolean autoCancelOrders;
+        final int orderScanInterval;
+        final int maxOrderHoldTime;
+        final int orderAckTimeoutMillis;
+        final int orderMaxRetries;
+        final double strongBullishThreshold;
+        final double bullishThreshold;
+        final double bearishThreshold;
+        final double strongBearishThreshold;
+        final double priceTolerance;
+        final int priceHistorySize;
+        final double neutralBuyAdvantage;
+        final double neutralSellAdvantage;
+        final double tradeVolume;
+        final double riskPercentage;
+        final boolean useStrictConfirmation;
+        final boolean useMACDConfirmation;
+        final double slippage;
+        final double maxPositionSize;
+        final int stopLossPips;
+        final int takeProfitPips;
+        final int macdFast;
+        final int macdSlow;
+        final int macdSignal;
+        final int pollingInterval;
+        final boolean enableConsoleLogging;
+        final int dataHistoryBars;
+        final boolean testMode;
+        final boolean enableOrderMonitoring;
+        final int latencyReportInterval;
+        final int configReloadInterval;
+        final boolean journalEnabled;
+        final String journalDir;
+        final int journalCheckpointBytes;
+        final int candleAnalysisSecond;
+        final boolean logDetailedAnalysis;
+        final String systemOrderComment;
+        final String userOrderComment;
+        final double maxRiskPerTrade;
+        final double maxDailyLoss;
+        final boolean enableRiskManagement;
+        final int maxConcurrentTrades;
+        final double valuePerPoint;
+        final String tradingStartTime;
+        final String tradingEndTime;
+        final boolean tradeOnWeekends;
+        final double simMinSpread;
+        final int simLatencyMillis;
+        final int simLatencyJitterMillis;
+        final double simPartialFillProbability;
+        final double simPartialFillMinRatio;
+        final long simSeed;
+        final double simInitialBalance;
+        
+        Snapshot(Properties source) {
+            // 复制一份，之后对原 Properties 的修改不会影响快照
+            Properties props = new Properties();
+            for (String key : source.stringPropertyNames()) {
+                props.setProperty(key, source.getProperty(key));
             }
+            this.properties = props;
             
-            if (getTimeframe() <= 0) {
-                System.err.println("错误: 时间框架必须大于0");
-                return false;
+            List<String> names = new ArrayList<>();
+            for (String name : props.getProperty("app.strategies", "").split(",")) {
+                if (!name.trim().isEmpty()) {
+                    names.add(name.trim());
+                }
             }
+            this.strategyNames = Collections.unmodifiableList(names);
             
-            if (getCandleAnalysisSecond() <= 0 || getCandleAnalysisSecond() >= getTimeframe()) {
-                System.err.println("错误: 分析时间必须在0到" + getTimeframe() + "秒之间");
-                return false;
+            strategyName = getString(props, "app.strategy.name", "");
+            mt5WebSocketUrl = getString(props, "mt5.websocket.url", "ws://localhost:8080");
+            webSocketReconnectInterval = parseInt(props, "mt5.websocket.reconnect.interval", "5000");
+            webSocketHeartbeatInterval = parseInt(props, "mt5.websocket.heartbeat.interval", "30000");
+            outboundRateLimit = parseDouble(props, "mt5.outbound.rate.limit", "1.0");
+            outboundBurst = parseInt(props, "mt5.outbound.burst", "2");
+            outboundBatchSize = parseInt(props, "mt5.outbound.batch.size", "20");
+            outboundFlushInterval = parseInt(props, "mt5.outbound.flush.interval.ms", "100");
+            mt5ApiUrl = getString(props, "mt5.api.url", "http://localhost:8080/api");
+            mt5Login = getString(props, "mt5.login", "1234567");
+            mt5Password = getString(props, "mt5.password", "");
+            mt5Server = getString(props, "mt5.server", "Demo");
+            magicNumber = parseInt(props, "mt5.magic.number", "123456");
+            symbol = getString(props, "mt5.symbol", "US30");
+            timeframe = parseInt(props, "mt5.timeframe.seconds", "60");
+            autoPauseOrders = parseBoolean(props, "trading.auto.pause.orders", "true");
+            autoCancelOrders = parseBoolean(props, "trading.auto.cancel.orders", "false");
+            orderScanInterval = parseInt(props, "trading.order.scan.interval", "3");
+            maxOrderHoldTime = parseInt(props, "trading.max.order.hold.time", "120");
+            orderAckTimeoutMillis = parseInt(props, "trading.order.ack.timeout.ms", "3000");
+            orderMaxRetries = parseInt(props, "trading.order.max.retries", "2");
+            strongBullishThreshold = parseDouble(props, "trading.strong.bullish.threshold", "0.10");
+            bullishThreshold = parseDouble(props, "trading.bullish.threshold", "0.04");
+            bearishThreshold = parseDouble(props, "trading.bearish.threshold", "-0.04");
+            strongBearishThreshold = parseDouble(props, "trading.strong.bearish.threshold", "-0.10");
+            priceTolerance = parseDouble(props, "trading.price.tolerance", "20.0");
+            priceHistorySize = parseInt(props, "trading.price.history.size", "10");
+            neutralBuyAdvantage = parseDouble(props, "trading.neutral.buy.advantage", "15.0");
+            neutralSellAdvantage = parseDouble(props, "trading.neutral.sell.advantage", "15.0");
+            tradeVolume = parseDouble(props, "trading.volume", "0.1");
+            riskPercentage = parseDouble(props, "trading.risk.percentage", "1.0");
+            useStrictConfirmation = parseBoolean(props, "trading.use.strict.confirmation", "true");
+            useMACDConfirmation = parseBoolean(props, "trading.use.macd.confirmation", "true");
+            slippage = parseDouble(props, "trading.slippage", "2.0");
+            maxPositionSize = parseDouble(props, "trading.max.position.size", "5.0");
+            stopLossPips = parseInt(props, "trading.stop.loss.pips", "80");
+            takeProfitPips = parseInt(props, "trading.take.profit.pips", "120");
+            macdFast = parseInt(props, "trading.macd.fast", "12");
+            macdSlow = parseInt(props, "trading.macd.slow", "26");
+            macdSignal = parseInt(props, "trading.macd.signal", "9");
+            pollingInterval = parseInt(props, "app.polling.interval", "5000");
+            enableConsoleLogging = parseBoolean(props, "app.enable.console.logging", "true");
+            dataHistoryBars = parseInt(props, "app.data.history.bars", "100");
+            testMode = parseBoolean(props, "app.test.mode", "true");
+            enableOrderMonitoring = parseBoolean(props, "app.enable.order.monitoring", "true");
+            latencyReportInterval = parseInt(props, "app.latency.report.interval", "60");
+            configReloadInterval = parseInt(props, "app.config.reload.interval", "5");
+            journalEnabled = parseBoolean(props, "app.journal.enabled", "true");
+            journalDir = getString(props, "app.journal.dir", "data/journal");
+            journalCheckpointBytes = parseInt(props, "app.journal.checkpoint.bytes", "4194304");
+            candleAnalysisSecond = parseInt(props, "app.candle.analysis.second", "45");
+            logDetailedAnalysis = parseBoolean(props, "app.log.detailed.analysis", "true");
+            systemOrderComment = getString(props, "app.system.order.comment", "AUTO_TRADE");
+            userOrderComment = getString(props, "app.user.order.comment", "USER_ORDER");
+            maxRiskPerTrade = parseDouble(props, "trading.max.risk.per.trade", "0.02");
+            maxDailyLoss = parseDouble(props, "trading.max.daily.loss", "0.10");
+            enableRiskManagement = parseBoolean(props, "trading.enable.risk.management", "true");
+            maxConcurrentTrades = parseInt(props, "trading.max.concurrent.trades", "3");
+            valuePerPoint = parseDouble(props, "trading.value.per.point", "1.0");
+            tradingStartTime = getString(props, "trading.start.time", "09:30");
+            tradingEndTime = getString(props, "trading.end.time", "16:00");
+            tradeOnWeekends = parseBoolean(props, "trading.on.weekends", "false");
+            simMinSpread = parseDouble(props, "sim.min.spread", "0");
+            simLatencyMillis = parseInt(props, "sim.latency.ms", "0");
+            simLatencyJitterMillis = parseInt(props, "sim.latency.jitter.ms", "0");
+            simPartialFillProbability = parseDouble(props, "sim.partial.fill.probability", "0");
+            simPartialFillMinRatio = parseDouble(props, "sim.partial.fill.min.ratio", "0.5");
+            simSeed = parseInt(props, "sim.seed", "1");
+            simInitialBalance = parseDouble(props, "sim.initial.balance", "10000");
+        }
+        
+        private static String getString(Properties props, String key, String defaultValue) {
+            return props.getProperty(key, defaultValue);
+        }
+        
+        private static int parseInt(Properties props, String key, String defaultValue) {
+            String value = props.getProperty(key, defaultValue).trim();
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("配置项 " + key + " 不是有效的整数: " + value);
             }
-            
-            // 检查阈值逻辑
-            if (getStrongBullishThreshold() <= getBullishThreshold()) {
-                System.err.println("警告: 强烈看涨阈值应大于看涨阈值");
+        }
+        
+        private static double parseDouble(Properties props, String key, String defaultValue) {
+            String value = props.getProperty(key, defaultValue).trim();
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("配置项 " + key + " 不是有效的数字: " + value);
             }
-            
-            if (getBearishThreshold() <= getStrongBearishThreshold()) {
-                System.err.println("警告: 看跌阈值应大于强烈看跌阈值");
+        }
+        
+        private static boolean parseBoolean(Properties props, String key, String defaultValue) {
+            String value = props.getProperty(key, defaultValue).trim();
+            if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+                throw new IllegalArgumentException("配置项 " + key + " 必须是 true 或 false: " + value);
             }
-            
-            return true;
-            
-        } catch (Exception e) {
-            System.err.println("配置验证失败: " + e.getMessage());
-            return false;
+            return Boolean.parseBoolean(value);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+package com.mt5trading.models;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 列式存储的K线序列
+ * 用原始类型数组保存一段历史K线，供参数扫描、回测等批量计算使用，
+ * 避免为每根K线创建 CandleData 对象
+ */
+public class CandleSeries {
+
+    private static final DateTimeFormatter MT5_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy.MM.dd HH:mm[:ss]");
+    private static final DateTimeFormatter ISO_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd[ ]['T']HH:mm[:ss]");
+
+    private final String symbol;
+    private final long[] times;      // K线开盘时间（UTC 秒）
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final long[] volumes;
+    private final int size;
+
+    public CandleSeries(String symbol, long[] times, double[] opens, double[] highs,
+                        double[] lows, double[] closes, long[] volumes, int size) {
+        if (size < 0 || size > times.length || size > opens.length || size > highs.length
+                || size > lows.length || size > closes.length || size > volumes.length) {
+            throw new IllegalArgumentException("Invalid series size: " + size);
+        }
+        this.symbol = symbol;
+        this.times = times;
+        this.opens = opens;
+        this.highs = highs;
+        this.lows = lows;
+        this.closes = closes;
+        this.volumes = volumes;
+        this.size = size;
+    }
+
+    /**
+     * 从 CandleData 列表构建序列
+     */
+    public static CandleSeries fromCandles(String symbol, List<CandleData> candles) {
+        int n = candles.size();
+        long[] times = new long[n];
+        double[] opens = new double[n];
+        double[] highs = new double[n];
+        double[] lows = new double[n];
+        double[] closes = new double[n];
+        long[] volumes = new long[n];
+
+        for (int i = 0; i < n; i++) {
+            CandleData candle = candles.get(i);
+            times[i] = candle.getTime().toEpochSecond(ZoneOffset.UTC);
+            opens[i] = candle.getOpen();
+            highs[i] = candle.getHigh();
+            lows[i] = candle.getLow();
+            closes[i] = candle.getClose();
+            volumes[i] = candle.getVolume();
+        }
+        return new CandleSeries(symbol, times, opens, highs, lows, closes, volumes, n);
+    }
+
+    /**
+     * 从CSV文件加载序列
+     * 每行: time,open,high,low,close[,volume]，也支持MT5导出的制表符格式。
+     * time 可以是 UTC 秒数、"yyyy.MM.dd HH:mm" 或 "yyyy-MM-dd HH:mm:ss"；
+     * MT5导出的日期和时间分两列时会自动合并。无法解析的行（如表头）会被跳过。
+     */
+    public static CandleSeries loadCsv(String symbol, Path file) throws IOException {
+        int capacity = 1024;
+        long[] times = new long[capacity];
+        double[] opens = new double[capacity];
+        double[] highs = new double[capacity];
+        double[] lows = new double[capacity];
+        double[] closes = new double[capacity];
+        long[] volumes = new long[capacity];
+        int n = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split("[,\t;]");
+                if (parts.length < 5) {
+                    continue;
+                }
+
+                int offset = 0;
+                String timeText = parts[0].trim();
+                // MT5导出格式: <DATE> <TIME> <OPEN> ...
+                if (parts.length >= 6 && parts[1].indexOf(':') > 0) {
+                    timeText = timeText + " " + parts[1].trim();
+                    offset = 1;
+                }
+
+                long time;
+                try {
+                    time = parseTime(timeText);
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    continue;
+                }
+
+                if (n == capacity) {
+                    capacity = capacity * 2;
+                    times = Arrays.copyOf(times, capacity);
+                    opens = Arrays.copyOf(opens, capacity);
+                    highs = Arrays.copyOf(highs, capacity);
+                    lows = Arrays.copyOf(lows, capacity);
+                    closes = Arrays.copyOf(closes, capacity);
+                    volumes = Arrays.copyOf(volumes, capacity);
+                }
+
+                try {
+                    times[n] = time;
+                    opens[n] = Double.parseDouble(parts[1 + offset].trim());
+                    highs[n] = Double.parseDouble(parts[2 + offset].trim());
+                    lows[n] = Double.parseDouble(parts[3 + offset].trim());
+                    closes[n] = Double.parseDouble(parts[4 + offset].trim());
+                    volumes[n] = parts.length > 5 + offset ? (long) Double.parseDouble(parts[5 + offset].trim()) : 0;
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                n++;
+            }
+        }
+
+        return new CandleSeries(symbol, times, opens, highs, lows, closes, volumes, n);
+    }
+
+    private static long parseTime(String text) {
+        if (!text.isEmpty() && Character.isDigit(text.charAt(0)) && text.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(text);
+        }
+        DateTimeFormatter formatter = text.indexOf('.') == 4 ? MT5_TIME_FORMAT : ISO_TIME_FORMAT;
+        return LocalDateTime.parse(text, formatter).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public String getSymbol() { return symbol; }
+    public int size() { return size; }
+
+    public long getTime(int index) { return times[index]; }
+    public double getOpen(int index) { return opens[index]; }
+    public double getHigh(int index) { return highs[index]; }
+    public double getLow(int index) { return lows[index]; }
+    public double getClose(int index) { return closes[index]; }
+    public long getVolume(int index) { return volumes[index]; }
+
+    /**
+     * 直接访问收盘价数组（只读使用，长度可能大于 size()）
+     */
+    public double[] closes() { return closes; }
+
+    public LocalDateTime getDateTime(int index) {
+        return LocalDateTime.ofEpochSecond(times[index], 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * 转换为 CandleData 对象
+     */
+    public CandleData toCandle(int index) {
+        CandleData candle = new CandleData(getDateTime(index), opens[index], highs[index],
+                lows[index], closes[index], volumes[index]);
+        candle.setSymbol(symbol);
+        return candle;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CandleSeries{symbol=%s, bars=%d}", symbol, size);
+    }
+}
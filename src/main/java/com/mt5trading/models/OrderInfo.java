@@ -1,6 +1,11 @@
 package com.mt5trading.models;
 
+import com.mt5trading.util.CsvReader;
+import com.mt5trading.util.CsvWriter;
+
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * 订单信息模型类
@@ -39,9 +44,8 @@ public class OrderInfo {
     // 订单过期时间
     private LocalDateTime timeExpiration;
     
-    // 订单状态
-    // PENDING, OPEN, CLOSED, DELETED
-    private String status;
+    // 订单状态，状态转换由 OrderStore 检查
+    private OrderState state;
     
     // 魔术码（用于标识EA）
     private int magicNumber;
@@ -52,10 +56,13 @@ public class OrderInfo {
     // 持仓方向（用于区分多空）
     private String positionType;
     
+    // 订单方向，随订单类型一起设置
+    private OrderSide side;
+    
     // 构造函数
     public OrderInfo() {
         this.timeSetup = LocalDateTime.now();
-        this.status = "PENDING";
+        this.state = OrderState.PENDING;
         this.magicNumber = 0;
     }
     
@@ -64,6 +71,7 @@ public class OrderInfo {
         this.ticket = ticket;
         this.symbol = symbol;
         this.type = type;
+        this.side = OrderSide.fromType(type);
         this.volume = volume;
         this.price = price;
     }
@@ -91,6 +99,7 @@ public class OrderInfo {
     
     public void setType(String type) {
         this.type = type;
+        this.side = OrderSide.fromType(type);
         // 自动设置持仓方向
         if (type != null) {
             if (type.contains("BUY")) {
@@ -101,6 +110,10 @@ public class OrderInfo {
         }
     }
     
+    public OrderSide getSide() {
+        return side;
+    }
+    
     public double getVolume() {
         return volume;
     }
@@ -157,12 +170,23 @@ public class OrderInfo {
         this.timeExpiration = timeExpiration;
     }
     
+    public OrderState getState() {
+        return state;
+    }
+    
+    /**
+     * 直接设置状态，不检查转换是否合法；已登记到 OrderStore 的订单应该通过 OrderStore.transition 修改
+     */
+    public void setState(OrderState state) {
+        this.state = state;
+    }
+    
     public String getStatus() {
-        return status;
+        return state.name();
     }
     
     public void setStatus(String status) {
-        this.status = status;
+        this.state = OrderState.fromString(status);
     }
     
     public int getMagicNumber() {
@@ -195,7 +219,7 @@ public class OrderInfo {
      * 判断是否为挂单
      */
     public boolean isPendingOrder() {
-        return "PENDING".equals(status) && 
+        return state.isPending() && 
                (type.contains("LIMIT") || type.contains("STOP"));
     }
     
@@ -203,7 +227,7 @@ public class OrderInfo {
      * 判断是否为市价单
      */
     public boolean isMarketOrder() {
-        return "OPEN".equals(status) && 
+        return state == OrderState.OPEN && 
                ("BUY".equals(type) || "SELL".equals(type));
     }
     
@@ -211,14 +235,14 @@ public class OrderInfo {
      * 判断是否为买单
      */
     public boolean isBuyOrder() {
-        return type != null && type.contains("BUY");
+        return side == OrderSide.BUY;
     }
     
     /**
      * 判断是否为卖单
      */
     public boolean isSellOrder() {
-        return type != null && type.contains("SELL");
+        return side == OrderSide.SELL;
     }
     
     /**
@@ -256,8 +280,15 @@ public class OrderInfo {
      * 检查订单是否过期
      */
     public boolean isExpired() {
+        return isExpired(LocalDateTime.now());
+    }
+    
+    /**
+     * 按给定的当前时间检查订单是否过期（回测时传入模拟时间）
+     */
+    public boolean isExpired(LocalDateTime now) {
         if (timeExpiration == null) return false;
-        return LocalDateTime.now().isAfter(timeExpiration);
+        return now.isAfter(timeExpiration);
     }
     
     /**
@@ -265,7 +296,7 @@ public class OrderInfo {
      */
     public String getSummary() {
         return String.format("Order#%d %s %s %.2f @ %.5f %s", 
-            ticket, symbol, type, volume, price, status);
+            ticket, symbol, type, volume, price, state);
     }
     
     @Override
@@ -273,7 +304,7 @@ public class OrderInfo {
         return String.format(
             "OrderInfo{ticket=%d, symbol='%s', type='%s', volume=%.2f, price=%.5f, " +
             "stopLoss=%.5f, takeProfit=%.5f, status='%s', comment='%s'}",
-            ticket, symbol, type, volume, price, stopLoss, takeProfit, status, comment
+            ticket, symbol, type, volume, price, stopLoss, takeProfit, state, comment
         );
     }
     
@@ -281,9 +312,16 @@ public class OrderInfo {
      * 转换为CSV格式
      */
     public String toCsv() {
-        return String.format("%d,%s,%s,%.2f,%.5f,%.5f,%.5f,%s,%s",
-            ticket, symbol, type, volume, price, stopLoss, takeProfit,
-            status, comment != null ? comment : "");
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(ticket).append(',');
+        CsvWriter.appendField(sb, symbol);
+        sb.append(',');
+        CsvWriter.appendField(sb, type);
+        sb.append(String.format(Locale.ROOT, ",%.2f,%.5f,%.5f,%.5f,%s,",
+            volume, price, stopLoss, takeProfit, state));
+        // 注释可能含逗号和引号，按 CSV 规则转义
+        CsvWriter.appendField(sb, comment);
+        return sb.toString();
     }
     
     /**
@@ -291,19 +329,19 @@ public class OrderInfo {
      */
     public static OrderInfo fromCsv(String csvLine) {
         try {
-            String[] parts = csvLine.split(",");
-            if (parts.length < 9) return null;
+            List<String> parts = CsvReader.parseLine(csvLine);
+            if (parts.size() < 9) return null;
             
             OrderInfo order = new OrderInfo();
-            order.setTicket(Integer.parseInt(parts[0]));
-            order.setSymbol(parts[1]);
-            order.setType(parts[2]);
-            order.setVolume(Double.parseDouble(parts[3]));
-            order.setPrice(Double.parseDouble(parts[4]));
-            order.setStopLoss(Double.parseDouble(parts[5]));
-            order.setTakeProfit(Double.parseDouble(parts[6]));
-            order.setStatus(parts[7]);
-            order.setComment(parts[8]);
+            order.setTicket(Integer.parseInt(parts.get(0)));
+            order.setSymbol(parts.get(1));
+            order.setType(parts.get(2));
+            order.setVolume(Double.parseDouble(parts.get(3)));
+            order.setPrice(Double.parseDouble(parts.get(4)));
+            order.setStopLoss(Double.parseDouble(parts.get(5)));
+            order.setTakeProfit(Double.parseDouble(parts.get(6)));
+            order.setStatus(parts.get(7));
+            order.setComment(parts.get(8));
             
             return order;
         } catch (Exception e) {
@@ -0,0 +1,40 @@
+package com.mt5trading.models;
+
+/**
+ * 订单方向
+ */
+public enum OrderSide {
+    BUY("买入"),
+    SELL("卖出");
+    
+    private final String description;
+    
+    OrderSide(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public OrderSide opposite() {
+        return this == BUY ? SELL : BUY;
+    }
+    
+    /**
+     * 从MT5订单类型解析方向（BUY, BUY_LIMIT, SELL_STOP ...），无法识别时返回 null
+     */
+    public static OrderSide fromType(String type) {
+        if (type == null) {
+            return null;
+        }
+        String upper = type.toUpperCase();
+        if (upper.contains("BUY")) {
+            return BUY;
+        }
+        if (upper.contains("SELL")) {
+            return SELL;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.mt5trading.models;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 订单生命周期状态
+ * PENDING  挂单（用户挂单或刚检测到的订单）
+ * MODIFIED 挂单已被修改（如被系统暂停）
+ * EXECUTED 已发送执行指令，等待成交
+ * OPEN     已成交持仓
+ * CLOSED / DELETED / REJECTED 终止状态
+ */
+public enum OrderState {
+    PENDING("挂单"),
+    MODIFIED("已修改"),
+    EXECUTED("已执行"),
+    OPEN("持仓"),
+    CLOSED("已平仓"),
+    DELETED("已删除"),
+    REJECTED("已拒绝");
+    
+    private final String description;
+    private Set<OrderState> next;
+    
+    static {
+        PENDING.next = EnumSet.of(MODIFIED, EXECUTED, OPEN, DELETED, REJECTED);
+        MODIFIED.next = EnumSet.of(MODIFIED, EXECUTED, OPEN, DELETED, REJECTED);
+        EXECUTED.next = EnumSet.of(OPEN, CLOSED, REJECTED);
+        OPEN.next = EnumSet.of(CLOSED);
+        CLOSED.next = EnumSet.noneOf(OrderState.class);
+        DELETED.next = EnumSet.noneOf(OrderState.class);
+        REJECTED.next = EnumSet.noneOf(OrderState.class);
+    }
+    
+    OrderState(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public boolean canTransitionTo(OrderState target) {
+        return next.contains(target);
+    }
+    
+    public boolean isTerminal() {
+        return next.isEmpty();
+    }
+    
+    /**
+     * 挂单阶段（尚未发送执行）
+     */
+    public boolean isPending() {
+        return this == PENDING || this == MODIFIED;
+    }
+    
+    /**
+     * 已执行或持仓中
+     */
+    public boolean isActive() {
+        return this == EXECUTED || this == OPEN;
+    }
+    
+    public static OrderState fromString(String text) {
+        for (OrderState state : OrderState.values()) {
+            if (state.name().equalsIgnoreCase(text)) {
+                return state;
+            }
+        }
+        throw new IllegalArgumentException("未知的订单状态: " + text);
+    }
+}
@@ -0,0 +1,290 @@
+package com.mt5trading.mt5.connector;
+
+import com.mt5trading.timer.Timeout;
+import com.mt5trading.timer.TimerService;
+import com.mt5trading.util.LatencyTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 发往 EA 的指令管道
+ * EA 在 OnTimer 里每秒只处理一条消息，成串的修改/取消指令逐条发送会把 EA 的接收队列堵住。
+ * 指令先按优先级进入队列，按令牌桶限制发送的帧数，每帧把排队的多条指令合并成一个批量消息：
+ *
+ * {"type":"batch","commands":[{...},{...}]}
+ *
+ * 只有一条指令时按原样发送。新订单走 ORDER 通道，总是排在维护类指令前面；
+ * 带 key 的指令（如同一订单号的修改和取消）在发送前只保留最后一条，但终结指令（取消）
+ * 不会被之后同 key 的指令覆盖。
+ *
+ * 帧写出成功后才把其中的指令移出队列，写出失败时指令留在原位，下次发送时重试。
+ *
+ * 订单指令的发送延迟（提交到真正写出帧）和端到端延迟在帧写出后记录，包含限流排队的时间。
+ */
+public class CommandPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(CommandPipeline.class);
+
+    public enum Priority {
+        ORDER("订单"),
+        HOUSEKEEPING("维护");
+
+        private final String description;
+
+        Priority(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 排队中的指令，被同 key 指令覆盖时原地替换内容，保留排队位置
+     */
+    private static final class Command {
+        final Priority priority;
+        final String key;
+        final boolean timed;          // 订单指令，写出时记录延迟
+        final long submittedNanos;
+        final long traceOrigin;       // 端到端起点，0 表示没有
+        String json;
+        boolean terminal;             // 终结指令，不再被同 key 的指令覆盖
+
+        Command(Priority priority, String key, String json, boolean terminal, boolean timed,
+                long submittedNanos, long traceOrigin) {
+            this.priority = priority;
+            this.key = key;
+            this.terminal = terminal;
+            this.json = json;
+            this.timed = timed;
+            this.submittedNanos = submittedNanos;
+            this.traceOrigin = traceOrigin;
+        }
+    }
+
+    private final Consumer<String> transport;
+    private final BooleanSupplier connected;
+    private final LongSupplier clock;
+    private final double ratePerSecond;
+    private final double burst;
+    private final int maxBatchSize;
+    private final LatencyTracker latencyTracker;
+
+    private final Map<Priority, ArrayDeque<Command>> lanes = new EnumMap<>(Priority.class);
+    private final Map<String, Command> queuedByKey = new HashMap<>();
+    private final List<Command> frameCommands = new ArrayList<>();
+    private double tokens;
+    private long lastRefillNanos;
+    private Timeout flushTimeout;
+
+    private long framesSent = 0;
+    private long commandsSent = 0;
+    private long coalescedCount = 0;
+    private long throttledCount = 0;
+
+    /**
+     * @param ratePerSecond 每秒最多发送的帧数
+     * @param burst         令牌桶容量，允许短时间内连续发送的帧数
+     * @param maxBatchSize  每帧最多合并的指令数
+     */
+    public CommandPipeline(Consumer<String> transport, BooleanSupplier connected,
+                           double ratePerSecond, int burst, int maxBatchSize) {
+        this(transport, connected, ratePerSecond, burst, maxBatchSize, System::nanoTime,
+                LatencyTracker.getDefault());
+    }
+
+    CommandPipeline(Consumer<String> transport, BooleanSupplier connected, double ratePerSecond, int burst,
+                    int maxBatchSize, LongSupplier clock, LatencyTracker latencyTracker) {
+        this.transport = transport;
+        this.connected = connected;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.clock = clock;
+        this.latencyTracker = latencyTracker;
+        this.tokens = this.burst;
+        this.lastRefillNanos = clock.getAsLong();
+        for (Priority priority : Priority.values()) {
+            lanes.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * 定期发送令牌不足时积压的指令
+     */
+    public synchronized void start(TimerService timer, long flushIntervalMillis) {
+        if (flushTimeout != null) {
+            return;
+        }
+        flushTimeout = timer.scheduleAtFixedRate(this::flush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (flushTimeout != null) {
+            flushTimeout.cancel();
+            flushTimeout = null;
+        }
+    }
+
+    public void submit(Priority priority, String json) {
+        submit(priority, null, json);
+    }
+
+    public void submit(Priority priority, String key, String json) {
+        submit(priority, key, json, false);
+    }
+
+    /**
+     * 提交指令，有令牌时立即发送
+     *
+     * @param key      非空时，队列中同 key 的指令被这条替换
+     * @param terminal 为 true 时（如取消订单）这条指令排队期间不再被同 key 的指令覆盖，之后的同 key 指令被丢弃
+     */
+    public synchronized void submit(Priority priority, String key, String json, boolean terminal) {
+        Command queued = key != null ? queuedByKey.get(key) : null;
+        if (queued != null) {
+            if (!queued.terminal) {
+                queued.json = json;
+                queued.terminal = terminal;
+            }
+            coalescedCount++;
+        } else {
+            boolean timed = priority == Priority.ORDER;
+            Command command = new Command(priority, key, json, terminal, timed, timed ? clock.getAsLong() : 0,
+                    timed ? LatencyTracker.currentTrace() : 0);
+            lanes.get(priority).addLast(command);
+            if (key != null) {
+                queuedByKey.put(key, command);
+            }
+        }
+        flush();
+    }
+
+    /**
+     * 在令牌允许的范围内发送排队的指令，未连接时保留在队列中
+     */
+    public synchronized void flush() {
+        while (hasQueued() && connected.getAsBoolean()) {
+            if (!tryAcquire()) {
+                throttledCount++;
+                return;
+            }
+            String frame = nextFrame();
+            try {
+                transport.accept(frame);
+            } catch (Exception e) {
+                logger.warn("指令发送失败，{} 条指令留在队列中重试: {}", frameCommands.size(), e.getMessage());
+                return;
+            }
+            commitFrame();
+            framesSent++;
+            recordWritten();
+        }
+    }
+
+    /**
+     * 帧已写出，记录其中订单指令的发送延迟和端到端延迟
+     */
+    private void recordWritten() {
+        long now = clock.getAsLong();
+        for (int i = 0; i < frameCommands.size(); i++) {
+            Command command = frameCommands.get(i);
+            if (command.timed) {
+                latencyTracker.record(LatencyTracker.Stage.SEND, now - command.submittedNanos);
+                if (command.traceOrigin != 0) {
+                    latencyTracker.record(LatencyTracker.Stage.END_TO_END, now - command.traceOrigin);
+                }
+            }
+        }
+    }
+
+    private boolean hasQueued() {
+        for (ArrayDeque<Command> lane : lanes.values()) {
+            if (!lane.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryAcquire() {
+        long now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * ratePerSecond / 1_000_000_000.0);
+        lastRefillNanos = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * 按优先级查看最多 maxBatchSize 条队首指令组成一帧，指令仍留在队列中
+     */
+    private String nextFrame() {
+        StringBuilder batch = new StringBuilder("{\"type\":\"batch\",\"commands\":[");
+        String single = null;
+        int count = 0;
+        frameCommands.clear();
+        for (Priority priority : Priority.values()) {
+            Iterator<Command> lane = lanes.get(priority).iterator();
+            while (count < maxBatchSize && lane.hasNext()) {
+                Command command = lane.next();
+                if (count > 0) {
+                    batch.append(',');
+                }
+                batch.append(command.json);
+                single = command.json;
+                frameCommands.add(command);
+                count++;
+            }
+        }
+        return count == 1 ? single : batch.append("]}").toString();
+    }
+
+    /**
+     * 帧已写出，把其中的指令移出队列。帧由各通道的队首指令按顺序组成
+     */
+    private void commitFrame() {
+        for (int i = 0; i < frameCommands.size(); i++) {
+            Command command = frameCommands.get(i);
+            lanes.get(command.priority).pollFirst();
+            if (command.key != null) {
+                queuedByKey.remove(command.key);
+            }
+        }
+        commandsSent += frameCommands.size();
+    }
+
+    public synchronized int getQueueSize() {
+        int size = 0;
+        for (ArrayDeque<Command> lane : lanes.values()) {
+            size += lane.size();
+        }
+        return size;
+    }
+
+    public synchronized int getQueueSize(Priority priority) {
+        return lanes.get(priority).size();
+    }
+
+    public synchronized String getSummary() {
+        return String.format("排队: %d (订单 %d), 已发送 %d 帧/%d 条指令, 合并覆盖: %d, 限流: %d",
+                getQueueSize(), lanes.get(Priority.ORDER).size(), framesSent, commandsSent,
+                coalescedCount, throttledCount);
+    }
+}
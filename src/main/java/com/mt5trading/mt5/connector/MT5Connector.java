@@ -3,12 +3,23 @@ package com.mt5trading.mt5.connector;
 import com.mt5trading.config.TradingConfig;
 import com.mt5trading.models.CandleData;
 import com.mt5trading.models.OrderInfo;
-import com.mt5trading.services.DecisionEngine;
+import com.mt5trading.models.OrderState;
+import com.mt5trading.mt5.models.OrderAck;
+import com.mt5trading.services.MarketDataHandler;
+import com.mt5trading.services.OrderJournal;
+import com.mt5trading.services.OrderStore;
+import com.mt5trading.services.PositionBook;
+import com.mt5trading.services.RiskEngine;
+import com.mt5trading.timer.HashedWheelTimer;
+import com.mt5trading.timer.Timeout;
+import com.mt5trading.timer.TimerService;
+import com.mt5trading.util.LatencyTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URI;
-import java.time.LocalDateTime;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
@@ -18,19 +29,90 @@ public class MT5Connector {
     
     private final TradingConfig config;
     private MT5WebSocketClient websocketClient;
-    private final ScheduledExecutorService scheduler;
+    private final TimerService timer;
+    private Timeout heartbeatTimeout;
+    private Timeout orderScanTimeout;
     private boolean webSocketConnected;
+    private final LatencyTracker latencyTracker = LatencyTracker.getDefault();
+    private final RiskEngine riskEngine;
     
     // 订单管理相关字段
-    private final Map<Integer, OrderInfo> activeOrders = new ConcurrentHashMap<>();
-    private final Map<Integer, OrderInfo> pendingUserOrders = new ConcurrentHashMap<>();
+    private final OrderStore orderStore = new OrderStore();
+    private final PositionBook positionBook;
+    private final CommandPipeline commandPipeline;
+    private final OrderDispatcher orderDispatcher;
+    private OrderJournal journal;
+    // 已写入日志、尚未收到回报的指令；重启后恢复的指令在连接成功后重发
+    private List<OrderJournal.Submission> recoveredSubmissions = new ArrayList<>();
+    // 已发出的指令，收到回报后移除；回报超时的保留下来，迟到的成交回报据此登记订单
+    private final Map<String, OrderJournal.Submission> dispatchedSubmissions = new ConcurrentHashMap<>();
     private Consumer<OrderInfo> onNewUserOrder;
     private boolean isMonitoringOrders = false;
     
     public MT5Connector(TradingConfig config) {
+        this(config, HashedWheelTimer.getDefault());
+    }
+    
+    public MT5Connector(TradingConfig config, TimerService timer) {
+        this(config, timer, config.isJournalEnabled());
+    }
+    
+    /**
+     * @param journalEnabled 是否从订单日志恢复并记录订单，模拟连接器不使用订单日志
+     */
+    protected MT5Connector(TradingConfig config, TimerService timer, boolean journalEnabled) {
         this.config = config;
-        this.scheduler = Executors.newScheduledThreadPool(3);
+        this.timer = timer;
+        this.positionBook = new PositionBook(config.getValuePerPoint());
+        this.riskEngine = new RiskEngine(config, positionBook);
+        this.commandPipeline = new CommandPipeline(
+                message -> websocketClient.send(message),
+                () -> websocketClient != null && websocketClient.isOpen(),
+                config.getOutboundRateLimit(), config.getOutboundBurst(), config.getOutboundBatchSize());
+        this.orderDispatcher = new OrderDispatcher(timer,
+                message -> commandPipeline.submit(CommandPipeline.Priority.ORDER, message),
+                () -> websocketClient != null && websocketClient.isOpen(),
+                config.getOrderAckTimeoutMillis(), config.getOrderMaxRetries());
+        this.orderDispatcher.setLateFillListener(this::onLateFill);
         this.webSocketConnected = false;
+        if (journalEnabled) {
+            openJournal();
+        }
+    }
+    
+    /**
+     * 从订单日志恢复订单存储和持仓，之后的订单变更都写入日志
+     */
+    private void openJournal() {
+        try {
+            OrderJournal orderJournal = new OrderJournal(Paths.get(config.getJournalDir()),
+                    config.getJournalCheckpointBytes());
+            OrderJournal.State state = orderJournal.recover();
+            for (OrderInfo order : state.getOrders()) {
+                orderStore.add(order);
+                if (order.getState() == OrderState.OPEN && order.getSide() != null && order.getVolume() > 0) {
+                    positionBook.open(order.getTicket(), order.getSymbol(), order.getSide(), order.getVolume(),
+                            order.getPrice(), order.getStopLoss(), order.getTakeProfit());
+                }
+            }
+            recoveredSubmissions = new ArrayList<>(state.getSubmissions());
+            
+            orderStore.setListener(new OrderStore.Listener() {
+                @Override
+                public void onAdd(OrderInfo order) {
+                    orderJournal.logOrder(order);
+                }
+                
+                @Override
+                public void onTransition(OrderInfo order, OrderState from, OrderState to) {
+                    orderJournal.logState(order.getTicket(), to);
+                }
+            });
+            orderJournal.start(orderStore::getAll);
+            this.journal = orderJournal;
+        } catch (IOException e) {
+            logger.error("订单日志恢复失败，本次运行不记录订单日志", e);
+        }
     }
     
     /**
@@ -86,22 +168,18 @@ public class MT5Connector {
         
         try {
             // 构建执行订单的JSON消息
-            String orderJson = String.format(
-                "{\"type\":\"execute_order\",\"ticket\":%d,\"symbol\":\"%s\",\"action\":\"%s\"," +
-                "\"volume\":%.2f,\"price\":%.5f,\"sl\":%.5f,\"tp\":%.5f,\"comment\":\"%s\",\"timestamp\":%d}",
-                ticket, symbol, type, volume, price, stopLoss, takeProfit, comment, System.currentTimeMillis()
-            );
+            String orderJson = executeOrderJson(ticket, symbol, type, volume, price, stopLoss, takeProfit,
+                    comment, timer.currentTimeMillis());
             
-            websocketClient.send(orderJson);
+            commandPipeline.submit(CommandPipeline.Priority.ORDER, orderJson);
             logger.info("订单执行指令已发送: {}", orderJson);
             
-            // 从待处理列表移除，添加到活跃列表
-            OrderInfo pendingOrder = pendingUserOrders.remove(ticket);
-            if (pendingOrder != null) {
-                pendingOrder.setStatus("EXECUTED");
+            // 挂单转为已执行
+            OrderInfo pendingOrder = orderStore.get(ticket);
+            if (pendingOrder != null && pendingOrder.getState().isPending()) {
+                orderStore.transition(ticket, OrderState.EXECUTED);
                 pendingOrder.setComment(comment);
-                pendingOrder.setTimeSetup(LocalDateTime.now());
-                activeOrders.put(ticket, pendingOrder);
+                pendingOrder.setTimeSetup(timer.localNow());
             }
             
             return true;
@@ -113,54 +191,183 @@ public class MT5Connector {
     }
     
     /**
-     * 发送交易指令
+     * 发送交易指令，收到 EA 回报后以是否成交完成
      */
     public CompletableFuture<Boolean> sendOrder(String symbol, String orderType, 
                                               double volume, double price, 
                                               double stopLoss, double takeProfit, String comment) {
-        CompletableFuture<Boolean> result = new CompletableFuture<>();
-        
+        return submitOrder(symbol, orderType, volume, price, stopLoss, takeProfit, comment)
+                .thenApply(OrderAck::isSuccess);
+    }
+    
+    /**
+     * 发送交易指令，返回 EA 回报（真实订单号、成交价、发送次数和回报延迟）
+     * 订单带客户端订单号，超时重发和重连重发都沿用同一订单号，EA 按订单号去重。
+     */
+    public CompletableFuture<OrderAck> submitOrder(String symbol, String orderType, 
+                                                   double volume, double price, 
+                                                   double stopLoss, double takeProfit, String comment) {
         if (!webSocketConnected || websocketClient == null) {
             logger.error("WebSocket未连接，无法发送订单");
-            result.complete(false);
-            return result;
+            return CompletableFuture.completedFuture(OrderAck.failed(null, "WebSocket未连接"));
         }
         
         try {
+            String clientOrderId = orderDispatcher.nextClientOrderId();
             // 构建订单JSON
-            String orderJson = String.format(
-                "{\"type\":\"trade\",\"action\":\"%s\",\"symbol\":\"%s\",\"volume\":%.2f," +
-                "\"price\":%.5f,\"sl\":%.5f,\"tp\":%.5f,\"comment\":\"%s\",\"timestamp\":%d}",
-                orderType, symbol, volume, price, stopLoss, takeProfit, comment, System.currentTimeMillis()
-            );
+            String orderJson = tradeJson(clientOrderId, orderType, symbol, volume, price, stopLoss, takeProfit,
+                    comment, timer.currentTimeMillis());
             
-            websocketClient.send(orderJson);
+            OrderJournal.Submission submission = new OrderJournal.Submission(clientOrderId, symbol, orderType,
+                    volume, price, stopLoss, takeProfit, comment, orderJson);
+            CompletableFuture<OrderAck> ack = dispatchSubmission(submission);
             logger.info("交易指令已发送: {}", orderJson);
-            
-            // 记录系统订单
-            int ticket = generateMockTicket();
-            OrderInfo systemOrder = new OrderInfo();
-            systemOrder.setTicket(ticket);
-            systemOrder.setSymbol(symbol);
-            systemOrder.setType(orderType);
-            systemOrder.setVolume(volume);
-            systemOrder.setPrice(price);
-            systemOrder.setStopLoss(stopLoss);
-            systemOrder.setTakeProfit(takeProfit);
-            systemOrder.setComment(comment);
-            systemOrder.setTimeSetup(LocalDateTime.now());
-            systemOrder.setStatus("PENDING");
-            
-            activeOrders.put(ticket, systemOrder);
-            
-            result.complete(true);
+            return ack;
             
         } catch (Exception e) {
             logger.error("订单发送失败", e);
-            result.complete(false);
+            return CompletableFuture.completedFuture(OrderAck.failed(null, e.getMessage()));
+        }
+    }
+    
+    /**
+     * 预先生成交易指令，分配客户端订单号，价格在发送时填入
+     *
+     * @param stopLossOffset   止损距离入场价的点数
+     * @param takeProfitOffset 止盈距离入场价的点数
+     */
+    public StagedOrder stageOrder(String symbol, String orderType, double volume,
+                                  double stopLossOffset, double takeProfitOffset, String comment) {
+        return new StagedOrder(orderDispatcher.nextClientOrderId(), symbol, orderType, volume,
+                stopLossOffset, takeProfitOffset, comment);
+    }
+
+    /**
+     * 以当前价格发送预备订单，只填写价格槽位，不再重新格式化整条消息
+     */
+    public CompletableFuture<OrderAck> submitStaged(StagedOrder staged, double price) {
+        if (!webSocketConnected || websocketClient == null) {
+            logger.error("WebSocket未连接，无法发送订单");
+            return CompletableFuture.completedFuture(OrderAck.failed(staged.getClientOrderId(), "WebSocket未连接"));
+        }
+        if (!staged.markUsed()) {
+            logger.warn("预备订单 {} 已发送过，忽略", staged.getClientOrderId());
+            return CompletableFuture.completedFuture(OrderAck.failed(staged.getClientOrderId(), "预备订单已使用"));
+        }
+
+        String orderJson = staged.render(price, timer.currentTimeMillis());
+        OrderJournal.Submission submission = new OrderJournal.Submission(staged.getClientOrderId(),
+                staged.getSymbol(), staged.getOrderType(), staged.getVolume(), price,
+                staged.stopLossFor(price), staged.takeProfitFor(price), staged.getComment(), orderJson);
+        CompletableFuture<OrderAck> ack = dispatchSubmission(submission);
+        logger.info("预备交易指令已发送: {}", orderJson);
+        return ack;
+    }
+
+    /**
+     * 发出指令：启用订单日志时先落盘再发送，收到回报后在日志中标记完成
+     */
+    private CompletableFuture<OrderAck> dispatchSubmission(OrderJournal.Submission submission) {
+        String clientOrderId = submission.getClientOrderId();
+        dispatchedSubmissions.put(clientOrderId, submission);
+        CompletableFuture<OrderAck> ack;
+        if (journal != null) {
+            // 落盘后在日志线程上发送，端到端起点随指令带过去
+            long traceOrigin = LatencyTracker.currentTrace();
+            ack = journal.logSubmit(submission).thenCompose(v -> {
+                LatencyTracker.beginTrace(traceOrigin);
+                try {
+                    return orderDispatcher.dispatch(clientOrderId, submission.getMessage());
+                } finally {
+                    LatencyTracker.endTrace();
+                }
+            });
+        } else {
+            ack = orderDispatcher.dispatch(clientOrderId, submission.getMessage());
         }
         
-        return result;
+        return ack.handle((result, error) -> {
+            if (error != null) {
+                logger.error("订单日志写入失败，指令 {} 未发送", clientOrderId, error);
+                dispatchedSubmissions.remove(clientOrderId);
+                return OrderAck.failed(clientOrderId, "订单日志写入失败");
+            }
+            if (!OrderDispatcher.TIMEOUT_ERROR.equals(result.getError())) {
+                dispatchedSubmissions.remove(clientOrderId);
+            }
+            // 先写订单记录再写回报标记：两者之间崩溃时，重启后指令仍未回报，会按原订单号重发，EA 去重后再次回报
+            if (result.isSuccess()) {
+                recordSystemOrder(result, submission.getSymbol(), submission.getOrderType(),
+                        submission.getStopLoss(), submission.getTakeProfit(), submission.getComment());
+                logger.info("订单成交: {}", result);
+            } else {
+                logger.error("订单未成交: {}", result);
+            }
+            if (journal != null) {
+                journal.logAck(clientOrderId);
+            }
+            return result;
+        });
+    }
+    
+    /**
+     * 超时失败后才收到的成交回报：EA 已经下单，按原指令登记订单和持仓
+     */
+    private void onLateFill(OrderAck ack) {
+        OrderJournal.Submission submission = dispatchedSubmissions.remove(ack.getClientOrderId());
+        if (submission == null) {
+            logger.error("订单 {} 超时后成交，但找不到原始指令，请在 MT5 中核对持仓 #{}",
+                    ack.getClientOrderId(), ack.getTicket());
+            return;
+        }
+        recordSystemOrder(ack, submission.getSymbol(), submission.getOrderType(),
+                submission.getStopLoss(), submission.getTakeProfit(), submission.getComment());
+        logger.warn("超时的指令 {} 已按迟到的成交回报登记: {}", ack.getClientOrderId(), ack);
+    }
+    
+    /**
+     * 重启前已写入日志但没有收到回报的指令，按原客户端订单号重发，EA 会去重
+     */
+    private void redispatchRecovered() {
+        List<OrderJournal.Submission> submissions;
+        synchronized (this) {
+            if (recoveredSubmissions.isEmpty()) {
+                return;
+            }
+            submissions = recoveredSubmissions;
+            recoveredSubmissions = new ArrayList<>();
+        }
+        logger.info("重发 {} 笔重启前未回报的指令", submissions.size());
+        for (OrderJournal.Submission submission : submissions) {
+            dispatchSubmission(submission);
+        }
+    }
+    
+    /**
+     * 用 EA 回报的真实订单号和成交价登记系统订单
+     */
+    private void recordSystemOrder(OrderAck ack, String symbol, String orderType,
+                                   double stopLoss, double takeProfit, String comment) {
+        OrderInfo systemOrder = new OrderInfo();
+        systemOrder.setTicket(ack.getTicket());
+        systemOrder.setSymbol(symbol);
+        systemOrder.setType(orderType);
+        systemOrder.setVolume(ack.getVolume());
+        systemOrder.setPrice(ack.getFillPrice());
+        systemOrder.setStopLoss(stopLoss);
+        systemOrder.setTakeProfit(takeProfit);
+        systemOrder.setComment(comment);
+        systemOrder.setTimeSetup(timer.localNow());
+        systemOrder.setState(OrderState.OPEN);
+        
+        if (!orderStore.add(systemOrder)) {
+            logger.warn("订单号 #{} 已存在，跳过登记", ack.getTicket());
+            return;
+        }
+        if (systemOrder.getSide() != null && ack.getVolume() > 0) {
+            positionBook.open(ack.getTicket(), symbol, systemOrder.getSide(), ack.getVolume(),
+                    ack.getFillPrice(), stopLoss, takeProfit);
+        }
     }
     
     /**
@@ -185,9 +392,9 @@ public class MT5Connector {
             order.setPrice(getBasePrice(config.getSymbol()) + (new Random().nextDouble() * 100 - 50));
             order.setStopLoss(order.getPrice() * (order.getType().contains("BUY") ? 0.995 : 1.005));
             order.setTakeProfit(order.getPrice() * (order.getType().contains("BUY") ? 1.010 : 0.990));
-            order.setComment("USER_ORDER_" + System.currentTimeMillis());
-            order.setTimeSetup(LocalDateTime.now().minusSeconds(new Random().nextInt(30)));
-            order.setStatus("PENDING");
+            order.setComment("USER_ORDER_" + timer.currentTimeMillis());
+            order.setTimeSetup(timer.localNow().minusSeconds(new Random().nextInt(30)));
+            order.setState(OrderState.PENDING);
             
             orders.add(order);
         }
@@ -209,11 +416,17 @@ public class MT5Connector {
         order.setStopLoss(stopLoss);
         order.setTakeProfit(takeProfit);
         order.setComment(comment);
-        order.setTimeSetup(LocalDateTime.now());
-        order.setStatus("EXECUTED");
+        order.setTimeSetup(timer.localNow());
         
-        activeOrders.put(ticket, order);
-        pendingUserOrders.remove(ticket);
+        OrderInfo existing = orderStore.get(ticket);
+        if (existing != null) {
+            if (existing.getState().isPending()) {
+                orderStore.transition(ticket, OrderState.EXECUTED);
+            }
+        } else {
+            order.setState(OrderState.EXECUTED);
+            orderStore.add(order);
+        }
     }
     
     /**
@@ -231,10 +444,10 @@ public class MT5Connector {
             // 通过WebSocket发送获取订单请求
             String request = String.format(
                 "{\"type\":\"get_orders\",\"symbol\":\"%s\",\"status\":\"pending\",\"timestamp\":%d}",
-                config.getSymbol(), System.currentTimeMillis()
+                config.getSymbol(), timer.currentTimeMillis()
             );
             
-            websocketClient.send(request);
+            commandPipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "get_orders", request);
             
             return getMockPendingOrders();
             
@@ -254,14 +467,14 @@ public class MT5Connector {
             // 通过WebSocket发送获取持仓请求
             String request = String.format(
                 "{\"type\":\"get_positions\",\"symbol\":\"%s\",\"timestamp\":%d}",
-                config.getSymbol(), System.currentTimeMillis()
+                config.getSymbol(), timer.currentTimeMillis()
             );
             
             if (webSocketConnected && websocketClient != null) {
-                websocketClient.send(request);
+                commandPipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "get_positions", request);
             }
             
-            return new ArrayList<>(activeOrders.values());
+            return orderStore.getActive();
             
         } catch (Exception e) {
             logger.error("获取持仓失败", e);
@@ -283,20 +496,22 @@ public class MT5Connector {
         
         try {
             // 构建修改订单的JSON消息
-            String orderJson = String.format(
-                "{\"type\":\"modify_order\",\"ticket\":%d,\"symbol\":\"%s\",\"action\":\"%s\"," +
-                "\"volume\":%.2f,\"price\":%.5f,\"sl\":%.5f,\"tp\":%.5f,\"comment\":\"%s\",\"timestamp\":%d}",
-                ticket, symbol, type, volume, price, stopLoss, takeProfit, comment, System.currentTimeMillis()
-            );
+            String orderJson = modifyOrderJson(ticket, symbol, type, volume, price, stopLoss, takeProfit,
+                    comment, timer.currentTimeMillis());
             
-            websocketClient.send(orderJson);
+            commandPipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:" + ticket, orderJson);
             logger.info("订单修改指令已发送: {}", orderJson);
             
             // 更新本地订单信息
-            OrderInfo order = findOrderByTicket(ticket);
+            OrderInfo order = orderStore.get(ticket);
             if (order != null) {
                 order.setComment(comment);
-                order.setStatus("MODIFIED");
+                // 持仓修改止损止盈后仍是持仓，只有挂单进入 MODIFIED
+                if (order.getState().isPending()) {
+                    orderStore.transition(ticket, OrderState.MODIFIED);
+                } else {
+                    positionBook.modify(ticket, stopLoss, takeProfit);
+                }
             }
             
             return true;
@@ -320,17 +535,17 @@ public class MT5Connector {
         
         try {
             // 构建取消订单的JSON消息
-            String cancelJson = String.format(
-                "{\"type\":\"cancel_order\",\"ticket\":%d,\"reason\":\"%s\",\"timestamp\":%d}",
-                ticket, reason, System.currentTimeMillis()
-            );
+            String cancelJson = cancelOrderJson(ticket, reason, timer.currentTimeMillis());
             
-            websocketClient.send(cancelJson);
+            commandPipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:" + ticket, cancelJson, true);
             logger.info("订单取消指令已发送");
             
-            // 从本地列表中移除
-            pendingUserOrders.remove(ticket);
-            activeOrders.remove(ticket);
+            // 挂单删除，已执行的订单平仓，两者都会从订单存储中移除
+            OrderInfo order = orderStore.get(ticket);
+            if (order != null) {
+                orderStore.transition(ticket, order.getState().isPending() ? OrderState.DELETED : OrderState.CLOSED);
+                positionBook.close(ticket);
+            }
             
             return true;
             
@@ -340,6 +555,52 @@ public class MT5Connector {
         }
     }
     
+    /**
+     * 批准执行挂单的 execute_order 消息
+     */
+    static String executeOrderJson(int ticket, String symbol, String type, double volume, double price,
+                                   double stopLoss, double takeProfit, String comment, long timestampMillis) {
+        return String.format(
+            "{\"type\":\"execute_order\",\"ticket\":%d,\"symbol\":\"%s\",\"action\":\"%s\"," +
+            "\"volume\":%.2f,\"price\":%.5f,\"sl\":%.5f,\"tp\":%.5f,\"comment\":\"%s\",\"timestamp\":%d}",
+            ticket, symbol, type, volume, price, stopLoss, takeProfit, comment, timestampMillis
+        );
+    }
+    
+    /**
+     * 带客户端订单号的 trade 消息
+     */
+    static String tradeJson(String clientOrderId, String orderType, String symbol, double volume, double price,
+                            double stopLoss, double takeProfit, String comment, long timestampMillis) {
+        return String.format(
+            "{\"type\":\"trade\",\"client_id\":\"%s\",\"action\":\"%s\",\"symbol\":\"%s\",\"volume\":%.2f," +
+            "\"price\":%.5f,\"sl\":%.5f,\"tp\":%.5f,\"comment\":\"%s\",\"timestamp\":%d}",
+            clientOrderId, orderType, symbol, volume, price, stopLoss, takeProfit, comment, timestampMillis
+        );
+    }
+    
+    /**
+     * 修改订单的 modify_order 消息
+     */
+    static String modifyOrderJson(int ticket, String symbol, String type, double volume, double price,
+                                  double stopLoss, double takeProfit, String comment, long timestampMillis) {
+        return String.format(
+            "{\"type\":\"modify_order\",\"ticket\":%d,\"symbol\":\"%s\",\"action\":\"%s\"," +
+            "\"volume\":%.2f,\"price\":%.5f,\"sl\":%.5f,\"tp\":%.5f,\"comment\":\"%s\",\"timestamp\":%d}",
+            ticket, symbol, type, volume, price, stopLoss, takeProfit, comment, timestampMillis
+        );
+    }
+    
+    /**
+     * 取消订单的 cancel_order 消息
+     */
+    static String cancelOrderJson(int ticket, String reason, long timestampMillis) {
+        return String.format(
+            "{\"type\":\"cancel_order\",\"ticket\":%d,\"reason\":\"%s\",\"timestamp\":%d}",
+            ticket, reason, timestampMillis
+        );
+    }
+    
     /**
      * 开始监控用户订单
      */
@@ -353,7 +614,7 @@ public class MT5Connector {
         this.isMonitoringOrders = true;
         
         // 定期扫描订单
-        scheduler.scheduleAtFixedRate(() -> {
+        orderScanTimeout = timer.scheduleAtFixedRate(() -> {
             if (webSocketConnected) {
                 scanForNewUserOrders();
             }
@@ -371,14 +632,12 @@ public class MT5Connector {
             
             for (OrderInfo order : pendingOrders) {
                 // 检查是否为新的用户订单
-                if (!this.pendingUserOrders.containsKey(order.getTicket()) && 
-                    !this.activeOrders.containsKey(order.getTicket()) &&
-                    isUserOrder(order)) {
+                if (!orderStore.contains(order.getTicket()) && isUserOrder(order)) {
                     
                     logger.info("检测到新的用户订单: {}", order);
                     
-                    // 添加到待处理列表
-                    this.pendingUserOrders.put(order.getTicket(), order);
+                    // 登记到订单存储
+                    orderStore.add(order);
                     
                     // 回调通知
                     if (onNewUserOrder != null) {
@@ -412,17 +671,6 @@ public class MT5Connector {
         return order.getSymbol().equals(config.getSymbol());
     }
     
-    /**
-     * 根据订单号查找订单
-     */
-    private OrderInfo findOrderByTicket(int ticket) {
-        OrderInfo order = pendingUserOrders.get(ticket);
-        if (order == null) {
-            order = activeOrders.get(ticket);
-        }
-        return order;
-    }
-    
     /**
      * 获取历史数据（字符串时间框架版本）
      */
@@ -444,7 +692,7 @@ public class MT5Connector {
             long volume = (long)(1000000 + Math.random() * 500000);
             
             CandleData candle = new CandleData(
-                LocalDateTime.now().minusMinutes(i * minutesPerBar),
+                timer.localNow().minusMinutes(i * minutesPerBar),
                 open, high, low, close, volume
             );
             candle.setSymbol(symbol);
@@ -491,13 +739,23 @@ public class MT5Connector {
         }
     }
     
+    /**
+     * 收到逐笔报价，在消息处理线程上调用，子类可以据此维护本地行情
+     */
+    protected void onQuote(String symbol, double bid, double ask) {
+    }
+    
     /**
      * 初始化WebSocket连接
      */
-    public boolean initializeWebSocket(Consumer<CandleData> onNewCandle, DecisionEngine decisionEngine) {
+    public boolean initializeWebSocket(Consumer<CandleData> onNewCandle, MarketDataHandler decisionEngine) {
         try {
             URI websocketUri = new URI(config.getMt5WebSocketUrl());
-            this.websocketClient = new MT5WebSocketClient(websocketUri, config, onNewCandle, decisionEngine);
+            this.websocketClient = new MT5WebSocketClient(websocketUri, config, onNewCandle, decisionEngine, riskEngine);
+            websocketClient.setOrderDispatcher(orderDispatcher);
+            websocketClient.setPositionBook(positionBook);
+            websocketClient.setQuoteListener(this::onQuote);
+            websocketClient.setOpenListener(this::onWebSocketOpen);
             
             // 连接WebSocket
             websocketClient.connect();
@@ -510,6 +768,7 @@ public class MT5Connector {
                     
                     // 启动心跳检测
                     startHeartbeat();
+                    commandPipeline.start(timer, config.getOutboundFlushInterval());
                     
                     return true;
                 }
@@ -531,7 +790,7 @@ public class MT5Connector {
     public CompletableFuture<Boolean> sendOrder(String symbol, String orderType, 
                                               double volume, double price, 
                                               double stopLoss, double takeProfit) {
-        return sendOrder(symbol, orderType, volume, price, stopLoss, takeProfit, "AUTO_TRADE");
+        return sendOrder(symbol, orderType, volume, price, stopLoss, takeProfit, config.getSystemOrderComment());
     }
     
     /**
@@ -543,15 +802,28 @@ public class MT5Connector {
         return result;
     }
     
+    /**
+     * 首次连接或重连成功：启动积压指令的定时发送，重发重启前未回报的指令。
+     * 首次连接超时后由客户端自动重连成功时也会走到这里
+     */
+    private void onWebSocketOpen() {
+        webSocketConnected = true;
+        commandPipeline.start(timer, config.getOutboundFlushInterval());
+        redispatchRecovered();
+    }
+    
     /**
      * 启动心跳检测
      */
-    private void startHeartbeat() {
-        scheduler.scheduleAtFixedRate(() -> {
+    private synchronized void startHeartbeat() {
+        if (heartbeatTimeout != null) {
+            return;
+        }
+        heartbeatTimeout = timer.scheduleAtFixedRate(() -> {
             try {
                 if (websocketClient != null && websocketClient.isOpen()) {
                     // 发送心跳消息
-                    String heartbeat = "{\"type\":\"ping\",\"time\":" + System.currentTimeMillis() + "}";
+                    String heartbeat = "{\"type\":\"ping\",\"time\":" + timer.currentTimeMillis() + "}";
                     websocketClient.send(heartbeat);
                 } else {
                     webSocketConnected = false;
@@ -565,18 +837,19 @@ public class MT5Connector {
     }
     
     /**
-     * 尝试重新连接
+     * 尝试重新连接（不阻塞定时线程，2秒后检查结果）
      */
     private void attemptReconnect() {
         try {
             if (websocketClient != null) {
                 websocketClient.reconnect();
-                Thread.sleep(2000);
                 
-                if (websocketClient.isOpen()) {
-                    webSocketConnected = true;
-                    logger.info("WebSocket重新连接成功");
-                }
+                timer.schedule(() -> {
+                    if (websocketClient.isOpen()) {
+                        webSocketConnected = true;
+                        logger.info("WebSocket重新连接成功");
+                    }
+                }, 2, TimeUnit.SECONDS);
             }
         } catch (Exception e) {
             logger.error("重新连接失败", e);
@@ -594,10 +867,26 @@ public class MT5Connector {
             websocketClient.close();
         }
         
-        scheduler.shutdown();
+        if (heartbeatTimeout != null) {
+            heartbeatTimeout.cancel();
+        }
+        if (orderScanTimeout != null) {
+            orderScanTimeout.cancel();
+        }
+        commandPipeline.stop();
+        if (journal != null) {
+            journal.close();
+        }
         logger.info("MT5连接器已断开");
     }
     
+    /**
+     * 是否为模拟成交器：订单在本地撮合，不会发往 MT5
+     */
+    public boolean isSimulated() {
+        return false;
+    }
+    
     public boolean isWebSocketConnected() {
         return webSocketConnected;
     }
@@ -607,9 +896,40 @@ public class MT5Connector {
     }
     
     /**
-     * 生成模拟订单号
+     * 账户级风控，所有策略共用
      */
-    private int generateMockTicket() {
-        return 500000 + new Random().nextInt(500000);
+    public RiskEngine getRiskEngine() {
+        return riskEngine;
+    }
+    
+    public OrderStore getOrderStore() {
+        return orderStore;
+    }
+    
+    /**
+     * 系统持仓的逐笔浮动盈亏
+     */
+    public PositionBook getPositionBook() {
+        return positionBook;
+    }
+    
+    public CommandPipeline getCommandPipeline() {
+        return commandPipeline;
+    }
+    
+    public OrderJournal getJournal() {
+        return journal;
+    }
+    
+    public OrderDispatcher getOrderDispatcher() {
+        return orderDispatcher;
+    }
+    
+    public LatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+    
+    public TimerService getTimer() {
+        return timer;
     }
 }
\ No newline at end of file
@@ -2,7 +2,11 @@ package com.mt5trading.mt5.connector;
 
 import com.mt5trading.config.TradingConfig;
 import com.mt5trading.models.CandleData;
-import com.mt5trading.services.DecisionEngine;
+import com.mt5trading.mt5.models.OrderAck;
+import com.mt5trading.services.MarketDataHandler;
+import com.mt5trading.services.PositionBook;
+import com.mt5trading.services.RiskEngine;
+import com.mt5trading.util.LatencyTracker;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 import org.slf4j.Logger;
@@ -22,20 +26,40 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 public class MT5WebSocketClient extends WebSocketClient {
     private static final Logger logger = LoggerFactory.getLogger(MT5WebSocketClient.class);
     
+    /**
+     * 逐笔报价监听，每个品种的每笔行情都会通知
+     */
+    public interface QuoteListener {
+        void onQuote(String symbol, double bid, double ask);
+    }
+    
     private final TradingConfig config;
     private final Consumer<CandleData> onNewCandle;
-    private final DecisionEngine decisionEngine;
+    private final MarketDataHandler decisionEngine;
+    private final RiskEngine riskEngine;
+    private OrderDispatcher orderDispatcher;
+    private PositionBook positionBook;
+    private QuoteListener quoteListener;
+    private Runnable openListener;
     private final ObjectMapper objectMapper;
-    private final BlockingQueue<String> messageQueue;
+    private final BlockingQueue<InboundMessage> messageQueue;
+    private final LatencyTracker latencyTracker = LatencyTracker.getDefault();
     private boolean authenticated;
     private String sessionId;
     
     public MT5WebSocketClient(URI serverUri, TradingConfig config, 
-                             Consumer<CandleData> onNewCandle, DecisionEngine decisionEngine) {
+                             Consumer<CandleData> onNewCandle, MarketDataHandler decisionEngine) {
+        this(serverUri, config, onNewCandle, decisionEngine, null);
+    }
+    
+    public MT5WebSocketClient(URI serverUri, TradingConfig config, 
+                             Consumer<CandleData> onNewCandle, MarketDataHandler decisionEngine,
+                             RiskEngine riskEngine) {
         super(serverUri);
         this.config = config;
         this.onNewCandle = onNewCandle;
         this.decisionEngine = decisionEngine;
+        this.riskEngine = riskEngine;
         this.objectMapper = new ObjectMapper();
         this.messageQueue = new LinkedBlockingQueue<>();
         this.authenticated = false;
@@ -54,13 +78,24 @@ public class MT5WebSocketClient extends WebSocketClient {
         
         // 启动消息处理线程
         startMessageProcessor();
+        
+        // 断线期间未确认的订单按原订单号重发
+        if (orderDispatcher != null) {
+            orderDispatcher.resendInFlight();
+        }
+        
+        // 首次连接和每次重连成功都会通知
+        if (openListener != null) {
+            openListener.run();
+        }
     }
     
     @Override
     public void onMessage(String message) {
         try {
+            long receiveNanos = System.nanoTime();
             logger.debug("收到消息: {}", message);
-            messageQueue.put(message);
+            messageQueue.put(new InboundMessage(message, receiveNanos));
         } catch (InterruptedException e) {
             logger.error("消息队列插入中断", e);
             Thread.currentThread().interrupt();
@@ -119,9 +154,16 @@ public class MT5WebSocketClient extends WebSocketClient {
         Thread processorThread = new Thread(() -> {
             while (!isClosed() && !Thread.currentThread().isInterrupted()) {
                 try {
-                    String message = messageQueue.poll(100, TimeUnit.MILLISECONDS);
+                    InboundMessage message = messageQueue.poll(100, TimeUnit.MILLISECONDS);
                     if (message != null) {
-                        processMessage(message);
+                        latencyTracker.recordSince(LatencyTracker.Stage.QUEUE, message.receiveNanos);
+                        // 行情到达时刻作为端到端起点，随事件传给决策引擎
+                        LatencyTracker.beginTrace(message.receiveNanos);
+                        try {
+                            processMessage(message.text);
+                        } finally {
+                            LatencyTracker.endTrace();
+                        }
                     }
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
@@ -137,10 +179,15 @@ public class MT5WebSocketClient extends WebSocketClient {
         processorThread.start();
     }
     
-    private void processMessage(String message) {
+    /**
+     * 解析并分发一条入站消息，在消息处理线程上调用（基准测试直接调用）
+     */
+    void processMessage(String message) {
         try {
+            long parseStart = System.nanoTime();
             ObjectNode json = (ObjectNode) objectMapper.readTree(message);
             String type = json.has("type") ? json.get("type").asText() : "";
+            latencyTracker.recordSince(LatencyTracker.Stage.PARSE, parseStart);
             
             switch (type) {
                 case "auth_response":
@@ -150,9 +197,11 @@ public class MT5WebSocketClient extends WebSocketClient {
                     handleMarketData(json);
                     break;
                 case "trade":
+                case "trade_result":
                     handleTradeResponse(json);
                     break;
                 case "account":
+                case "account_info":
                     handleAccountInfo(json);
                     break;
                 case "error":
@@ -183,6 +232,7 @@ public class MT5WebSocketClient extends WebSocketClient {
     private void handleMarketData(ObjectNode json) {
         if (!json.has("data")) return;
         
+        long start = System.nanoTime();
         try {
             // 解析市场数据
             if (json.get("data").isArray()) {
@@ -192,6 +242,17 @@ public class MT5WebSocketClient extends WebSocketClient {
                     double ask = item.get("ask").asDouble();
                     long timestamp = item.get("time").asLong();
                     
+                    // 更新风控的未实现盈亏
+                    if (riskEngine != null) {
+                        riskEngine.onTick(symbol, bid, ask, timestamp * 1000);
+                    }
+                    if (positionBook != null) {
+                        positionBook.onTick(symbol, bid, ask);
+                    }
+                    if (quoteListener != null) {
+                        quoteListener.onQuote(symbol, bid, ask);
+                    }
+                    
                     // 创建蜡烛数据（简化）
                     LocalDateTime time = LocalDateTime.ofInstant(
                         Instant.ofEpochSecond(timestamp), ZoneId.systemDefault());
@@ -207,6 +268,7 @@ public class MT5WebSocketClient extends WebSocketClient {
                     
                     // 如果是订阅的品种，触发分析
                     if (symbol.equals(config.getSymbol())) {
+                        decisionEngine.onTick(symbol, bid, ask, timestamp * 1000);
                         decisionEngine.analyzeNewCandle(candle);
                     }
                 }
@@ -214,13 +276,29 @@ public class MT5WebSocketClient extends WebSocketClient {
         } catch (Exception e) {
             logger.error("市场数据处理失败", e);
         }
+        latencyTracker.recordSince(LatencyTracker.Stage.CANDLE, start);
     }
     
     private void handleTradeResponse(ObjectNode json) {
         String status = json.has("status") ? json.get("status").asText() : "unknown";
         int ticket = json.has("ticket") ? json.get("ticket").asInt() : 0;
         
-        if ("success".equals(status)) {
+        // 测试模式下 EA 回报 test_success，同样视为成交
+        boolean filled = "success".equals(status) || "test_success".equals(status);
+        
+        // 带客户端订单号的回报先交给分发器，重复回报不再重复记账
+        if (orderDispatcher != null && json.has("client_id")) {
+            OrderAck ack = new OrderAck(json.get("client_id").asText(), filled, ticket,
+                    json.has("price") ? json.get("price").asDouble() : 0,
+                    json.has("volume") ? json.get("volume").asDouble() : 0,
+                    json.has("error") ? json.get("error").asText() : status);
+            if (!orderDispatcher.onAck(ack)) {
+                return;
+            }
+        }
+        
+        if (filled) {
+            // 持仓由连接器登记订单时记入持仓簿，风控从持仓簿读取
             logger.info("订单执行成功，单号: {}", ticket);
         } else {
             String error = json.has("error") ? json.get("error").asText() : "未知错误";
@@ -234,6 +312,10 @@ public class MT5WebSocketClient extends WebSocketClient {
         double equity = json.has("equity") ? json.get("equity").asDouble() : 0;
         
         logger.debug("账户更新 - 余额: ${}, 净值: ${}", balance, equity);
+        
+        if (riskEngine != null) {
+            riskEngine.onAccountBalance(balance);
+        }
     }
     
     private void handleError(ObjectNode json) {
@@ -250,6 +332,7 @@ public class MT5WebSocketClient extends WebSocketClient {
         }
         
         try {
+            long start = System.nanoTime();
             ObjectNode orderMsg = objectMapper.createObjectNode();
             orderMsg.put("type", "trade");
             orderMsg.put("action", action);
@@ -262,6 +345,8 @@ public class MT5WebSocketClient extends WebSocketClient {
             orderMsg.put("comment", "MT5-SDS Auto Trade");
             
             send(orderMsg.toString());
+            latencyTracker.recordSince(LatencyTracker.Stage.SEND, start);
+            latencyTracker.recordEndToEnd();
             logger.info("已发送交易指令: {} {} @ {}", action, symbol, price);
         } catch (Exception e) {
             logger.error("交易指令发送失败", e);
@@ -293,6 +378,38 @@ public class MT5WebSocketClient extends WebSocketClient {
         }).start();
     }
     
+    /**
+     * 收到的原始消息及到达时刻
+     */
+    private static final class InboundMessage {
+        final String text;
+        final long receiveNanos;
+        
+        InboundMessage(String text, long receiveNanos) {
+            this.text = text;
+            this.receiveNanos = receiveNanos;
+        }
+    }
+    
+    public void setOrderDispatcher(OrderDispatcher orderDispatcher) {
+        this.orderDispatcher = orderDispatcher;
+    }
+    
+    public void setPositionBook(PositionBook positionBook) {
+        this.positionBook = positionBook;
+    }
+    
+    public void setQuoteListener(QuoteListener quoteListener) {
+        this.quoteListener = quoteListener;
+    }
+    
+    /**
+     * 连接建立（包括重连）时在 WebSocket 线程上调用
+     */
+    public void setOpenListener(Runnable openListener) {
+        this.openListener = openListener;
+    }
+    
     public boolean isAuthenticated() {
         return authenticated;
     }
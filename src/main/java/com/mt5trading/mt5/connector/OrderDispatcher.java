@@ -0,0 +1,264 @@
+package com.mt5trading.mt5.connector;
+
+import com.mt5trading.mt5.models.OrderAck;
+import com.mt5trading.timer.Timeout;
+import com.mt5trading.timer.TimerService;
+import com.mt5trading.util.LatencyTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * 幂等的订单分发
+ * 每笔发出的订单带一个客户端订单号，登记在在途表里，收到 EA 按该订单号回报后才完成对应的 future。
+ *
+ * - 超时未收到回报时按原订单号重发，超过重试次数后以失败完成
+ * - 断线重连后在途订单按原订单号重发，EA 按订单号去重，不会重复下单
+ * - 同一订单号重复提交返回同一个 future，重复回报被忽略
+ * - 超时失败后才到达的成功回报仍视为有效成交（EA 确实下单了），交给迟到成交监听器记账
+ */
+public class OrderDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(OrderDispatcher.class);
+    private static final int COMPLETED_HISTORY = 1024;
+    static final String TIMEOUT_ERROR = "回报超时";
+
+    private final TimerService timer;
+    private final Consumer<String> transport;
+    private final BooleanSupplier connected;
+    private final long ackTimeoutMillis;
+    private final int maxRetries;
+    private final LatencyTracker latencyTracker;
+    private final String idPrefix;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile Consumer<OrderAck> lateFillListener = ack -> { };
+
+    private final Map<String, InFlight> inFlight = new LinkedHashMap<>();
+    // 最近完成的订单，用于识别重复提交和重复回报
+    private final Map<String, OrderAck> completed = new LinkedHashMap<String, OrderAck>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, OrderAck> eldest) {
+            return size() > COMPLETED_HISTORY;
+        }
+    };
+
+    private long ackedCount = 0;
+    private long failedCount = 0;
+    private long retryCount = 0;
+    private long duplicateCount = 0;
+
+    /**
+     * 在途订单
+     */
+    private static final class InFlight {
+        final String clientOrderId;
+        final String message;
+        final CompletableFuture<OrderAck> future = new CompletableFuture<>();
+        final long firstSentNanos = System.nanoTime();
+        int attempts = 0;
+        Timeout timeout;
+
+        InFlight(String clientOrderId, String message) {
+            this.clientOrderId = clientOrderId;
+            this.message = message;
+        }
+    }
+
+    /**
+     * @param transport 实际发送消息，未连接时可能抛出异常
+     * @param connected 当前是否可以发送
+     */
+    public OrderDispatcher(TimerService timer, Consumer<String> transport, BooleanSupplier connected,
+                           long ackTimeoutMillis, int maxRetries) {
+        this(timer, transport, connected, ackTimeoutMillis, maxRetries, LatencyTracker.getDefault());
+    }
+
+    OrderDispatcher(TimerService timer, Consumer<String> transport, BooleanSupplier connected,
+                    long ackTimeoutMillis, int maxRetries, LatencyTracker latencyTracker) {
+        this.timer = timer;
+        this.transport = transport;
+        this.connected = connected;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        this.maxRetries = maxRetries;
+        this.latencyTracker = latencyTracker;
+        // 带上启动时间，进程重启后订单号也不会与之前的重复
+        this.idPrefix = "SDS" + Long.toString(System.currentTimeMillis(), 36).toUpperCase() + "-";
+    }
+
+    /**
+     * 超时失败后才到达的成交回报：对应的 future 已经以失败完成，调用方需要在这里补记成交
+     */
+    public void setLateFillListener(Consumer<OrderAck> listener) {
+        this.lateFillListener = listener;
+    }
+
+    public String nextClientOrderId() {
+        return idPrefix + sequence.incrementAndGet();
+    }
+
+    /**
+     * 发出订单
+     *
+     * @param clientOrderId 客户端订单号，必须已经写在 message 里
+     * @return 收到回报或最终超时后完成
+     */
+    public CompletableFuture<OrderAck> dispatch(String clientOrderId, String message) {
+        InFlight entry;
+        synchronized (this) {
+            OrderAck done = completed.get(clientOrderId);
+            if (done != null) {
+                duplicateCount++;
+                logger.warn("订单 {} 已完成，忽略重复提交", clientOrderId);
+                return CompletableFuture.completedFuture(done);
+            }
+            InFlight existing = inFlight.get(clientOrderId);
+            if (existing != null) {
+                duplicateCount++;
+                logger.warn("订单 {} 仍在途，忽略重复提交", clientOrderId);
+                return existing.future;
+            }
+            entry = new InFlight(clientOrderId, message);
+            inFlight.put(clientOrderId, entry);
+            entry.attempts++;
+            entry.timeout = scheduleTimeout(entry);
+        }
+        send(entry);
+        return entry.future;
+    }
+
+    /**
+     * EA 回报
+     *
+     * @return 是否为有效回报（首次回报，或超时后到达的成功回报）；重复或未知的回报返回 false
+     */
+    public boolean onAck(OrderAck ack) {
+        InFlight entry;
+        boolean lateFill = false;
+        synchronized (this) {
+            entry = inFlight.remove(ack.getClientOrderId());
+            if (entry == null) {
+                OrderAck previous = completed.get(ack.getClientOrderId());
+                if (previous != null && !previous.isSuccess() && TIMEOUT_ERROR.equals(previous.getError())
+                        && ack.isSuccess()) {
+                    ack.setAttempts(previous.getAttempts());
+                    completed.put(ack.getClientOrderId(), ack);
+                    // 超时时记为失败，实际成交了
+                    failedCount--;
+                    ackedCount++;
+                    lateFill = true;
+                } else if (previous != null) {
+                    duplicateCount++;
+                    logger.debug("忽略重复回报: {}", ack.getClientOrderId());
+                } else {
+                    logger.warn("收到未知订单的回报: {}", ack.getClientOrderId());
+                }
+                if (!lateFill) {
+                    return false;
+                }
+            } else {
+                if (entry.timeout != null) {
+                    entry.timeout.cancel();
+                }
+                ack.setAttempts(entry.attempts);
+                ack.setLatencyNanos(System.nanoTime() - entry.firstSentNanos);
+                completed.put(ack.getClientOrderId(), ack);
+                if (ack.isSuccess()) {
+                    ackedCount++;
+                } else {
+                    failedCount++;
+                }
+            }
+        }
+        if (lateFill) {
+            logger.error("订单 {} 超时后收到成交回报: {}", ack.getClientOrderId(), ack);
+            lateFillListener.accept(ack);
+            return true;
+        }
+        latencyTracker.record(LatencyTracker.Stage.ACK, ack.getLatencyNanos());
+        entry.future.complete(ack);
+        return true;
+    }
+
+    /**
+     * 重连后按原订单号重发所有在途订单，不计入重试次数
+     */
+    public void resendInFlight() {
+        List<InFlight> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(inFlight.values());
+            for (InFlight entry : pending) {
+                if (entry.timeout != null) {
+                    entry.timeout.cancel();
+                }
+                entry.timeout = scheduleTimeout(entry);
+            }
+        }
+        if (!pending.isEmpty()) {
+            logger.info("重连后重发 {} 笔在途订单", pending.size());
+        }
+        for (InFlight entry : pending) {
+            send(entry);
+        }
+    }
+
+    private Timeout scheduleTimeout(InFlight entry) {
+        return timer.schedule(() -> onTimeout(entry), ackTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void onTimeout(InFlight entry) {
+        OrderAck failure = null;
+        synchronized (this) {
+            if (inFlight.get(entry.clientOrderId) != entry) {
+                return;
+            }
+            if (entry.attempts > maxRetries) {
+                inFlight.remove(entry.clientOrderId);
+                failure = OrderAck.failed(entry.clientOrderId, TIMEOUT_ERROR);
+                failure.setAttempts(entry.attempts);
+                failure.setLatencyNanos(System.nanoTime() - entry.firstSentNanos);
+                completed.put(entry.clientOrderId, failure);
+                failedCount++;
+            } else {
+                entry.attempts++;
+                retryCount++;
+                entry.timeout = scheduleTimeout(entry);
+            }
+        }
+        if (failure != null) {
+            logger.error("订单 {} 发送 {} 次均未收到回报", entry.clientOrderId, entry.attempts);
+            entry.future.complete(failure);
+        } else {
+            logger.warn("订单 {} 回报超时，第 {} 次发送", entry.clientOrderId, entry.attempts);
+            send(entry);
+        }
+    }
+
+    private void send(InFlight entry) {
+        if (!connected.getAsBoolean()) {
+            logger.warn("连接断开，订单 {} 等待重连后发送", entry.clientOrderId);
+            return;
+        }
+        try {
+            transport.accept(entry.message);
+        } catch (Exception e) {
+            logger.warn("订单 {} 发送失败，等待重发: {}", entry.clientOrderId, e.getMessage());
+        }
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public synchronized String getSummary() {
+        return String.format("在途: %d, 成功: %d, 失败: %d, 重发: %d, 重复: %d",
+                inFlight.size(), ackedCount, failedCount, retryCount, duplicateCount);
+    }
+}
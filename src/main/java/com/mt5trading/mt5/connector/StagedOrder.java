@@ -0,0 +1,207 @@
+package com.mt5trading.mt5.connector;
+
+import com.mt5trading.models.OrderSide;
+
+import java.util.Locale;
+
+/**
+ * 预先编码的交易指令
+ * 在分析触发前按品种、方向、手数和止损止盈点数生成完整的 trade 消息，价格、止损、止盈和时间戳
+ * 留成定宽的数字槽位。决策时只把价格写进槽位，省掉下单路径上的 String.format。
+ *
+ * 槽位宽度固定，数字不足时在小数末尾补 0（EA 按 StringToDouble 解析，结果不变）。
+ * 每个预备订单带一个客户端订单号，只能发送一次，发送后需要重新准备。
+ */
+public final class StagedOrder {
+    static final int PRICE_WIDTH = 16;
+    static final int TIMESTAMP_WIDTH = 13;
+    private static final int DECIMALS = 5;
+    private static final long SCALE = 100_000L;
+
+    private final String clientOrderId;
+    private final String symbol;
+    private final String orderType;
+    private final double volume;
+    private final double stopLossOffset;
+    private final double takeProfitOffset;
+    private final String comment;
+    private final double direction;
+
+    private final char[] frame;
+    private final int priceAt;
+    private final int stopLossAt;
+    private final int takeProfitAt;
+    private final int timestampAt;
+    private boolean used = false;
+
+    /**
+     * @param stopLossOffset   止损距离入场价的点数，0 表示不设置
+     * @param takeProfitOffset 止盈距离入场价的点数，0 表示不设置
+     */
+    public StagedOrder(String clientOrderId, String symbol, String orderType, double volume,
+                       double stopLossOffset, double takeProfitOffset, String comment) {
+        OrderSide side = OrderSide.fromType(orderType);
+        if (side == null) {
+            throw new IllegalArgumentException("无法识别的订单方向: " + orderType);
+        }
+        this.clientOrderId = clientOrderId;
+        this.symbol = symbol;
+        this.orderType = orderType;
+        this.volume = volume;
+        this.stopLossOffset = stopLossOffset;
+        this.takeProfitOffset = takeProfitOffset;
+        this.comment = comment;
+        this.direction = side == OrderSide.BUY ? 1 : -1;
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"type\":\"trade\",\"client_id\":\"").append(clientOrderId)
+                .append("\",\"action\":\"").append(orderType)
+                .append("\",\"symbol\":\"").append(symbol)
+                .append("\",\"volume\":").append(String.format(Locale.ROOT, "%.2f", volume))
+                .append(",\"price\":");
+        priceAt = slot(sb, PRICE_WIDTH);
+        sb.append(",\"sl\":");
+        stopLossAt = slot(sb, PRICE_WIDTH);
+        sb.append(",\"tp\":");
+        takeProfitAt = slot(sb, PRICE_WIDTH);
+        sb.append(",\"comment\":\"").append(comment).append("\",\"timestamp\":");
+        timestampAt = slot(sb, TIMESTAMP_WIDTH);
+        sb.append('}');
+        frame = new char[sb.length()];
+        sb.getChars(0, sb.length(), frame, 0);
+    }
+
+    private static int slot(StringBuilder sb, int width) {
+        int at = sb.length();
+        for (int i = 0; i < width; i++) {
+            sb.append('0');
+        }
+        return at;
+    }
+
+    /**
+     * 写入价格并生成消息
+     */
+    public String render(double price, long timestampMillis) {
+        double stopLoss = stopLossFor(price);
+        double takeProfit = takeProfitFor(price);
+        if (!writeFixed(frame, priceAt, PRICE_WIDTH, price)
+                || !writeFixed(frame, stopLossAt, PRICE_WIDTH, stopLoss)
+                || !writeFixed(frame, takeProfitAt, PRICE_WIDTH, takeProfit)
+                || !writeFixed(frame, timestampAt, TIMESTAMP_WIDTH, timestampMillis)) {
+            // 超出槽位宽度（极端价格），退回完整格式化
+            return String.format(Locale.ROOT,
+                    "{\"type\":\"trade\",\"client_id\":\"%s\",\"action\":\"%s\",\"symbol\":\"%s\",\"volume\":%.2f," +
+                    "\"price\":%.5f,\"sl\":%.5f,\"tp\":%.5f,\"comment\":\"%s\",\"timestamp\":%d}",
+                    clientOrderId, orderType, symbol, volume, price, stopLoss, takeProfit, comment, timestampMillis);
+        }
+        return new String(frame);
+    }
+
+    /**
+     * 以 5 位小数写入定宽槽位，剩余宽度在小数末尾补 0
+     *
+     * @return 数字放不进槽位时返回 false
+     */
+    static boolean writeFixed(char[] dst, int at, int width, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= Long.MAX_VALUE / SCALE) {
+            return false;
+        }
+        long units = Math.round(Math.abs(value) * SCALE);
+        boolean negative = value < 0 && units != 0;
+        long integer = units / SCALE;
+        long fraction = units % SCALE;
+        int digits = integerDigits(integer);
+        int length = (negative ? 1 : 0) + digits + 1 + DECIMALS;
+        if (length > width) {
+            return false;
+        }
+        int pos = at;
+        if (negative) {
+            dst[pos++] = '-';
+        }
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            dst[i] = (char) ('0' + integer % 10);
+            integer /= 10;
+        }
+        pos += digits;
+        dst[pos++] = '.';
+        for (int i = pos + DECIMALS - 1; i >= pos; i--) {
+            dst[i] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        pos += DECIMALS;
+        while (pos < at + width) {
+            dst[pos++] = '0';
+        }
+        return true;
+    }
+
+    /**
+     * 以定宽写入非负整数，不足时左侧补 0
+     */
+    static boolean writeFixed(char[] dst, int at, int width, long value) {
+        if (value < 0 || integerDigits(value) > width) {
+            return false;
+        }
+        for (int i = at + width - 1; i >= at; i--) {
+            dst[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return true;
+    }
+
+    private static int integerDigits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    public double stopLossFor(double price) {
+        return stopLossOffset > 0 ? price - direction * stopLossOffset : 0;
+    }
+
+    public double takeProfitFor(double price) {
+        return takeProfitOffset > 0 ? price + direction * takeProfitOffset : 0;
+    }
+
+    /**
+     * 标记为已发送
+     *
+     * @return 之前已发送过时返回 false
+     */
+    synchronized boolean markUsed() {
+        if (used) {
+            return false;
+        }
+        used = true;
+        return true;
+    }
+
+    public synchronized boolean isUsed() {
+        return used;
+    }
+
+    public String getClientOrderId() {
+        return clientOrderId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getOrderType() {
+        return orderType;
+    }
+
+    public double getVolume() {
+        return volume;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mt5trading.mt5.models;
+
+/**
+ * EA 对一笔订单的回报
+ * 按客户端订单号与发出的订单对应，成功时带有真实订单号和成交价。
+ */
+public class OrderAck {
+    private final String clientOrderId;
+    private final boolean success;
+    private final int ticket;
+    private final double fillPrice;
+    private final double volume;
+    private final String error;
+    private int attempts;
+    private long latencyNanos;
+
+    public OrderAck(String clientOrderId, boolean success, int ticket, double fillPrice,
+                    double volume, String error) {
+        this.clientOrderId = clientOrderId;
+        this.success = success;
+        this.ticket = ticket;
+        this.fillPrice = fillPrice;
+        this.volume = volume;
+        this.error = error;
+    }
+
+    public static OrderAck failed(String clientOrderId, String error) {
+        return new OrderAck(clientOrderId, false, 0, 0, 0, error);
+    }
+
+    public String getClientOrderId() { return clientOrderId; }
+    public boolean isSuccess() { return success; }
+    public int getTicket() { return ticket; }
+    public double getFillPrice() { return fillPrice; }
+    public double getVolume() { return volume; }
+    public String getError() { return error; }
+
+    // 发送次数（含重发），由分发器填写
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    // 首次发送到收到回报的耗时，超时失败时为等待总时长
+    public long getLatencyNanos() { return latencyNanos; }
+    public void setLatencyNanos(long latencyNanos) { this.latencyNanos = latencyNanos; }
+
+    @Override
+    public String toString() {
+        if (success) {
+            return String.format("OrderAck{clientId=%s, ticket=%d, price=%.5f, volume=%.2f, attempts=%d, latency=%.1fms}",
+                    clientOrderId, ticket, fillPrice, volume, attempts, latencyNanos / 1e6);
+        }
+        return String.format("OrderAck{clientId=%s, error='%s', attempts=%d}", clientOrderId, error, attempts);
+    }
+}
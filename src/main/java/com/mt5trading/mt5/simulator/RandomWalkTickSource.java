@@ -0,0 +1,86 @@
+package com.mt5trading.mt5.simulator;
+
+import com.mt5trading.timer.TimeSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 随机游走行情
+ * 各品种轮流出价，中间价每笔按正态分布随机变动（波动为价格的固定比例），点差固定。
+ * 同样的种子产生同样的价格序列，时间取自时间来源。永不结束。
+ */
+public class RandomWalkTickSource implements TickSource {
+
+    private static final class Instrument {
+        final String symbol;
+        final double spread;
+        double mid;
+
+        Instrument(String symbol, double mid, double spread) {
+            this.symbol = symbol;
+            this.mid = mid;
+            this.spread = spread;
+        }
+    }
+
+    private final List<Instrument> instruments = new ArrayList<>();
+    private final double volatility;
+    private final SplittableRandom random;
+    private final TimeSource timeSource;
+    private int next = 0;
+
+    /**
+     * @param volatility 每笔行情中间价变动的标准差（占价格的比例，如 0.0001 表示 1 个基点）
+     */
+    public RandomWalkTickSource(double volatility, long seed, TimeSource timeSource) {
+        if (volatility < 0) {
+            throw new IllegalArgumentException("volatility must not be negative: " + volatility);
+        }
+        this.volatility = volatility;
+        this.random = new SplittableRandom(seed);
+        this.timeSource = timeSource;
+    }
+
+    public RandomWalkTickSource(double volatility, long seed) {
+        this(volatility, seed, TimeSource.SYSTEM);
+    }
+
+    /**
+     * 添加品种
+     *
+     * @param price  初始中间价
+     * @param spread 固定点差（价格单位）
+     */
+    public RandomWalkTickSource addSymbol(String symbol, double price, double spread) {
+        if (price <= 0 || spread < 0) {
+            throw new IllegalArgumentException("Invalid price/spread for " + symbol + ": " + price + "/" + spread);
+        }
+        instruments.add(new Instrument(symbol, price, spread));
+        return this;
+    }
+
+    @Override
+    public boolean next(Tick tick) {
+        if (instruments.isEmpty()) {
+            return false;
+        }
+        Instrument instrument = instruments.get(next);
+        next = next + 1 == instruments.size() ? 0 : next + 1;
+
+        instrument.mid *= 1 + volatility * gaussian();
+        double half = instrument.spread / 2;
+        tick.set(instrument.symbol, instrument.mid - half, instrument.mid + half, timeSource.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * 标准正态分布（Box-Muller，只取一个值）
+     */
+    private double gaussian() {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+}
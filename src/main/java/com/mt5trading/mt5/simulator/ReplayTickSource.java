@@ -0,0 +1,134 @@
+package com.mt5trading.mt5.simulator;
+
+import com.mt5trading.timer.TimeSource;
+import com.mt5trading.util.CsvReader;
+import com.mt5trading.util.CsvWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * 回放行情日志
+ * 日志为CSV，每行 time,symbol,bid,ask（time 为毫秒），可以有表头。按文件顺序流式读取，
+ * 内存占用与文件大小无关。回放时保持原始的行情间隔，但整体平移到回放开始的时刻，
+ * 客户端看到的是当前时间的行情；循环回放时每一轮接在上一轮之后，时间持续递增。
+ * 无法解析的行记录日志后跳过。
+ */
+public class ReplayTickSource implements TickSource, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReplayTickSource.class);
+
+    public static final String[] HEADER = {"time", "symbol", "bid", "ask"};
+
+    private final Path file;
+    private final boolean loop;
+    private final TimeSource timeSource;
+    private CsvReader reader;
+    private long offset = Long.MIN_VALUE; // 日志时间到回放时间的平移量
+    private long lastTime = Long.MIN_VALUE;
+    private long firstTime = Long.MIN_VALUE;
+    private long ticks = 0;
+    private long skipped = 0;
+    private boolean exhausted = false;
+
+    public ReplayTickSource(Path file, boolean loop, TimeSource timeSource) throws IOException {
+        this.file = file;
+        this.loop = loop;
+        this.timeSource = timeSource;
+        this.reader = new CsvReader(file);
+    }
+
+    public ReplayTickSource(Path file, boolean loop) throws IOException {
+        this(file, loop, TimeSource.SYSTEM);
+    }
+
+    @Override
+    public boolean next(Tick tick) {
+        if (exhausted) {
+            return false;
+        }
+        try {
+            while (true) {
+                if (reader.next() < 0) {
+                    if (!loop || ticks == 0) {
+                        exhausted = true;
+                        return false;
+                    }
+                    // 下一轮接在本轮最后一笔之后
+                    reader.close();
+                    reader = new CsvReader(file);
+                    offset += lastTime - firstTime + 1;
+                    continue;
+                }
+                if (reader.getFieldCount() < 4) {
+                    skipped++;
+                    continue;
+                }
+                long time;
+                double bid;
+                double ask;
+                try {
+                    time = reader.getLong(0);
+                    bid = reader.getDouble(2);
+                    ask = reader.getDouble(3);
+                } catch (NumberFormatException e) {
+                    if (reader.getRecordNumber() > 1) {
+                        logger.warn("行情日志第 {} 条记录格式错误，已跳过", reader.getRecordNumber());
+                        skipped++;
+                    }
+                    continue;
+                }
+                if (offset == Long.MIN_VALUE) {
+                    offset = timeSource.currentTimeMillis() - time;
+                    firstTime = time;
+                }
+                lastTime = time;
+                ticks++;
+                tick.set(reader.getString(1), bid, ask, time + offset);
+                return true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 已回放的行情数（循环回放时累计）
+     */
+    public long getTickCount() {
+        return ticks;
+    }
+
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * 把行情来源的前 count 笔写成行情日志，用于生成可重复的回放文件
+     *
+     * @return 写入的行情数
+     */
+    public static long record(Path file, TickSource source, long count) throws IOException {
+        Tick tick = new Tick();
+        try (CsvWriter csv = new CsvWriter(file)) {
+            for (String column : HEADER) {
+                csv.field(column);
+            }
+            csv.endRecord();
+            long written = 0;
+            while (written < count && source.next(tick)) {
+                csv.field(tick.timeMillis).field(tick.symbol).field(tick.bid).field(tick.ask);
+                csv.endRecord();
+                written++;
+            }
+            return written;
+        }
+    }
+}
@@ -0,0 +1,651 @@
+package com.mt5trading.mt5.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mt5trading.models.OrderSide;
+import com.mt5trading.timer.HashedWheelTimer;
+import com.mt5trading.timer.TimerService;
+import org.java_websocket.WebSocket;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 纯 Java 的 EA 替身
+ * 在 Linux 上代替运行 WebSocketServerEA.mq5 的 Windows 终端，说同样的协议：
+ * auth、subscribe、market、trade（含批量消息和按 client_id 去重）、account、ping、get_orders、get_positions，
+ * 以及 execute_order / modify_order / cancel_order。用于浸泡测试、延迟测试和断线重连测试。
+ *
+ * 行情由 {@link TickSource} 产生（随机游走或回放行情日志），发布线程按配置的速率推送，
+ * 速率按截止时间累计控制，单笔晚到不会让整体速率下降；每条 market 消息可以打包多笔行情以达到每秒数万笔。
+ * 行情广播给所有已订阅的会话，按品种过滤由客户端完成（与客户端现有处理一致）。
+ *
+ * 交易按最新行情立即成交（买单按卖价、卖单按买价），回报可以按配置延迟发出，模拟 EA 处理耗时。
+ */
+public class SimulatedEAServer extends WebSocketServer {
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedEAServer.class);
+
+    // 与 EA 的已处理订单缓存一致：重发的订单直接回放上次结果
+    private static final int PROCESSED_ORDER_CACHE = 1024;
+    // 落后超过这个时间时放弃追赶，避免恢复后突发大量行情
+    private static final long MAX_LAG_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 每个连接的会话状态
+     */
+    private static final class Session {
+        final String id;
+        final Set<String> symbols = ConcurrentHashMap.newKeySet();
+        volatile boolean authenticated;
+
+        Session(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * 模拟持仓或挂单
+     */
+    private static final class SimOrder {
+        final int ticket;
+        final String symbol;
+        final String action;
+        final double volume;
+        final double price;
+        volatile double stopLoss;
+        volatile double takeProfit;
+
+        SimOrder(int ticket, String symbol, String action, double volume, double price,
+                 double stopLoss, double takeProfit) {
+            this.ticket = ticket;
+            this.symbol = symbol;
+            this.action = action;
+            this.volume = volume;
+            this.price = price;
+            this.stopLoss = stopLoss;
+            this.takeProfit = takeProfit;
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TickSource tickSource;
+    private final TimerService timer;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final AtomicInteger nextSession = new AtomicInteger();
+    private final Map<String, double[]> quotes = new ConcurrentHashMap<>(); // 品种 -> {买价, 卖价}
+    private final Map<Integer, SimOrder> positions = new ConcurrentHashMap<>();
+    private final Map<Integer, SimOrder> pendingOrders = new ConcurrentHashMap<>();
+    private final Map<String, String> processedOrders = new LinkedHashMap<String, String>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > PROCESSED_ORDER_CACHE;
+        }
+    };
+    private final AtomicInteger nextTicket = new AtomicInteger(900000);
+    private final AtomicLong ticksSent = new AtomicLong();
+    private final AtomicLong marketMessagesSent = new AtomicLong();
+    private final AtomicLong messagesReceived = new AtomicLong();
+    private final AtomicLong tradesFilled = new AtomicLong();
+    private final AtomicLong duplicateOrders = new AtomicLong();
+
+    private volatile double ticksPerSecond = 1000;
+    private volatile int ticksPerMessage = 1;
+    private volatile String password;
+    private volatile long tradeDelayMillis = 0;
+    private volatile double balance = 10000;
+    private volatile boolean publishing = false;
+    private Thread publisher;
+
+    public SimulatedEAServer(InetSocketAddress address, TickSource tickSource, TimerService timer) {
+        super(address);
+        this.tickSource = tickSource;
+        this.timer = timer;
+        setReuseAddr(true);
+    }
+
+    public SimulatedEAServer(int port, TickSource tickSource) {
+        this(new InetSocketAddress("localhost", port), tickSource, HashedWheelTimer.getDefault());
+    }
+
+    // ========== 配置 ==========
+
+    /**
+     * 行情速率（笔/秒），0 表示不限速
+     */
+    public void setTicksPerSecond(double ticksPerSecond) {
+        if (ticksPerSecond < 0) {
+            throw new IllegalArgumentException("ticksPerSecond must not be negative: " + ticksPerSecond);
+        }
+        this.ticksPerSecond = ticksPerSecond;
+    }
+
+    /**
+     * 每条 market 消息打包的行情笔数
+     */
+    public void setTicksPerMessage(int ticksPerMessage) {
+        if (ticksPerMessage <= 0) {
+            throw new IllegalArgumentException("ticksPerMessage must be positive: " + ticksPerMessage);
+        }
+        this.ticksPerMessage = ticksPerMessage;
+    }
+
+    /**
+     * 设置后认证必须提供该密码，未认证的会话只能 ping；为 null 时接受任何认证（EA 的行为）
+     */
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * 交易回报延迟（毫秒），模拟 EA 和券商的处理耗时
+     */
+    public void setTradeDelayMillis(long tradeDelayMillis) {
+        this.tradeDelayMillis = tradeDelayMillis;
+    }
+
+    public void setBalance(double balance) {
+        this.balance = balance;
+    }
+
+    /**
+     * 启动服务器并等待端口绑定完成
+     */
+    public boolean startAndWait(long timeout, TimeUnit unit) throws InterruptedException {
+        start();
+        return started.await(timeout, unit);
+    }
+
+    // ========== 连接 ==========
+
+    @Override
+    public void onStart() {
+        logger.info("EA 替身已启动，端口 {}", getPort());
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        Session session = new Session("SIM-" + nextSession.incrementAndGet());
+        conn.setAttachment(session);
+        logger.info("客户端已连接: {} ({})", conn.getRemoteSocketAddress(), session.id);
+        conn.send(String.format("{\"type\":\"mt5_info\",\"terminal\":\"SimulatedEA\",\"version\":\"1.0\"," +
+                "\"account\":0,\"server\":\"Simulator\",\"balance\":%.2f,\"time\":%d}", balance, nowSeconds()));
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        Session session = conn.getAttachment();
+        logger.info("客户端已断开: {} 代码 {} {}", session != null ? session.id : "?", code, reason);
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+        logger.error("EA 替身连接错误", ex);
+    }
+
+    /**
+     * 异常断开所有连接（不发送关闭帧的效果），用于测试客户端重连
+     */
+    public void dropConnections() {
+        for (WebSocket conn : getConnections()) {
+            conn.closeConnection(CloseFrame.ABNORMAL_CLOSE, "模拟断线");
+        }
+    }
+
+    // ========== 协议 ==========
+
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        messagesReceived.incrementAndGet();
+        try {
+            handle(conn, conn.getAttachment(), objectMapper.readTree(message));
+        } catch (Exception e) {
+            logger.warn("无法处理的消息: {}", message, e);
+            sendError(conn, "无法解析的消息");
+        }
+    }
+
+    private void handle(WebSocket conn, Session session, JsonNode json) {
+        String type = text(json, "type");
+        if ("batch".equals(type)) {
+            for (JsonNode command : json.path("commands")) {
+                handle(conn, session, command);
+            }
+            return;
+        }
+        if ("ping".equals(type)) {
+            conn.send("{\"type\":\"pong\",\"time\":" + nowSeconds() + "}");
+            return;
+        }
+        if ("auth".equals(type)) {
+            handleAuth(conn, session, json);
+            return;
+        }
+        if (!session.authenticated && password != null) {
+            sendError(conn, "未认证");
+            return;
+        }
+
+        switch (type) {
+            case "subscribe":
+                String symbol = text(json, "symbol");
+                if (symbol.isEmpty()) {
+                    sendError(conn, "订阅缺少品种");
+                } else {
+                    session.symbols.add(symbol);
+                    logger.info("{} 订阅 {}", session.id, symbol);
+                }
+                break;
+            case "trade":
+            case "execute_order":
+                handleTrade(conn, json);
+                break;
+            case "modify_order":
+                handleModify(conn, json);
+                break;
+            case "cancel_order":
+                handleCancel(conn, json);
+                break;
+            case "get_orders":
+                conn.send(ordersJson("orders", pendingOrders, text(json, "symbol")));
+                break;
+            case "get_positions":
+                conn.send(ordersJson("positions", positions, text(json, "symbol")));
+                break;
+            case "request":
+                if ("account".equals(text(json, "request"))) {
+                    conn.send(accountJson());
+                } else if ("price".equals(text(json, "request"))) {
+                    conn.send(pricesJson());
+                } else {
+                    sendError(conn, "未知请求: " + text(json, "request"));
+                }
+                break;
+            case "test":
+                conn.send("{\"type\":\"test_response\",\"status\":\"ok\",\"message\":\"SimulatedEA运行正常\",\"time\":"
+                        + nowSeconds() + "}");
+                break;
+            default:
+                sendError(conn, "未知消息类型: " + type);
+        }
+    }
+
+    private void handleAuth(WebSocket conn, Session session, JsonNode json) {
+        String expected = password;
+        if (expected == null || expected.equals(text(json, "password"))) {
+            session.authenticated = true;
+            conn.send("{\"type\":\"auth_response\",\"status\":\"success\",\"session_id\":\"" + session.id + "\"}");
+        } else {
+            session.authenticated = false;
+            conn.send("{\"type\":\"auth_response\",\"status\":\"failed\",\"error\":\"密码错误\"}");
+        }
+    }
+
+    private void handleTrade(WebSocket conn, JsonNode json) {
+        String clientId = text(json, "client_id");
+        if (!clientId.isEmpty()) {
+            String previous;
+            synchronized (processedOrders) {
+                previous = processedOrders.get(clientId);
+            }
+            if (previous != null) {
+                duplicateOrders.incrementAndGet();
+                reply(conn, previous);
+                return;
+            }
+        }
+
+        String symbol = text(json, "symbol");
+        String action = text(json, "action");
+        double volume = json.path("volume").asDouble();
+        OrderSide side = OrderSide.fromType(action);
+        String response;
+        if (side == null || volume <= 0 || symbol.isEmpty()) {
+            response = String.format("{\"type\":\"trade_result\",\"status\":\"rejected\",\"client_id\":\"%s\"," +
+                    "\"error\":\"无效订单\",\"time\":%d}", clientId, nowSeconds());
+        } else {
+            double[] quote = quotes.get(symbol);
+            double price = quote == null ? json.path("price").asDouble() : side == OrderSide.BUY ? quote[1] : quote[0];
+            int ticket = json.has("ticket") ? json.get("ticket").asInt() : nextTicket.incrementAndGet();
+            pendingOrders.remove(ticket);
+            positions.put(ticket, new SimOrder(ticket, symbol, action, volume, price,
+                    json.path("sl").asDouble(), json.path("tp").asDouble()));
+            tradesFilled.incrementAndGet();
+            response = String.format(Locale.ROOT,
+                    "{\"type\":\"trade_result\",\"status\":\"success\",\"client_id\":\"%s\",\"ticket\":%d," +
+                    "\"symbol\":\"%s\",\"action\":\"%s\",\"volume\":%.2f,\"price\":%.5f,\"time\":%d}",
+                    clientId, ticket, symbol, action, volume, price, nowSeconds());
+        }
+        if (!clientId.isEmpty()) {
+            synchronized (processedOrders) {
+                processedOrders.put(clientId, response);
+            }
+        }
+        reply(conn, response);
+    }
+
+    private void handleModify(WebSocket conn, JsonNode json) {
+        int ticket = json.path("ticket").asInt();
+        SimOrder order = positions.get(ticket);
+        if (order == null) {
+            order = pendingOrders.get(ticket);
+        }
+        if (order == null) {
+            reply(conn, resultJson(ticket, "rejected", "订单不存在"));
+            return;
+        }
+        order.stopLoss = json.path("sl").asDouble(order.stopLoss);
+        order.takeProfit = json.path("tp").asDouble(order.takeProfit);
+        reply(conn, resultJson(ticket, "success", null));
+    }
+
+    private void handleCancel(WebSocket conn, JsonNode json) {
+        int ticket = json.path("ticket").asInt();
+        boolean removed = pendingOrders.remove(ticket) != null || positions.remove(ticket) != null;
+        reply(conn, resultJson(ticket, removed ? "success" : "rejected", removed ? null : "订单不存在"));
+    }
+
+    /**
+     * 修改和撤单回报不带成交明细，客户端不会把它计入持仓
+     */
+    private String resultJson(int ticket, String status, String error) {
+        return "{\"type\":\"trade_result\",\"status\":\"" + status + "\",\"ticket\":" + ticket
+                + (error != null ? ",\"error\":\"" + error + "\"" : "") + ",\"time\":" + nowSeconds() + "}";
+    }
+
+    private void reply(WebSocket conn, String response) {
+        long delay = tradeDelayMillis;
+        if (delay <= 0) {
+            conn.send(response);
+            return;
+        }
+        timer.schedule(() -> {
+            if (conn.isOpen()) {
+                conn.send(response);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private String ordersJson(String type, Map<Integer, SimOrder> orders, String symbol) {
+        StringBuilder sb = new StringBuilder("{\"type\":\"").append(type).append("\",\"data\":[");
+        boolean first = true;
+        for (SimOrder order : orders.values()) {
+            if (!symbol.isEmpty() && !symbol.equals(order.symbol)) {
+                continue;
+            }
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append("{\"ticket\":").append(order.ticket)
+                    .append(",\"symbol\":\"").append(order.symbol)
+                    .append("\",\"type\":\"").append(order.action)
+                    .append("\",\"volume\":").append(order.volume)
+                    .append(",\"price\":").append(order.price)
+                    .append(",\"sl\":").append(order.stopLoss)
+                    .append(",\"tp\":").append(order.takeProfit).append('}');
+        }
+        return sb.append("],\"time\":").append(nowSeconds()).append('}').toString();
+    }
+
+    private String accountJson() {
+        double profit = getUnrealizedProfit();
+        return String.format(Locale.ROOT,
+                "{\"type\":\"account_info\",\"balance\":%.2f,\"equity\":%.2f,\"margin\":0.00,\"free_margin\":%.2f," +
+                "\"currency\":\"USD\",\"leverage\":100,\"profit\":%.2f,\"time\":%d}",
+                balance, balance + profit, balance + profit, profit, nowSeconds());
+    }
+
+    private String pricesJson() {
+        StringBuilder sb = new StringBuilder("{\"type\":\"price_info\",\"prices\":[");
+        boolean first = true;
+        for (Map.Entry<String, double[]> entry : quotes.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append("{\"symbol\":\"").append(entry.getKey()).append("\",\"bid\":").append(entry.getValue()[0])
+                    .append(",\"ask\":").append(entry.getValue()[1]).append('}');
+        }
+        return sb.append("],\"time\":").append(nowSeconds()).append('}').toString();
+    }
+
+    private void sendError(WebSocket conn, String message) {
+        conn.send("{\"type\":\"error\",\"message\":\"" + message.replace("\"", "'") + "\",\"time\":" + nowSeconds() + "}");
+    }
+
+    private static String text(JsonNode json, String field) {
+        JsonNode node = json.get(field);
+        return node != null ? node.asText() : "";
+    }
+
+    private long nowSeconds() {
+        return timer.currentTimeMillis() / 1000;
+    }
+
+    // ========== 行情发布 ==========
+
+    /**
+     * 启动行情发布线程，行情来源结束后自动停止
+     */
+    public synchronized void startTicks() {
+        if (publishing) {
+            return;
+        }
+        publishing = true;
+        publisher = new Thread(this::publishLoop, "SimulatedEA-Ticks");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    public void stopTicks() {
+        Thread thread;
+        synchronized (this) {
+            publishing = false;
+            thread = publisher;
+            publisher = null;
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void publishLoop() {
+        TickSource.Tick tick = new TickSource.Tick();
+        StringBuilder sb = new StringBuilder(256);
+        List<WebSocket> subscribers = new ArrayList<>();
+        long deadline = System.nanoTime();
+
+        while (publishing) {
+            int batch = ticksPerMessage;
+            sb.setLength(0);
+            sb.append("{\"type\":\"market\",\"data\":[");
+            int count = 0;
+            while (count < batch && tickSource.next(tick)) {
+                double[] quote = quotes.get(tick.symbol);
+                if (quote == null) {
+                    quote = new double[2];
+                    quotes.put(tick.symbol, quote);
+                }
+                quote[0] = tick.bid;
+                quote[1] = tick.ask;
+                if (count > 0) {
+                    sb.append(',');
+                }
+                sb.append("{\"symbol\":\"").append(tick.symbol)
+                        .append("\",\"bid\":").append(tick.bid)
+                        .append(",\"ask\":").append(tick.ask)
+                        .append(",\"time\":").append(tick.timeMillis / 1000).append('}');
+                count++;
+            }
+            if (count == 0) {
+                logger.info("行情来源已结束，共推送 {} 笔", ticksSent.get());
+                publishing = false;
+                break;
+            }
+            sb.append("]}");
+
+            subscribers.clear();
+            for (WebSocket conn : getConnections()) {
+                Session session = conn.getAttachment();
+                if (session != null && !session.symbols.isEmpty() && conn.isOpen()) {
+                    subscribers.add(conn);
+                }
+            }
+            if (!subscribers.isEmpty()) {
+                broadcast(sb.toString(), subscribers);
+            }
+            ticksSent.addAndGet(count);
+            marketMessagesSent.incrementAndGet();
+
+            double rate = ticksPerSecond;
+            if (rate > 0) {
+                deadline += (long) (count * 1_000_000_000.0 / rate);
+                long wait = deadline - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else if (-wait > MAX_LAG_NANOS) {
+                    deadline = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    // ========== 测试辅助与统计 ==========
+
+    /**
+     * 模拟用户在终端手动挂单，get_orders 可见
+     */
+    public int placePendingOrder(String symbol, String type, double volume, double price) {
+        int ticket = nextTicket.incrementAndGet();
+        pendingOrders.put(ticket, new SimOrder(ticket, symbol, type, volume, price, 0, 0));
+        return ticket;
+    }
+
+    /**
+     * 持仓按最新行情的浮动盈亏（每点价值按 1 计算）
+     */
+    public double getUnrealizedProfit() {
+        double profit = 0;
+        for (SimOrder position : positions.values()) {
+            double[] quote = quotes.get(position.symbol);
+            OrderSide side = OrderSide.fromType(position.action);
+            if (quote == null || side == null) {
+                continue;
+            }
+            profit += side == OrderSide.BUY
+                    ? (quote[0] - position.price) * position.volume
+                    : (position.price - quote[1]) * position.volume;
+        }
+        return profit;
+    }
+
+    public boolean isPublishing() { return publishing; }
+    public long getTicksSent() { return ticksSent.get(); }
+    public long getMarketMessagesSent() { return marketMessagesSent.get(); }
+    public long getMessagesReceived() { return messagesReceived.get(); }
+    public long getTradesFilled() { return tradesFilled.get(); }
+    public long getDuplicateOrders() { return duplicateOrders.get(); }
+    public int getPositionCount() { return positions.size(); }
+    public int getConnectionCount() { return getConnections().size(); }
+
+    public String getSummary() {
+        return String.format("连接: %d, 行情: %d 笔 / %d 条消息, 收到: %d, 成交: %d, 重复订单: %d, 持仓: %d",
+                getConnectionCount(), getTicksSent(), getMarketMessagesSent(), getMessagesReceived(),
+                getTradesFilled(), getDuplicateOrders(), getPositionCount());
+    }
+
+    /**
+     * 用法: SimulatedEAServer [port=8080] [rate=1000] [batch=1] [symbols=US30:35000:2,EURUSD:1.095:0.0001]
+     *       [volatility=0.0001] [seed=1] [replay=ticks.csv] [loop=true] [password=...] [delay=0]
+     */
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        double rate = 1000;
+        int batch = 1;
+        String symbols = "US30:35000:2";
+        double volatility = 0.0001;
+        long seed = 1;
+        String replay = null;
+        boolean loop = true;
+        String password = null;
+        long delay = 0;
+
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length < 2) {
+                System.err.println("忽略未知参数: " + arg);
+                continue;
+            }
+            switch (kv[0]) {
+                case "port": port = Integer.parseInt(kv[1]); break;
+                case "rate": rate = Double.parseDouble(kv[1]); break;
+                case "batch": batch = Integer.parseInt(kv[1]); break;
+                case "symbols": symbols = kv[1]; break;
+                case "volatility": volatility = Double.parseDouble(kv[1]); break;
+                case "seed": seed = Long.parseLong(kv[1]); break;
+                case "replay": replay = kv[1]; break;
+                case "loop": loop = Boolean.parseBoolean(kv[1]); break;
+                case "password": password = kv[1]; break;
+                case "delay": delay = Long.parseLong(kv[1]); break;
+                default: System.err.println("忽略未知参数: " + arg);
+            }
+        }
+
+        TickSource source;
+        if (replay != null) {
+            source = new ReplayTickSource(Paths.get(replay), loop);
+        } else {
+            RandomWalkTickSource walk = new RandomWalkTickSource(volatility, seed);
+            for (String spec : symbols.split(",")) {
+                String[] parts = spec.trim().split(":");
+                walk.addSymbol(parts[0], Double.parseDouble(parts[1]),
+                        parts.length > 2 ? Double.parseDouble(parts[2]) : 0);
+            }
+            source = walk;
+        }
+
+        SimulatedEAServer server = new SimulatedEAServer(new InetSocketAddress(port), source,
+                HashedWheelTimer.getDefault());
+        server.setTicksPerSecond(rate);
+        server.setTicksPerMessage(batch);
+        server.setPassword(password);
+        server.setTradeDelayMillis(delay);
+        if (!server.startAndWait(10, TimeUnit.SECONDS)) {
+            System.err.println("EA 替身启动失败");
+            return;
+        }
+        server.startTicks();
+        System.out.println("EA 替身已启动: ws://localhost:" + server.getPort() + ", 速率 " + rate + " 笔/秒");
+
+        long lastTicks = 0;
+        while (true) {
+            Thread.sleep(5000);
+            long ticks = server.getTicksSent();
+            System.out.println(String.format("%s, 近5秒 %.0f 笔/秒", server.getSummary(), (ticks - lastTicks) / 5.0));
+            lastTicks = ticks;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.mt5trading.mt5.simulator;
+
+/**
+ * 模拟 EA 推送的行情来源
+ * 由发布线程单线程调用，每次把下一笔行情写入调用方复用的 {@link Tick}，不产生垃圾。
+ */
+public interface TickSource {
+
+    /**
+     * 取下一笔行情
+     *
+     * @return 行情已结束时返回 false
+     */
+    boolean next(Tick tick);
+
+    /**
+     * 可复用的行情
+     */
+    final class Tick {
+        String symbol;
+        double bid;
+        double ask;
+        long timeMillis;
+
+        public void set(String symbol, double bid, double ask, long timeMillis) {
+            this.symbol = symbol;
+            this.bid = bid;
+            this.ask = ask;
+            this.timeMillis = timeMillis;
+        }
+
+        public String getSymbol() { return symbol; }
+        public double getBid() { return bid; }
+        public double getAsk() { return ask; }
+        public long getTimeMillis() { return timeMillis; }
+
+        @Override
+        public String toString() {
+            return symbol + " " + bid + "/" + ask + " @" + timeMillis;
+        }
+    }
+}
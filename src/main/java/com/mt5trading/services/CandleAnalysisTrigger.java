@@ -0,0 +1,219 @@
+package com.mt5trading.services;
+
+import com.mt5trading.timer.Timeout;
+import com.mt5trading.timer.TimerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * K线边界对齐的分析触发器
+ * 根据时间框架计算当前K线的开盘时间，在 开盘时间 + 分析秒数 的精确时刻触发一次，
+ * 每根K线只触发一次。适用于 M1 到 D1 的任意时间框架。
+ *
+ * 先用定时服务粗略等待到目标时刻前一个 tick 多一点，再自旋到目标时刻，以获得亚毫秒精度。
+ * 定时服务的回调只负责把剩余的 park/自旋 交给所有触发器共用的自旋线程，不占用定时线程，
+ * 其他定时任务不会因此被推迟；同一时刻的多个触发器在自旋线程上依次触发，后者到点即触发。
+ * 时间取自定时服务，虚拟时钟驱动时（精度为 0）在定时线程上准时触发，不等待也不自旋。
+ */
+public class CandleAnalysisTrigger {
+    private static final Logger logger = LoggerFactory.getLogger(CandleAnalysisTrigger.class);
+
+    // 在定时服务精度之外额外提前的量，剩余时间通过 park/自旋 消化
+    private static final long SPIN_MARGIN_NANOS = 1_000_000L;
+    // park 的最小粒度，小于该值直接自旋
+    private static final long PARK_SLACK_NANOS = 100_000L;
+
+    // 所有触发器共用的自旋线程，完成定时服务粗略等待之后的最后一段等待
+    private static final ExecutorService SPINNER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "candle-trigger-spin");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long timeframeSeconds;
+    private final long analysisSecond;
+    private final ZoneId zone;
+    private final TimerService timer;
+    private final long spinWindowNanos;
+    private final Consumer<LocalDateTime> action;
+
+    private volatile boolean running = false;
+    private volatile Timeout pending;
+    private long lastFiredBarOpen = Long.MIN_VALUE; // 本地时间秒数
+
+    // 调度延迟统计（纳秒），只由自旋线程（虚拟时钟时为定时线程）写入
+    private volatile long fireCount = 0;
+    private volatile long lastLagNanos = 0;
+    private volatile long maxLagNanos = 0;
+    private volatile long totalLagNanos = 0;
+
+    /**
+     * @param timeframeSeconds K线周期（秒）
+     * @param analysisSecond   K线开盘后第几秒触发
+     * @param timer            用于粗略等待的定时服务
+     * @param action           触发时执行的动作，参数为计划触发时间；在自旋线程（虚拟时钟时为定时线程）上执行，应尽快返回
+     */
+    public CandleAnalysisTrigger(int timeframeSeconds, int analysisSecond,
+                                 TimerService timer, Consumer<LocalDateTime> action) {
+        this(timeframeSeconds, analysisSecond, ZoneId.systemDefault(), timer, action);
+    }
+
+    public CandleAnalysisTrigger(int timeframeSeconds, int analysisSecond, ZoneId zone,
+                                 TimerService timer, Consumer<LocalDateTime> action) {
+        if (timeframeSeconds <= 0) {
+            throw new IllegalArgumentException("timeframe must be positive: " + timeframeSeconds);
+        }
+        if (analysisSecond < 0 || analysisSecond >= timeframeSeconds) {
+            throw new IllegalArgumentException("analysis second must be within [0, " + timeframeSeconds + "): " + analysisSecond);
+        }
+        this.timeframeSeconds = timeframeSeconds;
+        this.analysisSecond = analysisSecond;
+        this.zone = zone;
+        this.timer = timer;
+        long precision = timer.getPrecisionNanos();
+        this.spinWindowNanos = precision > 0 ? precision + SPIN_MARGIN_NANOS : 0;
+        this.action = action;
+    }
+
+    /**
+     * 启动触发器
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        scheduleNext();
+        logger.info("K线分析触发器已启动: 周期 {}秒, 第{}秒触发", timeframeSeconds, analysisSecond);
+    }
+
+    /**
+     * 停止触发器
+     */
+    public synchronized void stop() {
+        running = false;
+        Timeout timeout = pending;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * 计算某个时刻所在K线的开盘时间
+     */
+    public LocalDateTime barOpenOf(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        long barOpen = Math.floorDiv(seconds, timeframeSeconds) * timeframeSeconds;
+        return LocalDateTime.ofEpochSecond(barOpen, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * 计算下一个触发时刻（严格晚于 now，且不重复已触发过的K线）
+     */
+    Instant nextFireInstant(Instant now) {
+        long offsetSeconds = zone.getRules().getOffset(now).getTotalSeconds();
+        long localSeconds = now.getEpochSecond() + offsetSeconds;
+        long barOpen = Math.floorDiv(localSeconds, timeframeSeconds) * timeframeSeconds;
+
+        Instant fire = Instant.ofEpochSecond(barOpen + analysisSecond - offsetSeconds);
+        if (!fire.isAfter(now) || barOpen <= lastFiredBarOpen) {
+            barOpen += timeframeSeconds;
+            fire = Instant.ofEpochSecond(barOpen + analysisSecond - offsetSeconds);
+        }
+        return fire;
+    }
+
+    private synchronized void scheduleNext() {
+        if (!running) {
+            return;
+        }
+        Instant now = timer.now();
+        Instant fire = nextFireInstant(now);
+        long delayNanos = toNanos(now, fire) - spinWindowNanos;
+        pending = timer.schedule(() -> handOff(fire), Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 定时服务回调：需要精确等待时交给自旋线程，定时线程立即返回
+     */
+    private void handOff(Instant fire) {
+        if (spinWindowNanos == 0) {
+            awaitAndFire(fire);
+            return;
+        }
+        SPINNER.execute(() -> awaitAndFire(fire));
+    }
+
+    private void awaitAndFire(Instant fire) {
+        try {
+            if (!running) {
+                return;
+            }
+
+            // 醒来后重新以墙上时钟换算剩余时间，消除长时间等待中的时钟漂移
+            long deadline = System.nanoTime() + toNanos(timer.now(), fire);
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                if (remaining > PARK_SLACK_NANOS) {
+                    LockSupport.parkNanos(remaining - PARK_SLACK_NANOS);
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+            recordLag(System.nanoTime() - deadline);
+
+            long offsetSeconds = zone.getRules().getOffset(fire).getTotalSeconds();
+            lastFiredBarOpen = fire.getEpochSecond() + offsetSeconds - analysisSecond;
+            LocalDateTime fireTime = LocalDateTime.ofInstant(fire, zone);
+
+            try {
+                action.accept(fireTime);
+            } catch (Exception e) {
+                logger.error("K线分析触发动作执行失败", e);
+            }
+        } finally {
+            scheduleNext();
+        }
+    }
+
+    private void recordLag(long lagNanos) {
+        lastLagNanos = lagNanos;
+        if (lagNanos > maxLagNanos) {
+            maxLagNanos = lagNanos;
+        }
+        totalLagNanos += lagNanos;
+        fireCount++;
+        logger.debug("K线分析触发, 调度延迟 {}µs", lagNanos / 1000);
+    }
+
+    private static long toNanos(Instant from, Instant to) {
+        return (to.getEpochSecond() - from.getEpochSecond()) * 1_000_000_000L + (to.getNano() - from.getNano());
+    }
+
+    public long getFireCount() { return fireCount; }
+    public long getLastLagNanos() { return lastLagNanos; }
+    public long getMaxLagNanos() { return maxLagNanos; }
+
+    public long getAverageLagNanos() {
+        long count = fireCount;
+        return count > 0 ? totalLagNanos / count : 0;
+    }
+
+    /**
+     * 获取调度延迟摘要
+     */
+    public String getLagSummary() {
+        return String.format("触发次数: %d, 最近延迟: %.1fµs, 平均延迟: %.1fµs, 最大延迟: %.1fµs",
+                fireCount, lastLagNanos / 1000.0, getAverageLagNanos() / 1000.0, maxLagNanos / 1000.0);
+    }
+}
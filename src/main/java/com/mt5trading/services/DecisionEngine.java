@@ -3,16 +3,82 @@ package com.mt5trading.services;
 import com.mt5trading.config.TradingConfig;
 import com.mt5trading.mt5.connector.MT5Connector;
 import com.mt5trading.models.CandleData;
+import com.mt5trading.timer.HashedWheelTimer;
+import com.mt5trading.timer.TimerService;
 
-public abstract class DecisionEngine {
+public abstract class DecisionEngine implements MarketDataHandler {
     protected final TradingConfig config;
     protected final MT5Connector connector;
+    protected final TimerService timer;
+    // 引擎状态只在事件循环线程上修改
+    protected final EngineEventLoop events;
     
     public DecisionEngine(TradingConfig config, MT5Connector connector) {
+        this(config, connector, HashedWheelTimer.getDefault());
+    }
+    
+    public DecisionEngine(TradingConfig config, MT5Connector connector, TimerService timer) {
+        this(config, connector, timer, null);
+    }
+    
+    /**
+     * @param events 引擎的事件循环，null 时创建独立线程的事件循环。
+     *               虚拟时钟驱动（回测）时由调用方传入 {@link EngineEventLoop#direct}，事件在驱动线程上同步处理，结果可重复
+     */
+    public DecisionEngine(TradingConfig config, MT5Connector connector, TimerService timer, EngineEventLoop events) {
         this.config = config;
         this.connector = connector;
+        this.timer = timer;
+        this.events = events != null ? events : new EngineEventLoop(loopName(config, getClass().getSimpleName()));
     }
     
+    private static String loopName(TradingConfig config, String className) {
+        String name = className.isEmpty() ? "DecisionEngine" : className;
+        String strategy = config != null ? config.getStrategyName() : null;
+        return strategy == null || strategy.isEmpty() ? name : name + "[" + strategy + "]";
+    }
+    
+    @Override
     public abstract void analyzeNewCandle(CandleData candle);
     public abstract void executeTrade(String symbol, String action, double volume);
-}
\ No newline at end of file
+    
+    /**
+     * 实时行情（默认忽略）
+     */
+    @Override
+    public void onTick(String symbol, double bid, double ask, long timeMillis) {
+    }
+    
+    /**
+     * 显示引擎状态（默认不输出）
+     */
+    @Override
+    public void displayStatus() {
+    }
+    
+    /**
+     * 释放引擎资源
+     */
+    @Override
+    public void shutdown() {
+        events.stop();
+    }
+    
+    /**
+     * 测试模式开启但连接器是实盘连接器时不能发出真实订单
+     * 连接器在启动时按测试模式选定，测试模式可以热更新，运行中开启时连接器仍是实盘的。
+     *
+     * @param settings 本次决策固定的配置快照
+     */
+    protected boolean blocksLiveTrading(TradingConfig settings) {
+        if (settings.isTestMode() && !connector.isSimulated()) {
+            System.out.println("[决策引擎] 🧪 测试模式在启动后开启，当前仍是实盘连接器，重启后生效，本次跳过实际交易");
+            return true;
+        }
+        return false;
+    }
+    
+    public EngineEventLoop getEventLoop() {
+        return events;
+    }
+}
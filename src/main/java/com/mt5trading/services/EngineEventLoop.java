@@ -0,0 +1,271 @@
+package com.mt5trading.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 决策引擎的单写者事件循环
+ * K线、行情、订单、定时事件都进入同一个无锁队列，由唯一的循环线程按顺序处理，
+ * 引擎状态只会被该线程修改，因此不需要任何锁或 volatile。
+ * 每类事件记录排队等待时间和处理时间，用于衡量事件处理延迟。
+ *
+ * 同步模式（{@link #direct}）不启动线程，事件在投递线程上立即处理，处理过程中投递的事件
+ * 排在当前事件之后，顺序与线程模式一致。用于虚拟时钟驱动的回测，必须只从一个线程投递。
+ */
+public class EngineEventLoop {
+    private static final Logger logger = LoggerFactory.getLogger(EngineEventLoop.class);
+
+    public enum EventType {
+        CANDLE("K线"),
+        TICK("行情"),
+        ORDER("订单"),
+        TIMER("定时"),
+        QUERY("查询");
+
+        private final String description;
+
+        EventType(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static final class Event {
+        final EventType type;
+        final Runnable handler;
+        final long enqueueNanos;
+
+        Event(EventType type, Runnable handler, long enqueueNanos) {
+            this.type = type;
+            this.handler = handler;
+            this.enqueueNanos = enqueueNanos;
+        }
+    }
+
+    // 每类事件的统计槽位
+    private static final int STAT_COUNT = 0;
+    private static final int STAT_WAIT_TOTAL = 1;
+    private static final int STAT_WAIT_MAX = 2;
+    private static final int STAT_SERVICE_TOTAL = 3;
+    private static final int STAT_SERVICE_MAX = 4;
+    private static final int STAT_FIELDS = 5;
+
+    private final String name;
+    private final boolean direct;
+    private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+    // 只由循环线程写入，其他线程读取统计时可能略有滞后
+    private final AtomicLongArray stats = new AtomicLongArray(EventType.values().length * STAT_FIELDS);
+
+    private volatile Thread thread;
+    private volatile boolean running = false;
+    private volatile boolean parked = false;
+    private boolean draining = false; // 同步模式下是否正在处理事件
+
+    public EngineEventLoop(String name) {
+        this(name, false);
+    }
+
+    private EngineEventLoop(String name, boolean direct) {
+        this.name = name;
+        this.direct = direct;
+    }
+
+    /**
+     * 创建同步模式的事件循环
+     */
+    public static EngineEventLoop direct(String name) {
+        return new EngineEventLoop(name, true);
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * 启动循环线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (direct) {
+            drain();
+            return;
+        }
+        Thread loopThread = new Thread(this::run, name + "-EventLoop");
+        loopThread.setDaemon(true);
+        thread = loopThread;
+        loopThread.start();
+    }
+
+    /**
+     * 停止循环线程，未处理的事件会被丢弃
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        if (direct) {
+            queue.clear();
+            return;
+        }
+        Thread loopThread = thread;
+        LockSupport.unpark(loopThread);
+        if (loopThread != Thread.currentThread()) {
+            try {
+                loopThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        queue.clear();
+    }
+
+    /**
+     * 投递事件，可从任意线程调用
+     */
+    public void post(EventType type, Runnable handler) {
+        queue.offer(new Event(type, handler, System.nanoTime()));
+        if (direct) {
+            drain();
+            return;
+        }
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 当前线程是否为循环线程
+     */
+    public boolean inEventLoop() {
+        return direct ? draining : Thread.currentThread() == thread;
+    }
+
+    /**
+     * 同步模式：在当前线程上处理排队的事件，已在处理中时由外层负责
+     */
+    private void drain() {
+        if (draining || !running) {
+            return;
+        }
+        draining = true;
+        try {
+            Event event;
+            while ((event = queue.poll()) != null) {
+                process(event);
+            }
+        } finally {
+            draining = false;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            Event event = queue.poll();
+            if (event == null) {
+                parked = true;
+                if (queue.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                continue;
+            }
+            process(event);
+        }
+    }
+
+    private void process(Event event) {
+        long start = System.nanoTime();
+        try {
+            event.handler.run();
+        } catch (Exception e) {
+            logger.error("[{}] {}事件处理失败", name, event.type.getDescription(), e);
+        }
+        long end = System.nanoTime();
+        record(event.type, start - event.enqueueNanos, end - start);
+    }
+
+    private void record(EventType type, long waitNanos, long serviceNanos) {
+        int base = type.ordinal() * STAT_FIELDS;
+        stats.lazySet(base + STAT_COUNT, stats.get(base + STAT_COUNT) + 1);
+        stats.lazySet(base + STAT_WAIT_TOTAL, stats.get(base + STAT_WAIT_TOTAL) + waitNanos);
+        stats.lazySet(base + STAT_SERVICE_TOTAL, stats.get(base + STAT_SERVICE_TOTAL) + serviceNanos);
+        if (waitNanos > stats.get(base + STAT_WAIT_MAX)) {
+            stats.lazySet(base + STAT_WAIT_MAX, waitNanos);
+        }
+        if (serviceNanos > stats.get(base + STAT_SERVICE_MAX)) {
+            stats.lazySet(base + STAT_SERVICE_MAX, serviceNanos);
+        }
+    }
+
+    public long getProcessedCount(EventType type) {
+        return stats.get(type.ordinal() * STAT_FIELDS + STAT_COUNT);
+    }
+
+    public long getProcessedCount() {
+        long total = 0;
+        for (EventType type : EventType.values()) {
+            total += getProcessedCount(type);
+        }
+        return total;
+    }
+
+    /**
+     * 平均端到端延迟（排队 + 处理），纳秒
+     */
+    public long getAverageLatencyNanos(EventType type) {
+        int base = type.ordinal() * STAT_FIELDS;
+        long count = stats.get(base + STAT_COUNT);
+        if (count == 0) {
+            return 0;
+        }
+        return (stats.get(base + STAT_WAIT_TOTAL) + stats.get(base + STAT_SERVICE_TOTAL)) / count;
+    }
+
+    public long getMaxWaitNanos(EventType type) {
+        return stats.get(type.ordinal() * STAT_FIELDS + STAT_WAIT_MAX);
+    }
+
+    public long getMaxServiceNanos(EventType type) {
+        return stats.get(type.ordinal() * STAT_FIELDS + STAT_SERVICE_MAX);
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取事件处理延迟摘要
+     */
+    public String getStatsSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(name).append(" 队列积压: ").append(queue.size());
+        for (EventType type : EventType.values()) {
+            int base = type.ordinal() * STAT_FIELDS;
+            long count = stats.get(base + STAT_COUNT);
+            if (count == 0) {
+                continue;
+            }
+            sb.append(String.format(" | %s: %d次 平均等待 %.1fµs 最大等待 %.1fµs 平均处理 %.1fµs 最大处理 %.1fµs",
+                    type.getDescription(), count,
+                    stats.get(base + STAT_WAIT_TOTAL) / 1000.0 / count, stats.get(base + STAT_WAIT_MAX) / 1000.0,
+                    stats.get(base + STAT_SERVICE_TOTAL) / 1000.0 / count, stats.get(base + STAT_SERVICE_MAX) / 1000.0));
+        }
+        return sb.toString();
+    }
+}
@@ -27,87 +27,49 @@ public class MACDCalculator {
             return null;
         }
         
-        try {
-            // Calculate EMA for fast period
-            double fastEMA = calculateEMA(candles, index, fastPeriod);
-            
-            // Calculate EMA for slow period
-            double slowEMA = calculateEMA(candles, index, slowPeriod);
-            
-            // Calculate MACD line
-            double macdLine = fastEMA - slowEMA;
-            
-            // Calculate signal line (EMA of MACD line)
-            double signalLine = calculateSignalLine(candles, index, macdLine);
-            
-            // Calculate histogram
-            double histogram = macdLine - signalLine;
-            
-            return new MACDData(macdLine, signalLine, histogram, 
-                               fastPeriod, slowPeriod, signalPeriod);
-            
-        } catch (Exception e) {
-            logger.error("Error calculating MACD", e);
+        if (index < 0 || index >= candles.size()) {
+            logger.warn("MACD index out of range: {}, size: {}", index, candles.size());
             return null;
         }
-    }
-    
-    public MACDData calculateCurrentMACD(List<CandleData> candles) {
-        if (candles == null || candles.isEmpty()) {
+        int macdStart = slowPeriod - 1;
+        int signalStart = macdStart + signalPeriod - 1;
+        if (index < signalStart) {
+            logger.warn("Not enough data before index {} to calculate MACD. Required: {}", index, signalStart + 1);
             return null;
         }
         
-        return calculateMACD(candles, candles.size() - 1);
-    }
-    
-    private double calculateEMA(List<CandleData> candles, int index, int period) {
-        // Start with SMA for the first value
-        if (index < period - 1) {
-            return calculateSMA(candles, index, period);
-        }
-        
-        // Calculate EMA: EMA = (Close - Previous EMA) * Multiplier + Previous EMA
-        double multiplier = 2.0 / (period + 1);
-        double previousEMA = calculateEMA(candles, index - 1, period);
-        double currentClose = candles.get(index).getClose();
-        
-        return (currentClose - previousEMA) * multiplier + previousEMA;
-    }
-    
-    private double calculateSMA(List<CandleData> candles, int endIndex, int period) {
-        int startIndex = Math.max(0, endIndex - period + 1);
-        double sum = 0;
-        int count = 0;
-        
-        for (int i = startIndex; i <= endIndex && i < candles.size(); i++) {
-            sum += candles.get(i).getClose();
-            count++;
+        // Single pass over the closes: each EMA is seeded with the SMA of its first period values,
+        // the signal line is the EMA of the MACD line (same definition as MACDParameterSweep)
+        double fastMultiplier = 2.0 / (fastPeriod + 1);
+        double slowMultiplier = 2.0 / (slowPeriod + 1);
+        double signalMultiplier = 2.0 / (signalPeriod + 1);
+        double fastEMA = 0;
+        double slowEMA = 0;
+        double macdLine = 0;
+        double signalLine = 0;
+        for (int i = 0; i <= index; i++) {
+            double close = candles.get(i).getClose();
+            fastEMA = i < fastPeriod ? fastEMA + (close - fastEMA) / (i + 1) : (close - fastEMA) * fastMultiplier + fastEMA;
+            slowEMA = i < slowPeriod ? slowEMA + (close - slowEMA) / (i + 1) : (close - slowEMA) * slowMultiplier + slowEMA;
+            if (i < macdStart) {
+                continue;
+            }
+            macdLine = fastEMA - slowEMA;
+            signalLine = i <= signalStart
+                    ? signalLine + (macdLine - signalLine) / (i - macdStart + 1)
+                    : (macdLine - signalLine) * signalMultiplier + signalLine;
         }
         
-        return count > 0 ? sum / count : 0;
+        return new MACDData(macdLine, signalLine, macdLine - signalLine,
+                           fastPeriod, slowPeriod, signalPeriod);
     }
     
-    private double calculateSignalLine(List<CandleData> candles, int index, double currentMACD) {
-        // Simplified signal line calculation
-        // In production, maintain a list of MACD values
-        
-        if (index < signalPeriod - 1) {
-            return currentMACD;
-        }
-        
-        // Calculate average of recent MACD values
-        double sum = 0;
-        int count = 0;
-        
-        for (int i = 0; i < signalPeriod && (index - i) >= 0; i++) {
-            MACDData prevMACD = calculateMACD(candles, index - i);
-            if (prevMACD != null) {
-                sum += prevMACD.getMacdLine();
-                count++;
-            }
+    public MACDData calculateCurrentMACD(List<CandleData> candles) {
+        if (candles == null || candles.isEmpty()) {
+            return null;
         }
         
-        return count > 0 ? sum / count : currentMACD;
+        return calculateMACD(candles, candles.size() - 1);
     }
     
     public boolean isBullishCrossover(MACDData previousMACD, MACDData currentMACD) {
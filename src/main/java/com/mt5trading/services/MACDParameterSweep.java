@@ -0,0 +1,333 @@
+package com.mt5trading.services;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.CandleSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * MACD 参数网格扫描
+ * 在 fork-join 线程池上对一段历史K线评估 (fast, slow, signal) 组合，
+ * 每个不同的EMA周期只计算一次，所有组合共享。
+ * 信号线使用标准的 MACD 线 EMA。
+ */
+public class MACDParameterSweep {
+    private static final Logger logger = LoggerFactory.getLogger(MACDParameterSweep.class);
+
+    // 每个叶子任务处理的组合数量
+    private static final int COMBINATIONS_PER_TASK = 16;
+
+    private final double[] closes;
+    private final int size;
+    private final int horizon;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param series  历史K线
+     * @param horizon 评估信号命中率时向前看的K线数量
+     * @param pool    执行扫描的线程池
+     */
+    public MACDParameterSweep(CandleSeries series, int horizon, ForkJoinPool pool) {
+        if (horizon <= 0) {
+            throw new IllegalArgumentException("horizon must be positive: " + horizon);
+        }
+        this.closes = series.closes();
+        this.size = series.size();
+        this.horizon = horizon;
+        this.pool = pool;
+    }
+
+    public MACDParameterSweep(CandleSeries series, int horizon) {
+        this(series, horizon, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 扫描所有 fast < slow 的组合
+     */
+    public List<Result> run(int[] fastPeriods, int[] slowPeriods, int[] signalPeriods) {
+        long start = System.nanoTime();
+
+        List<int[]> combinations = new ArrayList<>();
+        for (int fast : fastPeriods) {
+            for (int slow : slowPeriods) {
+                if (fast <= 0 || fast >= slow) {
+                    continue;
+                }
+                for (int signal : signalPeriods) {
+                    if (signal > 0) {
+                        combinations.add(new int[] {fast, slow, signal});
+                    }
+                }
+            }
+        }
+
+        // 1. 每个不同周期的EMA只计算一次
+        TreeSet<Integer> periods = new TreeSet<>();
+        for (int[] combination : combinations) {
+            periods.add(combination[0]);
+            periods.add(combination[1]);
+        }
+        Map<Integer, double[]> emaCache = new ConcurrentHashMap<>();
+        pool.submit(() -> periods.parallelStream()
+                .forEach(period -> emaCache.put(period, calculateEMA(closes, size, period))))
+                .join();
+
+        // 2. 并行评估所有组合
+        Result[] results = new Result[combinations.size()];
+        pool.invoke(new CombinationTask(combinations, emaCache, results, 0, combinations.size()));
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        logger.info("MACD参数扫描完成: {} 个组合, {} 个EMA周期, {} 根K线, 耗时 {}ms",
+                combinations.size(), periods.size(), size, elapsedMs);
+
+        return Arrays.asList(results);
+    }
+
+    @SuppressWarnings("serial")
+    private class CombinationTask extends RecursiveAction {
+        private final List<int[]> combinations;
+        private final Map<Integer, double[]> emaCache;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        CombinationTask(List<int[]> combinations, Map<Integer, double[]> emaCache,
+                        Result[] results, int from, int to) {
+            this.combinations = combinations;
+            this.emaCache = emaCache;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= COMBINATIONS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    int[] c = combinations.get(i);
+                    results[i] = evaluate(c[0], c[1], c[2], emaCache.get(c[0]), emaCache.get(c[1]));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CombinationTask(combinations, emaCache, results, from, mid),
+                      new CombinationTask(combinations, emaCache, results, mid, to));
+        }
+    }
+
+    /**
+     * 计算EMA序列，前 period-1 个值为 NaN，第 period 个值以SMA作为种子
+     */
+    static double[] calculateEMA(double[] values, int size, int period) {
+        double[] ema = new double[size];
+        if (size < period) {
+            Arrays.fill(ema, Double.NaN);
+            return ema;
+        }
+
+        double sum = 0;
+        for (int i = 0; i < period; i++) {
+            sum += values[i];
+            ema[i] = Double.NaN;
+        }
+        double previous = sum / period;
+        ema[period - 1] = previous;
+
+        double multiplier = 2.0 / (period + 1);
+        for (int i = period; i < size; i++) {
+            previous = (values[i] - previous) * multiplier + previous;
+            ema[i] = previous;
+        }
+        return ema;
+    }
+
+    /**
+     * 评估单个组合：信号线按流式方式计算，不分配额外数组
+     */
+    Result evaluate(int fast, int slow, int signal, double[] fastEma, double[] slowEma) {
+        Result result = new Result(fast, slow, signal);
+
+        int macdStart = slow - 1;
+        int signalStart = macdStart + signal - 1;
+        if (signalStart >= size) {
+            return result;
+        }
+
+        // 信号线种子：前 signal 个 MACD 值的平均
+        double seed = 0;
+        for (int i = macdStart; i <= signalStart; i++) {
+            seed += fastEma[i] - slowEma[i];
+        }
+        double signalLine = seed / signal;
+        double multiplier = 2.0 / (signal + 1);
+
+        double previousDiff = (fastEma[signalStart] - slowEma[signalStart]) - signalLine;
+        int bullishBars = previousDiff > 0 ? 1 : 0;
+        int evaluatedBars = 1;
+        double histogramSum = Math.abs(previousDiff);
+
+        for (int i = signalStart + 1; i < size; i++) {
+            double macd = fastEma[i] - slowEma[i];
+            signalLine = (macd - signalLine) * multiplier + signalLine;
+            double diff = macd - signalLine;
+
+            evaluatedBars++;
+            histogramSum += Math.abs(diff);
+            if (diff > 0) {
+                bullishBars++;
+            }
+
+            boolean bullishCross = previousDiff < 0 && diff > 0;
+            boolean bearishCross = previousDiff > 0 && diff < 0;
+            if (bullishCross || bearishCross) {
+                if (bullishCross) {
+                    result.bullishCrossovers++;
+                } else {
+                    result.bearishCrossovers++;
+                }
+
+                if (i + horizon < size) {
+                    double move = closes[i + horizon] - closes[i];
+                    double signedMove = bullishCross ? move : -move;
+                    result.scoredSignals++;
+                    result.forwardMoveSum += signedMove;
+                    if (signedMove > 0) {
+                        result.hits++;
+                    }
+                }
+            }
+            previousDiff = diff;
+        }
+
+        result.bullishBarRatio = (double) bullishBars / evaluatedBars;
+        result.averageHistogram = histogramSum / evaluatedBars;
+        return result;
+    }
+
+    /**
+     * 单个参数组合的信号统计
+     */
+    public static class Result {
+        private final int fastPeriod;
+        private final int slowPeriod;
+        private final int signalPeriod;
+        private int bullishCrossovers;
+        private int bearishCrossovers;
+        private int scoredSignals;
+        private int hits;
+        private double forwardMoveSum;
+        private double bullishBarRatio;
+        private double averageHistogram;
+
+        Result(int fastPeriod, int slowPeriod, int signalPeriod) {
+            this.fastPeriod = fastPeriod;
+            this.slowPeriod = slowPeriod;
+            this.signalPeriod = signalPeriod;
+        }
+
+        public int getFastPeriod() { return fastPeriod; }
+        public int getSlowPeriod() { return slowPeriod; }
+        public int getSignalPeriod() { return signalPeriod; }
+        public int getBullishCrossovers() { return bullishCrossovers; }
+        public int getBearishCrossovers() { return bearishCrossovers; }
+        public int getTotalSignals() { return bullishCrossovers + bearishCrossovers; }
+        public int getScoredSignals() { return scoredSignals; }
+        public double getBullishBarRatio() { return bullishBarRatio; }
+        public double getAverageHistogram() { return averageHistogram; }
+
+        // 信号方向与 horizon 根K线后价格方向一致的比例
+        public double getHitRate() {
+            return scoredSignals > 0 ? (double) hits / scoredSignals : 0;
+        }
+
+        // 按信号方向计算的平均后续价格变化
+        public double getAverageForwardMove() {
+            return scoredSignals > 0 ? forwardMoveSum / scoredSignals : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MACD(%d,%d,%d) 信号: %d (多 %d / 空 %d) 命中率: %.1f%% 平均后续变化: %.5f 多头占比: %.1f%%",
+                    fastPeriod, slowPeriod, signalPeriod, getTotalSignals(), bullishCrossovers,
+                    bearishCrossovers, getHitRate() * 100, getAverageForwardMove(), bullishBarRatio * 100);
+        }
+    }
+
+    /**
+     * 解析 "8:16" 或 "8:16:2" 形式的范围，单个数字表示固定值
+     */
+    static int[] parseRange(String text) {
+        String[] parts = text.split(":");
+        int from = Integer.parseInt(parts[0].trim());
+        int to = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : from;
+        int step = parts.length > 2 ? Integer.parseInt(parts[2].trim()) : 1;
+        if (step <= 0 || to < from) {
+            throw new IllegalArgumentException("Invalid range: " + text);
+        }
+        int[] values = new int[(to - from) / step + 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = from + i * step;
+        }
+        return values;
+    }
+
+    /**
+     * 用法: MACDParameterSweep <candles.csv> [fast=8:16] [slow=20:40] [signal=5:12] [horizon=5] [top=20]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("用法: MACDParameterSweep <candles.csv> [fast=8:16] [slow=20:40] [signal=5:12] [horizon=5] [top=20]");
+            return;
+        }
+
+        TradingConfig config = TradingConfig.load();
+        int[] fast = parseRange("8:16");
+        int[] slow = parseRange("20:40");
+        int[] signal = parseRange("5:12");
+        int horizon = 5;
+        int top = 20;
+
+        for (int i = 1; i < args.length; i++) {
+            String[] kv = args[i].split("=", 2);
+            switch (kv[0]) {
+                case "fast": fast = parseRange(kv[1]); break;
+                case "slow": slow = parseRange(kv[1]); break;
+                case "signal": signal = parseRange(kv[1]); break;
+                case "horizon": horizon = Integer.parseInt(kv[1]); break;
+                case "top": top = Integer.parseInt(kv[1]); break;
+                default: System.err.println("忽略未知参数: " + args[i]);
+            }
+        }
+
+        CandleSeries series = CandleSeries.loadCsv(config.getSymbol(), Paths.get(args[0]));
+        System.out.println("已加载 " + series);
+
+        List<Result> results = new ArrayList<>(new MACDParameterSweep(series, horizon).run(fast, slow, signal));
+        results.sort(Comparator.comparingDouble(Result::getHitRate).reversed()
+                .thenComparing(Comparator.comparingInt(Result::getTotalSignals).reversed()));
+
+        System.out.println("当前配置: MACD(" + config.getMacdFast() + "," + config.getMacdSlow() + "," + config.getMacdSignal() + ")");
+        for (Result result : results) {
+            if (result.getFastPeriod() == config.getMacdFast() && result.getSlowPeriod() == config.getMacdSlow()
+                    && result.getSignalPeriod() == config.getMacdSignal()) {
+                System.out.println("   " + result);
+            }
+        }
+
+        System.out.println("前 " + Math.min(top, results.size()) + " 个组合 (按命中率排序):");
+        for (int i = 0; i < Math.min(top, results.size()); i++) {
+            System.out.println("   " + results.get(i));
+        }
+    }
+}
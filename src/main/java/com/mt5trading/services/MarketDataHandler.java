@@ -0,0 +1,30 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.CandleData;
+
+/**
+ * 行情消费者：WebSocket 客户端和主程序只通过这个接口驱动引擎
+ * 单个 {@link DecisionEngine} 和多策略的 {@link StrategyHost} 都实现它。
+ */
+public interface MarketDataHandler {
+
+    /**
+     * 新K线
+     */
+    void analyzeNewCandle(CandleData candle);
+
+    /**
+     * 实时行情
+     */
+    void onTick(String symbol, double bid, double ask, long timeMillis);
+
+    /**
+     * 显示运行状态
+     */
+    void displayStatus();
+
+    /**
+     * 释放资源
+     */
+    void shutdown();
+}
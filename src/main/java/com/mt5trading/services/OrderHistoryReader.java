@@ -0,0 +1,100 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.models.OrderState;
+import com.mt5trading.util.CsvReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * 订单历史导入
+ * 读取 {@link OrderHistoryWriter} 或 {@link OrderInfo#toCsv()} 格式的文件，逐条返回订单，
+ * 不把整个文件读进内存。表头可有可无，格式错误的行记录日志后跳过，不影响后续行。
+ */
+public class OrderHistoryReader implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OrderHistoryReader.class);
+    private static final int COLUMNS = OrderHistoryWriter.HEADER.length;
+
+    private final CsvReader csv;
+    private long count = 0;
+    private long skipped = 0;
+
+    public OrderHistoryReader(Path file) throws IOException {
+        this.csv = new CsvReader(file);
+    }
+
+    /**
+     * 逐条处理文件中的订单
+     *
+     * @return 读取的订单数
+     */
+    public static long read(Path file, Consumer<OrderInfo> consumer) throws IOException {
+        try (OrderHistoryReader reader = new OrderHistoryReader(file)) {
+            reader.forEach(consumer);
+            return reader.getCount();
+        }
+    }
+
+    public void forEach(Consumer<OrderInfo> consumer) throws IOException {
+        OrderInfo order;
+        while ((order = next()) != null) {
+            consumer.accept(order);
+        }
+    }
+
+    /**
+     * 读取下一笔订单
+     *
+     * @return 文件结束时返回 null
+     */
+    public OrderInfo next() throws IOException {
+        while (csv.next() >= 0) {
+            if (csv.getRecordNumber() == 1 && OrderHistoryWriter.HEADER[0].equals(csv.getString(0))) {
+                continue;
+            }
+            if (csv.getFieldCount() < COLUMNS) {
+                skip("字段数 " + csv.getFieldCount() + " < " + COLUMNS);
+                continue;
+            }
+            try {
+                OrderInfo order = new OrderInfo();
+                order.setTicket(csv.getInt(0));
+                order.setSymbol(csv.getString(1));
+                order.setType(csv.getString(2));
+                order.setVolume(csv.getDouble(3));
+                order.setPrice(csv.getDouble(4));
+                order.setStopLoss(csv.getDouble(5));
+                order.setTakeProfit(csv.getDouble(6));
+                order.setState(OrderState.fromString(csv.getString(7)));
+                order.setComment(csv.getString(8));
+                count++;
+                return order;
+            } catch (IllegalArgumentException e) {
+                skip(e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void skip(String reason) {
+        skipped++;
+        logger.warn("订单历史第 {} 条记录格式错误，已跳过: {}", csv.getRecordNumber(), reason);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSkippedCount() {
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        csv.close();
+    }
+}
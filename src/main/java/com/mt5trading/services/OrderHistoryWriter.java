@@ -0,0 +1,71 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.util.CsvWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 订单历史导出
+ * 列顺序与 {@link OrderInfo#toCsv()} 一致，首行为表头。逐条写入，内存占用与订单数量无关，
+ * 价格按最短无损的十进制写出，读回后与原值完全相等，便于和券商对账单逐笔核对。
+ */
+public class OrderHistoryWriter implements AutoCloseable {
+    public static final String[] HEADER = {
+            "ticket", "symbol", "type", "volume", "price", "stopLoss", "takeProfit", "status", "comment"
+    };
+
+    private final CsvWriter csv;
+
+    public OrderHistoryWriter(Path file) throws IOException {
+        this.csv = new CsvWriter(file);
+        for (String column : HEADER) {
+            csv.field(column);
+        }
+        csv.endRecord();
+    }
+
+    /**
+     * 一次导出全部订单
+     *
+     * @return 导出的订单数
+     */
+    public static long export(Path file, Iterable<OrderInfo> orders) throws IOException {
+        try (OrderHistoryWriter writer = new OrderHistoryWriter(file)) {
+            for (OrderInfo order : orders) {
+                writer.write(order);
+            }
+            return writer.getCount();
+        }
+    }
+
+    public void write(OrderInfo order) throws IOException {
+        csv.field(order.getTicket())
+                .field(order.getSymbol())
+                .field(order.getType())
+                .field(order.getVolume())
+                .field(order.getPrice())
+                .field(order.getStopLoss())
+                .field(order.getTakeProfit())
+                .field(order.getStatus())
+                .field(order.getComment());
+        csv.endRecord();
+    }
+
+    /**
+     * 已写入的订单数（不含表头）
+     */
+    public long getCount() {
+        return csv.getRecordCount() - 1;
+    }
+
+    public void flush() throws IOException {
+        csv.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        csv.close();
+    }
+}
@@ -0,0 +1,508 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.models.OrderState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * 订单预写日志
+ * 订单登记、状态转换、发出的交易指令和 EA 回报按发生顺序追加到 orders.wal，
+ * 由单独的写线程批量写入后统一 fsync（组提交），一次 fsync 覆盖一批记录。
+ *
+ * 启动时先读快照 orders.snapshot，再重放日志，然后立即把恢复出的状态写成新快照并清空日志；
+ * 运行中日志超过阈值时同样做检查点。日志长度因此有上限，恢复时间与运行时长无关。
+ *
+ * 未回报的指令由日志自己登记：写 SUBMIT 时登记，写 ACK 前移除，检查点时读取，
+ * 因此快照不会包含已经写过 ACK 的指令，ACK 也不会随日志一起被检查点清空而丢失。
+ *
+ * 每条记录的格式为 [长度][CRC32][类型][内容]，重放遇到不完整或校验失败的记录即停止，
+ * 之后的内容视为崩溃时未写完的尾部丢弃。重放是幂等的：检查点之后重复出现的记录不会改变结果。
+ */
+public class OrderJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OrderJournal.class);
+
+    private static final String LOG_FILE = "orders.wal";
+    private static final String SNAPSHOT_FILE = "orders.snapshot";
+
+    private static final byte ORDER = 1;
+    private static final byte STATE = 2;
+    private static final byte SUBMIT = 3;
+    private static final byte ACK = 4;
+
+    /**
+     * 已写入日志、尚未收到回报的交易指令
+     */
+    public static final class Submission {
+        private final String clientOrderId;
+        private final String symbol;
+        private final String orderType;
+        private final double volume;
+        private final double price;
+        private final double stopLoss;
+        private final double takeProfit;
+        private final String comment;
+        private final String message;
+
+        public Submission(String clientOrderId, String symbol, String orderType, double volume, double price,
+                          double stopLoss, double takeProfit, String comment, String message) {
+            this.clientOrderId = clientOrderId;
+            this.symbol = symbol;
+            this.orderType = orderType;
+            this.volume = volume;
+            this.price = price;
+            this.stopLoss = stopLoss;
+            this.takeProfit = takeProfit;
+            this.comment = comment;
+            this.message = message;
+        }
+
+        public String getClientOrderId() { return clientOrderId; }
+        public String getSymbol() { return symbol; }
+        public String getOrderType() { return orderType; }
+        public double getVolume() { return volume; }
+        public double getPrice() { return price; }
+        public double getStopLoss() { return stopLoss; }
+        public double getTakeProfit() { return takeProfit; }
+        public String getComment() { return comment; }
+        public String getMessage() { return message; }
+    }
+
+    /**
+     * 需要持久化的订单状态：未终止的订单和未回报的指令
+     */
+    public static final class State {
+        private final List<OrderInfo> orders;
+        private final List<Submission> submissions;
+
+        public State(List<OrderInfo> orders, List<Submission> submissions) {
+            this.orders = orders;
+            this.submissions = submissions;
+        }
+
+        public List<OrderInfo> getOrders() { return orders; }
+        public List<Submission> getSubmissions() { return submissions; }
+    }
+
+    /**
+     * 待写入的记录
+     */
+    private static final class PendingWrite {
+        final byte[] frame;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingWrite(byte[] frame) {
+            this.frame = frame;
+        }
+    }
+
+    private final Path directory;
+    private final long checkpointBytes;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private FileChannel log;
+    private Supplier<List<OrderInfo>> ordersSupplier;
+    // 已写 SUBMIT、尚未写 ACK 的指令，检查点时写入快照
+    private final Map<String, Submission> unacked = new ConcurrentHashMap<>();
+    private Thread writer;
+    private volatile boolean running = false;
+
+    private long recordsWritten = 0;
+    private long groupCommits = 0;
+    private long checkpoints = 0;
+
+    /**
+     * @param checkpointBytes 日志超过这个大小时做检查点
+     */
+    public OrderJournal(Path directory, long checkpointBytes) {
+        this.directory = directory;
+        this.checkpointBytes = checkpointBytes;
+    }
+
+    // ========== 恢复 ==========
+
+    /**
+     * 读取快照并重放日志，然后做一次检查点。必须在 start 之前调用
+     */
+    public State recover() throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+
+        Map<Integer, OrderInfo> orders = new LinkedHashMap<>();
+        Map<String, Submission> submissions = new LinkedHashMap<>();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Path logPath = directory.resolve(LOG_FILE);
+
+        int snapshotRecords = 0;
+        if (Files.exists(snapshot)) {
+            snapshotRecords = replay(Files.readAllBytes(snapshot), orders, submissions, snapshot);
+        }
+        int logRecords = 0;
+        if (Files.exists(logPath)) {
+            logRecords = replay(Files.readAllBytes(logPath), orders, submissions, logPath);
+        }
+
+        State state = new State(new ArrayList<>(orders.values()), new ArrayList<>(submissions.values()));
+        unacked.putAll(submissions);
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        checkpoint(state);
+
+        logger.info("订单日志恢复完成: 快照 {} 条, 日志 {} 条, 订单 {} 笔, 未回报指令 {} 笔, 耗时 {}ms",
+                snapshotRecords, logRecords, state.getOrders().size(), state.getSubmissions().size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return state;
+    }
+
+    /**
+     * 重放一个文件中的记录，返回有效记录数
+     */
+    private static int replay(byte[] data, Map<Integer, OrderInfo> orders, Map<String, Submission> submissions,
+                              Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int count = 0;
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (crc32(payload) != crc) {
+                break;
+            }
+            apply(payload, orders, submissions);
+            count++;
+        }
+        if (buffer.hasRemaining()) {
+            logger.warn("{} 在偏移 {} 处有 {} 字节不完整的记录，已忽略", file.getFileName(),
+                    data.length - buffer.remaining(), buffer.remaining());
+        }
+        return count;
+    }
+
+    private static void apply(byte[] payload, Map<Integer, OrderInfo> orders,
+                              Map<String, Submission> submissions) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case ORDER: {
+                OrderInfo order = readOrder(in);
+                if (!order.getState().isTerminal()) {
+                    orders.putIfAbsent(order.getTicket(), order);
+                }
+                break;
+            }
+            case STATE: {
+                int ticket = in.readInt();
+                OrderState state = OrderState.valueOf(in.readUTF());
+                OrderInfo order = orders.get(ticket);
+                if (order == null || order.getState() == state) {
+                    break;
+                }
+                if (state.isTerminal()) {
+                    orders.remove(ticket);
+                } else if (order.getState().canTransitionTo(state)) {
+                    order.setState(state);
+                }
+                break;
+            }
+            case SUBMIT: {
+                Submission submission = readSubmission(in);
+                submissions.putIfAbsent(submission.getClientOrderId(), submission);
+                break;
+            }
+            case ACK:
+                submissions.remove(in.readUTF());
+                break;
+            default:
+                throw new IOException("未知的日志记录类型: " + type);
+        }
+    }
+
+    // ========== 写入 ==========
+
+    /**
+     * 启动写线程
+     *
+     * @param ordersSupplier 检查点时读取当前未终止的订单
+     */
+    public synchronized void start(Supplier<List<OrderInfo>> ordersSupplier) {
+        if (log == null) {
+            throw new IllegalStateException("必须先调用 recover()");
+        }
+        if (running) {
+            return;
+        }
+        this.ordersSupplier = ordersSupplier;
+        running = true;
+        writer = new Thread(this::writeLoop, "order-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void logOrder(OrderInfo order) {
+        enqueue(encode(ORDER, out -> writeOrder(out, order)));
+    }
+
+    public void logState(int ticket, OrderState state) {
+        enqueue(encode(STATE, out -> {
+            out.writeInt(ticket);
+            out.writeUTF(state.name());
+        }));
+    }
+
+    /**
+     * 记录发出的交易指令
+     *
+     * @return 记录 fsync 之后完成，完成后才能真正发出指令
+     */
+    public CompletableFuture<Void> logSubmit(Submission submission) {
+        String clientOrderId = submission.getClientOrderId();
+        unacked.put(clientOrderId, submission);
+        CompletableFuture<Void> durable = enqueue(encode(SUBMIT, out -> writeSubmission(out, submission)));
+        durable.whenComplete((v, error) -> {
+            if (error != null) {
+                unacked.remove(clientOrderId);
+            }
+        });
+        return durable;
+    }
+
+    /**
+     * 记录指令已回报。先移除登记再排队写入，之后的检查点不会再把它写进快照
+     */
+    public void logAck(String clientOrderId) {
+        unacked.remove(clientOrderId);
+        enqueue(encode(ACK, out -> out.writeUTF(clientOrderId)));
+    }
+
+    private CompletableFuture<Void> enqueue(byte[] frame) {
+        PendingWrite write = new PendingWrite(frame);
+        if (!running) {
+            write.durable.completeExceptionally(new IllegalStateException("订单日志未启动"));
+            return write.durable;
+        }
+        queue.add(write);
+        return write.durable;
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                commit(batch);
+                if (log.size() >= checkpointBytes) {
+                    checkpoint(new State(ordersSupplier.get(), new ArrayList<>(unacked.values())));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("订单日志写入失败", e);
+                for (PendingWrite write : batch) {
+                    write.durable.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * 一批记录一次写入、一次 fsync
+     */
+    private void commit(List<PendingWrite> batch) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(batch.get(i).frame);
+        }
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= log.write(buffers);
+        }
+        log.force(false);
+        recordsWritten += batch.size();
+        groupCommits++;
+        for (PendingWrite write : batch) {
+            write.durable.complete(null);
+        }
+    }
+
+    /**
+     * 把当前状态写成快照（先写临时文件再原子替换），然后清空日志
+     */
+    private void checkpoint(State state) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (OrderInfo order : state.getOrders()) {
+                channel.write(ByteBuffer.wrap(encode(ORDER, out -> writeOrder(out, order))));
+            }
+            for (Submission submission : state.getSubmissions()) {
+                channel.write(ByteBuffer.wrap(encode(SUBMIT, out -> writeSubmission(out, submission))));
+            }
+            channel.force(true);
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // 快照已经包含日志中的全部内容，重放时重复的记录是幂等的
+        log.truncate(0);
+        log.position(0);
+        log.force(true);
+        checkpoints++;
+        logger.debug("订单日志检查点: {} 笔订单, {} 笔未回报指令",
+                state.getOrders().size(), state.getSubmissions().size());
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            running = false;
+        }
+        if (writer != null) {
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                logger.warn("关闭订单日志失败", e);
+            }
+        }
+    }
+
+    public synchronized String getSummary() {
+        return String.format("已写入 %d 条/%d 次提交, 检查点 %d 次, 排队 %d 条",
+                recordsWritten, groupCommits, checkpoints, queue.size());
+    }
+
+    // ========== 编码 ==========
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(byte type, RecordWriter body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            body.write(out);
+            out.flush();
+            byte[] payload = bytes.toByteArray();
+
+            ByteBuffer frame = ByteBuffer.allocate(8 + payload.length);
+            frame.putInt(payload.length);
+            frame.putInt(crc32(payload));
+            frame.put(payload);
+            return frame.array();
+        } catch (IOException e) {
+            // 写入内存流不会失败
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int crc32(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void writeOrder(DataOutputStream out, OrderInfo order) throws IOException {
+        out.writeInt(order.getTicket());
+        writeString(out, order.getSymbol());
+        writeString(out, order.getType());
+        out.writeDouble(order.getVolume());
+        out.writeDouble(order.getPrice());
+        out.writeDouble(order.getStopLoss());
+        out.writeDouble(order.getTakeProfit());
+        writeString(out, order.getComment());
+        out.writeUTF(order.getState().name());
+        out.writeInt(order.getMagicNumber());
+        writeString(out, order.getTimeSetup() != null ? order.getTimeSetup().toString() : null);
+    }
+
+    private static OrderInfo readOrder(DataInputStream in) throws IOException {
+        OrderInfo order = new OrderInfo();
+        order.setTicket(in.readInt());
+        order.setSymbol(readString(in));
+        order.setType(readString(in));
+        order.setVolume(in.readDouble());
+        order.setPrice(in.readDouble());
+        order.setStopLoss(in.readDouble());
+        order.setTakeProfit(in.readDouble());
+        order.setComment(readString(in));
+        order.setState(OrderState.valueOf(in.readUTF()));
+        order.setMagicNumber(in.readInt());
+        String timeSetup = readString(in);
+        if (timeSetup != null) {
+            order.setTimeSetup(LocalDateTime.parse(timeSetup));
+        }
+        return order;
+    }
+
+    private static void writeSubmission(DataOutputStream out, Submission submission) throws IOException {
+        out.writeUTF(submission.getClientOrderId());
+        writeString(out, submission.getSymbol());
+        writeString(out, submission.getOrderType());
+        out.writeDouble(submission.getVolume());
+        out.writeDouble(submission.getPrice());
+        out.writeDouble(submission.getStopLoss());
+        out.writeDouble(submission.getTakeProfit());
+        writeString(out, submission.getComment());
+        writeString(out, submission.getMessage());
+    }
+
+    private static Submission readSubmission(DataInputStream in) throws IOException {
+        return new Submission(in.readUTF(), readString(in), readString(in), in.readDouble(), in.readDouble(),
+                in.readDouble(), in.readDouble(), readString(in), readString(in));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,178 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.models.OrderState;
+import com.mt5trading.util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单存储
+ * 所有在途订单（用户挂单、系统订单、持仓）按订单号保存在一张 int 键哈希表里，
+ * 另外按状态和品种各维护一份二级索引，查询某个状态或品种的订单不需要遍历全部订单。
+ *
+ * 状态只能通过 transition 修改，非法转换（如 DELETED → EXECUTED）直接抛出异常；
+ * 进入终止状态（CLOSED/DELETED/REJECTED）的订单从存储中移除。
+ * 登记和状态转换在锁内通知监听器（如预写日志），通知顺序与实际发生顺序一致。
+ */
+public class OrderStore {
+    /**
+     * 订单变更监听，在存储的锁内调用，不能阻塞
+     */
+    public interface Listener {
+        void onAdd(OrderInfo order);
+
+        void onTransition(OrderInfo order, OrderState from, OrderState to);
+    }
+
+    private final IntObjectMap<OrderInfo> byTicket = new IntObjectMap<>();
+    private final Map<OrderState, IntObjectMap<OrderInfo>> byState = new EnumMap<>(OrderState.class);
+    private final Map<String, IntObjectMap<OrderInfo>> bySymbol = new HashMap<>();
+    private Listener listener;
+
+    public OrderStore() {
+        for (OrderState state : OrderState.values()) {
+            byState.put(state, new IntObjectMap<>());
+        }
+    }
+
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 登记订单，订单号已存在时不覆盖
+     *
+     * @return 是否为新订单
+     */
+    public synchronized boolean add(OrderInfo order) {
+        if (order.getState() == null || order.getState().isTerminal()) {
+            throw new IllegalArgumentException("不能登记状态为 " + order.getState() + " 的订单 #" + order.getTicket());
+        }
+        if (byTicket.containsKey(order.getTicket())) {
+            return false;
+        }
+        byTicket.put(order.getTicket(), order);
+        byState.get(order.getState()).put(order.getTicket(), order);
+        if (order.getSymbol() != null) {
+            bySymbol.computeIfAbsent(order.getSymbol(), s -> new IntObjectMap<>()).put(order.getTicket(), order);
+        }
+        if (listener != null) {
+            listener.onAdd(order);
+        }
+        return true;
+    }
+
+    public synchronized OrderInfo get(int ticket) {
+        return byTicket.get(ticket);
+    }
+
+    public synchronized boolean contains(int ticket) {
+        return byTicket.containsKey(ticket);
+    }
+
+    /**
+     * 状态转换
+     *
+     * @return 转换后的订单，订单号不存在时返回 null
+     * @throws IllegalStateException 当前状态不允许转换到目标状态
+     */
+    public synchronized OrderInfo transition(int ticket, OrderState target) {
+        OrderInfo order = byTicket.get(ticket);
+        if (order == null) {
+            return null;
+        }
+        OrderState current = order.getState();
+        if (!current.canTransitionTo(target)) {
+            throw new IllegalStateException(String.format("订单 #%d 不能从 %s 转换到 %s", ticket, current, target));
+        }
+        if (target.isTerminal()) {
+            removeIndexes(order);
+        } else {
+            byState.get(current).remove(ticket);
+            byState.get(target).put(ticket, order);
+        }
+        order.setState(target);
+        if (listener != null) {
+            listener.onTransition(order, current, target);
+        }
+        return order;
+    }
+
+    private void removeIndexes(OrderInfo order) {
+        int ticket = order.getTicket();
+        byTicket.remove(ticket);
+        byState.get(order.getState()).remove(ticket);
+        if (order.getSymbol() != null) {
+            IntObjectMap<OrderInfo> symbolOrders = bySymbol.get(order.getSymbol());
+            if (symbolOrders != null) {
+                symbolOrders.remove(ticket);
+                if (symbolOrders.isEmpty()) {
+                    bySymbol.remove(order.getSymbol());
+                }
+            }
+        }
+    }
+
+    public synchronized List<OrderInfo> getByState(OrderState state) {
+        return byState.get(state).values();
+    }
+
+    /**
+     * 挂单阶段的订单（PENDING/MODIFIED）
+     */
+    public synchronized List<OrderInfo> getPending() {
+        List<OrderInfo> result = new ArrayList<>();
+        byState.get(OrderState.PENDING).collectValues(result);
+        byState.get(OrderState.MODIFIED).collectValues(result);
+        return result;
+    }
+
+    /**
+     * 已执行或持仓中的订单（EXECUTED/OPEN）
+     */
+    public synchronized List<OrderInfo> getActive() {
+        List<OrderInfo> result = new ArrayList<>();
+        byState.get(OrderState.EXECUTED).collectValues(result);
+        byState.get(OrderState.OPEN).collectValues(result);
+        return result;
+    }
+
+    /**
+     * 全部未终止的订单（同一把锁内读取，用于做一致的快照）
+     */
+    public synchronized List<OrderInfo> getAll() {
+        return byTicket.values();
+    }
+
+    public synchronized List<OrderInfo> getBySymbol(String symbol) {
+        IntObjectMap<OrderInfo> symbolOrders = bySymbol.get(symbol);
+        return symbolOrders != null ? symbolOrders.values() : new ArrayList<>();
+    }
+
+    public synchronized int count(OrderState state) {
+        return byState.get(state).size();
+    }
+
+    public synchronized int size() {
+        return byTicket.size();
+    }
+
+    public synchronized String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (OrderState state : OrderState.values()) {
+            int count = byState.get(state).size();
+            if (count > 0) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(state.getDescription()).append(": ").append(count);
+            }
+        }
+        return sb.length() > 0 ? sb.toString() : "无订单";
+    }
+}
@@ -0,0 +1,159 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderSide;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 按价格索引的待处理订单簿
+ * 买单和卖单各自按价格排序，订单号另有哈希索引，
+ * 趋势决策时用价格区间查询一次取出所有符合条件的订单，不需要逐个判断订单类型。
+ * 非线程安全，应在引擎事件循环上使用。
+ *
+ * @param <T> 订单附带的数据
+ */
+public class PendingOrderBook<T> {
+
+    private static final class Entry<T> {
+        final int ticket;
+        final OrderSide side;
+        final double price;
+        final T value;
+
+        Entry(int ticket, OrderSide side, double price, T value) {
+            this.ticket = ticket;
+            this.side = side;
+            this.price = price;
+            this.value = value;
+        }
+    }
+
+    private final NavigableMap<Double, Map<Integer, Entry<T>>> buys = new TreeMap<>();
+    private final NavigableMap<Double, Map<Integer, Entry<T>>> sells = new TreeMap<>();
+    private final Map<Integer, Entry<T>> byTicket = new HashMap<>();
+
+    /**
+     * 加入订单，同一订单号已存在时先移除旧的
+     */
+    public void add(int ticket, OrderSide side, double price, T value) {
+        if (side == null) {
+            throw new IllegalArgumentException("订单方向不能为空: #" + ticket);
+        }
+        remove(ticket);
+        Entry<T> entry = new Entry<>(ticket, side, price, value);
+        byTicket.put(ticket, entry);
+        book(side).computeIfAbsent(price, p -> new LinkedHashMap<>()).put(ticket, entry);
+    }
+
+    public T remove(int ticket) {
+        Entry<T> entry = byTicket.remove(ticket);
+        if (entry == null) {
+            return null;
+        }
+        NavigableMap<Double, Map<Integer, Entry<T>>> book = book(entry.side);
+        Map<Integer, Entry<T>> level = book.get(entry.price);
+        level.remove(ticket);
+        if (level.isEmpty()) {
+            book.remove(entry.price);
+        }
+        return entry.value;
+    }
+
+    public T get(int ticket) {
+        Entry<T> entry = byTicket.get(ticket);
+        return entry != null ? entry.value : null;
+    }
+
+    public boolean contains(int ticket) {
+        return byTicket.containsKey(ticket);
+    }
+
+    public int size() {
+        return byTicket.size();
+    }
+
+    public int size(OrderSide side) {
+        int count = 0;
+        for (Map<Integer, Entry<T>> level : book(side).values()) {
+            count += level.size();
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return byTicket.isEmpty();
+    }
+
+    public void clear() {
+        buys.clear();
+        sells.clear();
+        byTicket.clear();
+    }
+
+    /**
+     * 所有订单（按加入顺序无保证）
+     */
+    public List<T> values() {
+        List<T> result = new ArrayList<>(byTicket.size());
+        for (Entry<T> entry : byTicket.values()) {
+            result.add(entry.value);
+        }
+        return result;
+    }
+
+    /**
+     * 某个方向的全部订单，按价格从高到低
+     */
+    public List<T> all(OrderSide side) {
+        return collect(book(side).descendingMap().values());
+    }
+
+    /**
+     * 某个方向价格 >= minPrice 的订单，按价格从高到低
+     */
+    public List<T> atOrAbove(OrderSide side, double minPrice) {
+        return collect(book(side).tailMap(minPrice, true).descendingMap().values());
+    }
+
+    /**
+     * 某个方向价格 > minPrice 的订单，按价格从低到高
+     */
+    public List<T> above(OrderSide side, double minPrice) {
+        return collect(book(side).tailMap(minPrice, false).values());
+    }
+
+    /**
+     * 某个方向价格 <= maxPrice 的订单，按价格从低到高
+     */
+    public List<T> atOrBelow(OrderSide side, double maxPrice) {
+        return collect(book(side).headMap(maxPrice, true).values());
+    }
+
+    /**
+     * 某个方向价格 < maxPrice 的订单，按价格从高到低
+     */
+    public List<T> below(OrderSide side, double maxPrice) {
+        return collect(book(side).headMap(maxPrice, false).descendingMap().values());
+    }
+
+    private NavigableMap<Double, Map<Integer, Entry<T>>> book(OrderSide side) {
+        return side == OrderSide.BUY ? buys : sells;
+    }
+
+    private List<T> collect(Collection<Map<Integer, Entry<T>>> levels) {
+        List<T> result = new ArrayList<>();
+        for (Map<Integer, Entry<T>> level : levels) {
+            for (Entry<T> entry : level.values()) {
+                result.add(entry.value);
+            }
+        }
+        return result;
+    }
+}
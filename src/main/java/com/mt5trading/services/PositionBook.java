@@ -0,0 +1,329 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderSide;
+import com.mt5trading.models.PositionInfo;
+import com.mt5trading.util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 持仓簿
+ * 持仓按品种分组，每个品种的字段存放在并列的基本类型数组里。行情到来时只重估该品种的持仓，
+ * 在一个循环里算出每笔持仓的浮动盈亏和离止损的距离，再把该品种的合计差额加到账户合计上，
+ * 账户级的浮动盈亏和敞口因此是常数时间读取，不随持仓数量增长。
+ * 平仓时的盈亏累加为已实现盈亏，风控（{@link RiskEngine}）直接读取这里的敞口和盈亏。
+ *
+ * 多头按买价、空头按卖价估值。写操作加锁，账户合计用 volatile 发布，读取不加锁。
+ */
+public class PositionBook {
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * 单个品种的持仓，删除时用最后一笔填补空位
+     */
+    private static final class SymbolPositions {
+        final String symbol;
+        int count = 0;
+        int[] tickets = new int[INITIAL_CAPACITY];
+        double[] directions = new double[INITIAL_CAPACITY];   // 多头 1，空头 -1
+        double[] volumes = new double[INITIAL_CAPACITY];
+        double[] openPrices = new double[INITIAL_CAPACITY];
+        double[] stopLosses = new double[INITIAL_CAPACITY];   // 0 表示未设置
+        double[] takeProfits = new double[INITIAL_CAPACITY];
+        double[] profits = new double[INITIAL_CAPACITY];
+        double[] stopDistances = new double[INITIAL_CAPACITY]; // 当前价离止损还有多少点
+
+        double bid = 0;
+        double ask = 0;
+        double unrealized = 0;
+        double realized = 0;
+        double netVolume = 0;
+        double grossVolume = 0;
+        double nearestStopDistance = Double.NaN;
+
+        SymbolPositions(String symbol) {
+            this.symbol = symbol;
+        }
+
+        void grow() {
+            int capacity = tickets.length * 2;
+            tickets = Arrays.copyOf(tickets, capacity);
+            directions = Arrays.copyOf(directions, capacity);
+            volumes = Arrays.copyOf(volumes, capacity);
+            openPrices = Arrays.copyOf(openPrices, capacity);
+            stopLosses = Arrays.copyOf(stopLosses, capacity);
+            takeProfits = Arrays.copyOf(takeProfits, capacity);
+            profits = Arrays.copyOf(profits, capacity);
+            stopDistances = Arrays.copyOf(stopDistances, capacity);
+        }
+
+        int indexOf(int ticket) {
+            for (int i = 0; i < count; i++) {
+                if (tickets[i] == ticket) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void removeAt(int index) {
+            int last = --count;
+            tickets[index] = tickets[last];
+            directions[index] = directions[last];
+            volumes[index] = volumes[last];
+            openPrices[index] = openPrices[last];
+            stopLosses[index] = stopLosses[last];
+            takeProfits[index] = takeProfits[last];
+            profits[index] = profits[last];
+            stopDistances[index] = stopDistances[last];
+        }
+
+        /**
+         * 重估全部持仓，返回品种合计浮动盈亏
+         */
+        double remark(double valuePerPoint) {
+            double total = 0;
+            double nearest = Double.NaN;
+            for (int i = 0; i < count; i++) {
+                double direction = directions[i];
+                double mark = direction > 0 ? bid : ask;
+                double profit = direction * (mark - openPrices[i]) * volumes[i] * valuePerPoint;
+                profits[i] = profit;
+                total += profit;
+                if (stopLosses[i] != 0) {
+                    double distance = direction * (mark - stopLosses[i]);
+                    stopDistances[i] = distance;
+                    if (!(distance >= nearest)) {
+                        nearest = distance;
+                    }
+                }
+            }
+            nearestStopDistance = nearest;
+            return total;
+        }
+    }
+
+    private final double valuePerPoint;
+    private final Map<String, SymbolPositions> symbols = new HashMap<>();
+    private final IntObjectMap<SymbolPositions> byTicket = new IntObjectMap<>();
+
+    private volatile double unrealizedTotal = 0;
+    private volatile double realizedTotal = 0;
+    private volatile double grossExposure = 0;
+    private volatile int positionCount = 0;
+
+    /**
+     * @param valuePerPoint 每手每点的价值（账户货币）
+     */
+    public PositionBook(double valuePerPoint) {
+        this.valuePerPoint = valuePerPoint;
+    }
+
+    /**
+     * 新开持仓，同一订单号已存在时替换
+     */
+    public synchronized void open(int ticket, String symbol, OrderSide side, double volume,
+                                  double openPrice, double stopLoss, double takeProfit) {
+        if (side == null || volume <= 0) {
+            throw new IllegalArgumentException("无效的持仓 #" + ticket + ": " + side + " " + volume);
+        }
+        if (byTicket.containsKey(ticket)) {
+            close(ticket);
+        }
+        SymbolPositions book = symbols.computeIfAbsent(symbol, SymbolPositions::new);
+        if (book.count == book.tickets.length) {
+            book.grow();
+        }
+        int i = book.count++;
+        double direction = side == OrderSide.BUY ? 1 : -1;
+        book.tickets[i] = ticket;
+        book.directions[i] = direction;
+        book.volumes[i] = volume;
+        book.openPrices[i] = openPrice;
+        book.stopLosses[i] = stopLoss;
+        book.takeProfits[i] = takeProfit;
+        book.profits[i] = 0;
+        book.stopDistances[i] = Double.NaN;
+        book.netVolume += direction * volume;
+        book.grossVolume += volume;
+        byTicket.put(ticket, book);
+
+        grossExposure += volume;
+        positionCount++;
+        if (book.bid > 0) {
+            remark(book);
+        }
+    }
+
+    /**
+     * 按最新行情平仓，平仓价未知时使用
+     *
+     * @return 平仓时的浮动盈亏，订单号不存在时返回 NaN
+     */
+    public synchronized double close(int ticket) {
+        return close(ticket, Double.NaN);
+    }
+
+    /**
+     * 按成交价平仓
+     *
+     * @param closePrice 平仓成交价，NaN 表示按最新行情
+     * @return 已实现盈亏，订单号不存在时返回 NaN
+     */
+    public synchronized double close(int ticket, double closePrice) {
+        SymbolPositions book = byTicket.remove(ticket);
+        if (book == null) {
+            return Double.NaN;
+        }
+        int i = book.indexOf(ticket);
+        double profit = Double.isNaN(closePrice) ? book.profits[i]
+                : book.directions[i] * (closePrice - book.openPrices[i]) * book.volumes[i] * valuePerPoint;
+        book.realized += profit;
+        realizedTotal += profit;
+        book.netVolume -= book.directions[i] * book.volumes[i];
+        book.grossVolume -= book.volumes[i];
+        grossExposure = positionCount > 1 ? grossExposure - book.volumes[i] : 0;
+        positionCount--;
+        book.removeAt(i);
+        if (book.count == 0) {
+            book.netVolume = 0;
+            book.grossVolume = 0;
+        }
+        remark(book);
+        return profit;
+    }
+
+    /**
+     * 修改止损止盈
+     */
+    public synchronized boolean modify(int ticket, double stopLoss, double takeProfit) {
+        SymbolPositions book = byTicket.get(ticket);
+        if (book == null) {
+            return false;
+        }
+        int i = book.indexOf(ticket);
+        book.stopLosses[i] = stopLoss;
+        book.takeProfits[i] = takeProfit;
+        remark(book);
+        return true;
+    }
+
+    /**
+     * 行情更新，只重估该品种的持仓
+     */
+    public synchronized void onTick(String symbol, double bid, double ask) {
+        SymbolPositions book = symbols.get(symbol);
+        if (book == null) {
+            return;
+        }
+        book.bid = bid;
+        book.ask = ask;
+        remark(book);
+    }
+
+    private void remark(SymbolPositions book) {
+        double previous = book.unrealized;
+        book.unrealized = book.bid > 0 ? book.remark(valuePerPoint) : 0;
+        unrealizedTotal += book.unrealized - previous;
+    }
+
+    // ========== 账户合计（不加锁） ==========
+
+    public double getUnrealizedTotal() {
+        return unrealizedTotal;
+    }
+
+    /**
+     * 累计已实现盈亏
+     */
+    public double getRealizedTotal() {
+        return realizedTotal;
+    }
+
+    public double getGrossExposure() {
+        return grossExposure;
+    }
+
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    // ========== 按品种/持仓查询 ==========
+
+    public synchronized double getUnrealizedPnl(String symbol) {
+        SymbolPositions book = symbols.get(symbol);
+        return book != null ? book.unrealized : 0;
+    }
+
+    public synchronized double getRealizedPnl(String symbol) {
+        SymbolPositions book = symbols.get(symbol);
+        return book != null ? book.realized : 0;
+    }
+
+    public synchronized double getNetVolume(String symbol) {
+        SymbolPositions book = symbols.get(symbol);
+        return book != null ? book.netVolume : 0;
+    }
+
+    /**
+     * 该品种离止损最近的持仓还有多少点，没有设置止损的持仓时返回 NaN
+     */
+    public synchronized double getNearestStopDistance(String symbol) {
+        SymbolPositions book = symbols.get(symbol);
+        return book != null ? book.nearestStopDistance : Double.NaN;
+    }
+
+    public synchronized boolean contains(int ticket) {
+        return byTicket.containsKey(ticket);
+    }
+
+    /**
+     * 单笔持仓的浮动盈亏，订单号不存在时返回 NaN
+     */
+    public synchronized double getProfit(int ticket) {
+        SymbolPositions book = byTicket.get(ticket);
+        return book != null ? book.profits[book.indexOf(ticket)] : Double.NaN;
+    }
+
+    /**
+     * 导出单笔持仓
+     */
+    public synchronized PositionInfo getPosition(int ticket) {
+        SymbolPositions book = byTicket.get(ticket);
+        return book != null ? toPositionInfo(book, book.indexOf(ticket)) : null;
+    }
+
+    public synchronized List<PositionInfo> getPositions(String symbol) {
+        List<PositionInfo> result = new ArrayList<>();
+        SymbolPositions book = symbols.get(symbol);
+        if (book != null) {
+            for (int i = 0; i < book.count; i++) {
+                result.add(toPositionInfo(book, i));
+            }
+        }
+        return result;
+    }
+
+    private PositionInfo toPositionInfo(SymbolPositions book, int i) {
+        PositionInfo position = new PositionInfo();
+        position.setTicket(book.tickets[i]);
+        position.setSymbol(book.symbol);
+        position.setType(book.directions[i] > 0 ? "BUY" : "SELL");
+        position.setVolume(book.volumes[i]);
+        position.setOpenPrice(book.openPrices[i]);
+        position.setStopLoss(book.stopLosses[i]);
+        position.setTakeProfit(book.takeProfits[i]);
+        position.setCurrentPrice(book.directions[i] > 0 ? book.bid : book.ask);
+        position.setProfit(book.profits[i]);
+        return position;
+    }
+
+    public String getSummary() {
+        return String.format("持仓: %d 笔, 总手数: %.2f, 浮动盈亏: %.2f",
+                positionCount, grossExposure, unrealizedTotal);
+    }
+}
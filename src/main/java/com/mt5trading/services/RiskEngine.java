@@ -0,0 +1,114 @@
+package com.mt5trading.services;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.OrderSide;
+
+/**
+ * 内存中的交易前风控
+ * 持仓、敞口和浮动盈亏直接读取 {@link PositionBook}，风控自己不记账，两者不会出现分歧；
+ * 这里只维护账户余额和当日已实现盈亏的起点。下单前的检查只读取汇总字段，不做 I/O、不分配对象。
+ *
+ * 当日以行情时间戳（MT5 服务器时间）的 UTC 日期划分。
+ */
+public class RiskEngine {
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    public enum Verdict {
+        APPROVED("通过"),
+        MAX_OPEN_TRADES("持仓笔数已达上限"),
+        MAX_POSITION_SIZE("超过最大持仓手数"),
+        DAILY_LOSS_LIMIT("已达当日最大亏损");
+
+        private final String description;
+
+        Verdict(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final TradingConfig config;
+    private final PositionBook positions;
+
+    private double balance;
+    private double realizedAtDayStart = 0;
+    private long currentDay = Long.MIN_VALUE;
+
+    public RiskEngine(TradingConfig config, PositionBook positions) {
+        this(config, positions, 0);
+    }
+
+    /**
+     * @param initialBalance 初始账户余额，0 表示未知（未知时不检查当日最大亏损）
+     */
+    public RiskEngine(TradingConfig config, PositionBook positions, double initialBalance) {
+        this.config = config;
+        this.positions = positions;
+        this.balance = initialBalance;
+    }
+
+    /**
+     * 下单前检查，开仓和加仓受限制，减仓总是允许
+     */
+    public synchronized Verdict check(String symbol, OrderSide side, double volume) {
+        if (!config.isEnableRiskManagement()) {
+            return Verdict.APPROVED;
+        }
+
+        double net = positions.getNetVolume(symbol);
+        double signed = side == OrderSide.BUY ? volume : -volume;
+        boolean reducing = net != 0 && Math.signum(net) != Math.signum(signed) && volume <= Math.abs(net);
+        if (reducing) {
+            return Verdict.APPROVED;
+        }
+
+        if (balance > 0 && getRealizedToday() + positions.getUnrealizedTotal() <= -balance * config.getMaxDailyLoss()) {
+            return Verdict.DAILY_LOSS_LIMIT;
+        }
+        if (positions.getPositionCount() >= config.getMaxConcurrentTrades()) {
+            return Verdict.MAX_OPEN_TRADES;
+        }
+        if (Math.abs(net + signed) > config.getMaxPositionSize()) {
+            return Verdict.MAX_POSITION_SIZE;
+        }
+        return Verdict.APPROVED;
+    }
+
+    /**
+     * 行情时间跨过 UTC 零点时，当日已实现盈亏从零开始
+     */
+    public synchronized void onTick(String symbol, double bid, double ask, long timeMillis) {
+        long day = Math.floorDiv(timeMillis, MILLIS_PER_DAY);
+        if (day != currentDay) {
+            currentDay = day;
+            realizedAtDayStart = positions.getRealizedTotal();
+        }
+    }
+
+    public synchronized void onAccountBalance(double balance) {
+        if (balance > 0) {
+            this.balance = balance;
+        }
+    }
+
+    public PositionBook getPositions() {
+        return positions;
+    }
+
+    public double getNetVolume(String symbol) { return positions.getNetVolume(symbol); }
+    public double getUnrealizedPnl(String symbol) { return positions.getUnrealizedPnl(symbol); }
+    public double getRealizedPnl(String symbol) { return positions.getRealizedPnl(symbol); }
+    public double getGrossExposure() { return positions.getGrossExposure(); }
+    public int getOpenTrades() { return positions.getPositionCount(); }
+    public double getUnrealizedTotal() { return positions.getUnrealizedTotal(); }
+    public synchronized double getRealizedToday() { return positions.getRealizedTotal() - realizedAtDayStart; }
+    public synchronized double getBalance() { return balance; }
+
+    public synchronized String getSummary() {
+        return String.format("持仓笔数: %d, 总敞口: %.2f手, 当日已实现: %.2f, 未实现: %.2f, 余额: %.2f",
+                getOpenTrades(), getGrossExposure(), getRealizedToday(), getUnrealizedTotal(), balance);
+    }
+}
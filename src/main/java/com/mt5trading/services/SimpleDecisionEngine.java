@@ -2,46 +2,74 @@ package com.mt5trading.services;
 
 import com.mt5trading.config.TradingConfig;
 import com.mt5trading.mt5.connector.MT5Connector;
+import com.mt5trading.mt5.connector.StagedOrder;
 import com.mt5trading.models.CandleData;
+import com.mt5trading.models.OrderSide;
+import com.mt5trading.timer.HashedWheelTimer;
+import com.mt5trading.timer.TimerService;
+import com.mt5trading.util.LatencyTracker;
+import com.mt5trading.util.RollingWindow;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * US30 60秒图表交易决策引擎
  * 在每根K线的第45秒分析下一根K线趋势预测
+ * 所有状态都在事件循环线程上读写
  */
 public class SimpleDecisionEngine extends DecisionEngine {
     
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final CandleAnalysisTrigger analysisTrigger;
     private LocalDateTime lastCandleTime;
     private int candleCheckCounter = 0;
-    private double[] priceHistory;
-    private int priceHistoryIndex = 0;
+    private final RollingWindow priceHistory;
+    private double lastTickPrice = 0;
+    private long lastTickOrigin = 0; // 最新行情到达时刻，作为端到端延迟起点
+    private final LatencyTracker latencyTracker = LatencyTracker.getDefault();
+    // 本根K线预先生成的候选订单，键为 方向:手数
+    private final Map<String, StagedOrder> stagedOrders = new HashMap<>();
+    private LocalDateTime stagedBarTime;
     
     public SimpleDecisionEngine(TradingConfig config, MT5Connector connector) {
-        super(config, connector);
-        priceHistory = new double[config.getPriceHistorySize()];
-        initializeScheduler();
+        this(config, connector, HashedWheelTimer.getDefault());
     }
     
-    private void initializeScheduler() {
-        // 每秒检查一次当前时间，在第45秒触发分析
-        scheduler.scheduleAtFixedRate(() -> {
-            LocalDateTime now = LocalDateTime.now();
-            int second = now.getSecond();
-            
-            // 在第45秒触发分析
-            if (second == config.getCandleAnalysisSecond()) {
-                analyzeNextCandleTrend(now);
-            }
-        }, 0, 1, TimeUnit.SECONDS);
+    public SimpleDecisionEngine(TradingConfig config, MT5Connector connector, TimerService timer) {
+        this(config, connector, timer, null);
+    }
+    
+    public SimpleDecisionEngine(TradingConfig config, MT5Connector connector, TimerService timer,
+                                EngineEventLoop events) {
+        super(config, connector, timer, events);
+        priceHistory = new RollingWindow(config.getPriceHistorySize());
+        
+        // 在每根K线开盘后第45秒精确触发分析（任意时间框架），分析本身在事件循环上执行
+        analysisTrigger = new CandleAnalysisTrigger(
+            config.getTimeframe(), config.getCandleAnalysisSecond(), timer, analysisTime ->
+                this.events.post(EngineEventLoop.EventType.TIMER, () -> analyzeNextCandleTrend(analysisTime)));
+        this.events.start();
+        analysisTrigger.start();
     }
     
     @Override
     public void analyzeNewCandle(CandleData candle) {
+        events.post(EngineEventLoop.EventType.CANDLE, () -> onNewCandle(candle));
+    }
+    
+    @Override
+    public void onTick(String symbol, double bid, double ask, long timeMillis) {
+        if (symbol.equals(config.getSymbol())) {
+            long origin = LatencyTracker.currentTrace();
+            events.post(EngineEventLoop.EventType.TICK, () -> {
+                lastTickPrice = (bid + ask) / 2;
+                lastTickOrigin = origin;
+            });
+        }
+    }
+    
+    private void onNewCandle(CandleData candle) {
         LocalDateTime candleTime = candle.getTime();
         System.out.println("[决策引擎] 新K线开始 - 时间: " + 
                          candleTime.format(DateTimeFormatter.ofPattern("HH:mm:ss")) + 
@@ -51,16 +79,48 @@ public class SimpleDecisionEngine extends DecisionEngine {
         candleCheckCounter = 0;
         
         // 存储开盘价作为分析基础
-        if (priceHistoryIndex < priceHistory.length) {
-            priceHistory[priceHistoryIndex] = candle.getOpen();
-            priceHistoryIndex++;
-        } else {
-            // 滚动更新价格历史
-            System.arraycopy(priceHistory, 1, priceHistory, 0, priceHistory.length - 1);
-            priceHistory[priceHistory.length - 1] = candle.getOpen();
+        if (candle.getOpen() > 0) {
+            priceHistory.add(candle.getOpen());
+        }
+        
+        // 行情每笔都会带着当前K线到达，候选订单只在K线开盘时间变化时准备一次
+        if (!candleTime.equals(stagedBarTime)) {
+            stagedBarTime = candleTime;
+            stageOrders();
+        }
+    }
+    
+    /**
+     * 按当前配置预先生成买卖两个方向、全仓和半仓的订单消息，决策时只需填入价格
+     * 每根K线开盘时重新生成一次，配置热更新后下一根K线即生效
+     */
+    private void stageOrders() {
+        stagedOrders.clear();
+        TradingConfig settings = config.getSnapshot();
+        String symbol = settings.getSymbol();
+        double volume = settings.getTradeVolume();
+        try {
+            for (String action : new String[]{"BUY", "SELL"}) {
+                stageOrder(settings, symbol, action, volume);
+                stageOrder(settings, symbol, action, volume * 0.5);
+            }
+        } catch (Exception e) {
+            System.err.println("[决策引擎] 预备订单失败，下单时将实时生成: " + e.getMessage());
         }
     }
     
+    private void stageOrder(TradingConfig settings, String symbol, String action, double volume) {
+        StagedOrder staged = connector.stageOrder(symbol, action, volume,
+                settings.getStopLossPips(), settings.getTakeProfitPips(), settings.getSystemOrderComment());
+        if (staged != null) {
+            stagedOrders.put(stagedKey(action, volume), staged);
+        }
+    }
+    
+    private static String stagedKey(String action, double volume) {
+        return action + ":" + volume;
+    }
+    
     /**
      * 在每根K线的第45秒分析下一根K线趋势
      */
@@ -70,30 +130,41 @@ public class SimpleDecisionEngine extends DecisionEngine {
             return;
         }
         
-        // 计算当前K线已过去的时间（秒）
-        long secondsSinceCandleStart = java.time.Duration.between(lastCandleTime, currentTime).getSeconds();
-        
-        if (secondsSinceCandleStart < config.getCandleAnalysisSecond() || secondsSinceCandleStart >= config.getTimeframe()) {
-            return; // 不在分析时间或K线已结束
+        // 触发器保证在K线开盘后第45秒触发，这里只检查行情数据是否过期
+        LocalDateTime barOpen = analysisTrigger.barOpenOf(currentTime);
+        if (lastCandleTime.isBefore(barOpen.minusSeconds(config.getTimeframe()))) {
+            System.out.println("[决策引擎] ⏳ 行情数据已过期，跳过本次分析");
+            return;
         }
         
+        // 本次决策的所有参数来自同一份配置快照，不受期间热加载影响
+        TradingConfig settings = config.getSnapshot();
         candleCheckCounter++;
-        System.out.println("\n[决策引擎] 🔍 第" + config.getCandleAnalysisSecond() + "秒趋势分析 (检查#" + candleCheckCounter + ")");
+        System.out.println("\n[决策引擎] 🔍 第" + settings.getCandleAnalysisSecond() + "秒趋势分析 (检查#" + candleCheckCounter + ")");
         System.out.println("[决策引擎] 当前K线开始时间: " + 
-                         lastCandleTime.format(DateTimeFormatter.ofPattern("HH:mm:ss")));
+                         barOpen.format(DateTimeFormatter.ofPattern("HH:mm:ss")));
         System.out.println("[决策引擎] 分析时间: " + 
                          currentTime.format(DateTimeFormatter.ofPattern("HH:mm:ss")));
+        System.out.println("[决策引擎] 触发延迟: " + analysisTrigger.getLastLagNanos() / 1000 + "µs");
         
         try {
+            long decisionStart = System.nanoTime();
+            
             // 获取当前实时价格
-            double currentPrice = connector.getCurrentPrice(config.getSymbol());
+            double currentPrice = getCurrentPrice();
             System.out.println("[决策引擎] 当前实时价格: " + currentPrice);
             
             // 分析下一根K线可能的趋势
-            String trendPrediction = predictNextCandleTrend(currentPrice);
+            String trendPrediction = predictNextCandleTrend(settings, currentPrice);
+            latencyTracker.recordSince(LatencyTracker.Stage.DECISION, decisionStart);
             
-            // 基于趋势预测执行交易决策
-            executeDecisionBasedOnTrend(trendPrediction, currentPrice);
+            // 基于趋势预测执行交易决策，下单延迟从决策所用行情的到达时刻算起
+            LatencyTracker.beginTrace(lastTickOrigin);
+            try {
+                executeDecisionBasedOnTrend(settings, trendPrediction, currentPrice);
+            } finally {
+                LatencyTracker.endTrace();
+            }
             
         } catch (Exception e) {
             System.err.println("[决策引擎] ❌ 趋势分析失败: " + e.getMessage());
@@ -103,23 +174,27 @@ public class SimpleDecisionEngine extends DecisionEngine {
     /**
      * 预测下一根K线趋势
      */
-    private String predictNextCandleTrend(double currentPrice) {
+    private String predictNextCandleTrend(TradingConfig settings, double currentPrice) {
         // 简单的趋势预测逻辑，您可以根据需要扩展
         double averagePrice = calculateAveragePrice();
         double priceChange = currentPrice - averagePrice;
         double percentageChange = (priceChange / averagePrice) * 100;
         
         System.out.println("[决策引擎] 平均参考价: " + averagePrice);
+        if (priceHistory.size() > 1) {
+            System.out.println("[决策引擎] 区间: " + priceHistory.getMin() + " ~ " + priceHistory.getMax() +
+                             ", 波动: " + String.format("%.2f", priceHistory.getStdDev()));
+        }
         System.out.println("[决策引擎] 价格变化: " + priceChange + " (" + String.format("%.2f", percentageChange) + "%)");
         
         // 使用配置的阈值
-        if (percentageChange > config.getStrongBullishThreshold()) { // 上涨超过阈值
+        if (percentageChange > settings.getStrongBullishThreshold()) { // 上涨超过阈值
             return "STRONG_BULLISH";
-        } else if (percentageChange > config.getBullishThreshold()) { // 上涨超过阈值
+        } else if (percentageChange > settings.getBullishThreshold()) { // 上涨超过阈值
             return "BULLISH";
-        } else if (percentageChange < config.getStrongBearishThreshold()) { // 下跌超过阈值
+        } else if (percentageChange < settings.getStrongBearishThreshold()) { // 下跌超过阈值
             return "STRONG_BEARISH";
-        } else if (percentageChange < config.getBearishThreshold()) { // 下跌超过阈值
+        } else if (percentageChange < settings.getBearishThreshold()) { // 下跌超过阈值
             return "BEARISH";
         } else {
             return "NEUTRAL";
@@ -129,15 +204,15 @@ public class SimpleDecisionEngine extends DecisionEngine {
     /**
      * 基于趋势预测执行交易决策
      */
-    private void executeDecisionBasedOnTrend(String trendPrediction, double currentPrice) {
-        String symbol = config.getSymbol();
-        double volume = config.getTradeVolume(); // 使用配置的交易量
+    private void executeDecisionBasedOnTrend(TradingConfig settings, String trendPrediction, double currentPrice) {
+        String symbol = settings.getSymbol();
+        double volume = settings.getTradeVolume(); // 使用配置的交易量
         
         switch (trendPrediction) {
             case "STRONG_BULLISH":
                 System.out.println("[决策引擎] 📈📈 预测: 下一根K线强烈看涨");
                 System.out.println("[决策引擎] 💡 决策: 执行买入订单");
-                executeTrade(symbol, "BUY", volume, currentPrice);
+                executeTrade(settings, symbol, "BUY", volume, currentPrice);
                 break;
                 
             case "BULLISH":
@@ -145,7 +220,7 @@ public class SimpleDecisionEngine extends DecisionEngine {
                 // 可以设置更保守的参数或添加额外条件
                 if (currentPrice > calculateAveragePrice()) {
                     System.out.println("[决策引擎] 💡 决策: 价格高于均线，执行买入");
-                    executeTrade(symbol, "BUY", volume * 0.5, currentPrice);
+                    executeTrade(settings, symbol, "BUY", volume * 0.5, currentPrice);
                 } else {
                     System.out.println("[决策引擎] ⏸️ 决策: 观望等待更好入场点");
                 }
@@ -154,14 +229,14 @@ public class SimpleDecisionEngine extends DecisionEngine {
             case "STRONG_BEARISH":
                 System.out.println("[决策引擎] 📉📉 预测: 下一根K线强烈看跌");
                 System.out.println("[决策引擎] 💡 决策: 执行卖出订单");
-                executeTrade(symbol, "SELL", volume, currentPrice);
+                executeTrade(settings, symbol, "SELL", volume, currentPrice);
                 break;
                 
             case "BEARISH":
                 System.out.println("[决策引擎] 📉 预测: 下一根K线看跌");
                 if (currentPrice < calculateAveragePrice()) {
                     System.out.println("[决策引擎] 💡 决策: 价格低于均线，执行卖出");
-                    executeTrade(symbol, "SELL", volume * 0.5, currentPrice);
+                    executeTrade(settings, symbol, "SELL", volume * 0.5, currentPrice);
                 } else {
                     System.out.println("[决策引擎] ⏸️ 决策: 观望等待更好入场点");
                 }
@@ -175,9 +250,12 @@ public class SimpleDecisionEngine extends DecisionEngine {
     }
     
     /**
-     * 获取当前实时价格
+     * 获取当前实时价格（优先使用最新行情）
      */
     private double getCurrentPrice() {
+        if (lastTickPrice > 0) {
+            return lastTickPrice;
+        }
         try {
             return connector.getCurrentPrice(config.getSymbol());
         } catch (Exception e) {
@@ -190,70 +268,87 @@ public class SimpleDecisionEngine extends DecisionEngine {
      * 计算平均价格（用于趋势分析）
      */
     private double calculateAveragePrice() {
-        double sum = 0;
-        int count = 0;
-        for (double price : priceHistory) {
-            if (price > 0) {
-                sum += price;
-                count++;
-            }
-        }
-        return count > 0 ? sum / count : getCurrentPrice();
+        return priceHistory.isEmpty() ? getCurrentPrice() : priceHistory.getMean();
     }
     
     /**
      * 重写的执行交易方法，包含当前价格
      */
-    private void executeTrade(String symbol, String action, double volume, double currentPrice) {
+    private void executeTrade(TradingConfig settings, String symbol, String action, double volume,
+                              double currentPrice) {
         System.out.println("[决策引擎] 执行" + action + "交易: " + symbol + 
                          " 数量: " + volume + " 价格: " + currentPrice);
         
-        // 在测试模式下，只打印日志，不真正执行
-        if (config.isTestMode()) {
-            System.out.println("[决策引擎] 🧪 测试模式：模拟交易执行");
-            System.out.println("[决策引擎] 📊 交易详情:");
-            System.out.println("   品种: " + symbol);
-            System.out.println("   方向: " + action);
-            System.out.println("   手数: " + volume);
-            System.out.println("   入场价: " + currentPrice);
-            System.out.println("[决策引擎] 实际交易已跳过 (测试模式)");
-        } else {
-            // 实际执行交易
-            try {
-                // 设置止损止盈（使用配置的点数）
-                double stopLoss = action.equals("BUY") ? 
-                    currentPrice - config.getStopLossPips() : 
-                    currentPrice + config.getStopLossPips();
-                double takeProfit = action.equals("BUY") ? 
-                    currentPrice + config.getTakeProfitPips() : 
-                    currentPrice - config.getTakeProfitPips();
-                
-                connector.sendOrder(symbol, action, volume, currentPrice, stopLoss, takeProfit);
-                System.out.println("[决策引擎] ✅ 交易指令已发送");
-                System.out.println("[决策引擎] 🛡️ 止损: " + stopLoss + " 🎯 止盈: " + takeProfit);
-            } catch (Exception e) {
-                System.err.println("[决策引擎] ❌ 交易发送失败: " + e.getMessage());
+        // 测试模式下连接器是模拟成交器，订单照常发出
+        if (connector.isSimulated()) {
+            System.out.println("[决策引擎] 🧪 测试模式：由模拟成交器执行");
+        } else if (blocksLiveTrading(settings)) {
+            return;
+        }
+        
+        // 交易前风控检查
+        if (!passesRiskCheck(symbol, OrderSide.fromType(action), volume)) {
+            return;
+        }
+        
+        // 实际执行交易
+        try {
+            StagedOrder staged = stagedOrders.remove(stagedKey(action, volume));
+            if (staged != null && staged.getSymbol().equals(symbol)) {
+                // 使用预备订单，只填写价格
+                connector.submitStaged(staged, currentPrice);
+                System.out.println("[决策引擎] ✅ 交易指令已发送 (预备订单 " + staged.getClientOrderId() + ")");
+                System.out.println("[决策引擎] 🛡️ 止损: " + staged.stopLossFor(currentPrice) +
+                                 " 🎯 止盈: " + staged.takeProfitFor(currentPrice));
+                return;
             }
+            
+            // 没有匹配的预备订单，设置止损止盈（使用配置的点数）
+            double stopLoss = action.equals("BUY") ? 
+                currentPrice - settings.getStopLossPips() : 
+                currentPrice + settings.getStopLossPips();
+            double takeProfit = action.equals("BUY") ? 
+                currentPrice + settings.getTakeProfitPips() : 
+                currentPrice - settings.getTakeProfitPips();
+            
+            connector.sendOrder(symbol, action, volume, currentPrice, stopLoss, takeProfit);
+            System.out.println("[决策引擎] ✅ 交易指令已发送");
+            System.out.println("[决策引擎] 🛡️ 止损: " + stopLoss + " 🎯 止盈: " + takeProfit);
+        } catch (Exception e) {
+            System.err.println("[决策引擎] ❌ 交易发送失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 交易前风控检查，未通过时输出原因
+     */
+    private boolean passesRiskCheck(String symbol, OrderSide side, double volume) {
+        RiskEngine riskEngine = connector.getRiskEngine();
+        if (riskEngine == null || side == null) {
+            return true;
         }
+        RiskEngine.Verdict verdict = riskEngine.check(symbol, side, volume);
+        if (verdict != RiskEngine.Verdict.APPROVED) {
+            System.out.println("[决策引擎] 🛑 风控拒绝: " + verdict.getDescription() + " (" + riskEngine.getSummary() + ")");
+            return false;
+        }
+        return true;
     }
     
     @Override
     public void executeTrade(String symbol, String action, double volume) {
         // 调用重载版本，使用当前价格
-        executeTrade(symbol, action, volume, getCurrentPrice());
+        events.post(EngineEventLoop.EventType.ORDER,
+                () -> executeTrade(config.getSnapshot(), symbol, action, volume, getCurrentPrice()));
     }
     
     /**
      * 清理资源
      */
+    @Override
     public void shutdown() {
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-        }
+        analysisTrigger.stop();
+        System.out.println("[决策引擎] " + events.getStatsSummary());
+        events.stop();
     }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.mt5trading.services;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.mt5.connector.MT5Connector;
+import com.mt5trading.models.CandleData;
+import com.mt5trading.timer.TimerService;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 多策略宿主
+ * 把同一路行情分发给多个决策引擎，每个引擎使用自己的配置和状态，
+ * 并在各自的事件循环（执行通道）上处理事件，慢策略只会积压自己的队列，不会拖慢其他策略。
+ *
+ * 宿主本身只做分发，不是决策引擎，也没有自己的事件循环：
+ * 子引擎的 analyzeNewCandle / onTick 必须只向自己的事件循环投递事件并立即返回。
+ */
+public class StrategyHost implements MarketDataHandler {
+    private final Map<String, DecisionEngine> strategies;
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * 按 app.strategies 创建所有策略，每个策略使用 strategy.<名称>.* 覆盖后的配置
+     */
+    public StrategyHost(TradingConfig config, MT5Connector connector, TimerService timer) {
+        this(createStrategies(config, connector, timer));
+    }
+
+    public StrategyHost(Map<String, DecisionEngine> strategies) {
+        if (strategies.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个策略");
+        }
+        this.strategies = Collections.unmodifiableMap(new LinkedHashMap<>(strategies));
+        System.out.println("[策略宿主] 已加载 " + strategies.size() + " 个策略: " + strategies.keySet());
+    }
+
+    private static Map<String, DecisionEngine> createStrategies(TradingConfig config, MT5Connector connector,
+                                                                TimerService timer) {
+        Map<String, DecisionEngine> engines = new LinkedHashMap<>();
+        for (String name : config.getStrategyNames()) {
+            engines.put(name, createEngine(config.forStrategy(name), connector, timer));
+        }
+        return engines;
+    }
+
+    /**
+     * 根据配置创建单个决策引擎
+     */
+    public static DecisionEngine createEngine(TradingConfig config, MT5Connector connector, TimerService timer) {
+        if (config.isEnableOrderMonitoring()) {
+            return new UserOrderDecisionEngine(config, connector, timer);
+        }
+        return new SimpleDecisionEngine(config, connector, timer);
+    }
+
+    @Override
+    public void analyzeNewCandle(CandleData candle) {
+        for (DecisionEngine engine : strategies.values()) {
+            engine.analyzeNewCandle(candle);
+        }
+    }
+
+    @Override
+    public void onTick(String symbol, double bid, double ask, long timeMillis) {
+        for (DecisionEngine engine : strategies.values()) {
+            engine.onTick(symbol, bid, ask, timeMillis);
+        }
+    }
+
+    public Map<String, DecisionEngine> getStrategies() {
+        return strategies;
+    }
+
+    public DecisionEngine getStrategy(String name) {
+        return strategies.get(name);
+    }
+
+    /**
+     * 某个策略的吞吐量（每秒处理事件数）
+     */
+    public double getThroughput(String name) {
+        DecisionEngine engine = strategies.get(name);
+        if (engine == null) {
+            return 0;
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? engine.getEventLoop().getProcessedCount() / seconds : 0;
+    }
+
+    /**
+     * 各策略的延迟与吞吐量摘要，每行一个策略
+     */
+    public String getStrategySummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, DecisionEngine> entry : strategies.entrySet()) {
+            EngineEventLoop loop = entry.getValue().getEventLoop();
+            sb.append(String.format("%s: %.1f事件/秒, 积压 %d, K线平均延迟 %.1fµs, 行情平均延迟 %.1fµs, 最大等待 %.1fµs%n",
+                    entry.getKey(), getThroughput(entry.getKey()), loop.getQueueSize(),
+                    loop.getAverageLatencyNanos(EngineEventLoop.EventType.CANDLE) / 1000.0,
+                    loop.getAverageLatencyNanos(EngineEventLoop.EventType.TICK) / 1000.0,
+                    maxWaitNanos(loop) / 1000.0));
+        }
+        return sb.toString();
+    }
+
+    private static long maxWaitNanos(EngineEventLoop loop) {
+        long max = 0;
+        for (EngineEventLoop.EventType type : EngineEventLoop.EventType.values()) {
+            max = Math.max(max, loop.getMaxWaitNanos(type));
+        }
+        return max;
+    }
+
+    @Override
+    public void displayStatus() {
+        System.out.println("\n" + "=".repeat(50));
+        System.out.println("[策略宿主] " + strategies.size() + " 个策略运行中");
+        System.out.print(getStrategySummary());
+        System.out.println("=".repeat(50));
+        for (DecisionEngine engine : strategies.values()) {
+            engine.displayStatus();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        System.out.print("[策略宿主] 最终统计\n" + getStrategySummary());
+        for (DecisionEngine engine : strategies.values()) {
+            engine.shutdown();
+        }
+    }
+}
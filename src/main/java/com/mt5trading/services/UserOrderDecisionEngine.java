@@ -4,12 +4,15 @@ import com.mt5trading.config.TradingConfig;
 import com.mt5trading.mt5.connector.MT5Connector;
 import com.mt5trading.models.CandleData;
 import com.mt5trading.models.OrderInfo;
+import com.mt5trading.models.OrderSide;
+import com.mt5trading.timer.HashedWheelTimer;
+import com.mt5trading.timer.Timeout;
+import com.mt5trading.timer.TimerService;
+import com.mt5trading.util.LatencyTracker;
+import com.mt5trading.util.RollingWindow;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -17,16 +20,19 @@ import java.util.concurrent.TimeUnit;
  * 1. 检测用户手动下的订单
  * 2. 在K线第45秒分析趋势
  * 3. 决定是否执行用户订单
+ * 扫描结果、K线、行情和定时事件都通过事件循环串行处理，引擎状态无需加锁
  */
 public class UserOrderDecisionEngine extends DecisionEngine {
     
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private CandleAnalysisTrigger analysisTrigger;
+    private Timeout scanTimeout;
+    private Timeout cleanupTimeout;
     private LocalDateTime lastCandleTime;
-    private final Map<Integer, PendingUserOrder> pendingOrders = new ConcurrentHashMap<>();
-    private final Map<Integer, OrderInfo> activeSystemOrders = new ConcurrentHashMap<>();
-    private double[] priceHistory = new double[10];
-    private int priceHistoryIndex = 0;
-    private boolean isAnalyzing = false;
+    private final PendingOrderBook<PendingUserOrder> pendingOrders = new PendingOrderBook<>();
+    private final RollingWindow priceHistory;
+    private double lastTickPrice = 0;
+    private long lastTickOrigin = 0; // 最新行情到达时刻，作为端到端延迟起点
+    private final LatencyTracker latencyTracker = LatencyTracker.getDefault();
     
     // 等待执行的用户订单
     private static class PendingUserOrder {
@@ -43,41 +49,86 @@ public class UserOrderDecisionEngine extends DecisionEngine {
     }
     
     public UserOrderDecisionEngine(TradingConfig config, MT5Connector connector) {
-        super(config, connector);
+        this(config, connector, HashedWheelTimer.getDefault());
+    }
+    
+    public UserOrderDecisionEngine(TradingConfig config, MT5Connector connector, TimerService timer) {
+        this(config, connector, timer, null);
+    }
+    
+    public UserOrderDecisionEngine(TradingConfig config, MT5Connector connector, TimerService timer,
+                                   EngineEventLoop events) {
+        super(config, connector, timer, events);
+        this.priceHistory = new RollingWindow(config.getPriceHistorySize());
         initializeServices();
     }
     
     private void initializeServices() {
         System.out.println("[系统] 启动用户订单监控与延迟执行系统");
         
+        events.start();
+        
+        // 0. 重启前已检测到的用户订单从订单存储恢复
+        events.post(EngineEventLoop.EventType.ORDER, this::restorePendingOrders);
+        
         // 1. 每3秒扫描一次用户订单
-        scheduler.scheduleAtFixedRate(this::scanUserOrders, 0, config.getOrderScanInterval(), TimeUnit.SECONDS);
+        scanTimeout = timer.scheduleAtFixedRate(this::scanUserOrders, 0, config.getOrderScanInterval(), TimeUnit.SECONDS);
         
-        // 2. 每秒检查时间，在第45秒分析趋势
-        scheduler.scheduleAtFixedRate(() -> {
-            LocalDateTime now = LocalDateTime.now();
-            int second = now.getSecond();
-            
-            if (second == config.getCandleAnalysisSecond() && !isAnalyzing) {
-                analyzeAndDecide(now);
-            }
-        }, 0, 1, TimeUnit.SECONDS);
+        // 2. 在每根K线开盘后第45秒精确触发趋势分析
+        analysisTrigger = new CandleAnalysisTrigger(
+            config.getTimeframe(), config.getCandleAnalysisSecond(), timer, analysisTime ->
+                events.post(EngineEventLoop.EventType.TIMER, () -> analyzeAndDecide(analysisTime)));
+        analysisTrigger.start();
         
         // 3. 每10秒清理过期订单
-        scheduler.scheduleAtFixedRate(this::cleanupExpiredOrders, 1, 10, TimeUnit.SECONDS);
+        cleanupTimeout = timer.scheduleAtFixedRate(
+            () -> events.post(EngineEventLoop.EventType.TIMER, this::cleanupExpiredOrders), 1, 10, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * 从订单存储恢复挂单阶段的用户订单，检测时间取订单创建时间，过期清理照常生效
+     */
+    private void restorePendingOrders() {
+        OrderStore orderStore = connector.getOrderStore();
+        if (orderStore == null) {
+            return;
+        }
+        int restored = 0;
+        for (OrderInfo order : orderStore.getPending()) {
+            if (order.getSide() == null || pendingOrders.contains(order.getTicket())) {
+                continue;
+            }
+            LocalDateTime detectedTime = order.getTimeSetup() != null ? order.getTimeSetup() : timer.localNow();
+            pendingOrders.add(order.getTicket(), order.getSide(), order.getPrice(),
+                    new PendingUserOrder(order, detectedTime, lastCandleTime));
+            restored++;
+        }
+        if (restored > 0) {
+            System.out.println("[订单检测] ♻️ 从订单日志恢复 " + restored + " 个待处理用户订单");
+        }
     }
     
     /**
-     * 扫描用户手动下的订单
+     * 扫描用户手动下的订单（在定时线程上获取，交给事件循环处理）
      */
     private void scanUserOrders() {
         try {
             List<OrderInfo> allOrders = connector.getPendingOrders();
-            
+            events.post(EngineEventLoop.EventType.ORDER, () -> onOrdersScanned(allOrders));
+        } catch (Exception e) {
+            System.err.println("[订单扫描] ❌ 错误: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 处理扫描到的订单
+     */
+    private void onOrdersScanned(List<OrderInfo> allOrders) {
+        try {
             for (OrderInfo order : allOrders) {
                 // 检查是否为新的用户挂单
-                if (isNewUserOrder(order) && !pendingOrders.containsKey(order.getTicket())) {
-                    LocalDateTime now = LocalDateTime.now();
+                if (isNewUserOrder(order) && !pendingOrders.contains(order.getTicket())) {
+                    LocalDateTime now = timer.localNow();
                     
                     System.out.println("\n[订单检测] 🔍 发现用户手动订单!");
                     System.out.println("    订单号: " + order.getTicket());
@@ -89,7 +140,7 @@ public class UserOrderDecisionEngine extends DecisionEngine {
                     
                     // 添加到待处理列表
                     PendingUserOrder pendingOrder = new PendingUserOrder(order, now, lastCandleTime);
-                    pendingOrders.put(order.getTicket(), pendingOrder);
+                    pendingOrders.add(order.getTicket(), order.getSide(), order.getPrice(), pendingOrder);
                     
                     System.out.println("[订单处理] ⏸️ 订单已暂存，等待第" + config.getCandleAnalysisSecond() + "秒趋势分析...");
                     
@@ -120,8 +171,17 @@ public class UserOrderDecisionEngine extends DecisionEngine {
             return false;
         }
         
-        // 检查是否已在活跃系统订单中
-        if (activeSystemOrders.containsKey(order.getTicket())) {
+        // 检查是否已执行或已持仓
+        OrderStore orderStore = connector.getOrderStore();
+        if (orderStore != null) {
+            OrderInfo known = orderStore.get(order.getTicket());
+            if (known != null && known.getState().isActive()) {
+                return false;
+            }
+        }
+        
+        // 无法识别方向的订单不参与决策
+        if (order.getSide() == null) {
             return false;
         }
         
@@ -157,11 +217,11 @@ public class UserOrderDecisionEngine extends DecisionEngine {
      * 在第45秒分析趋势并决策
      */
     private void analyzeAndDecide(LocalDateTime analysisTime) {
-        isAnalyzing = true;
-        
         try {
+            // 本次决策的所有参数来自同一份配置快照，不受期间热加载影响
+            TradingConfig settings = config.getSnapshot();
             System.out.println("\n" + "=".repeat(50));
-            System.out.println("[趋势分析] 🕐 第" + config.getCandleAnalysisSecond() + "秒分析开始");
+            System.out.println("[趋势分析] 🕐 第" + settings.getCandleAnalysisSecond() + "秒分析开始");
             System.out.println("[分析时间] " + analysisTime.format(DateTimeFormatter.ofPattern("HH:mm:ss")));
             
             if (pendingOrders.isEmpty()) {
@@ -169,167 +229,168 @@ public class UserOrderDecisionEngine extends DecisionEngine {
                 return;
             }
             
+            long decisionStart = System.nanoTime();
+            
             // 获取当前价格用于分析
-            double currentPrice = connector.getCurrentPrice(config.getSymbol());
+            double currentPrice = getCurrentPrice();
             System.out.println("[市场价格] 当前价: " + currentPrice);
             
             // 分析下一根K线趋势
-            String trendPrediction = predictNextCandleTrend(currentPrice);
+            String trendPrediction = predictNextCandleTrend(settings, currentPrice);
+            latencyTracker.recordSince(LatencyTracker.Stage.DECISION, decisionStart);
             System.out.println("[趋势预测] " + getTrendDescription(trendPrediction));
             
-            // 对每个待处理订单做出决策
-            Iterator<Map.Entry<Integer, PendingUserOrder>> iterator = pendingOrders.entrySet().iterator();
+            // 下单延迟从决策所用行情的到达时刻算起
+            LatencyTracker.beginTrace(lastTickOrigin);
             
-            while (iterator.hasNext()) {
-                Map.Entry<Integer, PendingUserOrder> entry = iterator.next();
-                int ticket = entry.getKey();
-                PendingUserOrder pendingOrder = entry.getValue();
-                OrderInfo order = pendingOrder.order;
-                
-                System.out.println("\n[订单决策] 处理订单 #" + ticket);
-                System.out.println("    方向: " + order.getType());
-                System.out.println("    价格: " + order.getPrice());
-                
-                // 决定是否执行
-                boolean shouldExecute = shouldExecuteOrder(order, trendPrediction, currentPrice);
-                
-                if (shouldExecute) {
-                    executePendingOrder(pendingOrder, trendPrediction);
-                    iterator.remove(); // 从待处理列表移除
-                } else {
-                    cancelOrKeepOrder(pendingOrder, trendPrediction);
-                    iterator.remove(); // 从待处理列表移除
-                }
+            // 按价格区间一次取出所有符合条件的订单并执行
+            for (PendingUserOrder pendingOrder : selectEligibleOrders(settings, trendPrediction, currentPrice)) {
+                printOrderDecision(pendingOrder.order);
+                executePendingOrder(settings, pendingOrder, trendPrediction);
+                pendingOrders.remove(pendingOrder.order.getTicket());
             }
             
+            // 其余订单取消或保留
+            for (PendingUserOrder pendingOrder : pendingOrders.values()) {
+                printOrderDecision(pendingOrder.order);
+                cancelOrKeepOrder(settings, pendingOrder, trendPrediction);
+            }
+            pendingOrders.clear();
+            
         } catch (Exception e) {
             System.err.println("[趋势分析] ❌ 分析失败: " + e.getMessage());
         } finally {
-            isAnalyzing = false;
+            LatencyTracker.endTrace();
         }
     }
     
     /**
      * 预测下一根K线趋势
      */
-    private String predictNextCandleTrend(double currentPrice) {
+    private String predictNextCandleTrend(TradingConfig settings, double currentPrice) {
         double averagePrice = calculateAveragePrice();
         double priceChange = currentPrice - averagePrice;
         double percentageChange = (priceChange / averagePrice) * 100;
         
         System.out.println("[技术分析] 平均价: " + averagePrice + 
-                         " | 变化: " + String.format("%.2f", percentageChange) + "%");
+                         " | 变化: " + String.format("%.2f", percentageChange) + "%" +
+                         " | 波动: " + String.format("%.2f", priceHistory.size() > 1 ? priceHistory.getStdDev() : 0.0));
         
         // 使用配置的阈值
-        if (percentageChange > config.getStrongBullishThreshold()) return "STRONG_BULLISH";
-        if (percentageChange > config.getBullishThreshold()) return "BULLISH";
-        if (percentageChange < config.getStrongBearishThreshold()) return "STRONG_BEARISH";
-        if (percentageChange < config.getBearishThreshold()) return "BEARISH";
+        if (percentageChange > settings.getStrongBullishThreshold()) return "STRONG_BULLISH";
+        if (percentageChange > settings.getBullishThreshold()) return "BULLISH";
+        if (percentageChange < settings.getStrongBearishThreshold()) return "STRONG_BEARISH";
+        if (percentageChange < settings.getBearishThreshold()) return "BEARISH";
         return "NEUTRAL";
     }
     
     /**
-     * 判断是否应该执行订单
+     * 根据趋势和当前价格选出应该执行的订单
      */
-    private boolean shouldExecuteOrder(OrderInfo order, String trendPrediction, double currentPrice) {
-        String orderType = order.getType().toUpperCase();
-        
-        // 检查订单方向与趋势是否一致
+    private List<PendingUserOrder> selectEligibleOrders(TradingConfig settings, String trendPrediction,
+                                                        double currentPrice) {
         switch (trendPrediction) {
             case "STRONG_BULLISH":
-                return orderType.contains("BUY"); // 只执行买单
+                return pendingOrders.all(OrderSide.BUY); // 只执行买单
                 
             case "BULLISH":
-                if (orderType.contains("BUY")) {
-                    // 买单：检查价格是否合适
-                    double priceDiff = currentPrice - order.getPrice();
-                    return priceDiff <= config.getPriceTolerance(); // 价格差不超过容忍度
-                }
-                return false;
+                // 买单：价格差不超过容忍度
+                return pendingOrders.atOrAbove(OrderSide.BUY, currentPrice - settings.getPriceTolerance());
                 
             case "STRONG_BEARISH":
-                return orderType.contains("SELL"); // 只执行卖单
+                return pendingOrders.all(OrderSide.SELL); // 只执行卖单
                 
             case "BEARISH":
-                if (orderType.contains("SELL")) {
-                    // 卖单：检查价格是否合适
-                    double priceDiff = order.getPrice() - currentPrice;
-                    return priceDiff <= config.getPriceTolerance(); // 价格差不超过容忍度
-                }
-                return false;
+                // 卖单：价格差不超过容忍度
+                return pendingOrders.atOrBelow(OrderSide.SELL, currentPrice + settings.getPriceTolerance());
                 
-            case "NEUTRAL":
-                // 震荡行情：检查订单是否有足够的价格优势
-                if (orderType.contains("BUY")) {
-                    return order.getPrice() < currentPrice - config.getNeutralBuyAdvantage();
-                } else {
-                    return order.getPrice() > currentPrice + config.getNeutralSellAdvantage();
-                }
+            case "NEUTRAL": {
+                // 震荡行情：只执行有足够价格优势的订单
+                List<PendingUserOrder> eligible = new ArrayList<>(
+                    pendingOrders.below(OrderSide.BUY, currentPrice - settings.getNeutralBuyAdvantage()));
+                eligible.addAll(pendingOrders.above(OrderSide.SELL, currentPrice + settings.getNeutralSellAdvantage()));
+                return eligible;
+            }
                 
             default:
-                return false;
+                return Collections.emptyList();
         }
     }
     
+    private void printOrderDecision(OrderInfo order) {
+        System.out.println("\n[订单决策] 处理订单 #" + order.getTicket());
+        System.out.println("    方向: " + order.getType());
+        System.out.println("    价格: " + order.getPrice());
+    }
+    
     /**
      * 执行待处理的用户订单
      */
-    private void executePendingOrder(PendingUserOrder pendingOrder, String trendPrediction) {
+    private void executePendingOrder(TradingConfig settings, PendingUserOrder pendingOrder, String trendPrediction) {
         OrderInfo order = pendingOrder.order;
         
         System.out.println("[订单执行] ✅ 批准执行订单 #" + order.getTicket());
         System.out.println("    原因: 订单方向与趋势预测一致 (" + trendPrediction + ")");
         
-        if (config.isTestMode()) {
-            System.out.println("[测试模式] 🧪 模拟执行用户订单");
-            System.out.println("    品种: " + order.getSymbol());
-            System.out.println("    方向: " + order.getType());
-            System.out.println("    手数: " + order.getVolume());
-            System.out.println("    价格: " + order.getPrice());
-        } else {
-            try {
-                // 恢复/执行用户订单
-                boolean success = connector.executeOrder(
-                    order.getTicket(),
-                    order.getSymbol(),
-                    order.getType(),
-                    order.getVolume(),
-                    order.getPrice(),
-                    order.getStopLoss(),
-                    order.getTakeProfit(),
-                    "APPROVED_BY_SYSTEM_" + trendPrediction
-                );
-                
-                if (success) {
-                    System.out.println("[订单执行] ✅ 用户订单已执行");
-                    activeSystemOrders.put(order.getTicket(), order);
-                } else {
-                    System.out.println("[订单执行] ❌ 订单执行失败");
-                }
-            } catch (Exception e) {
-                System.err.println("[订单执行] 错误: " + e.getMessage());
+        // 测试模式下连接器是模拟成交器，订单照常执行
+        if (connector.isSimulated()) {
+            System.out.println("[测试模式] 🧪 由模拟成交器执行用户订单");
+        } else if (blocksLiveTrading(settings)) {
+            return;
+        }
+        
+        // 交易前风控检查
+        RiskEngine riskEngine = connector.getRiskEngine();
+        if (riskEngine != null) {
+            RiskEngine.Verdict verdict = riskEngine.check(order.getSymbol(), order.getSide(), order.getVolume());
+            if (verdict != RiskEngine.Verdict.APPROVED) {
+                System.out.println("[订单执行] 🛑 风控拒绝: " + verdict.getDescription() + " (" + riskEngine.getSummary() + ")");
+                return;
             }
         }
         
+        try {
+            // 恢复/执行用户订单
+            boolean success = connector.executeOrder(
+                order.getTicket(),
+                order.getSymbol(),
+                order.getType(),
+                order.getVolume(),
+                order.getPrice(),
+                order.getStopLoss(),
+                order.getTakeProfit(),
+                "APPROVED_BY_SYSTEM_" + trendPrediction
+            );
+            
+            if (success) {
+                System.out.println("[订单执行] ✅ 用户订单已执行");
+            } else {
+                System.out.println("[订单执行] ❌ 订单执行失败");
+            }
+        } catch (Exception e) {
+            System.err.println("[订单执行] 错误: " + e.getMessage());
+        }
+        
         pendingOrder.approved = true;
     }
     
     /**
      * 取消或保留订单
      */
-    private void cancelOrKeepOrder(PendingUserOrder pendingOrder, String trendPrediction) {
+    private void cancelOrKeepOrder(TradingConfig settings, PendingUserOrder pendingOrder, String trendPrediction) {
         OrderInfo order = pendingOrder.order;
         
-        if (config.isAutoCancelOrders()) {
+        if (settings.isAutoCancelOrders()) {
+            if (blocksLiveTrading(settings)) {
+                return;
+            }
             System.out.println("[订单处理] ❌ 取消订单 #" + order.getTicket());
             System.out.println("    原因: 订单方向与趋势预测不一致 (" + trendPrediction + ")");
             
-            if (!config.isTestMode()) {
-                try {
-                    connector.cancelOrder(order.getTicket(), "CANCELLED_BY_SYSTEM");
-                } catch (Exception e) {
-                    System.err.println("[订单取消] 错误: " + e.getMessage());
-                }
+            try {
+                connector.cancelOrder(order.getTicket(), "CANCELLED_BY_SYSTEM");
+            } catch (Exception e) {
+                System.err.println("[订单取消] 错误: " + e.getMessage());
             }
         } else {
             System.out.println("[订单处理] ⏸️ 保留订单 #" + order.getTicket() + " (等待下一次分析)");
@@ -341,23 +402,34 @@ public class UserOrderDecisionEngine extends DecisionEngine {
      * 清理过期订单
      */
     private void cleanupExpiredOrders() {
-        LocalDateTime now = LocalDateTime.now();
-        Iterator<Map.Entry<Integer, PendingUserOrder>> iterator = pendingOrders.entrySet().iterator();
+        LocalDateTime now = timer.localNow();
         
-        while (iterator.hasNext()) {
-            Map.Entry<Integer, PendingUserOrder> entry = iterator.next();
-            PendingUserOrder pendingOrder = entry.getValue();
-            
+        for (PendingUserOrder pendingOrder : pendingOrders.values()) {
             // 如果订单等待超过最大等待时间，清理掉
             if (pendingOrder.detectedTime.plusSeconds(config.getMaxOrderHoldTime()).isBefore(now)) {
                 System.out.println("[清理] 移除过期订单 #" + pendingOrder.order.getTicket());
-                iterator.remove();
+                pendingOrders.remove(pendingOrder.order.getTicket());
             }
         }
     }
     
     @Override
     public void analyzeNewCandle(CandleData candle) {
+        events.post(EngineEventLoop.EventType.CANDLE, () -> onNewCandle(candle));
+    }
+    
+    @Override
+    public void onTick(String symbol, double bid, double ask, long timeMillis) {
+        if (symbol.equals(config.getSymbol())) {
+            long origin = LatencyTracker.currentTrace();
+            events.post(EngineEventLoop.EventType.TICK, () -> {
+                lastTickPrice = (bid + ask) / 2;
+                lastTickOrigin = origin;
+            });
+        }
+    }
+    
+    private void onNewCandle(CandleData candle) {
         LocalDateTime candleTime = candle.getTime();
         System.out.println("\n[K线更新] 📊 新K线开始: " + 
                          candleTime.format(DateTimeFormatter.ofPattern("HH:mm:ss")) + 
@@ -366,12 +438,8 @@ public class UserOrderDecisionEngine extends DecisionEngine {
         lastCandleTime = candleTime;
         
         // 更新价格历史
-        if (priceHistoryIndex < priceHistory.length) {
-            priceHistory[priceHistoryIndex] = candle.getOpen();
-            priceHistoryIndex++;
-        } else {
-            System.arraycopy(priceHistory, 1, priceHistory, 0, priceHistory.length - 1);
-            priceHistory[priceHistory.length - 1] = candle.getOpen();
+        if (candle.getOpen() > 0) {
+            priceHistory.add(candle.getOpen());
         }
     }
     
@@ -399,43 +467,59 @@ public class UserOrderDecisionEngine extends DecisionEngine {
      * 计算平均价格
      */
     private double calculateAveragePrice() {
-        double sum = 0;
-        int count = 0;
-        for (double price : priceHistory) {
-            if (price > 0) {
-                sum += price;
-                count++;
-            }
-        }
-        return count > 0 ? sum / count : connector.getCurrentPrice(config.getSymbol());
+        return priceHistory.isEmpty() ? getCurrentPrice() : priceHistory.getMean();
+    }
+    
+    /**
+     * 获取当前价格（优先使用最新行情）
+     */
+    private double getCurrentPrice() {
+        return lastTickPrice > 0 ? lastTickPrice : connector.getCurrentPrice(config.getSymbol());
     }
     
     /**
      * 显示系统状态
      */
+    @Override
     public void displayStatus() {
+        events.post(EngineEventLoop.EventType.QUERY, this::printStatus);
+    }
+    
+    private void printStatus() {
         System.out.println("\n" + "=".repeat(50));
         System.out.println("[系统状态] 用户订单决策引擎");
         System.out.println("[待处理订单] " + pendingOrders.size() + " 个");
-        System.out.println("[活跃订单] " + activeSystemOrders.size() + " 个");
-        System.out.println("[当前价格] " + connector.getCurrentPrice(config.getSymbol()));
-        System.out.println("[工作模式] " + (config.isTestMode() ? "测试" : "实盘"));
+        OrderStore orderStore = connector.getOrderStore();
+        if (orderStore != null) {
+            System.out.println("[活跃订单] " + orderStore.getActive().size() + " 个 (" + orderStore.getSummary() + ")");
+        }
+        System.out.println("[当前价格] " + getCurrentPrice());
+        System.out.println("[工作模式] " + (connector.isSimulated() ? "测试（模拟成交）" : "实盘"));
         System.out.println("[分析时间] 每根K线第" + config.getCandleAnalysisSecond() + "秒");
+        System.out.println("[触发精度] " + analysisTrigger.getLagSummary());
+        System.out.println("[事件处理] " + events.getStatsSummary());
+        System.out.print("[延迟统计]\n" + latencyTracker.getSummary());
+        if (connector.getRiskEngine() != null) {
+            System.out.println("[风控] " + connector.getRiskEngine().getSummary());
+        }
+        if (connector.getPositionBook() != null) {
+            System.out.println("[持仓] " + connector.getPositionBook().getSummary());
+        }
+        if (connector.getCommandPipeline() != null) {
+            System.out.println("[发送队列] " + connector.getCommandPipeline().getSummary());
+        }
         System.out.println("=".repeat(50));
     }
     
     /**
      * 关闭系统
      */
+    @Override
     public void shutdown() {
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-        }
+        analysisTrigger.stop();
+        scanTimeout.cancel();
+        cleanupTimeout.cancel();
+        events.stop();
         System.out.println("[系统] 用户订单决策引擎已关闭");
     }
 }
\ No newline at end of file
@@ -0,0 +1,368 @@
+package com.mt5trading.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 哈希时间轮定时器
+ * 时间被切分为固定长度的 tick，任务按到期 tick 散列到环形槽位中，
+ * 注册与取消都是 O(1)。单个工作线程推进时间轮，
+ * 没有到期任务的槽位会被跳过，空闲时线程完全休眠，不做无意义的唤醒。
+ */
+public class HashedWheelTimer implements TimerService {
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    private static final long DEFAULT_TICK_MILLIS = 10;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static volatile HashedWheelTimer defaultTimer;
+
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<WheelTimeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTimeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final Object lifecycleLock = new Object();
+    private Thread workerThread;
+    private volatile boolean running = false;
+    private volatile long startTime;
+    // 工作线程计划唤醒的时间（相对 startTime），用于判断新任务是否需要提前唤醒
+    private volatile long plannedWakeNanos = Long.MAX_VALUE;
+    private long processedTick = -1;
+
+    public HashedWheelTimer(String name) {
+        this(name, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 20)) {
+            throw new IllegalArgumentException("wheelSize out of range: " + wheelSize);
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        size = Math.max(size, 1);
+
+        this.name = name;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 进程共享的默认时间轮，首次注册任务时启动
+     */
+    public static HashedWheelTimer getDefault() {
+        HashedWheelTimer timer = defaultTimer;
+        if (timer == null) {
+            synchronized (HashedWheelTimer.class) {
+                timer = defaultTimer;
+                if (timer == null) {
+                    timer = new HashedWheelTimer("MT5-Timer");
+                    defaultTimer = timer;
+                }
+            }
+        }
+        return timer;
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return add(task, unit.toNanos(delay), 0);
+    }
+
+    @Override
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive: " + period);
+        }
+        return add(task, unit.toNanos(initialDelay), unit.toNanos(period));
+    }
+
+    @Override
+    public long getPrecisionNanos() {
+        return tickNanos;
+    }
+
+    private Timeout add(Runnable task, long delayNanos, long periodNanos) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        start();
+
+        long deadline = System.nanoTime() - startTime + Math.max(0, delayNanos);
+        WheelTimeout timeout = new WheelTimeout(this, task, deadline, periodNanos);
+        newTimeouts.add(timeout);
+
+        if (deadline < plannedWakeNanos) {
+            LockSupport.unpark(workerThread);
+        }
+        return timeout;
+    }
+
+    private void start() {
+        if (running) {
+            return;
+        }
+        synchronized (lifecycleLock) {
+            if (running) {
+                return;
+            }
+            startTime = System.nanoTime();
+            workerThread = new Thread(this::run, name);
+            workerThread.setDaemon(true);
+            running = true;
+            workerThread.start();
+            logger.info("时间轮 {} 已启动: tick {}ms, 槽位 {}", name, tickNanos / 1_000_000, wheel.length);
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lifecycleLock) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            LockSupport.unpark(workerThread);
+        }
+        if (Thread.currentThread() != workerThread) {
+            try {
+                workerThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("时间轮 {} 已停止", name);
+    }
+
+    private void run() {
+        while (running) {
+            transferNewTimeouts();
+            removeCancelledTimeouts();
+
+            long currentTick = (System.nanoTime() - startTime) / tickNanos;
+            while (processedTick < currentTick) {
+                processedTick++;
+                wheel[(int) (processedTick & mask)].expire(processedTick);
+            }
+
+            // 到期任务可能注册了新任务
+            transferNewTimeouts();
+
+            long wakeTick = nextNonEmptyTick();
+            long wakeNanos = wakeTick == Long.MAX_VALUE ? Long.MAX_VALUE : wakeTick * tickNanos;
+            plannedWakeNanos = wakeNanos;
+            if (!newTimeouts.isEmpty() || !running) {
+                continue;
+            }
+
+            if (wakeNanos == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                long sleepNanos = wakeNanos - (System.nanoTime() - startTime);
+                if (sleepNanos > 0) {
+                    LockSupport.parkNanos(this, sleepNanos);
+                }
+            }
+            plannedWakeNanos = Long.MIN_VALUE;
+        }
+
+        // 停止后丢弃剩余任务
+        newTimeouts.clear();
+        cancelledTimeouts.clear();
+        for (Bucket bucket : wheel) {
+            bucket.clear();
+        }
+    }
+
+    private void transferNewTimeouts() {
+        WheelTimeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.state == WheelTimeout.ST_CANCELLED) {
+                continue;
+            }
+            insert(timeout);
+        }
+    }
+
+    private void insert(WheelTimeout timeout) {
+        long tick = (timeout.deadline + tickNanos - 1) / tickNanos;
+        // 已经过期的任务放到下一个 tick
+        timeout.deadlineTick = Math.max(tick, processedTick + 1);
+        wheel[(int) (timeout.deadlineTick & mask)].add(timeout);
+    }
+
+    private void removeCancelledTimeouts() {
+        WheelTimeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * 找到下一个有任务的槽位对应的 tick，最多向前看一整圈
+     */
+    private long nextNonEmptyTick() {
+        for (int i = 1; i <= wheel.length; i++) {
+            if (wheel[(int) ((processedTick + i) & mask)].size > 0) {
+                return processedTick + i;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private void reschedule(WheelTimeout timeout) {
+        timeout.deadline += timeout.periodNanos;
+        insert(timeout);
+    }
+
+    public int getPendingTimeouts() {
+        int count = newTimeouts.size();
+        for (Bucket bucket : wheel) {
+            count += bucket.size;
+        }
+        return count;
+    }
+
+    /**
+     * 时间轮中的任务节点，同时是槽位双向链表的节点
+     */
+    private static final class WheelTimeout implements Timeout {
+        static final int ST_INIT = 0;
+        static final int ST_CANCELLED = 1;
+        static final int ST_EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long periodNanos;
+        private long deadline;       // 相对 startTime 的纳秒
+        private long deadlineTick;
+        volatile int state = ST_INIT;
+
+        private Bucket bucket;
+        private WheelTimeout prev;
+        private WheelTimeout next;
+
+        WheelTimeout(HashedWheelTimer timer, Runnable task, long deadline, long periodNanos) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+            this.periodNanos = periodNanos;
+        }
+
+        @Override
+        public boolean cancel() {
+            int current = state;
+            if (current == ST_CANCELLED || (current == ST_EXPIRED && periodNanos == 0)) {
+                return false;
+            }
+            if (!STATE_UPDATER.compareAndSet(this, current, ST_CANCELLED)) {
+                return false;
+            }
+            timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        void expire() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.error("定时任务执行失败", t);
+            }
+            if (periodNanos > 0 && STATE_UPDATER.compareAndSet(this, ST_EXPIRED, ST_INIT)) {
+                timer.reschedule(this);
+            }
+        }
+    }
+
+    /**
+     * 槽位：双向链表，只由工作线程访问（size 允许其他线程近似读取）
+     */
+    private static final class Bucket {
+        private WheelTimeout head;
+        private WheelTimeout tail;
+        private volatile int size;
+
+        void add(WheelTimeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+            size++;
+        }
+
+        void remove(WheelTimeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+            size--;
+        }
+
+        void expire(long tick) {
+            WheelTimeout timeout = head;
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+                if (timeout.deadlineTick <= tick) {
+                    remove(timeout);
+                    timeout.expire();
+                }
+                timeout = next;
+            }
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+}
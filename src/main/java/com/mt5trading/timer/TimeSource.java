@@ -0,0 +1,53 @@
+package com.mt5trading.timer;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 当前时间的来源
+ * 引擎和连接器不直接读取系统时钟，而是从这里取时间：实盘使用 {@link #SYSTEM}，
+ * 回测和测试使用手动推进的 {@link VirtualClock}，同一套代码可以在几毫秒内重放一整天的交易。
+ * 本地时间按系统默认时区换算，与K线时间和分析触发器一致。
+ */
+public interface TimeSource {
+
+    /**
+     * 系统时钟
+     */
+    TimeSource SYSTEM = new TimeSource() {
+        @Override
+        public Instant now() {
+            return Instant.now();
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public LocalDateTime localNow() {
+            return LocalDateTime.now();
+        }
+    };
+
+    /**
+     * 当前时刻
+     */
+    Instant now();
+
+    /**
+     * 当前时刻（毫秒）
+     */
+    default long currentTimeMillis() {
+        return now().toEpochMilli();
+    }
+
+    /**
+     * 当前本地时间
+     */
+    default LocalDateTime localNow() {
+        return LocalDateTime.ofInstant(now(), ZoneId.systemDefault());
+    }
+}
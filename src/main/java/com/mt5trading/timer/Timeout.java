@@ -0,0 +1,21 @@
+package com.mt5trading.timer;
+
+/**
+ * 已注册定时任务的句柄
+ */
+public interface Timeout {
+
+    /**
+     * 取消任务，O(1)。周期任务取消后不再触发
+     *
+     * @return 本次调用是否成功取消
+     */
+    boolean cancel();
+
+    boolean isCancelled();
+
+    /**
+     * 一次性任务是否已经触发
+     */
+    boolean isExpired();
+}
@@ -0,0 +1,44 @@
+package com.mt5trading.timer;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 统一的定时服务
+ * 所有组件的周期性工作（心跳、订单扫描、K线分析触发、过期清理）都注册到这里，
+ * 由同一个调度线程驱动。任务在调度线程上执行，必须短小且不阻塞，
+ * 耗时的工作应转交给组件自己的执行线程。
+ *
+ * 定时服务同时也是时间来源：任务的计划时间和组件读取的当前时间出自同一个时钟，
+ * 默认是系统时钟，{@link VirtualClock} 则两者都由手动推进的模拟时间驱动。
+ */
+public interface TimerService extends TimeSource {
+
+    /**
+     * 延迟执行一次
+     */
+    Timeout schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * 按固定频率周期执行，下次触发时间按计划时间累加，不受执行耗时影响
+     */
+    Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit);
+
+    /**
+     * 触发精度（纳秒），任务最多比计划时间晚这么久触发
+     */
+    long getPrecisionNanos();
+
+    /**
+     * 默认使用系统时钟
+     */
+    @Override
+    default Instant now() {
+        return SYSTEM.now();
+    }
+
+    /**
+     * 停止定时服务，未触发的任务全部丢弃
+     */
+    void stop();
+}
@@ -0,0 +1,198 @@
+package com.mt5trading.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 手动推进的虚拟时钟
+ * 时间只在调用 {@link #advanceTo} 时前进，到期任务按计划时间顺序在调用线程上执行，
+ * 执行时时钟正好停在任务的计划时间。没有后台线程，也不读取墙上时钟，
+ * 同样的输入总是得到同样的执行顺序，用于回测和测试。
+ *
+ * 精度为 0：任务准时触发，依赖者不需要提前唤醒或自旋。
+ */
+public class VirtualClock implements TimerService {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualClock.class);
+
+    private final PriorityQueue<VirtualTimeout> queue = new PriorityQueue<>();
+    private long nowNanos;      // 自 1970-01-01T00:00:00Z 起的纳秒
+    private long sequence = 0;  // 同一时刻的任务按注册顺序执行
+    private boolean advancing = false;
+
+    public VirtualClock(Instant start) {
+        this.nowNanos = toEpochNanos(start);
+    }
+
+    private static long toEpochNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    @Override
+    public synchronized Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return add(task, nowNanos + Math.max(0, unit.toNanos(delay)), 0);
+    }
+
+    @Override
+    public synchronized Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        long periodNanos = unit.toNanos(period);
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("period must be positive: " + period);
+        }
+        return add(task, nowNanos + Math.max(0, unit.toNanos(initialDelay)), periodNanos);
+    }
+
+    private VirtualTimeout add(Runnable task, long deadline, long period) {
+        VirtualTimeout timeout = new VirtualTimeout(task, deadline, period, sequence++);
+        queue.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 推进到指定时刻，依次执行期间到期的任务（包括执行过程中新注册且同样到期的任务）
+     */
+    public void advanceTo(Instant target) {
+        advanceToNanos(toEpochNanos(target));
+    }
+
+    public void advanceBy(long amount, TimeUnit unit) {
+        long target;
+        synchronized (this) {
+            target = nowNanos + unit.toNanos(amount);
+        }
+        advanceToNanos(target);
+    }
+
+    private void advanceToNanos(long target) {
+        synchronized (this) {
+            if (advancing) {
+                throw new IllegalStateException("任务执行中不能推进虚拟时钟");
+            }
+            if (target < nowNanos) {
+                throw new IllegalArgumentException("虚拟时钟不能倒退");
+            }
+            advancing = true;
+        }
+        try {
+            while (true) {
+                VirtualTimeout due;
+                synchronized (this) {
+                    due = queue.peek();
+                    if (due == null || due.deadline > target) {
+                        nowNanos = target;
+                        return;
+                    }
+                    queue.poll();
+                    if (due.cancelled) {
+                        continue;
+                    }
+                    nowNanos = due.deadline;
+                    if (due.period > 0) {
+                        due.deadline += due.period;
+                        due.order = sequence++;
+                        queue.add(due);
+                    } else {
+                        due.expired = true;
+                    }
+                }
+                try {
+                    due.task.run();
+                } catch (Exception e) {
+                    logger.error("虚拟时钟任务执行失败", e);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                advancing = false;
+            }
+        }
+    }
+
+    @Override
+    public synchronized Instant now() {
+        return Instant.ofEpochSecond(Math.floorDiv(nowNanos, 1_000_000_000L), Math.floorMod(nowNanos, 1_000_000_000L));
+    }
+
+    @Override
+    public synchronized long currentTimeMillis() {
+        return Math.floorDiv(nowNanos, 1_000_000L);
+    }
+
+    /**
+     * 下一个待执行任务的计划时刻，没有任务时返回 null
+     */
+    public synchronized Instant nextDeadline() {
+        VirtualTimeout next;
+        while ((next = queue.peek()) != null && next.cancelled) {
+            queue.poll();
+        }
+        return next != null ? Instant.ofEpochSecond(0, next.deadline) : null;
+    }
+
+    public synchronized int getPendingCount() {
+        int count = 0;
+        for (VirtualTimeout timeout : queue) {
+            if (!timeout.cancelled) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long getPrecisionNanos() {
+        return 0;
+    }
+
+    @Override
+    public synchronized void stop() {
+        for (VirtualTimeout timeout : queue) {
+            timeout.cancelled = true;
+        }
+        queue.clear();
+    }
+
+    private static final class VirtualTimeout implements Timeout, Comparable<VirtualTimeout> {
+        final Runnable task;
+        final long period;
+        long deadline;
+        long order;
+        volatile boolean cancelled = false;
+        volatile boolean expired = false;
+
+        VirtualTimeout(Runnable task, long deadline, long period, long order) {
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+            this.order = order;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (cancelled || expired) {
+                return false;
+            }
+            cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return expired;
+        }
+
+        @Override
+        public int compareTo(VirtualTimeout other) {
+            int byDeadline = Long.compare(deadline, other.deadline);
+            return byDeadline != 0 ? byDeadline : Long.compare(order, other.order);
+        }
+    }
+}
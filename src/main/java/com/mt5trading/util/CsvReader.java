@@ -0,0 +1,281 @@
+package com.mt5trading.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 CSV 读取
+ * 从通道按块读取、解码，逐字符切分字段，不做 String.split，也不把整个文件读进内存。
+ * 支持 RFC 4180 引号规则：字段可以用双引号包围，引号内可以有逗号和换行，两个双引号表示一个双引号。
+ *
+ * 每次 {@link #next()} 读取一条记录，字段内容保存在复用的字符数组里，
+ * 通过 getXxx(i) 按需转换，在下一次 next() 之前有效。非线程安全。
+ */
+public class CsvReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int EOF = -1;
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private boolean endOfInput = false;
+
+    // 当前记录的字段：内容连续存放在 fieldChars 中
+    private char[] fieldChars = new char[256];
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+    private int length = 0;
+    private long recordNumber = 0;
+
+    public CsvReader(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    public CsvReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        chars.flip();
+    }
+
+    /**
+     * 解析单行文本，引号规则与 {@link #next()} 相同，只取第一条记录
+     * 直接在字符串上切分，不创建读取器和缓冲区。
+     *
+     * @throws IllegalArgumentException 引号没有闭合
+     */
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        int length = line.length();
+        int i = 0;
+        // 跳过空行
+        while (i < length && (line.charAt(i) == '\n' || line.charAt(i) == '\r')) {
+            i++;
+        }
+        if (i == length) {
+            return fields;
+        }
+
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (; i < length; i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < length && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("引号没有闭合: " + line);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 字段数，文件结束返回 -1
+     */
+    public int next() throws IOException {
+        fieldCount = 0;
+        length = 0;
+        int c = read();
+        // 跳过空行
+        while (c == '\n' || c == '\r') {
+            c = read();
+        }
+        if (c == EOF) {
+            return -1;
+        }
+
+        int start = 0;
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == EOF) {
+                    throw new IOException("第 " + (recordNumber + 1) + " 条记录的引号没有闭合");
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c == '"') {
+                        append('"');
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                } else {
+                    append((char) c);
+                }
+            } else if (c == ',') {
+                endField(start);
+                start = length;
+            } else if (c == '\n' || c == EOF) {
+                break;
+            } else if (c == '"' && length == start) {
+                quoted = true;
+            } else if (c != '\r') {
+                append((char) c);
+            }
+            c = read();
+        }
+        endField(start);
+        recordNumber++;
+        return fieldCount;
+    }
+
+    private int read() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return EOF;
+        }
+        return chars.get();
+    }
+
+    /**
+     * 读取并解码下一块，多字节字符跨块时剩余字节留到下一次
+     */
+    private boolean fill() throws IOException {
+        chars.clear();
+        while (true) {
+            if (!endOfInput) {
+                if (channel.read(bytes) < 0) {
+                    endOfInput = true;
+                }
+            }
+            bytes.flip();
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            bytes.compact();
+            if (endOfInput) {
+                decoder.flush(chars);
+            }
+            if (chars.position() > 0 || endOfInput) {
+                break;
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    private void append(char c) {
+        if (length == fieldChars.length) {
+            char[] larger = new char[fieldChars.length * 2];
+            System.arraycopy(fieldChars, 0, larger, 0, length);
+            fieldChars = larger;
+        }
+        fieldChars[length++] = c;
+    }
+
+    private void endField(int start) {
+        if (fieldCount == fieldStarts.length) {
+            int[] starts = new int[fieldStarts.length * 2];
+            int[] ends = new int[fieldEnds.length * 2];
+            System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+            System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+            fieldStarts = starts;
+            fieldEnds = ends;
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = length;
+        fieldCount++;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * 已读取的记录数（含表头）
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    public String getString(int index) {
+        checkIndex(index);
+        return new String(fieldChars, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    public boolean isEmpty(int index) {
+        checkIndex(index);
+        return fieldEnds[index] == fieldStarts[index];
+    }
+
+    /**
+     * 直接从字符解析整数，不创建字符串
+     */
+    public long getLong(int index) {
+        checkIndex(index);
+        int i = fieldStarts[index];
+        int end = fieldEnds[index];
+        if (i == end) {
+            throw new NumberFormatException("第 " + recordNumber + " 条记录第 " + (index + 1) + " 个字段为空");
+        }
+        boolean negative = fieldChars[i] == '-';
+        if (negative || fieldChars[i] == '+') {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("无效的整数: " + getString(index));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = fieldChars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("无效的整数: " + getString(index));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    public int getInt(int index) {
+        long value = getLong(index);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("整数超出范围: " + value);
+        }
+        return (int) value;
+    }
+
+    public double getDouble(int index) {
+        return Double.parseDouble(getString(index));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("第 " + recordNumber + " 条记录只有 " + fieldCount + " 个字段: " + index);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,150 @@
+package com.mt5trading.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 流式 CSV 写入
+ * 记录先追加到复用的字符缓冲区，攒满后编码成 UTF-8 一次写入通道，内存占用与文件大小无关。
+ * 含逗号、双引号或换行的字段按 RFC 4180 用双引号包围，内部双引号写成两个。非线程安全。
+ */
+public class CsvWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder pending = new StringBuilder(BUFFER_SIZE + 1024);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 3);
+    private boolean firstField = true;
+    private long recordCount = 0;
+
+    /**
+     * 覆盖写入
+     */
+    public CsvWriter(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public CsvWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * 按需加引号后追加到 sb
+     */
+    public static void appendField(StringBuilder sb, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (!needsQuote(value)) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private static boolean needsQuote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        // 首尾空格在部分表格软件里会被丢掉
+        return value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ';
+    }
+
+    private void separator() {
+        if (!firstField) {
+            pending.append(',');
+        }
+        firstField = false;
+    }
+
+    public CsvWriter field(String value) {
+        separator();
+        appendField(pending, value);
+        return this;
+    }
+
+    public CsvWriter field(long value) {
+        separator();
+        pending.append(value);
+        return this;
+    }
+
+    /**
+     * 写入最短的可无损还原的十进制表示
+     */
+    public CsvWriter field(double value) {
+        separator();
+        pending.append(value);
+        return this;
+    }
+
+    public void endRecord() throws IOException {
+        pending.append('\n');
+        firstField = true;
+        recordCount++;
+        if (pending.length() >= BUFFER_SIZE) {
+            drain();
+        }
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    private void drain() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(pending);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, false);
+            if (result.isError()) {
+                result.throwException();
+            }
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+            if (!result.isOverflow()) {
+                break;
+            }
+        }
+        // 字段之间不会截断代理对，缓冲区总能编码干净
+        pending.setLength(0);
+    }
+
+    /**
+     * 写出缓冲区中的记录
+     */
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.mt5trading.util;
+
+import com.mt5trading.timer.Timeout;
+import com.mt5trading.timer.TimerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情到下单的全链路延迟统计
+ * 每个处理阶段和端到端各有一个无锁直方图。
+ *
+ * 端到端延迟以行情到达 WebSocket 的时刻为起点：起点随事件在线程之间显式传递，
+ * 在提交订单的线程上通过 {@link #beginTrace(long)} 设置，订单帧真正写出时由指令管道记录。
+ * 成交回报阶段是订单首次发出到收到 EA 回报的时间（含重发）。
+ */
+public class LatencyTracker {
+    private static final Logger logger = LoggerFactory.getLogger(LatencyTracker.class);
+
+    public enum Stage {
+        QUEUE("排队"),
+        PARSE("解析"),
+        CANDLE("K线更新"),
+        DECISION("决策"),
+        SEND("排队发送"),
+        END_TO_END("端到端"),
+        ACK("成交回报");
+
+        private final String description;
+
+        Stage(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static volatile LatencyTracker defaultTracker;
+    private static final ThreadLocal<long[]> TRACE = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private Timeout reportTimeout;
+
+    public LatencyTracker() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * 进程共享的默认实例
+     */
+    public static LatencyTracker getDefault() {
+        LatencyTracker tracker = defaultTracker;
+        if (tracker == null) {
+            synchronized (LatencyTracker.class) {
+                tracker = defaultTracker;
+                if (tracker == null) {
+                    tracker = new LatencyTracker();
+                    defaultTracker = tracker;
+                }
+            }
+        }
+        return tracker;
+    }
+
+    /**
+     * 在当前线程上设置端到端起点（行情到达时的 System.nanoTime()），0 表示没有起点
+     */
+    public static void beginTrace(long originNanos) {
+        TRACE.get()[0] = originNanos;
+    }
+
+    public static long currentTrace() {
+        return TRACE.get()[0];
+    }
+
+    public static void endTrace() {
+        TRACE.get()[0] = 0;
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms.get(stage).record(nanos);
+    }
+
+    /**
+     * 以 startNanos 为起点记录到当前时刻的耗时，返回当前时刻
+     */
+    public long recordSince(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        histograms.get(stage).record(now - startNanos);
+        return now;
+    }
+
+    /**
+     * 如果当前线程有端到端起点，记录端到端延迟
+     */
+    public void recordEndToEnd() {
+        long origin = currentTrace();
+        if (origin != 0) {
+            recordSince(Stage.END_TO_END, origin);
+        }
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms.get(stage);
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * 按阶段输出延迟摘要，每行一个阶段，没有样本的阶段跳过
+     */
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = histograms.get(stage);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            sb.append(String.format("  %-6s %s%n", stage.getDescription(), histogram.getSummary()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 定期把延迟摘要写入日志
+     */
+    public synchronized void startReporting(TimerService timer, long interval, TimeUnit unit) {
+        if (reportTimeout != null) {
+            return;
+        }
+        reportTimeout = timer.scheduleAtFixedRate(() -> {
+            String summary = getSummary();
+            if (!summary.isEmpty()) {
+                logger.info("延迟统计:\n{}", summary);
+            }
+        }, interval, interval, unit);
+    }
+
+    public synchronized void stopReporting() {
+        if (reportTimeout != null) {
+            reportTimeout.cancel();
+            reportTimeout = null;
+        }
+    }
+}
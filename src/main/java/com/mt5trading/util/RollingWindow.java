@@ -0,0 +1,185 @@
+package com.mt5trading.util;
+
+/**
+ * 固定容量的滚动窗口
+ * 环形缓冲区保存最近 N 个值，同时维护均值、方差、最小值和最大值：
+ * 均值/方差用 Welford 增量公式（加入新值时同步移除最旧的值），
+ * 最小/最大值用单调队列维护，每次 add 均摊 O(1)，查询都是 O(1)，与窗口大小无关。
+ *
+ * 非线程安全，应在单一线程（如引擎事件循环）上使用。
+ */
+public class RollingWindow {
+    private final double[] values;
+    private final int capacity;
+    private int head = 0;       // 下一个写入位置
+    private int size = 0;
+    private long sequence = 0;  // 已加入的值总数，用于单调队列判断过期
+
+    private double mean = 0;
+    private double m2 = 0;      // 与均值差的平方和
+
+    // 单调队列，保存值的序号；minQueue 单调递增，maxQueue 单调递减
+    private final long[] minQueue;
+    private final long[] maxQueue;
+    private int minHead = 0;
+    private int minSize = 0;
+    private int maxHead = 0;
+    private int maxSize = 0;
+
+    public RollingWindow(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.values = new double[capacity];
+        this.minQueue = new long[capacity];
+        this.maxQueue = new long[capacity];
+    }
+
+    /**
+     * 加入一个新值，窗口已满时最旧的值被移除
+     */
+    public void add(double value) {
+        if (size == capacity) {
+            double evicted = values[head];
+            double oldMean = mean;
+            mean += (value - evicted) / size;
+            m2 += (value - evicted) * (value - mean + evicted - oldMean);
+            if (m2 < 0) {
+                m2 = 0; // 浮点误差
+            }
+        } else {
+            size++;
+            double delta = value - mean;
+            mean += delta / size;
+            m2 += delta * (value - mean);
+        }
+        values[head] = value;
+        head = head + 1 == capacity ? 0 : head + 1;
+
+        long seq = sequence++;
+        long oldest = sequence - size;
+        pushMin(seq, value, oldest);
+        pushMax(seq, value, oldest);
+    }
+
+    private void pushMin(long seq, double value, long oldest) {
+        if (minSize > 0 && minQueue[minHead] < oldest) {
+            minHead = next(minHead);
+            minSize--;
+        }
+        while (minSize > 0 && valueAt(minQueue[index(minHead, minSize - 1)]) >= value) {
+            minSize--;
+        }
+        minQueue[index(minHead, minSize)] = seq;
+        minSize++;
+    }
+
+    private void pushMax(long seq, double value, long oldest) {
+        if (maxSize > 0 && maxQueue[maxHead] < oldest) {
+            maxHead = next(maxHead);
+            maxSize--;
+        }
+        while (maxSize > 0 && valueAt(maxQueue[index(maxHead, maxSize - 1)]) <= value) {
+            maxSize--;
+        }
+        maxQueue[index(maxHead, maxSize)] = seq;
+        maxSize++;
+    }
+
+    private int next(int i) {
+        return i + 1 == capacity ? 0 : i + 1;
+    }
+
+    private int index(int start, int offset) {
+        int i = start + offset;
+        return i >= capacity ? i - capacity : i;
+    }
+
+    private double valueAt(long seq) {
+        return values[(int) (seq % capacity)];
+    }
+
+    /**
+     * 按时间顺序取值，0 为最旧的值
+     */
+    public double get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+        }
+        return valueAt(sequence - size + i);
+    }
+
+    public double getLast() {
+        if (size == 0) {
+            throw new IllegalStateException("window is empty");
+        }
+        return valueAt(sequence - 1);
+    }
+
+    public double getMean() {
+        return size > 0 ? mean : Double.NaN;
+    }
+
+    public double getSum() {
+        return mean * size;
+    }
+
+    /**
+     * 总体方差
+     */
+    public double getVariance() {
+        return size > 0 ? m2 / size : Double.NaN;
+    }
+
+    /**
+     * 样本方差（n-1）
+     */
+    public double getSampleVariance() {
+        return size > 1 ? m2 / (size - 1) : Double.NaN;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+        return minSize > 0 ? valueAt(minQueue[minHead]) : Double.NaN;
+    }
+
+    public double getMax() {
+        return maxSize > 0 ? valueAt(maxQueue[maxHead]) : Double.NaN;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        sequence = 0;
+        mean = 0;
+        m2 = 0;
+        minHead = minSize = 0;
+        maxHead = maxSize = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RollingWindow[%d/%d mean=%.5f std=%.5f min=%.5f max=%.5f]",
+                size, capacity, getMean(), getStdDev(), getMin(), getMax());
+    }
+}
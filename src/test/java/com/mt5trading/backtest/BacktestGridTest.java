@@ -0,0 +1,106 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.services.SimpleDecisionEngine;
+import com.mt5trading.util.CsvReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BacktestGridTest {
+
+    @TempDir
+    Path dir;
+
+    private CandleStore store() throws IOException {
+        Path file = dir.resolve("basket.candles");
+        CandleStore.write(file, List.of(
+                BacktesterTest.syntheticSeries("US30", 400, 1),
+                BacktesterTest.syntheticSeries("NAS100", 300, 2),
+                BacktesterTest.syntheticSeries("GER40", 200, 3)));
+        return CandleStore.open(file);
+    }
+
+    private static Properties variant(String bullishThreshold) {
+        Properties props = new Properties();
+        props.setProperty("trading.bullish.threshold", bullishThreshold);
+        props.setProperty("trading.bearish.threshold", "-" + bullishThreshold);
+        return props;
+    }
+
+    @Test
+    void testGridMatchesSequentialRuns() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (CandleStore store = store()) {
+            BacktestGrid grid = new BacktestGrid(SimpleDecisionEngine::new, pool);
+            grid.addVariant("tight", variant("0.02"));
+            grid.addVariant("wide", variant("0.08"));
+            BacktestGrid.Report report = grid.run(store);
+
+            assertEquals(6, report.getEntries().size(), "每个配置 × 每个品种各运行一次");
+            assertEquals("tight", report.getEntries().get(0).getVariant());
+            assertEquals("NAS100", report.getEntries().get(1).getSymbol(), "明细应该按配置、品种顺序排列");
+            assertEquals(2 * (400 + 300 + 200), report.getTotalBars());
+
+            for (BacktestGrid.Entry entry : report.getEntries()) {
+                assertTrue(entry.isSuccess(), entry.getVariant() + " " + entry.getSymbol() + ": " + entry.getError());
+                Properties props = variant(entry.getVariant().equals("tight") ? "0.02" : "0.08");
+                props.setProperty("mt5.symbol", entry.getSymbol());
+                props.setProperty("app.test.mode", "false");
+                props.setProperty("app.journal.enabled", "false");
+                BacktestResult sequential = new Backtester(TradingConfig.fromProperties(props),
+                        SimpleDecisionEngine::new).run(store.toSeries(entry.getSymbol()));
+
+                assertEquals(entry.getSymbol(), entry.getResult().getSymbol());
+                assertEquals(entry.getVariant(), entry.getResult().getStrategyName());
+                assertEquals(sequential.getTradeCount(), entry.getResult().getTradeCount(),
+                        "并行运行应该和单独运行结果一致: " + entry.getVariant() + " " + entry.getSymbol());
+                assertEquals(sequential.getFinalBalance(), entry.getResult().getFinalBalance(), 1e-9);
+            }
+
+            List<BacktestGrid.VariantSummary> summaries = report.getVariantSummaries();
+            assertEquals(2, summaries.size());
+            assertTrue(summaries.get(0).getNetProfit() >= summaries.get(1).getNetProfit(), "汇总应该按净盈亏排序");
+            assertEquals(3, summaries.get(0).getRuns());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testReportCsvAndVariantFiles() throws IOException {
+        Path variantFile = dir.resolve("candidate-a.properties");
+        Files.writeString(variantFile, "trading.bullish.threshold=0.03\n");
+        try (CandleStore store = store()) {
+            BacktestGrid grid = new BacktestGrid(SimpleDecisionEngine::new);
+            grid.addVariant(variantFile);
+            assertThrows(IllegalArgumentException.class, () -> grid.addVariant("candidate-a", new Properties()),
+                    "配置名称不能重复");
+            assertThrows(IllegalArgumentException.class, () -> grid.run(store, List.of("XAUUSD")));
+
+            BacktestGrid.Report report = grid.run(store, List.of("GER40"));
+            assertEquals(1, report.getEntries().size());
+            assertNotNull(report.get("candidate-a", "GER40"));
+            assertTrue(report.format().contains("candidate-a"));
+
+            Path csv = dir.resolve("grid.csv");
+            report.writeCsv(csv);
+            try (CsvReader reader = new CsvReader(csv)) {
+                assertEquals(11, reader.next(), "表头");
+                assertEquals(11, reader.next());
+                assertEquals("candidate-a", reader.getString(0));
+                assertEquals("GER40", reader.getString(1));
+                assertEquals(200, reader.getLong(2));
+                assertEquals(-1, reader.next());
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.CandleSeries;
+import com.mt5trading.services.SimpleDecisionEngine;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BacktesterTest {
+
+    private static TradingConfig config(boolean testMode) {
+        Properties props = new Properties();
+        props.setProperty("app.test.mode", String.valueOf(testMode));
+        props.setProperty("app.journal.enabled", "false");
+        props.setProperty("mt5.symbol", "US30");
+        props.setProperty("mt5.timeframe.seconds", "60");
+        return TradingConfig.fromProperties(props);
+    }
+
+    /**
+     * 确定性的合成K线：正弦趋势叠加伪随机波动
+     */
+    private static CandleSeries syntheticSeries(int size) {
+        return syntheticSeries("US30", size, 42);
+    }
+
+    static CandleSeries syntheticSeries(String symbol, int size, long seed) {
+        long[] times = new long[size];
+        double[] opens = new double[size];
+        double[] highs = new double[size];
+        double[] lows = new double[size];
+        double[] closes = new double[size];
+        long[] volumes = new long[size];
+        double price = 35000;
+        long start = 1_704_187_800L; // 2024-01-02 09:30:00
+        for (int i = 0; i < size; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            double noise = ((seed >>> 11) % 2000 - 1000) / 10.0;
+            double open = price;
+            double close = open + Math.sin(i / 15.0) * 40 + noise;
+            times[i] = start + i * 60L;
+            opens[i] = open;
+            closes[i] = close;
+            highs[i] = Math.max(open, close) + 10;
+            lows[i] = Math.min(open, close) - 10;
+            volumes[i] = 100;
+            price = close;
+        }
+        return new CandleSeries(symbol, times, opens, highs, lows, closes, volumes, size);
+    }
+
+    @Test
+    void testTestModeTradesThroughSimulator() {
+        CandleSeries series = syntheticSeries(300);
+        BacktestResult live = new Backtester(config(false), SimpleDecisionEngine::new).run(series);
+        BacktestResult test = new Backtester(config(true), SimpleDecisionEngine::new).run(series);
+
+        assertTrue(test.getTradeCount() > 0, "测试模式也应该通过模拟成交器下单");
+        assertEquals(live.getTradeCount(), test.getTradeCount(), "测试模式与实盘模式的交易应该一致");
+        assertEquals(live.getFinalBalance(), test.getFinalBalance(), 1e-9);
+    }
+
+    @Test
+    void testSlippageAndLatencyCostAreMeasured() {
+        CandleSeries series = syntheticSeries(500);
+        Properties props = new Properties();
+        props.setProperty("app.journal.enabled", "false");
+        props.setProperty("trading.slippage", "0");
+        BacktestResult ideal = new Backtester(TradingConfig.fromProperties(props), SimpleDecisionEngine::new)
+                .run(series);
+        props.setProperty("trading.slippage", "5");
+        props.setProperty("sim.latency.ms", "3000");
+        BacktestResult costly = new Backtester(TradingConfig.fromProperties(props), SimpleDecisionEngine::new)
+                .run(series);
+
+        assertEquals(0, ideal.getSlippageCost(), 1e-9, "没有滑点和延迟时没有执行成本");
+        assertTrue(costly.getTradeCount() > 0);
+        assertNotEquals(0, costly.getSlippageCost(), "滑点和延迟应该产生执行成本: " + costly.getSummary());
+        for (BacktestTrade trade : costly.getTrades()) {
+            long second = Math.floorMod(trade.getOpenTimeMillis() / 1000 - series.getTime(0), 60);
+            assertTrue(second >= 48, "订单应该在第45秒决策后延迟3秒成交: " + trade);
+        }
+    }
+
+    @Test
+    void testRunsAreDeterministic() {
+        CandleSeries series = syntheticSeries(500);
+        Backtester backtester = new Backtester(config(false), SimpleDecisionEngine::new);
+        backtester.setSpread(2);
+
+        BacktestResult first = backtester.run(series);
+        BacktestResult second = backtester.run(series);
+
+        assertEquals(500, first.getBarCount());
+        assertTrue(first.getTradeCount() > 0, "合成行情应该触发交易: " + first.getSummary());
+        assertEquals(first.getTradeCount(), second.getTradeCount(), "同样的输入应该得到同样的交易");
+        List<BacktestTrade> a = first.getTrades();
+        List<BacktestTrade> b = second.getTrades();
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.get(i).toString(), b.get(i).toString(), "第 " + i + " 笔交易不一致");
+        }
+        assertEquals(first.getFinalBalance(), second.getFinalBalance(), 1e-9);
+        assertEquals(first.getEquitySize(), series.size() + 1, "每根K线采样一次权益，结束时再采样一次");
+    }
+
+    @Test
+    void testTradesOpenAtAnalysisSecond() {
+        CandleSeries series = syntheticSeries(200);
+        BacktestResult result = new Backtester(config(false), SimpleDecisionEngine::new).run(series);
+
+        for (BacktestTrade trade : result.getTrades()) {
+            long second = Math.floorMod(trade.getOpenTimeMillis() / 1000 - series.getTime(0), 60);
+            assertEquals(45, second, "交易应该在K线第45秒开仓: " + trade);
+            assertTrue(trade.getCloseTimeMillis() >= trade.getOpenTimeMillis());
+        }
+        assertEquals(result.getInitialBalance() + result.getNetProfit(), result.getFinalBalance(), 1e-9);
+    }
+
+    @Test
+    void testRunTicks() {
+        int size = 60 * 20;
+        long[] times = new long[size];
+        double[] bids = new double[size];
+        double[] asks = new double[size];
+        long start = 1_704_187_800_000L;
+        for (int i = 0; i < size; i++) {
+            times[i] = start + i * 1000L;
+            bids[i] = 35000 + i * 0.5;
+            asks[i] = bids[i] + 2;
+        }
+        BacktestResult result = new Backtester(config(false), SimpleDecisionEngine::new)
+                .runTicks(times, bids, asks, size);
+
+        assertEquals(20, result.getBarCount(), "每 60 笔行情跨入一根新K线");
+        assertTrue(result.getTradeCount() > 0, "持续上涨应该触发买入: " + result.getSummary());
+    }
+
+    @Test
+    void testThroughput() {
+        CandleSeries series = syntheticSeries(20_000);
+        BacktestResult result = new Backtester(config(false), SimpleDecisionEngine::new).run(series);
+
+        assertEquals(20_000, result.getBarCount());
+        assertTrue(result.getBarsPerSecond() > 1000, "回测不应该受墙上时钟限制: " + result.getSummary());
+    }
+
+    @Test
+    void testOverlappingQuietRunsRestoreSystemOut() {
+        PrintStream original = System.out;
+        // 两个线程上的静默运行交错开始和结束
+        Backtester.silenceOutput();
+        Backtester.silenceOutput();
+        Backtester.restoreOutput();
+        assertSame(Backtester.NULL_OUT, System.out, "仍有运行在进行时应该保持屏蔽");
+        Backtester.restoreOutput();
+        assertSame(original, System.out, "最后一个运行结束后应该恢复原来的 System.out");
+        Backtester.restoreOutput();
+        assertSame(original, System.out, "多余的恢复不应该改变 System.out");
+    }
+}
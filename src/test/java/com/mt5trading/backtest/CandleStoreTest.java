@@ -0,0 +1,80 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.models.CandleSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CandleStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTripsBasket() throws IOException {
+        CandleSeries us30 = BacktesterTest.syntheticSeries("US30", 1000, 1);
+        CandleSeries nas = BacktesterTest.syntheticSeries("NAS100", 10, 2);
+        CandleSeries empty = BacktesterTest.syntheticSeries("空", 0, 3);
+        Path file = dir.resolve("basket.candles");
+        CandleStore.write(file, List.of(us30, nas, empty));
+
+        try (CandleStore store = CandleStore.open(file)) {
+            assertEquals(List.of("US30", "NAS100", "空"), store.getSymbols(), "品种应该按写入顺序列出");
+            assertNull(store.get("GER40"));
+
+            BarSource bars = store.get("US30");
+            assertEquals(1000, bars.size());
+            for (int i = 0; i < bars.size(); i++) {
+                assertEquals(us30.getTime(i), bars.getTime(i));
+                assertEquals(us30.getOpen(i), bars.getOpen(i));
+                assertEquals(us30.getHigh(i), bars.getHigh(i));
+                assertEquals(us30.getLow(i), bars.getLow(i));
+                assertEquals(us30.getClose(i), bars.getClose(i));
+            }
+            assertEquals(0, store.get("空").size());
+
+            CandleSeries copy = store.toSeries("NAS100");
+            assertEquals(10, copy.size());
+            assertEquals(nas.getClose(9), copy.getClose(9));
+            assertEquals(nas.getVolume(9), copy.getVolume(9));
+        }
+        assertFalse(Files.exists(dir.resolve("basket.candles.tmp")), "临时文件应该已被替换");
+    }
+
+    @Test
+    void testConcurrentReadersShareOneMapping() throws IOException {
+        CandleSeries series = BacktesterTest.syntheticSeries("US30", 50_000, 7);
+        Path file = dir.resolve("us30.candles");
+        CandleStore.write(file, List.of(series));
+
+        double expected = 0;
+        for (int i = 0; i < series.size(); i++) {
+            expected += series.getClose(i);
+        }
+        try (CandleStore store = CandleStore.open(file)) {
+            BarSource bars = store.get("US30");
+            double finalExpected = expected;
+            IntStream.range(0, 8).parallel().forEach(worker -> {
+                double sum = 0;
+                for (int i = 0; i < bars.size(); i++) {
+                    sum += bars.getClose(i);
+                }
+                assertEquals(finalExpected, sum, 1e-6, "多个线程读取同一视图应该得到相同结果");
+            });
+        }
+    }
+
+    @Test
+    void testRejectsForeignFile() throws IOException {
+        Path file = dir.resolve("not-a-store.csv");
+        Files.writeString(file, "time,open,high,low,close\n");
+        assertThrows(IOException.class, () -> CandleStore.open(file));
+    }
+}
@@ -0,0 +1,84 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.OrderSide;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FillModelTest {
+
+    @Test
+    void testMinSpreadWidensNarrowQuotes() {
+        FillModel model = new FillModel(4, 0, 0, 0, 0, 1, 1);
+        assertEquals(35002, model.quotePrice(OrderSide.BUY, 35000, 35000), 1e-9, "零点差行情按中间价两侧展开");
+        assertEquals(34998, model.quotePrice(OrderSide.SELL, 35000, 35000), 1e-9);
+        assertEquals(35010, model.quotePrice(OrderSide.BUY, 35000, 35010), 1e-9, "行情点差更宽时保持原样");
+    }
+
+    @Test
+    void testSlippageIsAdverseAndBounded() {
+        FillModel model = new FillModel(0, 2, 0, 0, 0, 1, 7);
+        double total = 0;
+        for (int i = 0; i < 10_000; i++) {
+            double buy = model.marketPrice(OrderSide.BUY, 100, 101);
+            double sell = model.marketPrice(OrderSide.SELL, 100, 101);
+            assertTrue(buy >= 101 && buy <= 103, "买入滑点应该在 [0, 2] 之间: " + buy);
+            assertTrue(sell <= 100 && sell >= 98, "卖出滑点应该在 [0, 2] 之间: " + sell);
+            total += buy - 101;
+        }
+        assertEquals(1.0, total / 10_000, 0.05, "均匀分布的平均滑点约为最大值的一半");
+    }
+
+    @Test
+    void testLatencyDistribution() {
+        assertEquals(50, new FillModel(0, 0, 50, 0, 0, 1, 1).sampleLatencyMillis(), "没有随机部分时延迟固定");
+
+        FillModel model = new FillModel(0, 0, 20, 30, 0, 1, 3);
+        long total = 0;
+        for (int i = 0; i < 20_000; i++) {
+            long latency = model.sampleLatencyMillis();
+            assertTrue(latency >= 20, "延迟不应该低于固定部分");
+            total += latency;
+        }
+        assertEquals(50, total / 20_000.0, 1.5, "平均延迟应该是固定部分加上指数分布均值");
+    }
+
+    @Test
+    void testPartialFillsRespectRatioAndStep() {
+        FillModel model = new FillModel(0, 0, 0, 0, 1, 0.5, 11);
+        for (int i = 0; i < 1000; i++) {
+            double filled = model.fillVolume(1.0);
+            assertTrue(filled >= 0.5 - 1e-9 && filled <= 1.0, "成交比例应该在 [0.5, 1]: " + filled);
+            assertEquals(0, Math.round(filled * 100) - filled * 100, 1e-6, "成交手数应该按 0.01 取整");
+        }
+        assertEquals(0.01, model.fillVolume(0.01), 1e-9, "至少成交一个手数步长");
+        assertEquals(1.0, FillModel.ideal().fillVolume(1.0));
+    }
+
+    @Test
+    void testSameSeedSameFills() {
+        FillModel a = new FillModel(1, 3, 5, 10, 0.3, 0.5, 99);
+        FillModel b = new FillModel(1, 3, 5, 10, 0.3, 0.5, 99);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(a.marketPrice(OrderSide.BUY, 10, 10.5), b.marketPrice(OrderSide.BUY, 10, 10.5));
+            assertEquals(a.fillVolume(0.7), b.fillVolume(0.7));
+            assertEquals(a.sampleLatencyMillis(), b.sampleLatencyMillis());
+        }
+    }
+
+    @Test
+    void testFromConfigUsesConfiguredSlippage() {
+        Properties props = new Properties();
+        props.setProperty("trading.slippage", "3.5");
+        props.setProperty("sim.latency.ms", "40");
+        props.setProperty("sim.partial.fill.probability", "0.25");
+        FillModel model = FillModel.fromConfig(TradingConfig.fromProperties(props));
+        assertEquals(3.5, model.getSlippage());
+        assertEquals(40, model.getLatencyMillis());
+        assertEquals(0.25, model.getPartialFillProbability());
+        assertThrows(IllegalArgumentException.class, () -> new FillModel(0, 0, 0, 0, 1.5, 1, 1));
+    }
+}
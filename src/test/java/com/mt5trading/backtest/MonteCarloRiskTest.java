@@ -0,0 +1,170 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.RiskConfig;
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.CandleSeries;
+import com.mt5trading.services.SimpleDecisionEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloRiskTest {
+    private static final long DAY = 86_400_000L;
+    // 本地时区的午夜，交易日划分与时区无关
+    private static final long START = LocalDate.of(2024, 1, 8).atStartOfDay(ZoneId.systemDefault())
+            .toInstant().toEpochMilli();
+
+    @TempDir
+    Path dir;
+
+    private static RiskConfig risk(double maxRiskPerTrade, double maxDailyLoss) {
+        RiskConfig risk = new RiskConfig();
+        risk.setMaxRiskPerTrade(maxRiskPerTrade);
+        risk.setMaxDailyLoss(maxDailyLoss);
+        return risk;
+    }
+
+    /**
+     * 每天 perDay 笔交易，间隔一小时
+     */
+    private static long[] times(int trades, int perDay) {
+        long[] times = new long[trades];
+        for (int i = 0; i < trades; i++) {
+            times[i] = START + (i / perDay) * DAY + (i % perDay) * 3_600_000L;
+        }
+        return times;
+    }
+
+    private static double[] randomProfits(int trades, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] profits = new double[trades];
+        for (int i = 0; i < trades; i++) {
+            profits[i] = random.nextDouble() < 0.55 ? random.nextDouble(50, 150) : -random.nextDouble(50, 250);
+        }
+        return profits;
+    }
+
+    @Test
+    void testSameSeedGivesSameResultOnAnyPool() {
+        double[] profits = randomProfits(500, 7);
+        long[] times = times(500, 5);
+        MonteCarloRisk.Report single = new MonteCarloRisk(profits, times, 10000, risk(0.02, 0.05),
+                new ForkJoinPool(1)).run(2000, 42);
+        MonteCarloRisk.Report parallel = new MonteCarloRisk(profits, times, 10000, risk(0.02, 0.05),
+                new ForkJoinPool(4)).run(2000, 42);
+        MonteCarloRisk.Report other = new MonteCarloRisk(profits, times, 10000, risk(0.02, 0.05),
+                new ForkJoinPool(4)).run(2000, 43);
+
+        for (double q : new double[] {0, 0.5, 0.95, 1}) {
+            assertEquals(single.getDrawdownPercentile(q), parallel.getDrawdownPercentile(q), "分位数 " + q);
+            assertEquals(single.getFinalEquityPercentile(q), parallel.getFinalEquityPercentile(q), "分位数 " + q);
+        }
+        assertEquals(single.getDailyLimitBreachProbability(), parallel.getDailyLimitBreachProbability());
+        assertEquals(single.getTradeLimitBreachRate(), parallel.getTradeLimitBreachRate());
+        assertNotEquals(single.getFinalEquityPercentile(0.5), other.getFinalEquityPercentile(0.5), "不同种子应该得到不同路径");
+        assertEquals(100, single.getDaysPerPath());
+    }
+
+    @Test
+    void testConstantProfitsNeverBreach() {
+        double[] profits = new double[100];
+        java.util.Arrays.fill(profits, 10);
+        MonteCarloRisk.Report report = new MonteCarloRisk(profits, times(100, 10), 10000, risk(0.02, 0.05))
+                .run(1000, 1);
+
+        assertEquals(0, report.getDrawdownPercentile(1));
+        assertEquals(0, report.getWorstDailyLossPercentile(1));
+        assertEquals(11000, report.getFinalEquityPercentile(0), 1e-6);
+        assertEquals(0, report.getDailyLimitBreachProbability());
+        assertEquals(0, report.getTradeLimitBreachProbability());
+        assertEquals(0, report.getRuinProbability());
+    }
+
+    @Test
+    void testLimitsAreCheckedAgainstRiskConfig() {
+        // 一半交易亏 300，超过 10000 的 2%；每天 4 笔，全亏时单日亏损 12%
+        double[] profits = new double[200];
+        for (int i = 0; i < profits.length; i++) {
+            profits[i] = i % 2 == 0 ? 300 : -300;
+        }
+        MonteCarloRisk.Report report = new MonteCarloRisk(profits, times(200, 4), 10000, risk(0.02, 0.05))
+                .run(4000, 3);
+
+        assertEquals(1.0, report.getTradeLimitBreachProbability(), "100 笔亏损交易里总有一笔超过单笔风险上限");
+        // 上限按当前权益计算，权益涨到 15000 以上后亏 300 就不再超限
+        assertTrue(report.getTradeLimitBreachRate() > 0.4 && report.getTradeLimitBreachRate() <= 0.5,
+                "超限比例: " + report.getTradeLimitBreachRate());
+        // 单日超过 5% 需要当天 4 笔里至少 3 笔亏损（概率 5/16），50 天里几乎必然出现
+        assertTrue(report.getDailyLimitBreachProbability() > 0.99);
+        assertTrue(report.getWorstDailyLossPercentile(1) > 0.11);
+
+        MonteCarloRisk.Report loose = new MonteCarloRisk(profits, times(200, 4), 10000, risk(0.05, 0.2))
+                .run(4000, 3);
+        // 只有权益先跌到 6000 以下才会超限
+        assertTrue(loose.getTradeLimitBreachProbability() < 0.5);
+        assertTrue(loose.getTradeLimitBreachRate() < report.getTradeLimitBreachRate() / 10);
+        assertTrue(loose.getDailyLimitBreachProbability() < report.getDailyLimitBreachProbability() / 2);
+        assertEquals(report.getDrawdownPercentile(0.5), loose.getDrawdownPercentile(0.5), "限额只影响统计，不影响路径");
+    }
+
+    @Test
+    void testRuinIsDetected() {
+        double[] profits = {-600, 100};
+        MonteCarloRisk.Report report = new MonteCarloRisk(profits, times(2, 1), 1000, risk(0.02, 0.05))
+                .run(1000, 5);
+
+        // 两笔都抽到 -600 的概率 1/4
+        assertEquals(0.25, report.getRuinProbability(), 0.05);
+        assertEquals(1.0, report.getDrawdownPercentile(1), 1e-9);
+    }
+
+    @Test
+    void testResamplesBacktestTradesThroughCsv() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("trading.slippage", "0");
+        TradingConfig config = TradingConfig.fromProperties(props);
+        CandleSeries series = BacktesterTest.syntheticSeries("US30", 2000, 42);
+        BacktestResult result = new Backtester(config, SimpleDecisionEngine::new).run(series);
+        assertTrue(result.getTradeCount() > 0);
+
+        Path file = dir.resolve("trades.csv");
+        result.writeTradesCsv(file);
+        MonteCarloRisk.Trades trades = MonteCarloRisk.readTrades(file);
+        assertEquals(result.getTradeCount(), trades.size());
+        for (int i = 0; i < trades.size(); i++) {
+            assertEquals(result.getTrades().get(i).getProfit(), trades.getProfits()[i], 1e-6);
+            assertEquals(result.getTrades().get(i).getCloseTimeMillis(), trades.getCloseTimesMillis()[i]);
+        }
+
+        MonteCarloRisk.Report report = MonteCarloRisk.of(result, RiskConfig.from(config)).run(500, 1);
+        assertEquals(result.getTradeCount(), report.getTradesPerPath());
+        assertEquals(result.getInitialBalance(), report.getInitialBalance());
+        assertTrue(report.format().contains("单日亏损上限"));
+    }
+
+    @Test
+    void testThroughput() {
+        MonteCarloRisk.Report report = new MonteCarloRisk(randomProfits(1000, 11), times(1000, 8), 10000,
+                risk(0.02, 0.05)).run(10_000, 1);
+        System.out.println(report.getSummary());
+        // 一千万笔模拟交易，宽松下限只用于发现退化
+        assertTrue(report.getTradesPerSecond() > 2_000_000, "吞吐量: " + report.getTradesPerSecond());
+    }
+
+    @Test
+    void testRejectsEmptyInput() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MonteCarloRisk(new double[0], new long[0], 10000, risk(0.02, 0.05)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new MonteCarloRisk(new double[] {1}, new long[] {START}, 10000, risk(0.02, 0.05)).run(0, 1));
+    }
+}
@@ -0,0 +1,135 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.mt5.models.OrderAck;
+import com.mt5trading.timer.VirtualClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulatedMT5ConnectorTest {
+
+    private final VirtualClock clock = new VirtualClock(Instant.ofEpochSecond(1_704_187_800L));
+
+    @AfterEach
+    void tearDown() {
+        clock.stop();
+    }
+
+    private SimulatedMT5Connector connector(FillModel fillModel) {
+        Properties props = new Properties();
+        props.setProperty("app.journal.enabled", "false");
+        props.setProperty("trading.max.risk.per.trade", "1.0");
+        return new SimulatedMT5Connector(TradingConfig.fromProperties(props), clock, 10000, fillModel);
+    }
+
+    @Test
+    void testStopFillsAtLevelIntraBarAndAtMarketOnGap() {
+        SimulatedMT5Connector connector = connector(FillModel.ideal());
+        connector.onTick("US30", 35000, 35002);
+        connector.submitOrder("US30", "BUY", 1.0, 0, 34950, 35100, "T");
+        connector.submitOrder("US30", "BUY", 1.0, 0, 34950, 35100, "T");
+
+        // K线内连续下跌穿过止损：按止损价成交
+        connector.onTick("US30", 34900, 34902, true);
+        BacktestTrade stopped = connector.getTrades().get(0);
+        assertEquals(BacktestTrade.ExitReason.STOP_LOSS, stopped.getExitReason());
+        assertEquals(34950, stopped.getClosePrice(), 1e-9, "连续行情应该按止损价成交");
+        assertEquals(0, stopped.getSlippageCost(), 1e-9);
+        assertEquals(2, connector.getTrades().size(), "第二笔持仓同时止损");
+
+        connector.onTick("US30", 35000, 35002);
+        connector.submitOrder("US30", "BUY", 1.0, 0, 34950, 35100, "T");
+        // 跳空低开：按跳空后的行情成交，差额计入执行成本
+        connector.onTick("US30", 34900, 34902, false);
+        BacktestTrade gapped = connector.getTrades().get(2);
+        assertEquals(34900, gapped.getClosePrice(), 1e-9, "跳空应该按行情成交");
+        assertEquals(50, gapped.getSlippageCost(), 1e-9, "跳空损失相对止损价计入成本");
+    }
+
+    @Test
+    void testLiveQuoteOnlyMatchesStops() {
+        SimulatedMT5Connector connector = connector(FillModel.ideal());
+        connector.onTick("US30", 35000, 35002);
+        connector.submitOrder("US30", "BUY", 1.0, 0, 34950, 35100, "T");
+        double marked = connector.getPositionBook().getUnrealizedTotal();
+
+        // EA 行情由 WebSocket 客户端更新持仓簿和风控，模拟成交器不再重复估值
+        connector.onQuote("US30", 35050, 35052);
+        assertEquals(marked, connector.getPositionBook().getUnrealizedTotal(), 1e-9);
+        assertTrue(connector.getTrades().isEmpty());
+
+        connector.onQuote("US30", 34940, 34942);
+        assertEquals(BacktestTrade.ExitReason.STOP_LOSS, connector.getTrades().get(0).getExitReason(),
+                "止损仍按 EA 行情撮合");
+    }
+
+    @Test
+    void testTakeProfitFillsAtLimitPrice() {
+        SimulatedMT5Connector connector = connector(new FillModel(0, 5, 0, 0, 0, 1, 1));
+        connector.onTick("US30", 35000, 35002);
+        connector.submitOrder("US30", "SELL", 0.5, 0, 35100, 34900, "T");
+        connector.onTick("US30", 34850, 34852, true);
+
+        BacktestTrade trade = connector.getTrades().get(0);
+        assertEquals(BacktestTrade.ExitReason.TAKE_PROFIT, trade.getExitReason());
+        assertEquals(34900, trade.getClosePrice(), 1e-9, "止盈按挂单价成交，没有滑点");
+        assertTrue(trade.getOpenPrice() <= 35000 && trade.getOpenPrice() >= 34995, "卖出开仓有不利滑点");
+    }
+
+    @Test
+    void testLatencyFillsAtLaterQuote() {
+        SimulatedMT5Connector connector = connector(new FillModel(0, 0, 200, 0, 0, 1, 1));
+        connector.onTick("US30", 35000, 35002);
+        CompletableFuture<OrderAck> ack = connector.submitOrder("US30", "BUY", 1.0, 0, 0, 0, "T");
+        assertFalse(ack.isDone(), "延迟到期前订单不应该成交");
+        assertEquals(1, connector.getInFlightCount());
+
+        clock.advanceBy(100, TimeUnit.MILLISECONDS);
+        connector.onTick("US30", 35010, 35012);
+        assertFalse(ack.isDone());
+        clock.advanceBy(100, TimeUnit.MILLISECONDS);
+
+        assertTrue(ack.isDone(), "延迟到期后应该成交");
+        assertEquals(35012, ack.join().getFillPrice(), 1e-9, "按成交时刻的行情成交");
+        assertEquals(0, connector.getInFlightCount());
+
+        connector.closeAll(BacktestTrade.ExitReason.END_OF_DATA);
+        assertEquals(10, connector.getTrades().get(0).getSlippageCost(), 1e-9, "延迟期间的行情变化计入执行成本");
+    }
+
+    @Test
+    void testPartialFillOpensFilledVolume() {
+        SimulatedMT5Connector connector = connector(new FillModel(0, 0, 0, 0, 1, 0.5, 5));
+        connector.onTick("US30", 35000, 35002);
+        OrderAck ack = connector.submitOrder("US30", "BUY", 1.0, 0, 0, 0, "T").join();
+
+        assertTrue(ack.isSuccess());
+        assertTrue(ack.getVolume() >= 0.5 && ack.getVolume() < 1.0, "应该部分成交: " + ack.getVolume());
+        assertEquals(1, connector.getPartialFillCount());
+        assertEquals(ack.getVolume(), connector.getOrderStore().get(ack.getTicket()).getVolume(), 1e-9);
+        assertEquals(ack.getVolume(), connector.getPositionBook().getNetVolume("US30"), 1e-9);
+    }
+
+    @Test
+    void testUserOrderExecutesAtMarket() {
+        SimulatedMT5Connector connector = connector(FillModel.ideal());
+        connector.onTick("US30", 35000, 35002);
+        OrderInfo order = new OrderInfo(0, "US30", "SELL_LIMIT", 0.3, 35050);
+        connector.placeUserOrder(order);
+
+        assertEquals(1, connector.getPendingOrders().size());
+        assertTrue(connector.executeOrder(order.getTicket(), "US30", "SELL_LIMIT", 0.3, 35050, 0, 0, "OK"));
+        assertEquals(0, connector.getPendingOrders().size());
+        assertEquals(1, connector.getOpenPositionCount());
+        assertFalse(connector.executeOrder(order.getTicket(), "US30", "SELL_LIMIT", 0.3, 35050, 0, 0, "OK"),
+                "已成交的订单不能再次执行");
+    }
+}
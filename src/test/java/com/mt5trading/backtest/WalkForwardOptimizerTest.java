@@ -0,0 +1,137 @@
+package com.mt5trading.backtest;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.CandleSeries;
+import com.mt5trading.services.SimpleDecisionEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WalkForwardOptimizerTest {
+
+    @TempDir
+    Path dir;
+
+    private static Properties base() {
+        Properties props = new Properties();
+        props.setProperty("trading.slippage", "0");
+        return props;
+    }
+
+    private static WalkForwardOptimizer optimizer(ForkJoinPool pool) {
+        WalkForwardOptimizer optimizer = new WalkForwardOptimizer(base(), SimpleDecisionEngine::new, pool)
+                .setWindows(600, 200)
+                .addParameter("trading.bullish.threshold", 0.02, 0.08)
+                .addParameter("trading.price.tolerance", 10, 30);
+        optimizer.setMinTrades(0);
+        return optimizer;
+    }
+
+    @Test
+    void testCandidatesExpandCartesianProduct() {
+        List<Map<String, String>> candidates = optimizer(ForkJoinPool.commonPool()).getCandidates();
+        assertEquals(4, candidates.size());
+        assertEquals(Map.of("trading.bullish.threshold", "0.02", "trading.price.tolerance", "10"), candidates.get(0));
+        assertEquals(Map.of("trading.bullish.threshold", "0.08", "trading.price.tolerance", "30"), candidates.get(3));
+        assertEquals("30", WalkForwardOptimizer.formatValue(30.0), "整数值应该按整数写入配置");
+    }
+
+    @Test
+    void testWindowsRollAndPickBestInSample() throws IOException {
+        CandleSeries series = BacktesterTest.syntheticSeries("US30", 2000, 42);
+        WalkForwardOptimizer.Report report = optimizer(ForkJoinPool.commonPool()).run(BarSource.of(series));
+
+        List<WalkForwardOptimizer.Window> windows = report.getWindows();
+        assertEquals(7, windows.size(), "(2000 - 600) / 200 个窗口");
+        double total = 0;
+        for (int i = 0; i < windows.size(); i++) {
+            WalkForwardOptimizer.Window window = windows.get(i);
+            assertEquals(i * 200, window.getInSampleFrom());
+            assertEquals(window.getInSampleFrom() + 600, window.getInSampleTo());
+            assertEquals(window.getInSampleTo() + 200, window.getOutOfSampleTo(), "样本外紧接样本内");
+            assertTrue(window.hasChoice());
+            for (int c = 0; c < report.getCandidates().size(); c++) {
+                assertTrue(window.getInSampleProfit() >= window.getInSampleProfit(c),
+                        "窗口 " + i + " 应该选中样本内盈亏最高的候选");
+            }
+            assertEquals(report.getCandidates().get(window.getChosenCandidate()), window.getParameters());
+            assertEquals(window.getInSampleProfit() > 0, !Double.isNaN(window.getEfficiency()),
+                    "样本内不盈利时效率为 NaN");
+            total += window.getOutOfSampleProfit();
+        }
+        assertEquals(total, report.getOutOfSampleProfit(), 1e-9);
+
+        Path csv = dir.resolve("wf.csv");
+        report.writeCsv(csv);
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals(8, lines.size());
+        assertTrue(lines.get(0).contains("trading.bullish.threshold"), "参数列应该按配置项展开");
+    }
+
+    @Test
+    void testEfficiencyUndefinedWithoutInSampleProfit() {
+        assertEquals(0.5, WalkForwardOptimizer.efficiency(600, 600, 100, 200), 1e-12);
+        assertEquals(-0.5, WalkForwardOptimizer.efficiency(600, 600, -100, 200), 1e-12);
+        // 亏损除以亏损不能当作正的效率
+        assertTrue(Double.isNaN(WalkForwardOptimizer.efficiency(-600, 600, -100, 200)));
+        assertTrue(Double.isNaN(WalkForwardOptimizer.efficiency(0, 600, 100, 200)));
+    }
+
+    @Test
+    void testSingleContinuousRunMatchesStandaloneBacktest() {
+        CandleSeries series = BacktesterTest.syntheticSeries("US30", 1000, 9);
+        WalkForwardOptimizer optimizer = optimizer(ForkJoinPool.commonPool()).setWindows(400, 200);
+        WalkForwardOptimizer.Report report = optimizer.run(BarSource.of(series));
+
+        for (int c = 0; c < report.getCandidates().size(); c++) {
+            Properties props = base();
+            props.putAll(report.getCandidates().get(c));
+            props.setProperty("app.journal.enabled", "false");
+            BacktestResult standalone = new Backtester(TradingConfig.fromProperties(props), SimpleDecisionEngine::new)
+                    .run(series);
+            assertEquals(standalone.getNetProfit(), report.getCandidateProfit(c), 1e-6,
+                    "候选 " + c + " 的窗口得分应该来自同一次连续回测");
+        }
+    }
+
+    @Test
+    void testParallelismDoesNotChangeResults() {
+        CandleSeries series = BacktesterTest.syntheticSeries("US30", 1200, 5);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool quad = new ForkJoinPool(4);
+        try {
+            WalkForwardOptimizer.Report a = optimizer(single).run(BarSource.of(series));
+            WalkForwardOptimizer.Report b = optimizer(quad).run(BarSource.of(series));
+            assertEquals(a.getWindows().size(), b.getWindows().size());
+            for (int i = 0; i < a.getWindows().size(); i++) {
+                assertEquals(a.getWindows().get(i).getChosenCandidate(), b.getWindows().get(i).getChosenCandidate());
+                assertEquals(a.getWindows().get(i).getOutOfSampleProfit(),
+                        b.getWindows().get(i).getOutOfSampleProfit(), 1e-9);
+            }
+        } finally {
+            single.shutdown();
+            quad.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectsInvalidSetup() {
+        CandleSeries series = BacktesterTest.syntheticSeries("US30", 100, 1);
+        WalkForwardOptimizer noParameters = new WalkForwardOptimizer(base(), SimpleDecisionEngine::new)
+                .setWindows(50, 20);
+        assertThrows(IllegalStateException.class, () -> noParameters.run(BarSource.of(series)));
+        assertThrows(IllegalArgumentException.class,
+                () -> optimizer(ForkJoinPool.commonPool()).run(BarSource.of(series)), "K线不足一个窗口");
+        assertThrows(IllegalArgumentException.class,
+                () -> optimizer(ForkJoinPool.commonPool()).addParameter("trading.price.tolerance", 5));
+    }
+}
@@ -0,0 +1,88 @@
+package com.mt5trading.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradingConfigTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeConfig(String content) throws IOException {
+        Path file = tempDir.resolve("application.properties");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    @Test
+    void testMalformedValueFailsAtLoad() {
+        Properties props = new Properties();
+        props.setProperty("trading.bullish.threshold", "abc");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> TradingConfig.fromProperties(props));
+        assertTrue(e.getMessage().contains("trading.bullish.threshold"), "错误信息应该包含配置项名称");
+    }
+
+    @Test
+    void testSnapshotIsDetachedFromSourceProperties() {
+        Properties props = new Properties();
+        props.setProperty("trading.volume", "0.5");
+        TradingConfig config = TradingConfig.fromProperties(props);
+
+        props.setProperty("trading.volume", "9");
+        assertEquals(0.5, config.getTradeVolume(), "修改原 Properties 不应该影响已加载的配置");
+    }
+
+    @Test
+    void testReloadSwapsSnapshotAndDerivedConfigs() throws IOException {
+        Path file = writeConfig("trading.volume=0.1\nstrategy.fast.trading.volume=0.3\n");
+        TradingConfig config = TradingConfig.load(file);
+        TradingConfig fast = config.forStrategy("fast");
+        assertEquals(0.3, fast.getTradeVolume());
+
+        writeConfig("trading.volume=0.2\nstrategy.fast.trading.volume=0.4\n");
+        assertTrue(config.reload());
+        assertEquals(0.2, config.getTradeVolume(), "热加载后应该使用新值");
+        assertEquals(0.4, fast.getTradeVolume(), "派生的策略配置应该一起更新");
+    }
+
+    @Test
+    void testInvalidReloadKeepsCurrentConfig() throws IOException {
+        Path file = writeConfig("trading.volume=0.1\n");
+        TradingConfig config = TradingConfig.load(file);
+
+        writeConfig("trading.volume=0.2\napp.candle.analysis.second=90\n");
+        assertFalse(config.reload(), "校验失败的配置不应该生效");
+        assertEquals(0.1, config.getTradeVolume());
+
+        writeConfig("trading.volume=oops\n");
+        assertThrows(IllegalArgumentException.class, config::reload);
+        assertEquals(0.1, config.getTradeVolume());
+    }
+
+    @Test
+    void testPinnedSnapshotIgnoresReload() throws IOException {
+        Path file = writeConfig("trading.volume=0.1\ntrading.bullish.threshold=0.02\nstrategy.fast.trading.volume=0.3\n");
+        TradingConfig config = TradingConfig.load(file);
+        TradingConfig fast = config.forStrategy("fast");
+        TradingConfig pinned = config.getSnapshot();
+        TradingConfig pinnedFast = fast.getSnapshot();
+
+        writeConfig("trading.volume=0.2\ntrading.bullish.threshold=0.05\nstrategy.fast.trading.volume=0.4\n");
+        assertTrue(config.reload());
+        assertEquals(0.2, config.getTradeVolume());
+        assertEquals(0.1, pinned.getTradeVolume(), "固定的快照不应该随热加载变化");
+        assertEquals(0.02, pinned.getBullishThreshold());
+        assertEquals(0.3, pinnedFast.getTradeVolume());
+        assertEquals("fast", pinnedFast.getStrategyName());
+        assertFalse(pinned.reload(), "固定的快照不能热加载");
+    }
+}
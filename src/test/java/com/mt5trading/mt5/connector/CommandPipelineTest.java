@@ -0,0 +1,122 @@
+package com.mt5trading.mt5.connector;
+
+import com.mt5trading.util.LatencyTracker;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandPipelineTest {
+
+    private final List<String> frames = new ArrayList<>();
+    private final long[] now = {0};
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+
+    private CommandPipeline createPipeline(double rate, int burst, int batchSize) {
+        return new CommandPipeline(frames::add, () -> true, rate, burst, batchSize, () -> now[0], latencyTracker);
+    }
+
+    @Test
+    void testOrderLatencyRecordedWhenFrameIsWritten() {
+        CommandPipeline pipeline = createPipeline(1.0, 1, 10);
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "{\"a\":1}");
+        assertEquals(0, latencyTracker.getHistogram(LatencyTracker.Stage.SEND).getCount(), "维护指令不计发送延迟");
+
+        pipeline.submit(CommandPipeline.Priority.ORDER, "{\"order\":1}");
+        assertEquals(0, latencyTracker.getHistogram(LatencyTracker.Stage.SEND).getCount(), "排队时还没有写出");
+
+        now[0] += 1_000_000_000L;
+        pipeline.flush();
+        assertEquals(1, latencyTracker.getHistogram(LatencyTracker.Stage.SEND).getCount());
+        assertTrue(latencyTracker.getHistogram(LatencyTracker.Stage.SEND).getMax() >= 900_000_000L,
+                "发送延迟应该包含限流排队的时间");
+    }
+
+    @Test
+    void testQueuedCommandsAreBatchedWithOrdersFirst() {
+        CommandPipeline pipeline = createPipeline(1.0, 1, 10);
+
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "{\"a\":1}");
+        assertEquals(List.of("{\"a\":1}"), frames, "有令牌时单条指令应该原样立即发送");
+
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "{\"b\":2}");
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "{\"c\":3}");
+        pipeline.submit(CommandPipeline.Priority.ORDER, "{\"order\":1}");
+        assertEquals(1, frames.size(), "令牌用完后应该排队");
+        assertEquals(3, pipeline.getQueueSize());
+
+        now[0] += 1_000_000_000L;
+        pipeline.flush();
+        assertEquals(2, frames.size());
+        assertEquals("{\"type\":\"batch\",\"commands\":[{\"order\":1},{\"b\":2},{\"c\":3}]}", frames.get(1),
+                "订单应该排在维护指令前面");
+        assertEquals(0, pipeline.getQueueSize());
+    }
+
+    @Test
+    void testKeyedCommandsCoalesceAndBatchSizeIsRespected() {
+        CommandPipeline pipeline = createPipeline(1.0, 1, 2);
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "{\"x\":0}");
+
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:1", "{\"modify\":1}");
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:2", "{\"modify\":2}");
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:1", "{\"cancel\":1}");
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "{\"y\":0}");
+        assertEquals(3, pipeline.getQueueSize(), "同一订单号的指令应该只保留最后一条");
+
+        now[0] += 1_000_000_000L;
+        pipeline.flush();
+        assertEquals("{\"type\":\"batch\",\"commands\":[{\"cancel\":1},{\"modify\":2}]}", frames.get(1));
+        assertEquals(1, pipeline.getQueueSize(), "每帧最多合并 batchSize 条");
+
+        // 没有新令牌时不发送
+        pipeline.flush();
+        assertEquals(2, frames.size());
+        now[0] += 1_000_000_000L;
+        pipeline.flush();
+        assertEquals("{\"y\":0}", frames.get(2));
+    }
+
+    @Test
+    void testFailedSendKeepsCommandsQueued() {
+        boolean[] failing = {true};
+        CommandPipeline pipeline = new CommandPipeline(frame -> {
+            if (failing[0]) {
+                throw new IllegalStateException("连接已关闭");
+            }
+            frames.add(frame);
+        }, () -> true, 1.0, 1, 10, () -> now[0], latencyTracker);
+
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:1", "{\"modify\":1}");
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:2", "{\"cancel\":2}", true);
+        assertTrue(frames.isEmpty());
+        assertEquals(2, pipeline.getQueueSize(), "发送失败的指令应该留在队列中");
+
+        // 留在队列中的指令仍然参与合并
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:1", "{\"modify\":11}");
+        assertEquals(2, pipeline.getQueueSize());
+
+        failing[0] = false;
+        now[0] += 1_000_000_000L;
+        pipeline.flush();
+        assertEquals(List.of("{\"type\":\"batch\",\"commands\":[{\"modify\":11},{\"cancel\":2}]}"), frames);
+        assertEquals(0, pipeline.getQueueSize());
+    }
+
+    @Test
+    void testQueuedCancelIsNeverCoalescedAway() {
+        CommandPipeline pipeline = createPipeline(1.0, 1, 10);
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "{\"x\":0}");
+
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:1", "{\"modify\":1}");
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:1", "{\"cancel\":1}", true);
+        pipeline.submit(CommandPipeline.Priority.HOUSEKEEPING, "ticket:1", "{\"modify\":2}");
+        assertEquals(1, pipeline.getQueueSize());
+
+        now[0] += 1_000_000_000L;
+        pipeline.flush();
+        assertEquals("{\"cancel\":1}", frames.get(1), "排队的取消指令不应该被之后的修改覆盖");
+    }
+}
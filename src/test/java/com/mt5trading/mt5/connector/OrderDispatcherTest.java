@@ -0,0 +1,135 @@
+package com.mt5trading.mt5.connector;
+
+import com.mt5trading.mt5.models.OrderAck;
+import com.mt5trading.timer.Timeout;
+import com.mt5trading.timer.TimerService;
+import com.mt5trading.util.LatencyTracker;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderDispatcherTest {
+
+    /**
+     * 手动触发的定时器，fire() 执行当前所有未取消的一次性任务
+     */
+    private static class ManualTimer implements TimerService {
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<boolean[]> cancelled = new ArrayList<>();
+
+        @Override
+        public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+            boolean[] flag = new boolean[1];
+            tasks.add(task);
+            cancelled.add(flag);
+            return new Timeout() {
+                public boolean cancel() { flag[0] = true; return true; }
+                public boolean isCancelled() { return flag[0]; }
+                public boolean isExpired() { return false; }
+            };
+        }
+
+        @Override
+        public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getPrecisionNanos() {
+            return 0;
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        void fire() {
+            List<Runnable> due = new ArrayList<>(tasks);
+            List<boolean[]> flags = new ArrayList<>(cancelled);
+            tasks.clear();
+            cancelled.clear();
+            for (int i = 0; i < due.size(); i++) {
+                if (!flags.get(i)[0]) {
+                    due.get(i).run();
+                }
+            }
+        }
+    }
+
+    private final ManualTimer timer = new ManualTimer();
+    private final List<String> sent = new ArrayList<>();
+    private boolean connected = true;
+
+    private OrderDispatcher createDispatcher(int maxRetries) {
+        return new OrderDispatcher(timer, sent::add, () -> connected, 1000, maxRetries, new LatencyTracker());
+    }
+
+    @Test
+    void testAckCompletesFutureAndDuplicatesAreSuppressed() {
+        OrderDispatcher dispatcher = createDispatcher(2);
+        String id = dispatcher.nextClientOrderId();
+        CompletableFuture<OrderAck> future = dispatcher.dispatch(id, "order-1");
+        assertSame(future, dispatcher.dispatch(id, "order-1"), "在途订单重复提交应该返回同一个 future");
+        assertEquals(1, sent.size(), "重复提交不应该再次发送");
+        assertFalse(future.isDone());
+
+        assertTrue(dispatcher.onAck(new OrderAck(id, true, 777, 35001.5, 0.1, null)));
+        OrderAck ack = future.join();
+        assertEquals(777, ack.getTicket());
+        assertEquals(35001.5, ack.getFillPrice());
+        assertEquals(1, ack.getAttempts());
+
+        assertFalse(dispatcher.onAck(new OrderAck(id, true, 777, 35001.5, 0.1, null)), "重复回报应该被忽略");
+        assertSame(ack, dispatcher.dispatch(id, "order-1").join(), "已完成的订单号重复提交应该返回原回报");
+        assertEquals(1, sent.size());
+        assertEquals(0, dispatcher.getInFlightCount());
+    }
+
+    @Test
+    void testTimeoutRetriesWithSameIdThenFails() {
+        OrderDispatcher dispatcher = createDispatcher(1);
+        List<OrderAck> lateFills = new ArrayList<>();
+        dispatcher.setLateFillListener(lateFills::add);
+        String id = dispatcher.nextClientOrderId();
+        CompletableFuture<OrderAck> future = dispatcher.dispatch(id, "order-2");
+
+        timer.fire();
+        assertEquals(List.of("order-2", "order-2"), sent, "超时后应该按原消息重发");
+        assertFalse(future.isDone());
+
+        timer.fire();
+        OrderAck ack = future.join();
+        assertFalse(ack.isSuccess(), "超过重试次数应该以失败完成");
+        assertEquals(2, ack.getAttempts());
+        assertEquals(2, sent.size());
+
+        // 超时后才到的成交回报仍然有效，交给迟到成交监听器补记
+        assertTrue(dispatcher.onAck(new OrderAck(id, true, 888, 35000, 0.1, null)));
+        assertFalse(dispatcher.onAck(new OrderAck(id, true, 888, 35000, 0.1, null)));
+        assertEquals(1, lateFills.size());
+        assertEquals(888, lateFills.get(0).getTicket());
+    }
+
+    @Test
+    void testReconnectResendsInFlightOrders() {
+        connected = false;
+        OrderDispatcher dispatcher = createDispatcher(0);
+        String id = dispatcher.nextClientOrderId();
+        CompletableFuture<OrderAck> future = dispatcher.dispatch(id, "order-3");
+        assertTrue(sent.isEmpty(), "断线时不应该发送");
+
+        connected = true;
+        dispatcher.resendInFlight();
+        assertEquals(List.of("order-3"), sent);
+
+        dispatcher.onAck(new OrderAck(id, false, 0, 0, 0, "rejected"));
+        assertFalse(future.join().isSuccess());
+        timer.fire();
+        assertEquals(1, sent.size(), "已回报的订单不应该再因超时重发");
+    }
+}
@@ -0,0 +1,78 @@
+package com.mt5trading.mt5.connector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StagedOrderTest {
+
+    private static String field(String json, String key) {
+        String pattern = "\"" + key + "\":";
+        int start = json.indexOf(pattern) + pattern.length();
+        int end = start;
+        while (json.charAt(end) != ',' && json.charAt(end) != '}') {
+            end++;
+        }
+        return json.substring(start, end);
+    }
+
+    @Test
+    void testRenderPatchesPriceSlots() {
+        StagedOrder buy = new StagedOrder("SDS1-1", "US30", "BUY", 0.1, 80, 120, "AUTO_TRADE");
+        String json = buy.render(35012.5, 1700000000123L);
+
+        assertTrue(json.startsWith("{\"type\":\"trade\",\"client_id\":\"SDS1-1\",\"action\":\"BUY\""));
+        assertEquals(35012.5, Double.parseDouble(field(json, "price")), 1e-9);
+        assertEquals(34932.5, Double.parseDouble(field(json, "sl")), 1e-9, "多单止损在入场价下方");
+        assertEquals(35132.5, Double.parseDouble(field(json, "tp")), 1e-9, "多单止盈在入场价上方");
+        assertEquals("1700000000123", field(json, "timestamp"));
+        assertEquals("0.10", field(json, "volume"));
+        assertEquals(StagedOrder.PRICE_WIDTH, field(json, "price").length(), "价格槽位应为定宽");
+
+        // 再次填写价格时长度不变，旧数字被完全覆盖
+        String again = buy.render(9.87654, 1700000000999L);
+        assertEquals(json.length(), again.length());
+        assertEquals(9.87654, Double.parseDouble(field(again, "price")), 1e-9);
+    }
+
+    @Test
+    void testSellOffsetsAndUnsetStops() {
+        StagedOrder sell = new StagedOrder("SDS1-2", "SELL", "SELL", 0.05, 50, 0, "x");
+        assertEquals(35050.0, sell.stopLossFor(35000), 1e-9, "空单止损在入场价上方");
+        assertEquals(0.0, sell.takeProfitFor(35000), "点数为 0 时不设置止盈");
+        assertThrows(IllegalArgumentException.class,
+                () -> new StagedOrder("SDS1-3", "US30", "CLOSE", 0.1, 0, 0, ""));
+    }
+
+    @Test
+    void testWriteFixedMatchesFormatting() {
+        char[] slot = new char[StagedOrder.PRICE_WIDTH];
+        double[] values = {0, 1.000005, 35000.123456, 1234567.5, -12.25, 0.000004};
+        for (double value : values) {
+            assertTrue(StagedOrder.writeFixed(slot, 0, slot.length, value));
+            assertEquals(Double.parseDouble(String.format(Locale.ROOT, "%.5f", value)),
+                    Double.parseDouble(new String(slot)), 0.0, "定宽写入应与 %.5f 取值一致: " + value);
+        }
+        assertFalse(StagedOrder.writeFixed(slot, 0, slot.length, 1e12), "超出槽位宽度时应返回 false");
+        assertFalse(StagedOrder.writeFixed(slot, 0, slot.length, Double.NaN));
+    }
+
+    @Test
+    void testOversizedPriceFallsBackToFormat() {
+        StagedOrder buy = new StagedOrder("SDS1-4", "US30", "BUY", 1, 10, 10, "c");
+        String json = buy.render(1e12, 1L);
+        assertEquals(1e12, Double.parseDouble(field(json, "price")), 1e-3);
+        assertEquals("1", field(json, "timestamp"));
+    }
+
+    @Test
+    void testSingleUse() {
+        StagedOrder order = new StagedOrder("SDS1-5", "US30", "BUY", 1, 10, 10, "c");
+        assertFalse(order.isUsed());
+        assertTrue(order.markUsed());
+        assertFalse(order.markUsed(), "预备订单只能发送一次");
+        assertTrue(order.isUsed());
+    }
+}
@@ -0,0 +1,268 @@
+package com.mt5trading.mt5.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.mt5.connector.MT5Connector;
+import com.mt5trading.mt5.models.OrderAck;
+import com.mt5trading.services.DecisionEngine;
+import com.mt5trading.services.OrderJournal;
+import com.mt5trading.timer.HashedWheelTimer;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class SimulatedEAServerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimulatedEAServer server;
+    private RawClient client;
+
+    /**
+     * 直接说协议的客户端，收到的消息按顺序入队
+     */
+    private static final class RawClient extends WebSocketClient {
+        final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        RawClient(int port) throws Exception {
+            super(new URI("ws://localhost:" + port));
+        }
+
+        @Override public void onOpen(ServerHandshake handshake) { }
+        @Override public void onMessage(String message) { messages.add(message); }
+        @Override public void onClose(int code, String reason, boolean remote) { }
+        @Override public void onError(Exception ex) { }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RandomWalkTickSource source = new RandomWalkTickSource(0.0001, 42);
+        source.addSymbol("US30", 35000, 2);
+        server = new SimulatedEAServer(new InetSocketAddress("localhost", 0), source, HashedWheelTimer.getDefault());
+        assertTrue(server.startAndWait(5, TimeUnit.SECONDS), "服务器应该启动");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (client != null) {
+            client.closeBlocking();
+        }
+        server.stopTicks();
+        server.stop(1000);
+    }
+
+    private RawClient connect() throws Exception {
+        RawClient raw = new RawClient(server.getPort());
+        assertTrue(raw.connectBlocking(5, TimeUnit.SECONDS), "客户端应该连上");
+        assertEquals("mt5_info", nextOfType(raw, "mt5_info").get("type").asText());
+        return raw;
+    }
+
+    /**
+     * 等待下一条指定类型的消息，跳过其他类型（主要是行情）
+     */
+    private JsonNode nextOfType(RawClient raw, String type) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            String message = raw.messages.poll(100, TimeUnit.MILLISECONDS);
+            if (message == null) {
+                continue;
+            }
+            JsonNode json = objectMapper.readTree(message);
+            if (type.equals(json.path("type").asText())) {
+                return json;
+            }
+        }
+        fail("没有收到 " + type + " 消息");
+        return null;
+    }
+
+    @Test
+    void testAuthAndPasswordCheck() throws Exception {
+        server.setPassword("secret");
+        client = connect();
+
+        client.send("{\"type\":\"get_positions\"}");
+        assertEquals("未认证", nextOfType(client, "error").get("message").asText());
+
+        client.send("{\"type\":\"auth\",\"login\":\"1\",\"password\":\"wrong\"}");
+        assertEquals("failed", nextOfType(client, "auth_response").get("status").asText());
+
+        client.send("{\"type\":\"auth\",\"login\":\"1\",\"password\":\"secret\"}");
+        JsonNode auth = nextOfType(client, "auth_response");
+        assertEquals("success", auth.get("status").asText());
+        assertTrue(auth.get("session_id").asText().startsWith("SIM-"));
+
+        client.send("{\"type\":\"ping\",\"time\":1}");
+        assertTrue(nextOfType(client, "pong").has("time"));
+    }
+
+    @Test
+    void testOnlySubscribersReceiveMarketAtConfiguredRate() throws Exception {
+        server.setTicksPerSecond(2000);
+        server.setTicksPerMessage(10);
+        client = connect();
+        RawClient silent = connect();
+        try {
+            client.send("{\"type\":\"subscribe\",\"symbol\":\"US30\",\"timeframe\":60}");
+            client.send("{\"type\":\"ping\"}");
+            nextOfType(client, "pong"); // 订阅已处理
+            server.startTicks();
+
+            JsonNode market = nextOfType(client, "market");
+            assertEquals(10, market.get("data").size(), "每条消息应该打包 10 笔行情");
+            JsonNode tick = market.get("data").get(0);
+            assertEquals("US30", tick.get("symbol").asText());
+            assertTrue(tick.get("ask").asDouble() > tick.get("bid").asDouble());
+
+            long before = server.getTicksSent();
+            Thread.sleep(500);
+            long sent = server.getTicksSent() - before;
+            assertTrue(sent > 500 && sent < 1500, "500 毫秒内应该推送约 1000 笔行情，实际 " + sent);
+
+            silent.send("{\"type\":\"ping\"}");
+            nextOfType(silent, "pong");
+            for (String message : silent.messages) {
+                assertFalse(message.contains("\"market\""), "未订阅的连接不应该收到行情");
+            }
+        } finally {
+            silent.closeBlocking();
+        }
+    }
+
+    @Test
+    void testTradeFillsAtQuoteAndReplaysDuplicates() throws Exception {
+        client = connect();
+        client.send("{\"type\":\"subscribe\",\"symbol\":\"US30\"}");
+        server.setTicksPerSecond(1000);
+        server.startTicks();
+        nextOfType(client, "market");
+
+        String order = "{\"type\":\"trade\",\"client_id\":\"C-1\",\"action\":\"BUY\",\"symbol\":\"US30\"," +
+                "\"volume\":0.10,\"price\":1.0,\"sl\":34900,\"tp\":35100}";
+        client.send(order);
+        JsonNode first = nextOfType(client, "trade_result");
+        assertEquals("success", first.get("status").asText());
+        assertEquals("C-1", first.get("client_id").asText());
+        assertTrue(first.get("price").asDouble() > 30000, "应该按行情成交而不是请求价");
+
+        client.send(order);
+        JsonNode replay = nextOfType(client, "trade_result");
+        assertEquals(first.get("ticket").asInt(), replay.get("ticket").asInt(), "重复订单应该回放上次结果");
+        assertEquals(1, server.getTradesFilled());
+        assertEquals(1, server.getDuplicateOrders());
+
+        client.send("{\"type\":\"batch\",\"commands\":[{\"type\":\"get_positions\"},{\"type\":\"request\",\"request\":\"account\"}]}");
+        JsonNode positions = nextOfType(client, "positions");
+        assertEquals(1, positions.get("data").size());
+        assertEquals(34900, positions.get("data").get(0).get("sl").asDouble(), 1e-9);
+        assertEquals(10000, nextOfType(client, "account_info").get("balance").asDouble(), 1e-9);
+
+        client.send("{\"type\":\"trade\",\"client_id\":\"C-2\",\"action\":\"HOLD\",\"symbol\":\"US30\",\"volume\":0.1}");
+        assertEquals("rejected", nextOfType(client, "trade_result").get("status").asText());
+    }
+
+    @Test
+    void testPendingOrdersModifyAndCancel() throws Exception {
+        client = connect();
+        int ticket = server.placePendingOrder("US30", "BUY_LIMIT", 0.5, 34800);
+
+        client.send("{\"type\":\"get_orders\",\"symbol\":\"US30\",\"status\":\"pending\"}");
+        JsonNode orders = nextOfType(client, "orders");
+        assertEquals(ticket, orders.get("data").get(0).get("ticket").asInt());
+
+        client.send("{\"type\":\"modify_order\",\"ticket\":" + ticket + ",\"sl\":34700}");
+        JsonNode modified = nextOfType(client, "trade_result");
+        assertEquals("success", modified.get("status").asText());
+        assertFalse(modified.has("symbol"), "修改回报不应该带成交明细");
+
+        client.send("{\"type\":\"cancel_order\",\"ticket\":" + ticket + "}");
+        assertEquals("success", nextOfType(client, "trade_result").get("status").asText());
+        client.send("{\"type\":\"cancel_order\",\"ticket\":" + ticket + "}");
+        assertEquals("rejected", nextOfType(client, "trade_result").get("status").asText());
+    }
+
+    @Test
+    void testConnectorRoundTripAndReconnect() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("mt5.websocket.url", "ws://localhost:" + server.getPort());
+        props.setProperty("mt5.symbol", "US30");
+        props.setProperty("app.journal.enabled", "false");
+        MT5Connector connector = new MT5Connector(TradingConfig.fromProperties(props));
+        try {
+            assertTrue(connector.initializeWebSocket(candle -> { }, mock(DecisionEngine.class)), "连接器应该连上替身");
+            server.setTicksPerSecond(1000);
+            server.startTicks();
+
+            OrderAck ack = connector.submitOrder("US30", "SELL", 0.2, 0, 0, 0, "SIM")
+                    .get(5, TimeUnit.SECONDS);
+            assertTrue(ack.isSuccess(), "订单应该成交: " + ack);
+            assertTrue(ack.getTicket() > 900000);
+            assertEquals(1, server.getPositionCount());
+
+            // 异常断线后客户端 5 秒后自动重连
+            server.dropConnections();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (server.getConnectionCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(0, server.getConnectionCount(), "连接应该已断开");
+            while (server.getConnectionCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            assertEquals(1, server.getConnectionCount(), "客户端应该重新连上");
+        } finally {
+            connector.disconnect();
+        }
+    }
+
+    @Test
+    void testRecoveredSubmissionIsResentWhenConnectionOpens(@TempDir Path journalDir) throws Exception {
+        // 上次运行写入日志但没有收到回报的指令
+        OrderJournal journal = new OrderJournal(journalDir, 1 << 20);
+        journal.recover();
+        journal.start(ArrayList::new);
+        journal.logSubmit(new OrderJournal.Submission("R-1", "US30", "BUY", 0.1, 0, 0, 0, "SIM",
+                "{\"type\":\"trade\",\"client_id\":\"R-1\",\"action\":\"BUY\",\"symbol\":\"US30\"," +
+                "\"volume\":0.10,\"price\":0,\"sl\":0,\"tp\":0}")).get(5, TimeUnit.SECONDS);
+        journal.close();
+
+        server.setTicksPerSecond(1000);
+        server.startTicks();
+        Properties props = new Properties();
+        props.setProperty("mt5.websocket.url", "ws://localhost:" + server.getPort());
+        props.setProperty("mt5.symbol", "US30");
+        props.setProperty("app.journal.dir", journalDir.toString());
+        MT5Connector connector = new MT5Connector(TradingConfig.fromProperties(props));
+        try {
+            // 连接建立的回调负责重发，首次连接和之后的重连都会经过这里
+            assertTrue(connector.initializeWebSocket(candle -> { }, mock(DecisionEngine.class)));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (server.getTradesFilled() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, server.getTradesFilled(), "恢复的指令应该在连接建立后重发");
+            while (connector.getOrderStore().getAll().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, connector.getOrderStore().getAll().size(), "重发的指令成交后应该登记订单");
+        } finally {
+            connector.disconnect();
+        }
+    }
+}
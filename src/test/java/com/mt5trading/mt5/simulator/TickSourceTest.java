@@ -0,0 +1,95 @@
+package com.mt5trading.mt5.simulator;
+
+import com.mt5trading.timer.VirtualClock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickSourceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRandomWalkIsDeterministicPerSeed() {
+        VirtualClock clock = new VirtualClock(Instant.ofEpochMilli(1_000_000));
+        try {
+            RandomWalkTickSource a = new RandomWalkTickSource(0.001, 7, clock)
+                    .addSymbol("US30", 35000, 2).addSymbol("EURUSD", 1.095, 0.0001);
+            RandomWalkTickSource b = new RandomWalkTickSource(0.001, 7, clock)
+                    .addSymbol("US30", 35000, 2).addSymbol("EURUSD", 1.095, 0.0001);
+            TickSource.Tick x = new TickSource.Tick();
+            TickSource.Tick y = new TickSource.Tick();
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(a.next(x));
+                assertTrue(b.next(y));
+                assertEquals(x.getSymbol(), y.getSymbol());
+                assertEquals(x.getBid(), y.getBid(), "同一种子应该产生同样的价格");
+                assertEquals(i % 2 == 0 ? "US30" : "EURUSD", x.getSymbol(), "品种应该轮流出现");
+                assertEquals(x.getBid() + (i % 2 == 0 ? 2 : 0.0001), x.getAsk(), 1e-9);
+                assertEquals(1_000_000, x.getTimeMillis(), "时间取自注入的时间源");
+            }
+        } finally {
+            clock.stop();
+        }
+    }
+
+    @Test
+    void testReplayRebasesAndLoops() throws IOException {
+        Path file = dir.resolve("ticks.csv");
+        Files.write(file, List.of(
+                "time,symbol,bid,ask",
+                "5000,US30,35000,35002",
+                "坏行",
+                "5100,US30,abc,35003",
+                "5250,US30,35001,35003"));
+
+        VirtualClock clock = new VirtualClock(Instant.ofEpochMilli(1_000_000));
+        try (ReplayTickSource replay = new ReplayTickSource(file, true, clock)) {
+            List<Long> times = new ArrayList<>();
+            TickSource.Tick tick = new TickSource.Tick();
+            for (int i = 0; i < 4; i++) {
+                assertTrue(replay.next(tick));
+                times.add(tick.getTimeMillis());
+            }
+            assertEquals(List.of(1_000_000L, 1_000_250L, 1_000_251L, 1_000_501L), times,
+                    "回放应该平移到当前时间，循环时接在上一轮之后");
+            assertEquals(35001, tick.getBid());
+            assertEquals(4, replay.getTickCount());
+            assertEquals(4, replay.getSkippedCount(), "两轮各跳过两行坏数据");
+        } finally {
+            clock.stop();
+        }
+    }
+
+    @Test
+    void testRecordThenReplayWithoutLoop() throws IOException {
+        VirtualClock clock = new VirtualClock(Instant.ofEpochMilli(0));
+        try {
+            Path file = dir.resolve("walk.csv");
+            RandomWalkTickSource walk = new RandomWalkTickSource(0.0005, 3, clock).addSymbol("US30", 35000, 1);
+            assertEquals(100, ReplayTickSource.record(file, walk, 100));
+
+            try (ReplayTickSource replay = new ReplayTickSource(file, false, clock)) {
+                TickSource.Tick tick = new TickSource.Tick();
+                int count = 0;
+                while (replay.next(tick)) {
+                    count++;
+                }
+                assertEquals(100, count);
+                assertEquals(0, replay.getSkippedCount(), "表头不算坏数据");
+                assertFalse(replay.next(tick), "不循环时结束后一直返回 false");
+            }
+        } finally {
+            clock.stop();
+        }
+    }
+}
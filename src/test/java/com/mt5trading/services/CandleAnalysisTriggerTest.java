@@ -0,0 +1,71 @@
+package com.mt5trading.services;
+
+import com.mt5trading.timer.HashedWheelTimer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CandleAnalysisTriggerTest {
+
+    // 只计算触发时刻，不注册任务，时间轮不会启动
+    private final HashedWheelTimer scheduler = new HashedWheelTimer("test-timer");
+
+    private Instant utc(String time) {
+        return LocalDateTime.parse(time).toInstant(ZoneOffset.UTC);
+    }
+
+    @Test
+    void testNextFireOnM1() {
+        CandleAnalysisTrigger trigger = new CandleAnalysisTrigger(60, 45, ZoneOffset.UTC, scheduler, t -> { });
+
+        assertEquals(utc("2024-01-02T10:15:45"), trigger.nextFireInstant(utc("2024-01-02T10:15:12")),
+                "应该在当前K线第45秒触发");
+        assertEquals(utc("2024-01-02T10:16:45"), trigger.nextFireInstant(utc("2024-01-02T10:15:45")),
+                "已到达触发时刻时应该顺延到下一根K线");
+    }
+
+    @Test
+    void testNextFireOnM5AndD1() {
+        CandleAnalysisTrigger m5 = new CandleAnalysisTrigger(300, 240, ZoneOffset.UTC, scheduler, t -> { });
+        assertEquals(utc("2024-01-02T10:19:00"), m5.nextFireInstant(utc("2024-01-02T10:17:30")));
+
+        CandleAnalysisTrigger d1 = new CandleAnalysisTrigger(86400, 3600, ZoneOffset.UTC, scheduler, t -> { });
+        assertEquals(utc("2024-01-03T01:00:00"), d1.nextFireInstant(utc("2024-01-02T10:17:30")));
+    }
+
+    @Test
+    void testBarOpenAndInvalidArguments() {
+        CandleAnalysisTrigger trigger = new CandleAnalysisTrigger(900, 45, ZoneOffset.UTC, scheduler, t -> { });
+        assertEquals(LocalDateTime.parse("2024-01-02T10:15:00"),
+                trigger.barOpenOf(LocalDateTime.parse("2024-01-02T10:29:59")));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new CandleAnalysisTrigger(60, 60, ZoneOffset.UTC, scheduler, t -> { }));
+    }
+
+    @Test
+    void testFinalWaitRunsOffTheTimerThread() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer("trigger-timer");
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicReference<String> firedOn = new AtomicReference<>();
+        CandleAnalysisTrigger trigger = new CandleAnalysisTrigger(1, 0, ZoneOffset.UTC, timer, t -> {
+            firedOn.set(Thread.currentThread().getName());
+            fired.countDown();
+        });
+        try {
+            trigger.start();
+            assertTrue(fired.await(3, TimeUnit.SECONDS), "应该在下一秒边界触发");
+            assertEquals("candle-trigger-spin", firedOn.get(), "精确等待不应该占用定时线程");
+        } finally {
+            trigger.stop();
+            timer.stop();
+        }
+    }
+}
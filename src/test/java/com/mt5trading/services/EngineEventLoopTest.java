@@ -0,0 +1,71 @@
+package com.mt5trading.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineEventLoopTest {
+
+    static boolean awaitProcessed(EngineEventLoop loop, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (loop.getProcessedCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        return loop.getProcessedCount() == expected;
+    }
+
+    @Test
+    void testEventsRunInOrderOnLoopThread() throws InterruptedException {
+        EngineEventLoop loop = new EngineEventLoop("test");
+        loop.start();
+        try {
+            List<Integer> seen = new ArrayList<>();
+            List<Boolean> onLoop = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(1);
+
+            for (int i = 0; i < 100; i++) {
+                int value = i;
+                loop.post(EngineEventLoop.EventType.TICK, () -> {
+                    seen.add(value);
+                    onLoop.add(loop.inEventLoop());
+                });
+            }
+            loop.post(EngineEventLoop.EventType.QUERY, done::countDown);
+
+            assertTrue(done.await(5, TimeUnit.SECONDS), "事件应该在5秒内处理完");
+            assertEquals(100, seen.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, seen.get(i), "事件应该按投递顺序处理");
+            }
+            assertFalse(onLoop.contains(false), "事件应该在循环线程上执行");
+            assertEquals(100, loop.getProcessedCount(EngineEventLoop.EventType.TICK));
+            // 统计在处理函数返回后才记录，最后一个事件的计数可能稍晚可见
+            assertTrue(awaitProcessed(loop, 101), "应该记录全部 101 个事件");
+        } finally {
+            loop.stop();
+        }
+    }
+
+    @Test
+    void testFailingHandlerDoesNotStopLoop() throws InterruptedException {
+        EngineEventLoop loop = new EngineEventLoop("test");
+        loop.start();
+        try {
+            CountDownLatch done = new CountDownLatch(1);
+            loop.post(EngineEventLoop.EventType.ORDER, () -> {
+                throw new IllegalStateException("boom");
+            });
+            loop.post(EngineEventLoop.EventType.ORDER, done::countDown);
+
+            assertTrue(done.await(5, TimeUnit.SECONDS), "异常后循环应该继续处理后续事件");
+            assertFalse(loop.inEventLoop());
+        } finally {
+            loop.stop();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.CandleData;
+import com.mt5trading.models.MACDData;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MACDCalculatorTest {
+
+    private static List<CandleData> createCandles(int bars) {
+        List<CandleData> candles = new ArrayList<>(bars);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 8, 0, 0);
+        for (int i = 0; i < bars; i++) {
+            double price = 35000 + Math.sin(i / 15.0) * 50 + i * 0.1;
+            candles.add(new CandleData(start.plusMinutes(i), price, price + 5, price - 5, price, 1000));
+        }
+        return candles;
+    }
+
+    @Test
+    void testMatchesStandardDefinition() {
+        List<CandleData> candles = createCandles(300);
+        double[] closes = new double[candles.size()];
+        for (int i = 0; i < closes.length; i++) {
+            closes[i] = candles.get(i).getClose();
+        }
+        double[] fast = MACDParameterSweep.calculateEMA(closes, closes.length, 12);
+        double[] slow = MACDParameterSweep.calculateEMA(closes, closes.length, 26);
+
+        // 信号线：前 9 个 MACD 值的平均作为种子，之后按EMA递推
+        double signal = 0;
+        for (int i = 25; i < 34; i++) {
+            signal += fast[i] - slow[i];
+        }
+        signal /= 9;
+        for (int i = 34; i < closes.length; i++) {
+            signal = (fast[i] - slow[i] - signal) * (2.0 / 10) + signal;
+        }
+        double macd = fast[closes.length - 1] - slow[closes.length - 1];
+
+        MACDData data = new MACDCalculator(12, 26, 9).calculateCurrentMACD(candles);
+        assertNotNull(data);
+        assertEquals(macd, data.getMacdLine(), 1e-6);
+        assertEquals(signal, data.getSignalLine(), 1e-6);
+        assertEquals(macd - signal, data.getHistogram(), 1e-6);
+    }
+
+    @Test
+    void testLongHistoryDoesNotRecurse() {
+        // 旧实现按K线数量递归，几十根K线就会栈溢出
+        MACDData data = new MACDCalculator(12, 26, 9).calculateCurrentMACD(createCandles(20_000));
+        assertNotNull(data);
+        assertFalse(Double.isNaN(data.getSignalLine()));
+    }
+
+    @Test
+    void testNotEnoughData() {
+        MACDCalculator calculator = new MACDCalculator(12, 26, 9);
+        assertNull(calculator.calculateCurrentMACD(createCandles(34)));
+        assertNull(calculator.calculateMACD(createCandles(100), 32), "索引之前的数据不足以计算信号线");
+        assertNotNull(calculator.calculateMACD(createCandles(100), 33));
+    }
+}
@@ -0,0 +1,73 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.CandleSeries;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MACDParameterSweepTest {
+
+    private CandleSeries createSeries(int bars) {
+        long[] times = new long[bars];
+        double[] opens = new double[bars];
+        double[] highs = new double[bars];
+        double[] lows = new double[bars];
+        double[] closes = new double[bars];
+        long[] volumes = new long[bars];
+
+        for (int i = 0; i < bars; i++) {
+            // 正弦波 + 缓慢上升趋势，保证出现交叉
+            double price = 35000 + Math.sin(i / 15.0) * 50 + i * 0.1;
+            times[i] = 1_700_000_000L + i * 60L;
+            opens[i] = price;
+            highs[i] = price + 5;
+            lows[i] = price - 5;
+            closes[i] = price;
+            volumes[i] = 1000;
+        }
+        return new CandleSeries("US30", times, opens, highs, lows, closes, volumes, bars);
+    }
+
+    @Test
+    void testEmaMatchesRecursiveDefinition() {
+        CandleSeries series = createSeries(200);
+        double[] ema = MACDParameterSweep.calculateEMA(series.closes(), series.size(), 10);
+
+        assertTrue(Double.isNaN(ema[8]), "前 period-1 个值应该为 NaN");
+
+        double expected = 0;
+        for (int i = 0; i < 10; i++) {
+            expected += series.getClose(i);
+        }
+        expected /= 10;
+        for (int i = 10; i < series.size(); i++) {
+            expected = (series.getClose(i) - expected) * (2.0 / 11) + expected;
+        }
+        assertEquals(expected, ema[series.size() - 1], 1e-9, "EMA 应该与递推定义一致");
+    }
+
+    @Test
+    void testSweepSkipsInvalidCombinationsAndFindsSignals() {
+        CandleSeries series = createSeries(2000);
+        MACDParameterSweep sweep = new MACDParameterSweep(series, 5);
+
+        List<MACDParameterSweep.Result> results = sweep.run(new int[] {8, 12, 30}, new int[] {26, 30}, new int[] {9});
+
+        // 30 >= 26 和 30 >= 30 的组合应该被跳过
+        assertEquals(4, results.size(), "应该只评估 fast < slow 的组合");
+        for (MACDParameterSweep.Result result : results) {
+            assertTrue(result.getFastPeriod() < result.getSlowPeriod());
+            assertTrue(result.getTotalSignals() > 0, "正弦行情应该产生交叉信号");
+            assertTrue(result.getHitRate() >= 0 && result.getHitRate() <= 1);
+        }
+    }
+
+    @Test
+    void testParseRange() {
+        assertArrayEquals(new int[] {8, 10, 12}, MACDParameterSweep.parseRange("8:12:2"));
+        assertArrayEquals(new int[] {9}, MACDParameterSweep.parseRange("9"));
+        assertThrows(IllegalArgumentException.class, () -> MACDParameterSweep.parseRange("12:8"));
+    }
+}
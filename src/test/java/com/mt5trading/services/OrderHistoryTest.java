@@ -0,0 +1,77 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.models.OrderState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderHistoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private OrderInfo order(int ticket, String comment) {
+        OrderInfo order = new OrderInfo(ticket, "US30", "BUY_LIMIT", 0.1, 35000.12345);
+        order.setStopLoss(34950.5);
+        order.setTakeProfit(35100.25);
+        order.setState(OrderState.CLOSED);
+        order.setComment(comment);
+        return order;
+    }
+
+    @Test
+    void testExportAndReadBack() throws IOException {
+        Path file = tempDir.resolve("history.csv");
+        List<OrderInfo> orders = Arrays.asList(
+                order(1, "User manual order"),
+                order(2, "止损, 移动到 \"保本\""),
+                order(3, null));
+        assertEquals(3, OrderHistoryWriter.export(file, orders));
+
+        List<OrderInfo> loaded = new ArrayList<>();
+        assertEquals(3, OrderHistoryReader.read(file, loaded::add));
+        assertEquals(3, loaded.size());
+        OrderInfo second = loaded.get(1);
+        assertEquals(2, second.getTicket());
+        assertEquals("止损, 移动到 \"保本\"", second.getComment(), "注释中的逗号和引号应原样保留");
+        assertEquals(35000.12345, second.getPrice());
+        assertEquals(34950.5, second.getStopLoss());
+        assertEquals(OrderState.CLOSED, second.getState());
+        assertEquals("", loaded.get(2).getComment());
+    }
+
+    @Test
+    void testMalformedRowsAreSkipped() throws IOException {
+        Path file = tempDir.resolve("broker.csv");
+        Files.write(file, (OrderInfo.fromCsv(order(1, "a").toCsv()).toCsv() + "\n"
+                + "bad,row\n"
+                + "x,US30,BUY,0.1,1,0,0,OPEN,\n"
+                + order(4, "ok").toCsv() + "\n").getBytes(StandardCharsets.UTF_8));
+
+        try (OrderHistoryReader reader = new OrderHistoryReader(file)) {
+            List<Integer> tickets = new ArrayList<>();
+            reader.forEach(o -> tickets.add(o.getTicket()));
+            assertEquals(Arrays.asList(1, 4), tickets, "无表头的 toCsv 格式也应能读取");
+            assertEquals(2, reader.getSkippedCount());
+        }
+    }
+
+    @Test
+    void testOrderInfoCsvQuotesComment() {
+        OrderInfo original = order(7, "分批, 第 1 批");
+        OrderInfo parsed = OrderInfo.fromCsv(original.toCsv());
+        assertNotNull(parsed);
+        assertEquals("分批, 第 1 批", parsed.getComment(), "fromCsv 不应在注释的逗号处切分");
+        assertEquals(OrderState.CLOSED, parsed.getState());
+    }
+}
@@ -0,0 +1,135 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.models.OrderState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private OrderJournal.Submission submission(String clientOrderId) {
+        return new OrderJournal.Submission(clientOrderId, "US30", "BUY", 0.1, 35000, 34920, 35120,
+                "AUTO_TRADE", "{\"type\":\"trade\",\"client_id\":\"" + clientOrderId + "\"}");
+    }
+
+    private OrderJournal open(long checkpointBytes) throws IOException {
+        OrderJournal journal = new OrderJournal(tempDir, checkpointBytes);
+        journal.recover();
+        journal.start(ArrayList::new);
+        return journal;
+    }
+
+    @Test
+    void testReplayRestoresLiveOrdersAndUnackedSubmissions() throws Exception {
+        OrderJournal journal = open(1 << 20);
+        journal.logOrder(new OrderInfo(1, "US30", "BUY_LIMIT", 0.1, 35000));
+        journal.logOrder(new OrderInfo(2, "US30", "SELL_LIMIT", 0.2, 35100));
+        journal.logState(1, OrderState.MODIFIED);
+        journal.logState(2, OrderState.DELETED);
+        journal.logSubmit(submission("A-1"));
+        journal.logSubmit(submission("A-2")).get();
+        journal.logAck("A-1");
+        journal.close();
+
+        OrderJournal.State state = new OrderJournal(tempDir, 1 << 20).recover();
+        assertEquals(1, state.getOrders().size(), "已删除的订单不应该恢复");
+        OrderInfo order = state.getOrders().get(0);
+        assertEquals(1, order.getTicket());
+        assertEquals(OrderState.MODIFIED, order.getState());
+        assertEquals("BUY_LIMIT", order.getType());
+        assertEquals(1, state.getSubmissions().size(), "已回报的指令不应该恢复");
+        assertEquals("A-2", state.getSubmissions().get(0).getClientOrderId());
+        assertEquals(34920, state.getSubmissions().get(0).getStopLoss());
+
+        // 恢复后立即做检查点，日志被清空
+        assertEquals(0, Files.size(tempDir.resolve("orders.wal")));
+    }
+
+    @Test
+    void testTornTailIsIgnored() throws Exception {
+        OrderJournal journal = open(1 << 20);
+        journal.logSubmit(submission("B-1")).get();
+        journal.close();
+
+        Files.write(tempDir.resolve("orders.wal"), new byte[] {0, 0, 0, 50, 1, 2, 3},
+                StandardOpenOption.APPEND);
+        OrderJournal.State state = new OrderJournal(tempDir, 1 << 20).recover();
+        assertEquals(1, state.getSubmissions().size(), "不完整的尾部记录应该被丢弃");
+    }
+
+    @Test
+    void testCheckpointBoundsLogSize() throws Exception {
+        OrderJournal journal = new OrderJournal(tempDir, 256);
+        journal.recover();
+        OrderInfo live = new OrderInfo(7, "US30", "BUY_STOP", 0.3, 35200);
+        journal.start(() -> new ArrayList<>(List.of(live)));
+
+        journal.logOrder(live);
+        for (int i = 0; i < 50; i++) {
+            journal.logSubmit(submission("C-" + i)).get();
+            journal.logAck("C-" + i);
+        }
+        journal.logSubmit(submission("C-last")).get();
+        assertTrue(Files.size(tempDir.resolve("orders.wal")) < 1024, "检查点之后日志应该保持在阈值附近");
+        journal.close();
+
+        OrderJournal.State state = new OrderJournal(tempDir, 256).recover();
+        assertEquals(1, state.getOrders().size());
+        assertEquals(7, state.getOrders().get(0).getTicket());
+        assertTrue(state.getSubmissions().stream().anyMatch(s -> s.getClientOrderId().equals("C-last")));
+        assertTrue(state.getSubmissions().stream().noneMatch(s -> s.getClientOrderId().equals("C-0")));
+    }
+
+    @Test
+    void testCheckpointAfterAckDoesNotResurrectSubmission() throws Exception {
+        // 每次提交后都做检查点，ACK 所在批次之后立即检查点并清空日志
+        OrderJournal journal = new OrderJournal(tempDir, 1);
+        journal.recover();
+        AtomicInteger checkpoints = new AtomicInteger();
+        journal.start(() -> {
+            checkpoints.incrementAndGet();
+            return new ArrayList<>();
+        });
+
+        journal.logSubmit(submission("D-1")).get();
+        journal.logAck("D-1");
+        journal.logSubmit(submission("D-2")).get();
+        journal.close();
+        assertTrue(checkpoints.get() >= 2, "ACK 之后应该做过检查点");
+
+        OrderJournal.State state = new OrderJournal(tempDir, 1).recover();
+        assertEquals(1, state.getSubmissions().size(), "已回报的指令不应该随检查点恢复");
+        assertEquals("D-2", state.getSubmissions().get(0).getClientOrderId());
+    }
+
+    @Test
+    void testRecoveredSubmissionsSurviveCheckpointUntilAcked() throws Exception {
+        OrderJournal journal = open(1 << 20);
+        journal.logSubmit(submission("E-1")).get();
+        journal.close();
+
+        // 恢复后重发之前就做检查点，未回报的指令仍然保留在快照中
+        OrderJournal reopened = new OrderJournal(tempDir, 1);
+        assertEquals(1, reopened.recover().getSubmissions().size());
+        reopened.start(ArrayList::new);
+        reopened.logState(1, OrderState.MODIFIED);
+        reopened.close();
+
+        OrderJournal.State state = new OrderJournal(tempDir, 1).recover();
+        assertEquals(1, state.getSubmissions().size());
+        assertEquals("E-1", state.getSubmissions().get(0).getClientOrderId());
+    }
+}
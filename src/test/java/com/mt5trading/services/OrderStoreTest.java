@@ -0,0 +1,54 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.models.OrderState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderStoreTest {
+
+    @Test
+    void testLifecycleAndIndexes() {
+        OrderStore store = new OrderStore();
+        assertTrue(store.add(new OrderInfo(1, "US30", "BUY_LIMIT", 0.1, 35000)));
+        assertTrue(store.add(new OrderInfo(2, "US30", "SELL_STOP", 0.2, 34900)));
+        assertTrue(store.add(new OrderInfo(3, "NAS100", "BUY_STOP", 0.1, 15000)));
+        assertFalse(store.add(new OrderInfo(1, "US30", "BUY", 1, 1)), "重复订单号不应该覆盖");
+
+        store.transition(1, OrderState.MODIFIED);
+        store.transition(1, OrderState.EXECUTED);
+        assertEquals(1, store.count(OrderState.EXECUTED));
+        assertEquals(2, store.count(OrderState.PENDING));
+        assertEquals(2, store.getPending().size());
+        assertEquals(1, store.getActive().size());
+        assertEquals(2, store.getBySymbol("US30").size());
+
+        store.transition(1, OrderState.OPEN);
+        store.transition(1, OrderState.CLOSED);
+        assertFalse(store.contains(1), "终止状态的订单应该被移除");
+        assertEquals(1, store.getBySymbol("US30").size());
+        assertEquals(0, store.getActive().size());
+        assertNull(store.transition(1, OrderState.OPEN), "不存在的订单号返回 null");
+    }
+
+    @Test
+    void testIllegalTransitionIsRejected() {
+        OrderStore store = new OrderStore();
+        OrderInfo order = new OrderInfo(10, "US30", "BUY_LIMIT", 0.1, 35000);
+        store.add(order);
+
+        assertThrows(IllegalStateException.class, () -> store.transition(10, OrderState.CLOSED),
+                "挂单不能直接平仓");
+        assertEquals(OrderState.PENDING, order.getState(), "非法转换不应该修改状态");
+        assertEquals(1, store.count(OrderState.PENDING));
+
+        store.transition(10, OrderState.DELETED);
+        assertEquals(OrderState.DELETED, order.getState());
+        assertEquals(0, store.size());
+
+        OrderInfo deleted = new OrderInfo(11, "US30", "BUY", 0.1, 1);
+        deleted.setState(OrderState.DELETED);
+        assertThrows(IllegalArgumentException.class, () -> store.add(deleted));
+    }
+}
@@ -0,0 +1,56 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderSide;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PendingOrderBookTest {
+
+    private PendingOrderBook<Integer> createBook() {
+        PendingOrderBook<Integer> book = new PendingOrderBook<>();
+        book.add(1, OrderSide.BUY, 34950, 1);
+        book.add(2, OrderSide.BUY, 34980, 2);
+        book.add(3, OrderSide.BUY, 34980, 3);   // 同价位
+        book.add(4, OrderSide.BUY, 35010, 4);
+        book.add(5, OrderSide.SELL, 34990, 5);
+        book.add(6, OrderSide.SELL, 35020, 6);
+        book.add(7, OrderSide.SELL, 35050, 7);
+        return book;
+    }
+
+    @Test
+    void testRangeQueries() {
+        PendingOrderBook<Integer> book = createBook();
+
+        assertEquals(List.of(4, 2, 3), book.atOrAbove(OrderSide.BUY, 34980), "应该包含边界价格，按价格从高到低");
+        assertEquals(List.of(1), book.below(OrderSide.BUY, 34980), "below 不应该包含边界价格");
+        assertEquals(List.of(5, 6), book.atOrBelow(OrderSide.SELL, 35020));
+        assertEquals(List.of(7), book.above(OrderSide.SELL, 35020));
+        assertEquals(List.of(7, 6, 5), book.all(OrderSide.SELL));
+        assertEquals(4, book.size(OrderSide.BUY));
+        assertEquals(7, book.size());
+    }
+
+    @Test
+    void testRemoveAndReplace() {
+        PendingOrderBook<Integer> book = createBook();
+
+        assertEquals(2, book.remove(2));
+        assertNull(book.remove(2), "重复移除应该返回 null");
+        assertEquals(List.of(4, 3), book.atOrAbove(OrderSide.BUY, 34980));
+
+        // 同一订单号改价后应该移动到新价位
+        book.add(3, OrderSide.SELL, 35100, 30);
+        assertEquals(List.of(4), book.atOrAbove(OrderSide.BUY, 34980));
+        assertEquals(30, book.get(3));
+        assertEquals(List.of(30), book.above(OrderSide.SELL, 35050));
+
+        book.clear();
+        assertTrue(book.isEmpty());
+        assertTrue(book.all(OrderSide.BUY).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> book.add(9, null, 1, 9));
+    }
+}
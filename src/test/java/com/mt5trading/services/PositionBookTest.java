@@ -0,0 +1,72 @@
+package com.mt5trading.services;
+
+import com.mt5trading.models.OrderSide;
+import com.mt5trading.models.PositionInfo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionBookTest {
+
+    @Test
+    void testTickRemarksOnlyThatSymbol() {
+        PositionBook book = new PositionBook(1.0);
+        book.open(1, "US30", OrderSide.BUY, 0.5, 35000, 34900, 35200);
+        book.open(2, "US30", OrderSide.SELL, 0.2, 35050, 35150, 34900);
+        book.open(3, "NAS100", OrderSide.BUY, 1.0, 15000, 0, 0);
+
+        book.onTick("NAS100", 15010, 15011);
+        assertEquals(10, book.getUnrealizedTotal(), 1e-9);
+
+        // 多头按买价 35100，空头按卖价 35102
+        book.onTick("US30", 35100, 35102);
+        assertEquals(0.5 * 100, book.getProfit(1), 1e-9);
+        assertEquals(-0.2 * 52, book.getProfit(2), 1e-9);
+        assertEquals(10 + 50 - 10.4, book.getUnrealizedTotal(), 1e-9);
+        assertEquals(1.7, book.getGrossExposure(), 1e-9);
+        assertEquals(0.3, book.getNetVolume("US30"), 1e-9);
+        assertEquals(48, book.getNearestStopDistance("US30"), 1e-9, "空头离止损 35150 还有 48 点");
+        assertTrue(Double.isNaN(book.getNearestStopDistance("NAS100")), "没有止损时返回 NaN");
+
+        PositionInfo position = book.getPosition(2);
+        assertEquals("SELL", position.getType());
+        assertEquals(35102, position.getCurrentPrice());
+        assertEquals(2, book.getPositions("US30").size());
+    }
+
+    @Test
+    void testCloseAndModifyKeepAggregatesConsistent() {
+        PositionBook book = new PositionBook(2.0);
+        for (int ticket = 1; ticket <= 20; ticket++) {
+            book.open(ticket, "US30", OrderSide.BUY, 0.1, 35000 + ticket, 0, 0);
+        }
+        book.onTick("US30", 35010, 35012);
+
+        double expected = 0;
+        for (int ticket = 1; ticket <= 20; ticket++) {
+            expected += (35010 - 35000 - ticket) * 0.1 * 2.0;
+        }
+        assertEquals(expected, book.getUnrealizedTotal(), 1e-6);
+
+        double closed = book.close(5);
+        assertEquals(5 * 0.1 * 2.0, closed, 1e-9);
+        assertEquals(expected - closed, book.getUnrealizedTotal(), 1e-6);
+        assertEquals(19, book.getPositionCount());
+        assertTrue(Double.isNaN(book.close(5)), "重复平仓返回 NaN");
+
+        // 按成交价平仓，盈亏按成交价计入已实现
+        assertEquals((35020 - 35007) * 0.1 * 2.0, book.close(7, 35020), 1e-9);
+        assertEquals(closed + (35020 - 35007) * 0.1 * 2.0, book.getRealizedTotal(), 1e-9);
+
+        assertTrue(book.modify(6, 34990, 0));
+        assertEquals(20, book.getNearestStopDistance("US30"), 1e-9);
+
+        for (int ticket = 1; ticket <= 20; ticket++) {
+            book.close(ticket);
+        }
+        assertEquals(0, book.getPositionCount());
+        assertEquals(0, book.getUnrealizedTotal(), 1e-9);
+        assertEquals(0, book.getGrossExposure());
+        assertThrows(IllegalArgumentException.class, () -> book.open(99, "US30", null, 0.1, 1, 0, 0));
+    }
+}
@@ -0,0 +1,75 @@
+package com.mt5trading.services;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.OrderSide;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RiskEngineTest {
+
+    private RiskEngine createEngine(PositionBook positions, double balance) {
+        Properties props = new Properties();
+        props.setProperty("trading.max.concurrent.trades", "3");
+        props.setProperty("trading.max.position.size", "1.0");
+        props.setProperty("trading.max.daily.loss", "0.10");
+        props.setProperty("trading.value.per.point", "1.0");
+        return new RiskEngine(TradingConfig.fromProperties(props), positions, balance);
+    }
+
+    @Test
+    void testReadsExposureFromPositionBook() {
+        PositionBook positions = new PositionBook(1.0);
+        RiskEngine risk = createEngine(positions, 10000);
+        positions.open(1, "US30", OrderSide.BUY, 0.3, 35000, 0, 0);
+        positions.open(2, "US30", OrderSide.BUY, 0.2, 35100, 0, 0);
+        assertEquals(2, risk.getOpenTrades());
+        assertEquals(0.5, risk.getNetVolume("US30"), 1e-9);
+
+        risk.onTick("US30", 35200, 35202, 1_700_000_000_000L);
+        positions.onTick("US30", 35200, 35202);
+        // 0.3 * 200 + 0.2 * 100
+        assertEquals(80, risk.getUnrealizedTotal(), 1e-6);
+
+        // 按成交价平仓，盈亏计入当日已实现
+        positions.close(1, 35150);
+        assertEquals(0.3 * 150, risk.getRealizedToday(), 1e-6);
+        assertEquals(0.3 * 150, risk.getRealizedPnl("US30"), 1e-6);
+        assertEquals(1, risk.getOpenTrades());
+        assertEquals(0.2, risk.getNetVolume("US30"), 1e-9);
+        assertEquals(0.2 * 100, risk.getUnrealizedTotal(), 1e-6, "剩余 0.2 手按买价 35200 估值");
+
+        positions.open(3, "US30", OrderSide.SELL, 0.4, 35200, 0, 0);
+        assertEquals(-0.2, risk.getNetVolume("US30"), 1e-9);
+        assertEquals(0.6, risk.getGrossExposure(), 1e-9);
+        assertEquals(2, risk.getOpenTrades());
+    }
+
+    @Test
+    void testPreTradeChecks() {
+        PositionBook positions = new PositionBook(1.0);
+        RiskEngine risk = createEngine(positions, 1000);
+        assertEquals(RiskEngine.Verdict.APPROVED, risk.check("US30", OrderSide.BUY, 0.5));
+        assertEquals(RiskEngine.Verdict.MAX_POSITION_SIZE, risk.check("US30", OrderSide.BUY, 1.5));
+
+        positions.open(1, "US30", OrderSide.BUY, 0.3, 35000, 0, 0);
+        positions.open(2, "US30", OrderSide.BUY, 0.3, 35000, 0, 0);
+        positions.open(3, "US30", OrderSide.BUY, 0.3, 35000, 0, 0);
+        assertEquals(RiskEngine.Verdict.MAX_OPEN_TRADES, risk.check("US30", OrderSide.BUY, 0.1));
+        assertEquals(RiskEngine.Verdict.APPROVED, risk.check("US30", OrderSide.SELL, 0.3), "减仓应该总是允许");
+
+        // 亏损 0.9 手 * 120 点 = 108 > 1000 * 10%
+        risk.onTick("US30", 34880, 34882, 1_700_000_000_000L);
+        positions.onTick("US30", 34880, 34882);
+        positions.close(3, 34880);
+        assertEquals(RiskEngine.Verdict.DAILY_LOSS_LIMIT, risk.check("US30", OrderSide.BUY, 0.1));
+
+        // 新的一天已实现盈亏清零
+        risk.onTick("US30", 35000, 35002, 1_700_000_000_000L + 86_400_000L);
+        positions.onTick("US30", 35000, 35002);
+        assertEquals(0, risk.getRealizedToday(), 1e-9);
+        assertEquals(RiskEngine.Verdict.APPROVED, risk.check("US30", OrderSide.SELL, 0.1));
+    }
+}
@@ -0,0 +1,81 @@
+package com.mt5trading.services;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.mt5.connector.MT5Connector;
+import com.mt5trading.models.CandleData;
+import com.mt5trading.timer.VirtualClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SimpleDecisionEngineTest {
+
+    @Test
+    void testOrdersAreStagedOncePerBar() {
+        Properties props = new Properties();
+        props.setProperty("app.system.order.comment", "SDS_TEST");
+        TradingConfig config = TradingConfig.fromProperties(props);
+        MT5Connector connector = mock(MT5Connector.class);
+        SimpleDecisionEngine engine = new SimpleDecisionEngine(config, connector, new VirtualClock(Instant.EPOCH),
+                EngineEventLoop.direct("test"));
+
+        LocalDateTime bar = LocalDateTime.of(2024, 1, 8, 10, 0);
+        for (int tick = 0; tick < 5; tick++) {
+            engine.analyzeNewCandle(new CandleData(bar, 35000, 35010 + tick, 34990, 35005 + tick, 100 + tick));
+        }
+        verify(connector, times(4)).stageOrder(anyString(), anyString(), anyDouble(), anyDouble(), anyDouble(),
+                eq("SDS_TEST"));
+
+        engine.analyzeNewCandle(new CandleData(bar.plusMinutes(1), 35005, 35005, 35005, 35005, 1));
+        verify(connector, times(8)).stageOrder(anyString(), anyString(), anyDouble(), anyDouble(), anyDouble(),
+                eq("SDS_TEST"));
+        engine.shutdown();
+    }
+
+    @Test
+    void testTestModeNeverTradesThroughLiveConnector() {
+        // 测试模式运行中热更新开启，启动时创建的仍是实盘连接器
+        TradingConfig config = TradingConfig.fromProperties(new Properties());
+        MT5Connector connector = mock(MT5Connector.class);
+        SimpleDecisionEngine engine = new SimpleDecisionEngine(config, connector, new VirtualClock(Instant.EPOCH),
+                EngineEventLoop.direct("test"));
+        engine.onTick(config.getSymbol(), 35000, 35002, 0);
+
+        engine.executeTrade(config.getSymbol(), "BUY", 0.1);
+        verify(connector, never()).sendOrder(anyString(), anyString(), anyDouble(), anyDouble(), anyDouble(),
+                anyDouble());
+
+        when(connector.isSimulated()).thenReturn(true);
+        engine.executeTrade(config.getSymbol(), "BUY", 0.1);
+        verify(connector).sendOrder(eq(config.getSymbol()), eq("BUY"), eq(0.1), eq(35001.0), anyDouble(),
+                anyDouble());
+        engine.shutdown();
+    }
+
+    @Test
+    void testStrategyHostCreatesThreadedSimpleEngine() throws InterruptedException {
+        // 未注入事件循环时，引擎应使用自己创建的线程事件循环
+        Properties props = new Properties();
+        props.setProperty("app.enable.order.monitoring", "false");
+        TradingConfig config = TradingConfig.fromProperties(props);
+        MT5Connector connector = mock(MT5Connector.class);
+        DecisionEngine engine = StrategyHost.createEngine(config, connector, new VirtualClock(Instant.EPOCH));
+        try {
+            assertTrue(engine instanceof SimpleDecisionEngine);
+            assertFalse(engine.getEventLoop().isDirect());
+
+            engine.analyzeNewCandle(new CandleData(LocalDateTime.of(2024, 1, 8, 10, 0), 35000, 35010, 34990, 35005, 100));
+            assertTrue(EngineEventLoopTest.awaitProcessed(engine.getEventLoop(), 1));
+            verify(connector, times(4)).stageOrder(anyString(), anyString(), anyDouble(), anyDouble(), anyDouble(),
+                    anyString());
+        } finally {
+            engine.shutdown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.mt5trading.services;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.mt5.connector.MT5Connector;
+import com.mt5trading.models.CandleData;
+import com.mt5trading.timer.HashedWheelTimer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class StrategyHostTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-timer");
+    private final MT5Connector connector = mock(MT5Connector.class);
+
+    /**
+     * 每根K线在自己的事件循环上执行 work
+     */
+    private DecisionEngine engine(TradingConfig config, Runnable work) {
+        DecisionEngine engine = new DecisionEngine(config, connector, timer) {
+            @Override
+            public void analyzeNewCandle(CandleData candle) {
+                events.post(EngineEventLoop.EventType.CANDLE, work);
+            }
+
+            @Override
+            public void executeTrade(String symbol, String action, double volume) {
+            }
+        };
+        engine.getEventLoop().start();
+        return engine;
+    }
+
+    @Test
+    void testStrategyConfigOverridesGlobalKeys() {
+        Properties props = new Properties();
+        props.setProperty("app.strategies", "fast, slow");
+        props.setProperty("trading.macd.fast", "12");
+        props.setProperty("strategy.fast.trading.macd.fast", "8");
+        TradingConfig config = TradingConfig.fromProperties(props);
+
+        assertEquals(List.of("fast", "slow"), config.getStrategyNames());
+        assertEquals(8, config.forStrategy("fast").getMacdFast(), "策略配置应该覆盖全局配置");
+        assertEquals(12, config.forStrategy("slow").getMacdFast(), "未覆盖的键应该沿用全局配置");
+        assertEquals("fast", config.forStrategy("fast").getStrategyName());
+        assertTrue(config.forStrategy("fast").getStrategyNames().isEmpty());
+    }
+
+    @Test
+    void testSlowStrategyDoesNotDelayOthers() throws InterruptedException {
+        TradingConfig config = TradingConfig.fromProperties(new Properties());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(3);
+
+        Map<String, DecisionEngine> strategies = new LinkedHashMap<>();
+        strategies.put("slow", engine(config.forStrategy("slow"), () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        strategies.put("fast", engine(config.forStrategy("fast"), fastDone::countDown));
+        StrategyHost host = new StrategyHost(strategies);
+
+        try {
+            CandleData candle = new CandleData(LocalDateTime.now(), 1, 1, 1, 1, 1);
+            for (int i = 0; i < 3; i++) {
+                host.analyzeNewCandle(candle);
+            }
+
+            assertTrue(fastDone.await(2, TimeUnit.SECONDS), "慢策略阻塞时快策略应该照常处理");
+            assertTrue(EngineEventLoopTest.awaitProcessed(host.getStrategy("fast").getEventLoop(), 3));
+            assertTrue(host.getStrategy("slow").getEventLoop().getQueueSize() > 0, "慢策略的事件应该积压在自己的队列中");
+            assertTrue(host.getStrategySummary().contains("fast:"));
+        } finally {
+            release.countDown();
+            host.shutdown();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.mt5trading.services;
+
+import com.mt5trading.config.TradingConfig;
+import com.mt5trading.models.OrderInfo;
+import com.mt5trading.mt5.connector.MT5Connector;
+import com.mt5trading.timer.VirtualClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class UserOrderDecisionEngineTest {
+
+    // 本地时间 10:00:00，远离第45秒的分析时刻
+    private final VirtualClock clock = new VirtualClock(
+            LocalDateTime.of(2024, 1, 2, 10, 0, 0).atZone(ZoneId.systemDefault()).toInstant());
+    private UserOrderDecisionEngine engine;
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null) {
+            engine.shutdown();
+        }
+        clock.stop();
+    }
+
+    @Test
+    void testOrderDetectionAndExpiryFollowVirtualClock() {
+        Properties props = new Properties();
+        props.setProperty("mt5.symbol", "US30");
+        props.setProperty("trading.order.scan.interval", "3");
+        props.setProperty("trading.max.order.hold.time", "20");
+        TradingConfig config = TradingConfig.fromProperties(props);
+
+        OrderInfo userOrder = new OrderInfo(7, "US30", "BUY_LIMIT", 0.1, 35000);
+        userOrder.setComment("manual");
+        MT5Connector connector = mock(MT5Connector.class);
+        when(connector.getPendingOrders()).thenReturn(List.of(userOrder));
+        when(connector.modifyOrder(anyInt(), anyString(), anyString(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), anyString())).thenReturn(true);
+
+        engine = new UserOrderDecisionEngine(config, connector, clock, EngineEventLoop.direct("test"));
+
+        // 第0秒扫描发现订单并暂停，之后的扫描不会重复处理
+        clock.advanceBy(15, TimeUnit.SECONDS);
+        verify(connector, times(1)).modifyOrder(eq(7), anyString(), anyString(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), eq("PAUSED_BY_SYSTEM"));
+
+        // 按虚拟时间等待超过 20 秒后被清理，下一次扫描重新发现
+        clock.advanceBy(15, TimeUnit.SECONDS);
+        verify(connector, times(2)).modifyOrder(eq(7), anyString(), anyString(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), eq("PAUSED_BY_SYSTEM"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.mt5trading.timer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedWheelTimerTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-wheel", 5, TimeUnit.MILLISECONDS, 64);
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void testOneShotFiresAfterDelay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        Timeout timeout = timer.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS), "任务应该被触发");
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs >= 50, "任务不应该提前触发: " + elapsedMs + "ms");
+        assertTrue(timeout.isExpired(), "触发后应该标记为已过期");
+    }
+
+    @Test
+    void testDelayLongerThanOneRotation() throws InterruptedException {
+        // 64 槽 * 5ms = 320ms 一圈
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        timer.schedule(latch::countDown, 400, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS), "跨圈任务应该被触发");
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= 400, "跨圈任务不应该提前触发");
+    }
+
+    @Test
+    void testCancelledTaskNeverRuns() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+
+        Timeout timeout = timer.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel(), "首次取消应该成功");
+        assertFalse(timeout.cancel(), "重复取消应该返回false");
+
+        Thread.sleep(100);
+        assertEquals(0, runs.get(), "已取消的任务不应该执行");
+        assertTrue(timeout.isCancelled());
+    }
+
+    @Test
+    void testFixedRateRepeatsUntilCancelled() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(3);
+
+        Timeout timeout = timer.scheduleAtFixedRate(() -> {
+            runs.incrementAndGet();
+            latch.countDown();
+        }, 0, 20, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS), "周期任务应该重复执行");
+        timeout.cancel();
+        int afterCancel = runs.get();
+
+        Thread.sleep(100);
+        assertTrue(runs.get() <= afterCancel + 1, "取消后周期任务应该停止");
+    }
+}
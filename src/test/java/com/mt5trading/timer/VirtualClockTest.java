@@ -0,0 +1,84 @@
+package com.mt5trading.timer;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualClockTest {
+
+    private static final Instant START = Instant.parse("2024-01-02T09:30:00Z");
+
+    @Test
+    void testTasksRunInDeadlineOrderAtTheirDeadline() {
+        VirtualClock clock = new VirtualClock(START);
+        List<String> fired = new ArrayList<>();
+
+        clock.schedule(() -> fired.add("b@" + clock.now()), 2, TimeUnit.SECONDS);
+        clock.schedule(() -> fired.add("a@" + clock.now()), 1, TimeUnit.SECONDS);
+        clock.schedule(() -> fired.add("c@" + clock.now()), 2, TimeUnit.SECONDS);
+
+        clock.advanceBy(1500, TimeUnit.MILLISECONDS);
+        assertEquals(List.of("a@" + START.plusSeconds(1)), fired, "只应该执行已到期的任务");
+        assertEquals(START.plusMillis(1500), clock.now(), "推进后时钟应该停在目标时刻");
+
+        clock.advanceTo(START.plusSeconds(10));
+        assertEquals(List.of("a@" + START.plusSeconds(1), "b@" + START.plusSeconds(2), "c@" + START.plusSeconds(2)),
+                fired, "同一时刻的任务应该按注册顺序执行，执行时时钟停在计划时刻");
+        assertEquals(0, clock.getPendingCount());
+    }
+
+    @Test
+    void testFixedRateAndCancel() {
+        VirtualClock clock = new VirtualClock(START);
+        List<Long> fired = new ArrayList<>();
+
+        Timeout timeout = clock.scheduleAtFixedRate(() -> fired.add(clock.currentTimeMillis()),
+                100, 250, TimeUnit.MILLISECONDS);
+        clock.advanceBy(1, TimeUnit.SECONDS);
+
+        long start = START.toEpochMilli();
+        assertEquals(List.of(start + 100, start + 350, start + 600, start + 850), fired);
+        assertEquals(START.plusMillis(1100), clock.nextDeadline());
+
+        assertTrue(timeout.cancel());
+        clock.advanceBy(1, TimeUnit.SECONDS);
+        assertEquals(4, fired.size(), "取消后不应该再执行");
+        assertNull(clock.nextDeadline());
+    }
+
+    @Test
+    void testTaskScheduledDuringAdvanceRunsInSameAdvance() {
+        VirtualClock clock = new VirtualClock(START);
+        List<Instant> fired = new ArrayList<>();
+
+        clock.schedule(() -> clock.schedule(() -> fired.add(clock.now()), 500, TimeUnit.MILLISECONDS),
+                1, TimeUnit.SECONDS);
+        clock.advanceBy(2, TimeUnit.SECONDS);
+
+        assertEquals(List.of(START.plusMillis(1500)), fired, "执行中注册且同样到期的任务应该在本次推进中执行");
+    }
+
+    @Test
+    void testRejectsGoingBackwardsAndReentrantAdvance() {
+        VirtualClock clock = new VirtualClock(START);
+        assertThrows(IllegalArgumentException.class, () -> clock.advanceTo(START.minusSeconds(1)));
+
+        List<Exception> errors = new ArrayList<>();
+        clock.schedule(() -> {
+            try {
+                clock.advanceBy(1, TimeUnit.SECONDS);
+            } catch (IllegalStateException e) {
+                errors.add(e);
+            }
+        }, 1, TimeUnit.SECONDS);
+        clock.advanceBy(1, TimeUnit.SECONDS);
+
+        assertEquals(1, errors.size(), "任务中推进时钟应该被拒绝");
+        assertEquals(0, clock.getPrecisionNanos());
+    }
+}
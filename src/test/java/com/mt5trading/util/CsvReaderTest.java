@@ -0,0 +1,115 @@
+package com.mt5trading.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CsvReader reader(String text) {
+        return new CsvReader(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testQuotedFieldsWithCommasQuotesAndNewlines() throws IOException {
+        try (CsvReader csv = reader("a,\"b,c\",\"say \"\"hi\"\"\"\r\n\"multi\nline\",,x\n")) {
+            assertEquals(3, csv.next());
+            assertEquals("a", csv.getString(0));
+            assertEquals("b,c", csv.getString(1), "引号内的逗号不应切分字段");
+            assertEquals("say \"hi\"", csv.getString(2), "两个双引号应还原为一个");
+
+            assertEquals(3, csv.next());
+            assertEquals("multi\nline", csv.getString(0), "引号内的换行属于字段内容");
+            assertTrue(csv.isEmpty(1));
+            assertEquals("x", csv.getString(2));
+
+            assertEquals(-1, csv.next());
+            assertEquals(2, csv.getRecordNumber());
+        }
+    }
+
+    @Test
+    void testNumbersParsedWithoutSplit() throws IOException {
+        try (CsvReader csv = reader("123456,-42,35000.12345\n\n")) {
+            assertEquals(3, csv.next());
+            assertEquals(123456, csv.getInt(0));
+            assertEquals(-42, csv.getLong(1));
+            assertEquals(35000.12345, csv.getDouble(2));
+            assertEquals(-1, csv.next(), "空行应被跳过");
+        }
+        try (CsvReader csv = reader("12a\n")) {
+            csv.next();
+            assertThrows(NumberFormatException.class, () -> csv.getInt(0));
+        }
+    }
+
+    @Test
+    void testUnterminatedQuoteFails() {
+        assertThrows(IOException.class, () -> {
+            try (CsvReader csv = reader("1,\"open\n")) {
+                csv.next();
+            }
+        });
+    }
+
+    @Test
+    void testParseLine() {
+        assertEquals(Arrays.asList("1", "US30", "a,b", ""), CsvReader.parseLine("1,US30,\"a,b\","));
+        assertEquals(Arrays.asList("say \"hi\"", "x\"y", "z"), CsvReader.parseLine("\"say \"\"hi\"\"\",x\"y,z\r\n"));
+        assertEquals(Arrays.asList("line1\nline2", "2"), CsvReader.parseLine("\"line1\nline2\",2\nignored"));
+        assertTrue(CsvReader.parseLine("\r\n").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> CsvReader.parseLine("1,\"open"));
+    }
+
+    @Test
+    void testParseLineMatchesReader() throws IOException {
+        String[] lines = {"a,,b", "\"\",\"\"\"\",c", "\"注释, 含逗号\",3.5", ",", "x\r", "\"q\"tail,1"};
+        for (String line : lines) {
+            try (CsvReader csv = reader(line)) {
+                assertTrue(csv.next() > 0);
+                List<String> expected = new ArrayList<>();
+                for (int i = 0; i < csv.getFieldCount(); i++) {
+                    expected.add(csv.getString(i));
+                }
+                assertEquals(expected, CsvReader.parseLine(line), line);
+            }
+        }
+    }
+
+    @Test
+    void testWriterRoundTripAcrossBufferBoundaries() throws IOException {
+        Path file = tempDir.resolve("big.csv");
+        int rows = 50_000;
+        try (CsvWriter writer = new CsvWriter(file)) {
+            for (int i = 0; i < rows; i++) {
+                writer.field(i).field("注释, \"第" + i + "条\"").field(i * 0.1).endRecord();
+            }
+            assertEquals(rows, writer.getRecordCount());
+        }
+        assertTrue(Files.size(file) > 128 * 1024, "文件应跨越多个读写缓冲区");
+
+        try (CsvReader csv = new CsvReader(file)) {
+            for (int i = 0; i < rows; i++) {
+                assertEquals(3, csv.next(), "第 " + i + " 行字段数");
+                assertEquals(i, csv.getInt(0));
+                assertEquals("注释, \"第" + i + "条\"", csv.getString(1), "多字节字符跨缓冲区时不应损坏");
+                assertEquals(i * 0.1, csv.getDouble(2), "浮点数应无损往返");
+            }
+            assertEquals(-1, csv.next());
+        }
+    }
+}
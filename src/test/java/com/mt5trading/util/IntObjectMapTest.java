@@ -0,0 +1,53 @@
+package com.mt5trading.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectMapTest {
+
+    @Test
+    void testPutGetRemove() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertNull(map.put(1, "a"));
+        assertEquals("a", map.put(1, "b"), "覆盖应该返回旧值");
+        map.put(-7, "c");
+        map.put(0, "zero");
+
+        assertEquals("b", map.get(1));
+        assertEquals("zero", map.get(0), "0 也是合法的键");
+        assertEquals(3, map.size());
+        assertEquals("c", map.remove(-7));
+        assertNull(map.remove(-7));
+        assertFalse(map.containsKey(-7));
+        assertThrows(NullPointerException.class, () -> map.put(2, null));
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomOperations() {
+        IntObjectMap<Integer> map = new IntObjectMap<>(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // 小键空间保证大量冲突和删除后回填
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 200; key++) {
+            assertEquals(expected.get(key), map.get(key), "键 " + key + " 的值不一致");
+        }
+        assertEquals(expected.size(), map.keys().length);
+        assertEquals(expected.size(), map.values().size());
+    }
+}
@@ -0,0 +1,61 @@
+package com.mt5trading.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverRangeWithBoundedError() {
+        long[] samples = {0, 1, 127, 128, 129, 255, 256, 1_000, 12_345, 1_000_000, 987_654_321L, Long.MAX_VALUE};
+        for (long value : samples) {
+            int index = LatencyHistogram.indexOf(value);
+            long upper = LatencyHistogram.highestValueOf(index);
+            assertTrue(upper >= value, "桶上界应该不小于原值: " + value);
+            assertTrue(upper - value <= value / 64 + 1, "相对误差应该不超过 1/64: " + value);
+        }
+        assertEquals(LatencyHistogram.indexOf(127) + 1, LatencyHistogram.indexOf(128), "线性区与对数区应该连续");
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000); // 1µs ~ 10ms
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_000, histogram.getValueAtPercentile(50), 5_000_000 / 64.0);
+        assertEquals(9_900_000, histogram.getValueAtPercentile(99), 9_900_000 / 64.0);
+        assertEquals(9_990_000, histogram.getValueAtPercentile(99.9), 9_990_000 / 64.0);
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100), "p100 应该等于最大值");
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void testConcurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(400_000, histogram.getCount(), "并发记录不应该丢失样本");
+        assertEquals(99_999, histogram.getMax());
+    }
+}
@@ -0,0 +1,71 @@
+package com.mt5trading.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RollingWindowTest {
+
+    @Test
+    void testStatisticsMatchBruteForce() {
+        int capacity = 20;
+        RollingWindow window = new RollingWindow(capacity);
+        double[] all = new double[5000];
+        Random random = new Random(42);
+
+        for (int n = 0; n < all.length; n++) {
+            all[n] = 35000 + random.nextGaussian() * 30;
+            window.add(all[n]);
+
+            int from = Math.max(0, n + 1 - capacity);
+            int count = n + 1 - from;
+            double sum = 0;
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = from; i <= n; i++) {
+                sum += all[i];
+                min = Math.min(min, all[i]);
+                max = Math.max(max, all[i]);
+            }
+            double mean = sum / count;
+            double sq = 0;
+            for (int i = from; i <= n; i++) {
+                sq += (all[i] - mean) * (all[i] - mean);
+            }
+
+            assertEquals(count, window.size());
+            assertEquals(mean, window.getMean(), 1e-7, "均值应该与逐个计算一致");
+            assertEquals(sq / count, window.getVariance(), 1e-5, "方差应该与逐个计算一致");
+            assertEquals(min, window.getMin(), "最小值应该与逐个计算一致");
+            assertEquals(max, window.getMax(), "最大值应该与逐个计算一致");
+            assertEquals(all[from], window.get(0), "get(0) 应该是最旧的值");
+            assertEquals(all[n], window.getLast());
+        }
+    }
+
+    @Test
+    void testEmptyAndClear() {
+        RollingWindow window = new RollingWindow(3);
+        assertTrue(window.isEmpty());
+        assertTrue(Double.isNaN(window.getMean()));
+        assertThrows(IllegalStateException.class, window::getLast);
+
+        window.add(3);
+        window.add(1);
+        window.add(2);
+        window.add(5);
+        assertTrue(window.isFull());
+        assertEquals(1, window.getMin());
+        assertEquals(5, window.getMax());
+        assertEquals(8, window.getSum(), 1e-9);
+
+        window.clear();
+        assertEquals(0, window.size());
+        window.add(7);
+        assertEquals(7, window.getMin());
+        assertEquals(7, window.getMax());
+        assertEquals(0, window.getVariance(), 1e-12);
+    }
+}